@@ -20,6 +20,7 @@
 package de.bund.bfr.knime.pcml.node.pcmltotable;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -39,6 +40,7 @@ import org.knime.core.node.BufferedDataContainer;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.ExecutionContext;
 
+import de.bund.bfr.knime.pcml.port.PCMLColumnarTable;
 import de.bund.bfr.knime.pcml.port.PCMLUtil;
 import de.bund.bfr.knime.pmm.common.pmmtablemodel.AttributeUtilities;
 import de.bund.bfr.knime.util.Agent;
@@ -58,6 +60,7 @@ public class PCMLDataTable {
 	private DataTableSpec spec;
 	private BufferedDataTable table;
 	private PCMLDocument pcmlDoc;
+	private Map<String, PCMLColumnarTable> tables;
 
 	/**
 	 * Initialize wit the given docuement.
@@ -66,8 +69,20 @@ public class PCMLDataTable {
 	 *            the PCML document.
 	 */
 	public PCMLDataTable(final PCMLDocument pcmlDoc) {
-		this.pcmlDoc = pcmlDoc;
+		this(pcmlDoc, Collections.<String, PCMLColumnarTable>emptyMap());
+	}
 
+	/**
+	 * Initialize with the given document and the columnar tables it references.
+	 * 
+	 * @param pcmlDoc
+	 *            the PCML document.
+	 * @param tables
+	 *            the columnar tables by their id.
+	 */
+	public PCMLDataTable(final PCMLDocument pcmlDoc, final Map<String, PCMLColumnarTable> tables) {
+		this.pcmlDoc = pcmlDoc;
+		this.tables = tables;
 	}
 
 	public DataTableSpec getSpec() {
@@ -94,6 +109,11 @@ public class PCMLDataTable {
 				Map<String, NameAndDbId> columnList = createColumnList(data.getDataTable().getColumnList());
 				NameAndDbId c0 = columnList.get("c0");
 				NameAndDbId timeColumn = (c0 != null && c0.getName().startsWith(AttributeUtilities.TIME)) ? c0 : null;
+				String tableId = PCMLUtil.getColumnarTableId(data.getDataTable());
+				if (tableId != null) {
+					addRows(tables.get(tableId), columnList, timeColumn, time, processNode, columns, cont);
+					continue;
+				}
 				double curTime = 0;
 				for (Row row : data.getDataTable().getInlineTable().getRowArray()) {
 					// create a cursor    			
@@ -130,15 +150,49 @@ public class PCMLDataTable {
 		return table;
 	}
 
+	/**
+	 * Adds the rows of a columnar table to the container. The values are read
+	 * directly from the columns, so no XML or text is created in between.
+	 */
+	private static void addRows(final PCMLColumnarTable data, final Map<String, NameAndDbId> columnList,
+			final NameAndDbId timeColumn, double time, final ProcessNode processNode,
+			final Map<NameAndDbId, Integer> columns, final BufferedDataContainer cont) {
+		if (data == null) {
+			throw new IllegalStateException("Missing columnar table of process node " + processNode.getId());
+		}
+		// output index of every column of the table and the index of the time column
+		int[] indices = new int[data.getColumnCount()];
+		int timeIndex = -1;
+		for (int i = 0; i < indices.length; i++) {
+			NameAndDbId column = columnList.get(data.getColumnName(i));
+			indices[i] = columns.get(column) + NUM_STATIC_COLUMNS;
+			if (timeColumn != null && timeColumn.equals(column)) timeIndex = i;
+		}
+		double stepWidth = timeColumn != null ? 0.0 : processNode.getParameters().getDuration()
+				/ processNode.getParameters().getNumberComputations();
+
+		for (int row = 0; row < data.getRowCount(); row++) {
+			double theTime = time;
+			if (timeColumn != null) {
+				theTime = timeIndex < 0 || data.isMissing(timeIndex, row) ? 0.0 : data.getValue(timeIndex, row);
+			}
+			DataCell[] cells = createStaticCells(theTime, processNode, columns);
+			for (int i = 0; i < indices.length; i++) {
+				if (!data.isMissing(i, row)) {
+					cells[indices[i]] = new DoubleCell(data.getValue(i, row));
+				}
+			}
+			cont.addRowToTable(new DefaultRow(theTime + "_" + processNode.getId(), cells));
+			if (timeColumn == null) {
+				// increment time by the time step of the process node
+				time = time + stepWidth;
+			}
+		}
+	}
+
 	/** Create the cells of a single row of the output table. */
 	public static DataCell[] createDataCells(final double time, final Map<NameAndDbId, String> rowData, final ProcessNode processNode, final Map<NameAndDbId, Integer> columns) {
-		DataCell[] cells = new DataCell[NUM_STATIC_COLUMNS + columns.size()];
-		// fill with missing cells
-		Arrays.fill(cells, DataType.getMissingCell());
-		// set static cells
-		cells[0] = new DoubleCell(time);
-		cells[1] = new StringCell(processNode.getProcess().getName());
-		cells[2] = new StringCell(processNode.getId());
+		DataCell[] cells = createStaticCells(time, processNode, columns);
 		// set row contents
 		for (NameAndDbId name : rowData.keySet()) {
 			int index = columns.get(name) + NUM_STATIC_COLUMNS;
@@ -152,6 +206,18 @@ public class PCMLDataTable {
 		return cells;
 	}
 
+	/** Create the cells of a row with only the static cells set. */
+	private static DataCell[] createStaticCells(final double time, final ProcessNode processNode, final Map<NameAndDbId, Integer> columns) {
+		DataCell[] cells = new DataCell[NUM_STATIC_COLUMNS + columns.size()];
+		// fill with missing cells
+		Arrays.fill(cells, DataType.getMissingCell());
+		// set static cells
+		cells[0] = new DoubleCell(time);
+		cells[1] = new StringCell(processNode.getProcess().getName());
+		cells[2] = new StringCell(processNode.getId());
+		return cells;
+	}
+
 	/**
 	 * Creates a mapping of the element name of a column to the NameAndDbId
 	 * object of the column.
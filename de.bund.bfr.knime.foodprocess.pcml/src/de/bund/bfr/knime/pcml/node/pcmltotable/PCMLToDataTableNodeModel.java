@@ -76,7 +76,7 @@ public class PCMLToDataTableNodeModel extends NodeModel {
     		throws Exception {
     	PCMLPortObject pcmlPortObject = (PCMLPortObject)inObjects[0];
     	PCMLDocument pcmlDoc = pcmlPortObject.getPcmlDoc();
-    	PCMLDataTable pcmlData = new PCMLDataTable(pcmlDoc);
+    	PCMLDataTable pcmlData = new PCMLDataTable(pcmlDoc, pcmlPortObject.getTables());
     	
     	BufferedDataTable outTable = pcmlData.execute(exec);
     	return new PortObject[]{outTable};
@@ -84,7 +84,7 @@ public class PCMLToXMLNodeModel extends NodeModel {
     protected PortObject[] execute(final PortObject[] inObjects, final ExecutionContext exec)
     		throws Exception {
     	PCMLPortObject pcmlPortObject = (PCMLPortObject)inObjects[0];
-    	PCMLDocument pcmlDoc = pcmlPortObject.getPcmlDoc();
+    	PCMLDocument pcmlDoc = pcmlPortObject.getInlinePcmlDoc();
 
     	DataCell xmlCell = XMLCellFactory.create(pcmlDoc.toString());
     	BufferedDataContainer cont = exec.createDataContainer(createOutSpec());
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pcml.port;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.xml.namespace.QName;
+
+import org.apache.xmlbeans.XmlCursor;
+
+import de.bund.bfr.pcml10.InlineTableDocument.InlineTable;
+import de.bund.bfr.pcml10.RowDocument.Row;
+
+/**
+ * The data of a process node stored column by column as doubles instead of
+ * XML rows. The PCML document references it from a TableLocator of the
+ * DataTable, see {@link PCMLUtil#addTableLocator}. The columns are named like
+ * the columns of the ColumnList, e.g. "c1".
+ * <p>
+ * A table must not be changed after it has been passed to a
+ * {@link PCMLPortObject}.
+ */
+public class PCMLColumnarTable {
+	private static final int MAGIC = 0x50434d54; // "PCMT"
+	private static final int VERSION = 1;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final String[] columnNames;
+	private final double[][] columns;
+	private final BitSet[] missing;
+	private int rowCount;
+
+	/**
+	 * Creates an empty table.
+	 * @param columnNames the element names of the columns
+	 */
+	public PCMLColumnarTable(final String... columnNames) {
+		this(columnNames, INITIAL_CAPACITY);
+	}
+
+	private PCMLColumnarTable(final String[] columnNames, final int capacity) {
+		this.columnNames = columnNames.clone();
+		columns = new double[columnNames.length][capacity];
+		missing = new BitSet[columnNames.length];
+		for (int i = 0; i < missing.length; i++) {
+			missing[i] = new BitSet();
+		}
+	}
+
+	/**
+	 * Appends a row.
+	 * @param values the values in the order of the columns, null for missing
+	 * values
+	 */
+	public void addRow(final Double... values) {
+		if (values.length != columnNames.length) {
+			throw new IllegalArgumentException("Expected " + columnNames.length
+					+ " values, got " + values.length);
+		}
+		if (columns.length > 0 && rowCount == columns[0].length) {
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = Arrays.copyOf(columns[i], rowCount * 2);
+			}
+		}
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] == null) {
+				missing[i].set(rowCount);
+			} else {
+				columns[i][rowCount] = values[i];
+			}
+		}
+		rowCount++;
+	}
+
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(final int column) {
+		return columnNames[column];
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	public boolean isMissing(final int column, final int row) {
+		return missing[column].get(row);
+	}
+
+	public double getValue(final int column, final int row) {
+		return columns[column][row];
+	}
+
+	/**
+	 * Appends the rows as XML rows to the given inline table. This is the
+	 * format used when a document is exported.
+	 * @param inlineTable the table to append to
+	 * @param namespace the namespace of the PCML document
+	 */
+	public void writeTo(final InlineTable inlineTable, final String namespace) {
+		QName[] names = new QName[columnNames.length];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = new QName(namespace, columnNames[i]);
+		}
+		for (int row = 0; row < rowCount; row++) {
+			Row xmlRow = inlineTable.addNewRow();
+			XmlCursor cur = xmlRow.newCursor();
+			cur.toFirstContentToken();
+			for (int i = 0; i < names.length; i++) {
+				if (isMissing(i, row)) {
+					cur.insertElement(names[i]);
+				} else {
+					cur.insertElementWithText(names[i], Double.toString(columns[i][row]));
+				}
+			}
+			cur.dispose();
+		}
+	}
+
+	/**
+	 * Writes the table in a compact binary format. The stream is not closed.
+	 * @param out the stream to write to
+	 */
+	public void save(final OutputStream out) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(MAGIC);
+		data.writeInt(VERSION);
+		data.writeInt(columnNames.length);
+		data.writeInt(rowCount);
+		for (int i = 0; i < columnNames.length; i++) {
+			data.writeUTF(columnNames[i]);
+			long[] bits = missing[i].toLongArray();
+			data.writeInt(bits.length);
+			for (long b : bits) {
+				data.writeLong(b);
+			}
+			for (int row = 0; row < rowCount; row++) {
+				data.writeDouble(columns[i][row]);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads a table written by {@link #save(OutputStream)}. The stream is not
+	 * closed.
+	 * @param in the stream to read from
+	 */
+	public static PCMLColumnarTable load(final InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("Not a PCML columnar table");
+		}
+		int version = data.readInt();
+		if (version != VERSION) {
+			throw new IOException("Unsupported PCML columnar table version " + version);
+		}
+		int columnCount = data.readInt();
+		int rowCount = data.readInt();
+
+		String[] columnNames = new String[columnCount];
+		PCMLColumnarTable table = new PCMLColumnarTable(columnNames, Math.max(rowCount, 1));
+		for (int i = 0; i < columnCount; i++) {
+			table.columnNames[i] = data.readUTF();
+			long[] bits = new long[data.readInt()];
+			for (int j = 0; j < bits.length; j++) {
+				bits[j] = data.readLong();
+			}
+			table.missing[i] = BitSet.valueOf(bits);
+			for (int row = 0; row < rowCount; row++) {
+				table.columns[i][row] = data.readDouble();
+			}
+		}
+		table.rowCount = rowCount;
+		return table;
+	}
+}
@@ -24,6 +24,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -70,6 +71,9 @@ public class PCMLPortObject implements PortObject {
 	private String parentId;
 	/** The index of the outport this PortObject comes from. */
 	private int outportIndex;
+	/** The columnar tables referenced by the PCML document, by their id. */
+	private Map<String, PCMLColumnarTable> tables = 
+		new LinkedHashMap<String, PCMLColumnarTable>();
 	
 	/** Static serializer as demanded from {@link PortObject} framework.*/
 	private static PCMLPortObjectSerializer serializer;
@@ -102,6 +106,21 @@ public class PCMLPortObject implements PortObject {
 		this.parentId = parentId;
 		this.outportIndex = outportIndex;
     }
+
+    /** Create a port object whose document references columnar tables.
+     * @param pcml The PCML document
+     * @param partenId the id of the ProcessNode that created this Port.
+     * @param the index of the outport
+     * @param the spec of the outport
+     * @param tables the columnar tables referenced by the document
+     */
+    public PCMLPortObject(final PCMLDocument pcml, 
+    		final String parentId, final int outportIndex,
+    		final PCMLPortObjectSpec pcmlSpec,
+    		final Map<String, PCMLColumnarTable> tables) {
+    	this(pcml, parentId, outportIndex, pcmlSpec);
+    	this.tables.putAll(tables);
+    }
     
     /** Used for deserilisation in PCMLPortObjectSerializer. */
     PCMLPortObject() {
@@ -118,6 +137,25 @@ public class PCMLPortObject implements PortObject {
 		return outportIndex;
 	}
 
+	/** @return the columnar tables referenced by the document, by their id */
+	public Map<String, PCMLColumnarTable> getTables() {
+		return Collections.unmodifiableMap(tables);
+	}
+
+	/**
+	 * Returns the document with all data tables inline. Unlike
+	 * {@link #getPcmlDoc()} this is a complete PCML document that can be
+	 * exported.
+	 */
+	public PCMLDocument getInlinePcmlDoc() {
+		return tables.isEmpty() ? pcmlDoc : PCMLUtil.inline(pcmlDoc, tables);
+	}
+
+	/** Used for deserilisation in PCMLPortObjectSerializer. */
+	void addTable(final String id, final PCMLColumnarTable table) {
+		tables.put(id, table);
+	}
+
 	/**
      * Returns true when this port is used by this process node, i.e. matrices
      * are sent out of this port.
@@ -20,6 +20,7 @@
 package de.bund.bfr.knime.pcml.port;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.zip.ZipEntry;
 
 import org.knime.core.data.util.NonClosableInputStream;
@@ -41,6 +42,7 @@ public class PCMLPortObjectSerializer extends
 		PortObjectSerializer<PCMLPortObject> {
     private static final String PCML_FILE = "pcml.xml";
     private static final String PROPERTIES_FILE = "properties.xml";
+    private static final String TABLE_PREFIX = "table_";
     
 	/**
      * {@inheritDoc}
@@ -56,6 +58,12 @@ public class PCMLPortObjectSerializer extends
         cnt.saveToXML(noCloseOut);    		
         out.putNextEntry(new ZipEntry(PCML_FILE));
         portObject.savePCML(noCloseOut);
+        // the columnar tables follow the document
+        for (Map.Entry<String, PCMLColumnarTable> table 
+        		: portObject.getTables().entrySet()) {
+        	out.putNextEntry(new ZipEntry(TABLE_PREFIX + table.getKey()));
+        	table.getValue().save(noCloseOut);
+        }
         out.close();    
 	}
 	
@@ -92,6 +100,14 @@ public class PCMLPortObjectSerializer extends
         } catch (Exception e) {
             throw new IOException(e);
         }
+        // read columnar tables
+        ZipEntry tableEntry;
+        while ((tableEntry = in.getNextEntry()) != null) {
+        	if (tableEntry.getName().startsWith(TABLE_PREFIX)) {
+        		String id = tableEntry.getName().substring(TABLE_PREFIX.length());
+        		portObject.addTable(id, PCMLColumnarTable.load(noCloseIn));
+        	}
+        }
         in.close();
         return portObject;
 	}
@@ -59,7 +59,7 @@ public class PCMLPortObjectView extends JComponent {
 	    JTree tree = new JTree();
 		try {
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			PCMLFormatter.save(portObject.getPcmlDoc(), out);
+			PCMLFormatter.save(portObject.getInlinePcmlDoc(), out);
 	        out.close();
 			SAXParserFactory saxFac = SAXParserFactory.newInstance();
 			SAXParser parser = saxFac.newSAXParser();
@@ -36,6 +36,8 @@ import de.bund.bfr.knime.util.ValueAndUnit;
 import de.bund.bfr.pcml10.AgentIncredientDocument.AgentIncredient;
 import de.bund.bfr.pcml10.AgentRecipeDocument.AgentRecipe;
 import de.bund.bfr.pcml10.ApplicationDocument.Application;
+import de.bund.bfr.pcml10.DataTableDocument.DataTable;
+import de.bund.bfr.pcml10.ExtensionDocument.Extension;
 import de.bund.bfr.pcml10.HeaderDocument.Header;
 import de.bund.bfr.pcml10.MatrixIncredientDocument.MatrixIncredient;
 import de.bund.bfr.pcml10.MatrixRecipeDocument.MatrixRecipe;
@@ -49,6 +51,10 @@ import de.bund.bfr.pcml10.ProcessDataDocument.ProcessData;
 import de.bund.bfr.pcml10.ProcessNodeDocument.ProcessNode;
 
 public class PCMLUtil {
+	/** Name of the TableLocator extension that references a columnar table. */
+	public static final String COLUMNAR_TABLE = "columnarTable";
+	private static final String EXTENDER = "KNIME";
+
 	/** Creates an empty PCMLDocument. */
 	public static PCMLDocument create() {
 		PCMLDocument doc = PCMLDocument.Factory.newInstance();
@@ -138,6 +144,81 @@ public class PCMLUtil {
 		return doc;
 	}
 	
+	/**
+	 * Collects the columnar tables of the given ports. The tables are
+	 * referenced by the document created by {@link #merge(PortObject[])}.
+	 */
+	public static Map<String, PCMLColumnarTable> mergeTables(
+			final PortObject[] portObjects) {
+		Map<String, PCMLColumnarTable> tables = 
+			new LinkedHashMap<String, PCMLColumnarTable>();
+		for (PortObject portObject : portObjects) {
+			if (null != portObject) {
+				tables.putAll(((PCMLPortObject)portObject).getTables());
+			}
+		}
+		return tables;
+	}
+
+	/**
+	 * Lets the data table reference a columnar table instead of holding its
+	 * rows inline.
+	 * @param table the data table
+	 * @param id the id the columnar table is stored with
+	 */
+	public static void addTableLocator(final DataTable table, final String id) {
+		Extension extension = table.addNewTableLocator().addNewExtension();
+		extension.setExtender(EXTENDER);
+		extension.setName(COLUMNAR_TABLE);
+		extension.setValue(id);
+	}
+
+	/**
+	 * Returns the id of the columnar table referenced by the data table or
+	 * null if the rows are inline.
+	 */
+	public static String getColumnarTableId(final DataTable table) {
+		if (!table.isSetTableLocator()) {
+			return null;
+		}
+		for (Extension extension : table.getTableLocator().getExtensionArray()) {
+			if (COLUMNAR_TABLE.equals(extension.getName())) {
+				return extension.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Creates a copy of the document where all referenced columnar tables are
+	 * replaced by inline tables. Use this when the document is exported as XML.
+	 * @param doc the PCML document
+	 * @param tables the columnar tables referenced by the document
+	 */
+	public static PCMLDocument inline(final PCMLDocument doc,
+			final Map<String, PCMLColumnarTable> tables) {
+		PCMLDocument inlineDoc = (PCMLDocument)doc.copy();
+		if (inlineDoc.getPCML().getProcessChainData() == null) {
+			return inlineDoc;
+		}
+		for (ProcessData data : 
+				inlineDoc.getPCML().getProcessChainData().getProcessDataArray()) {
+			DataTable table = data.getDataTable();
+			String id = getColumnarTableId(table);
+			if (id != null) {
+				PCMLColumnarTable columnarTable = tables.get(id);
+				if (columnarTable == null) {
+					throw new IllegalStateException(
+							"Missing columnar table " + id);
+				}
+				table.unsetTableLocator();
+				columnarTable.writeTo(table.addNewInlineTable(), 
+						getPCMLNamespace(inlineDoc));
+			}
+		}
+		return inlineDoc;
+	}
+
 	/** Appends the second PCMLDocument to the first. 
 	 * @param doc the document that will be appended
 	 * @param toAppend appends doc with elements of this document 
@@ -22,8 +22,7 @@ public class PredictionValuesTest {
 		assertFalse(predictionValues.getUnitTemp().isEmpty());
 		assertEquals("log10(count/g)", predictionValues.getUnitLog10N());
 		assertEquals("bar", predictionValues.getUnitPres());
-		assertNull(predictionValues.getPvnd());
-		assertNull(predictionValues.getChartPanel());
+		assertNull(predictionValues.getEngine());
 	}
 	
 	@Test
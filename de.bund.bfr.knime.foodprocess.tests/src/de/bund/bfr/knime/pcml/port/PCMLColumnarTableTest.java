@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pcml.port;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+public class PCMLColumnarTableTest {
+
+	@Test
+	public void testAddRow() {
+		PCMLColumnarTable table = new PCMLColumnarTable("c1", "c2");
+		for (int i = 0; i < 100; i++) {
+			table.addRow((double) i, i % 2 == 0 ? null : -1.0 * i);
+		}
+
+		assertEquals(2, table.getColumnCount());
+		assertEquals("c2", table.getColumnName(1));
+		assertEquals(100, table.getRowCount());
+		assertEquals(99.0, table.getValue(0, 99), 0.0);
+		assertTrue(table.isMissing(1, 98));
+		assertFalse(table.isMissing(1, 99));
+		assertEquals(-99.0, table.getValue(1, 99), 0.0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddRowWithWrongNumberOfValues() {
+		new PCMLColumnarTable("c1", "c2").addRow(1.0);
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		PCMLColumnarTable table = new PCMLColumnarTable("c1", "c2", "c3");
+		table.addRow(20.0, null, Double.NaN);
+		table.addRow(21.5, 7.0, 0.97);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		table.save(out);
+		PCMLColumnarTable loaded = PCMLColumnarTable.load(new ByteArrayInputStream(out.toByteArray()));
+
+		assertEquals(3, loaded.getColumnCount());
+		assertEquals("c3", loaded.getColumnName(2));
+		assertEquals(2, loaded.getRowCount());
+		assertEquals(20.0, loaded.getValue(0, 0), 0.0);
+		assertTrue(loaded.isMissing(1, 0));
+		assertFalse(loaded.isMissing(2, 0));
+		assertTrue(Double.isNaN(loaded.getValue(2, 0)));
+		assertEquals(0.97, loaded.getValue(2, 1), 0.0);
+	}
+}
@@ -90,7 +90,7 @@ public class ViewNodeDialog extends DataAwareNodeDialogPane {
 	protected void loadSettingsFrom(NodeSettingsRO settings,
 			PortObject[] inObjects) throws NotConfigurableException { 
     	PCMLPortObject pcmlPortObject = (PCMLPortObject) inObjects[0];
-    	PCMLDocument pcmlDoc = pcmlPortObject.getPcmlDoc();
+    	PCMLDocument pcmlDoc = pcmlPortObject.getInlinePcmlDoc();
 
     	viewUi.setDoc(pcmlDoc);
 
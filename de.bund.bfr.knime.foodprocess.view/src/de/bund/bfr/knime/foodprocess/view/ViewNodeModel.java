@@ -93,7 +93,7 @@ public class ViewNodeModel extends NodeModel {
 			throws Exception {
     	PCMLPortObject pcmlPortObject = (PCMLPortObject)inObjects[0];
     	PCMLDocument pcmlDoc = pcmlPortObject.getPcmlDoc();
-    	PCMLDataTable pcmlData = new PCMLDataTable(pcmlDoc);
+    	PCMLDataTable pcmlData = new PCMLDataTable(pcmlDoc, pcmlPortObject.getTables());
     	
     	BufferedDataTable outTable = pcmlData.execute(exec);
     	table = outTable;
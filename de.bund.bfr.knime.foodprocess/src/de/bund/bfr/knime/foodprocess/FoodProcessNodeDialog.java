@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.List;
 
 import javax.swing.DefaultListCellRenderer;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
 import javax.swing.JList;
@@ -82,6 +83,7 @@ public class FoodProcessNodeDialog extends NodeDialogPane implements ActionListe
 	}
 
 	private final FoodProcessUi fpui;
+	private final JCheckBox columnarTablesCheck;
 	//private final DbConfigurationUi dbui;
 	private Bfrdb db = null;
 	private JComboBox<EmReaderUi_Agent> cb = null;
@@ -100,7 +102,11 @@ public class FoodProcessNodeDialog extends NodeDialogPane implements ActionListe
 		this.settings = new FoodProcessNodeSettings();
 		//addTab( "FoodProcess settings", new JnFoodProcessUi() );
 		fpui = new FoodProcessUi();
-		addTab("FoodProcess settings", fpui);
+		columnarTablesCheck = new JCheckBox("Store process data as compact columnar tables (exported as XML rows)");
+		JPanel fpPanel = new JPanel(new BorderLayout());
+		fpPanel.add(fpui, BorderLayout.CENTER);
+		fpPanel.add(columnarTablesCheck, BorderLayout.SOUTH);
+		addTab("FoodProcess settings", fpPanel);
 		/*
 		 * dbui = new DbConfigurationUi(true);
 		 * dbui.getApplyButton().addActionListener(this); try { // fetch
@@ -175,6 +181,7 @@ public class FoodProcessNodeDialog extends NodeDialogPane implements ActionListe
 	public void saveSettingsTo(final NodeSettingsWO s) {
 		try {
 			settings.setFoodProcessSetting(fpui.getSettings());
+			settings.setColumnarTables(columnarTablesCheck.isSelected());
 
 			//System.err.println("save : " + fpui.getSettings().getProcessName());
 			settings.saveSettings(s);
@@ -262,6 +269,7 @@ public class FoodProcessNodeDialog extends NodeDialogPane implements ActionListe
 
 		FoodProcessSetting fps = settings.getFoodProcessSetting();
 		fpui.setSettings(fps);
+		columnarTablesCheck.setSelected(settings.isColumnarTables());
 		initProcessName = fps.getProcessName();
 		//System.err.println("load : " + fps.getProcessName());
 
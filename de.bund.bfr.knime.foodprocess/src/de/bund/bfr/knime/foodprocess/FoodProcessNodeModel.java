@@ -22,6 +22,7 @@ package de.bund.bfr.knime.foodprocess;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -29,7 +30,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
-import javax.swing.JPanel;
 import javax.xml.namespace.QName;
 
 import org.apache.xmlbeans.XmlCursor;
@@ -55,6 +55,7 @@ import de.bund.bfr.knime.foodprocess.lib.FoodProcessSetting;
 import de.bund.bfr.knime.foodprocess.lib.OutPortSetting;
 import de.bund.bfr.knime.foodprocess.lib.ParametersSetting;
 import de.bund.bfr.knime.foodprocess.ui.MyChartDialog;
+import de.bund.bfr.knime.pcml.port.PCMLColumnarTable;
 import de.bund.bfr.knime.pcml.port.PCMLPortObject;
 import de.bund.bfr.knime.pcml.port.PCMLPortObjectSpec;
 import de.bund.bfr.knime.pcml.port.PCMLUtil;
@@ -64,9 +65,6 @@ import de.bund.bfr.knime.pmm.common.IndepXml;
 import de.bund.bfr.knime.pmm.common.ParamXml;
 import de.bund.bfr.knime.pmm.common.PmmXmlDoc;
 import de.bund.bfr.knime.pmm.common.PmmXmlElementConvertable;
-import de.bund.bfr.knime.pmm.common.chart.ChartAllPanel;
-import de.bund.bfr.knime.pmm.common.chart.ChartConfigPanel;
-import de.bund.bfr.knime.pmm.common.chart.ChartSamplePanel;
 import de.bund.bfr.knime.pmm.common.generictablemodel.KnimeTuple;
 import de.bund.bfr.knime.pmm.common.pmmtablemodel.AttributeUtilities;
 import de.bund.bfr.knime.pmm.common.pmmtablemodel.Model1Schema;
@@ -75,7 +73,7 @@ import de.bund.bfr.knime.pmm.common.units.Categories;
 import de.bund.bfr.knime.pmm.common.units.Category;
 import de.bund.bfr.knime.pmm.common.units.ConvertException;
 import de.bund.bfr.knime.pmm.estimatedmodelreader.EmReaderUi;
-import de.bund.bfr.knime.pmm.predictorview.PredictorViewNodeDialog;
+import de.bund.bfr.knime.pmm.predictorview.PredictionEngine;
 import de.bund.bfr.knime.pmm.predictorview.SettingsHelper;
 import de.bund.bfr.knime.util.Agent;
 import de.bund.bfr.knime.util.FormulaEvaluator;
@@ -275,7 +273,26 @@ public class FoodProcessNodeModel extends NodeModel {
 			index++;
 		}
 
-        InlineTable inlineTable = table.addNewInlineTable();
+		// all data columns in the order of the row elements
+		List<QName> dataCols = new ArrayList<QName>(Arrays.asList(tempCol, phCol, awCol, pressureCol, totalVolumeCol));
+		dataCols.addAll(matrixCols.keySet());
+		dataCols.addAll(agentCols.keySet());
+
+		// store the rows either inline or in a columnar table referenced by the document
+		InlineTable inlineTable = null;
+		PCMLColumnarTable columnarTable = null;
+		String columnarTableId = null;
+		if (settings.isColumnarTables()) {
+			String[] names = new String[dataCols.size()];
+			for (int i = 0; i < names.length; i++) {
+				names[i] = dataCols.get(i).getLocalPart();
+			}
+			columnarTable = new PCMLColumnarTable(names);
+			columnarTableId = UUID.randomUUID().toString();
+			PCMLUtil.addTableLocator(table, columnarTableId);
+		} else {
+			inlineTable = table.addNewInlineTable();
+		}
         
 		Map<Agent, ValueAndUnit> lastAgentsQ = new LinkedHashMap<Agent, ValueAndUnit>();
         String lastTemp = "", lastPH = "", lastAW = "", lastPres = "";
@@ -300,16 +317,9 @@ public class FoodProcessNodeModel extends NodeModel {
 	        	else set = emrui.getSet();
 	        	set.setDisplayHighlighted(false);
 	        	PredictionValues pv = new PredictionValues(set);
-				PredictorViewNodeDialog pvnd = null;
-				ChartAllPanel chartPanel = null;
 				if (set != null && set.getSelectedTuples() != null && set.getSelectedTuples().size() > 0 && set.getSelectedTuples().get(0) != null) {
-					// PredictorViewNodeDialog
-		    		pvnd = new PredictorViewNodeDialog(set.getSelectedTuples(), set, true, false);
-					pv.setPvnd(pvnd);
-					// ChartAllPanel
-		    		JPanel mainComponent = pvnd.getMainComponent();
-		    		chartPanel = (ChartAllPanel)mainComponent.getComponent(0);
-		    		pv.setChartPanel(chartPanel);
+					// PredictionEngine
+		    		pv.setEngine(new PredictionEngine(set.getSelectedTuples(), set));
 		    		// unitTime
 		    		pv.setUnitTime(set.getUnitX());
 		    		String selModelID = null;
@@ -376,42 +386,21 @@ public class FoodProcessNodeModel extends NodeModel {
 						
 			Double lastCalcedConc = null;
 			for (double t=0;t<=fps.getDuration();t+=stepWidth) { // start with t=ls better, because t=0 is occupied by the previous process node? Achtung: falls Änderung: (increment time by the time step of the process node) muss auch in PCMLDataTable.execute() geändert (in der Schleife nach oben verlegt) werden!!!
-				Row row = inlineTable.addNewRow();
-				XmlCursor cur = row.newCursor();
-				cur.toFirstContentToken();
 				Double tempVal = getYVal(xy_T, t);
-				if (tempVal == null) {
-					cur.insertElement(tempCol);
-				} else {
-					cur.insertElementWithText(tempCol, tempVal.toString());
-					lastTemp = tempVal.toString();
-				}
+				if (tempVal != null) lastTemp = tempVal.toString();
 				Double phVal = getYVal(xy_ph, t);
-				if (phVal == null) {
-					cur.insertElement(phCol);
-				} else {
-					cur.insertElementWithText(phCol, phVal.toString());
-					lastPH = phVal.toString();
-				}
+				if (phVal != null) lastPH = phVal.toString();
 				Double awVal = getYVal(xy_aw, t);
-				if (awVal == null) {
-					cur.insertElement(awCol);
-				} else {
-					cur.insertElementWithText(awCol, awVal.toString());
-					lastAW = awVal.toString();
-				}
+				if (awVal != null) lastAW = awVal.toString();
 				Double presVal = getYVal(xy_pres, t);
-				if (presVal == null) {
-					cur.insertElement(pressureCol);
-				} else {
-					cur.insertElementWithText(pressureCol, presVal.toString());
-					lastPres = presVal.toString();
-				}
-				
-				cur.insertElementWithText(totalVolumeCol, (instantMix.getVolume() / 1000.0)+"");
+				if (presVal != null) lastPres = presVal.toString();
+
+				// values of the row in the order of dataCols, null for missing values
+				List<Double> values = new ArrayList<Double>(dataCols.size());
+				values.addAll(Arrays.asList(tempVal, phVal, awVal, presVal, instantMix.getVolume() / 1000.0));
 				
 		        for (Map.Entry<QName, Double> entry : matrixCols.entrySet()) {
-					cur.insertElementWithText(entry.getKey(), "" + (entry.getValue() / 1000.0)); // inSpec.getVolume() * 
+		        	values.add(entry.getValue() / 1000.0); // inSpec.getVolume() * 
 		        }
 		        for (Map.Entry<QName, ValueAndUnit> entry : agentCols.entrySet()) {
 		        	Agent a = qnameMap.get(entry.getKey());
@@ -424,12 +413,27 @@ public class FoodProcessNodeModel extends NodeModel {
 
 		        	if (newVal != null) agentCols.put(entry.getKey(), new ValueAndUnit(newVal, vau.getUnit(), vau.getObject()));
 
-					cur.insertElementWithText(entry.getKey(), "" + newVal);
+					values.add(newVal);
 					lastAgentsQ.put(qnameMap.get(entry.getKey()), new ValueAndUnit(newVal, vau.getUnit(), vau.getObject()));
 					// absolute cfus:
 					// Math.pow(10, c_Bacillus) * c_totalVol
 		        }
-				cur.dispose();
+
+		        if (columnarTable != null) {
+		        	columnarTable.addRow(values.toArray(new Double[values.size()]));
+		        } else {
+					Row row = inlineTable.addNewRow();
+					XmlCursor cur = row.newCursor();
+					cur.toFirstContentToken();
+					for (int i = 0; i < values.size(); i++) {
+						if (values.get(i) == null) {
+							cur.insertElement(dataCols.get(i));
+						} else {
+							cur.insertElementWithText(dataCols.get(i), values.get(i).toString());
+						}
+					}
+					cur.dispose();
+		        }
 				double progress = t / fps.getDuration();
 				exec.setProgress(progress);
 				try {exec.checkCanceled();}
@@ -446,6 +450,8 @@ public class FoodProcessNodeModel extends NodeModel {
     	}
 
     	// Set outports
+		Map<String, PCMLColumnarTable> tables = PCMLUtil.mergeTables(inObjects);
+		if (columnarTable != null) tables.put(columnarTableId, columnarTable);
 		OutPortSetting[] ops = fps.getOutPortSetting();
         PortObject[] out = new PortObject[N_PORT_OUT+(doModelsOut?1:0)];
         for (int i = 0; i < N_PORT_OUT; i++) {
@@ -490,7 +496,7 @@ public class FoodProcessNodeModel extends NodeModel {
                 outport.setFlowSpeed("0.0");
             }
             //out[i] = PCMLPortObject.create(pcmlDoc.toString());
-            out[i] = new PCMLPortObject(pcmlDoc, processNodeID, i, outSpecs[i]);
+            out[i] = new PCMLPortObject(pcmlDoc, processNodeID, i, outSpecs[i], tables);
         }
         if (doModelsOut) {
         	BufferedDataContainer buf = exec.createDataContainer(SchemaFactory.createM1DataSchema().createSpec());
@@ -523,14 +529,14 @@ public class FoodProcessNodeModel extends NodeModel {
     	Double newVal = vau.getValue();
     	boolean isPercent = false;
 
-    	PredictorViewNodeDialog pvnd = pv.getPvnd();
-			if (pvnd != null) {
+    	PredictionEngine engine = pv.getEngine();
+			if (engine != null) {
 				Map<String, Double> gpv = pv.getSet().getParamXValues();
-				Collection<String> col = pvnd.getReader().getTempParam().values();
+				Collection<String> col = engine.getReader().getTempParam().values();
 				String tempAlt = col != null && col.size() > 0 ? col.toArray()[0].toString() : null;
-				col = pvnd.getReader().getPhParam().values();
+				col = engine.getReader().getPhParam().values();
 				String phAlt = col != null && col.size() > 0 ? col.toArray()[0].toString() : null;
-				col = pvnd.getReader().getAwParam().values();
+				col = engine.getReader().getAwParam().values();
 				String awAlt = col != null && col.size() > 0 ? col.toArray()[0].toString() : null;
 
 				for (String key : gpv.keySet()) {
@@ -576,16 +582,16 @@ public class FoodProcessNodeModel extends NodeModel {
 				if (presVal != null && !gpv.containsKey("Pressure")) {
 					if (warnings.indexOf("Pressure not defined in Model\n") < 0) warnings += "Pressure not defined in Model\n";
 				}
-				pv.getChartPanel().getConfigPanel().setParamXValues(gpv);
+				engine.setParamXValues(gpv);
 
 				Double newT = 0.0;
 				if (lastConc != null) {
 					Double lastConcConverted = convert(vau.getCategory(), vau.getUnit(), lastConc, pv.getSet().getUnitY());
-					newT = getTime(pvnd, lastConcConverted);
+					newT = getTime(engine, lastConcConverted);
 					if (newT == null) {
 						if (warnings.indexOf("Some concentrations are not calculatable\n") < 0) warnings += "Some concentrations are not calculatable\n";
 						System.err.println("not calculatable: " + lastConc + "\t" + lastConcConverted + "\t" + t + "\t" + newT + "\t" + tempVal + "\t" + phVal + "\t" + awVal);
-						//getTime(pvnd, lastConcConverted);
+						//getTime(engine, lastConcConverted);
 						//System.err.println(parser.evaluate(f) + "\t" + paramX + "\t" + paramY + "\t" + unitX + "\t" + unitY + "\t" + y + "\t" + minX + "\t" + inverseTransform(minX, transformX) + "\t" + convertFromUnit(paramX, inverseTransform(minX, transformX),unitX));
 						return null;
 					}
@@ -595,7 +601,7 @@ public class FoodProcessNodeModel extends NodeModel {
 					}
 				}
 				Double newTime = convert(Categories.getTimeCategory(), timeUnit, newT, pv.getUnitTime()); //  Categories.getTimeCategory().getStandardUnit()
-				Double theNewVal = getNextLogC(pvnd, newTime);
+				Double theNewVal = getNextLogC(engine, newTime);
 				/*
 				System.err.println(gpv);
 				System.err.println(pv.getSet().getUnitY());
@@ -615,41 +621,20 @@ public class FoodProcessNodeModel extends NodeModel {
 			}    	
 			return newVal;
     }
-    private Double getTime(PredictorViewNodeDialog pvnd, double logC) {
-		List<Double> tv = new ArrayList<Double>();
-		tv.add(logC);
-		ChartSamplePanel samplePanel = pvnd.getSamplePanel();
-		ChartConfigPanel c = pvnd.getChartAllPanel().getConfigPanel();
-		samplePanel.setTimeValues(tv);
-		samplePanel.setInverse(true);
-		samplePanel.fireTimeValuesChanged();
-		Double newTime = samplePanel.getTimeSeriesTable().getLogc(0);
-		double minX = c.getMinX();
-		double maxX = c.getMaxX();
-		for (int i=0;i<10;i++) {
-			if (newTime != null) break;
-			newTime = samplePanel.getTimeSeriesTable().getLogc(0);
-			c.setMinX(c.getMinX() - 50);
-			c.setMaxX(c.getMaxX() + 50);
-		}
-		c.setMinX(minX);c.setMaxX(maxX);
-		for (String w : pvnd.getWarnings()) {
+    private Double getTime(PredictionEngine engine, double logC) {
+		// the engine extends the time range itself if logC is not reached
+		double newTime = engine.getTimes(new double[] {logC})[0];
+		for (String w : engine.getWarnings()) {
 			if (warnings.indexOf(w + "\n") < 0) warnings += w + "\n";
 		}
-		return newTime;
+		return Double.isNaN(newTime) ? null : newTime;
     }
-    private Double getNextLogC(PredictorViewNodeDialog pvnd, double time) {
-		List<Double> tv = new ArrayList<Double>();
-		tv.add(time);
-		ChartSamplePanel samplePanel = pvnd.getSamplePanel();
-		samplePanel.setTimeValues(tv);
-		samplePanel.setInverse(false);
-		samplePanel.fireTimeValuesChanged();
-		for (String w : pvnd.getWarnings()) {
+    private Double getNextLogC(PredictionEngine engine, double time) {
+		double newLogC = engine.getConcentrations(new double[] {time})[0];
+		for (String w : engine.getWarnings()) {
 			if (warnings.indexOf(w + "\n") < 0) warnings += w + "\n";
 		}
-		Double newLogC = samplePanel.getTimeSeriesTable().getLogc(0);
-		return newLogC;
+		return Double.isNaN(newLogC) ? null : newLogC;
     }
     private static Double convert(Category cat, String fromUnit, Double value, String toUnit) {
     	Double newValue;
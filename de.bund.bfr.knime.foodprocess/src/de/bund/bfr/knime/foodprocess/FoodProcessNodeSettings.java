@@ -33,9 +33,12 @@ public class FoodProcessNodeSettings {
 	
 	private static final String VERSION = "version";
 	private static final String FOOD_PROCESS_SETTING = "food_process_setting";
+	private static final String COLUMNAR_TABLES = "columnar_tables";
 	
 	private String version;
 	private FoodProcessSetting foodProcessSetting;
+	/** Store the process data in columnar tables instead of inline XML rows. */
+	private boolean columnarTables;
 	
 	public void setFoodProcessSetting(FoodProcessSetting foodProcessSetting) {
 		this.foodProcessSetting = foodProcessSetting;
@@ -43,9 +46,16 @@ public class FoodProcessNodeSettings {
 	public FoodProcessSetting getFoodProcessSetting() {
 		return foodProcessSetting;
 	}
+	public void setColumnarTables(boolean columnarTables) {
+		this.columnarTables = columnarTables;
+	}
+	public boolean isColumnarTables() {
+		return columnarTables;
+	}
 
 	public FoodProcessNodeSettings() {
 		version = VERSION_1_X;
+		columnarTables = true;
 		foodProcessSetting = new FoodProcessSetting(FoodProcessNodeModel.N_PORT_IN,FoodProcessNodeModel.N_PORT_OUT);
 	}
 
@@ -54,6 +64,7 @@ public class FoodProcessNodeSettings {
      */
     public void saveSettings(final NodeSettingsWO settings) {     	
         settings.addString(VERSION, version);
+        settings.addBoolean(COLUMNAR_TABLES, columnarTables);
         foodProcessSetting.saveSettings(settings.addConfig(FOOD_PROCESS_SETTING));
     }
 
@@ -64,6 +75,8 @@ public class FoodProcessNodeSettings {
     public void loadSettings(final NodeSettingsRO settings)
             throws InvalidSettingsException {    	
         version = settings.getString(VERSION);
+        // nodes of older workflows keep writing inline rows
+        columnarTables = settings.getBoolean(COLUMNAR_TABLES, false);
         foodProcessSetting.loadSettings(settings.getConfig(FOOD_PROCESS_SETTING));
     }
 
@@ -74,6 +87,7 @@ public class FoodProcessNodeSettings {
     public void loadSettingsForDialog(final NodeSettingsRO settings) {    	
         try {
             version = settings.getString(VERSION, VERSION_1_X);
+            columnarTables = settings.getBoolean(COLUMNAR_TABLES, false);
             foodProcessSetting.loadSettingsForDialog(settings.getConfig(FOOD_PROCESS_SETTING));
         } catch (InvalidSettingsException e) {
         	// Rethrow using a runtime exception
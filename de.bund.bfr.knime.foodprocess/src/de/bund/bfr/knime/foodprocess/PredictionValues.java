@@ -19,26 +19,17 @@
  *******************************************************************************/
 package de.bund.bfr.knime.foodprocess;
 
-import de.bund.bfr.knime.pmm.common.chart.ChartAllPanel;
-import de.bund.bfr.knime.pmm.predictorview.PredictorViewNodeDialog;
+import de.bund.bfr.knime.pmm.predictorview.PredictionEngine;
 import de.bund.bfr.knime.pmm.predictorview.SettingsHelper;
 
 public class PredictionValues {
 
-	public PredictorViewNodeDialog getPvnd() {
-		return pvnd;
+	public PredictionEngine getEngine() {
+		return engine;
 	}
 
-	public void setPvnd(PredictorViewNodeDialog pvnd) {
-		this.pvnd = pvnd;
-	}
-
-	public ChartAllPanel getChartPanel() {
-		return chartPanel;
-	}
-
-	public void setChartPanel(ChartAllPanel chartPanel) {
-		this.chartPanel = chartPanel;
+	public void setEngine(PredictionEngine engine) {
+		this.engine = engine;
 	}
 
 	public String getLog10N0() {
@@ -103,8 +94,7 @@ public class PredictionValues {
 		return set;
 	}
 
-	private PredictorViewNodeDialog pvnd = null;
-	private ChartAllPanel chartPanel = null;
+	private PredictionEngine engine = null;
 	private String log10N0;
 	private String lag;
 	private String unitLog10N0;
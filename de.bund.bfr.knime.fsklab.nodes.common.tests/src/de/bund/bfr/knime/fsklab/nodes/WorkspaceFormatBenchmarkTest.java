@@ -0,0 +1,57 @@
+package de.bund.bfr.knime.fsklab.nodes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.knime.core.node.ExecutionMonitor;
+
+import de.bund.bfr.knime.fsklab.r.client.RController;
+import de.bund.bfr.knime.fsklab.r.client.WorkspaceFormat;
+
+/**
+ * Saves and loads a workspace like the ones of simulation results in every {@link WorkspaceFormat}
+ * and prints the times and sizes. Needs R, so it is not run by default.
+ */
+@Ignore
+public class WorkspaceFormatBenchmarkTest {
+
+	@Rule
+	public TemporaryFolder testFolder = new TemporaryFolder();
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+
+		try (RController controller = new RController()) {
+
+			// Numeric results of 100 simulations and a data frame of parameters
+			controller.eval("results <- lapply(1:100, function(i) cumsum(rnorm(1e5)));"
+					+ "parameters <- data.frame(name = paste0('p', 1:1000), value = runif(1000))", false);
+
+			for (WorkspaceFormat format : WorkspaceFormat.values()) {
+				final File file = testFolder.newFile(format.getKey() + ".RData");
+
+				long start = System.nanoTime();
+				controller.saveWorkspace(file.toPath(), format, new ExecutionMonitor());
+				final long saveTime = System.nanoTime() - start;
+
+				controller.eval("rm(results, parameters)", false);
+				start = System.nanoTime();
+				controller.loadWorkspace(file);
+				final long loadTime = System.nanoTime() - start;
+
+				assertTrue(file.length() > 0);
+				assertEquals(100, controller.eval("length(results)", true).asInteger());
+				assertEquals(1000, controller.eval("nrow(parameters)", true).asInteger());
+
+				System.out.printf("%-10s save %6d ms, load %6d ms, %8d KB%n", format.getKey(),
+						saveTime / 1000000, loadTime / 1000000, file.length() / 1024);
+			}
+		}
+	}
+}
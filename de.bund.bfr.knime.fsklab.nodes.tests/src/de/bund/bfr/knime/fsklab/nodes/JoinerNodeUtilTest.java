@@ -3,16 +3,23 @@ package de.bund.bfr.knime.fsklab.nodes;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
 import de.bund.bfr.knime.fsklab.v2_0.FskSimulation;
+import de.bund.bfr.knime.fsklab.v2_0.joiner.CombinedSimulationList;
 import de.bund.bfr.knime.fsklab.v2_0.joiner.JoinerNodeModel;
 import de.bund.bfr.knime.fsklab.v2_0.joiner.JoinerNodeUtil;
 import de.bund.bfr.metadata.swagger.Parameter;
@@ -194,4 +201,93 @@ public class JoinerNodeUtilTest {
 
   }
 
+  @Test
+  public void testCombinedSimulationList_ShouldSkipSelectedCombination() {
+
+    List<FskSimulation> first = Arrays.asList(createSimulation("a", "x", "1"),
+        createSimulation("b", "x", "2"), createSimulation("c", "x", "3"));
+    List<FskSimulation> second =
+        Arrays.asList(createSimulation("d", "y", "4"), createSimulation("e", "y", "5"));
+    FskSimulation defaultSimulation = createSimulation("default", "x1", "2");
+
+    List<FskSimulation> simulations = new CombinedSimulationList(
+        Arrays.asList(defaultSimulation), first, 1, second, 0, createCombinedParameters());
+
+    assertEquals(6, simulations.size());
+    assertEquals(Arrays.asList("default", "a_d", "a_e", "b_e", "c_d", "c_e"),
+        simulations.stream().map(FskSimulation::getName).collect(Collectors.toList()));
+    assertSame(defaultSimulation, simulations.get(0));
+    assertEquals("3", simulations.get(4).getParameters().get("x1"));
+    assertEquals("4", simulations.get(4).getParameters().get("y2"));
+    assertFalse(simulations.get(4).getParameters().containsKey("out2"));
+  }
+
+  @Test
+  public void testCompact_CrossProduct_ShouldKeepSimulationsWhenSerialized() throws Exception {
+
+    List<FskSimulation> first =
+        Arrays.asList(createSimulation("a", "x", "1"), createSimulation("b", "x", "2"));
+    List<FskSimulation> second =
+        Arrays.asList(createSimulation("d", "y", "4"), createSimulation("e", "y", "5"));
+
+    List<FskSimulation> simulations = new ArrayList<>();
+    simulations.add(createSimulation("default", "x1", "1"));
+    simulations.addAll(new CombinedSimulationList(Collections.emptyList(), first, 0, second, 0,
+        createCombinedParameters()));
+
+    List<FskSimulation> compact = CombinedSimulationList.compact(simulations, first, 0, second, 0,
+        createCombinedParameters());
+    assertTrue(compact instanceof CombinedSimulationList);
+
+    List<?> copy = serializeAndDeserialize(compact);
+
+    assertEquals(simulations.size(), copy.size());
+    for (int i = 0; i < simulations.size(); i++) {
+      FskSimulation simulation = (FskSimulation) copy.get(i);
+      assertEquals(simulations.get(i).getName(), simulation.getName());
+      assertEquals(simulations.get(i).getParameters(), simulation.getParameters());
+    }
+  }
+
+  @Test
+  public void testCompact_ChangedSimulation_ShouldReturnSameList() {
+
+    List<FskSimulation> first =
+        Arrays.asList(createSimulation("a", "x", "1"), createSimulation("b", "x", "2"));
+    List<FskSimulation> second =
+        Arrays.asList(createSimulation("d", "y", "4"), createSimulation("e", "y", "5"));
+
+    List<FskSimulation> simulations = new ArrayList<>(new CombinedSimulationList(
+        Collections.emptyList(), first, 0, second, 0, createCombinedParameters()));
+    simulations.get(1).getParameters().put("x1", "7");
+
+    assertSame(simulations, CombinedSimulationList.compact(simulations, first, 0, second, 0,
+        createCombinedParameters()));
+  }
+
+  private static List<Parameter> createCombinedParameters() {
+    return Arrays.asList(
+        new Parameter().id("x1").classification(Parameter.ClassificationEnum.INPUT),
+        new Parameter().id("y2").classification(Parameter.ClassificationEnum.INPUT),
+        new Parameter().id("out2").classification(Parameter.ClassificationEnum.OUTPUT));
+  }
+
+  private static FskSimulation createSimulation(String name, String parameter, String value) {
+    FskSimulation simulation = new FskSimulation(name);
+    simulation.getParameters().put(parameter, value);
+    return simulation;
+  }
+
+  private static List<?> serializeAndDeserialize(List<FskSimulation> simulations)
+      throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(simulations);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return (List<?>) in.readObject();
+    }
+  }
+
 }
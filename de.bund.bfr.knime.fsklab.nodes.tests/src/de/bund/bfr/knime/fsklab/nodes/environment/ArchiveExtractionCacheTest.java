@@ -0,0 +1,79 @@
+package de.bund.bfr.knime.fsklab.nodes.environment;
+
+import static org.junit.Assert.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class ArchiveExtractionCacheTest {
+
+  private static final Path ARCHIVE = Paths.get("files/model_with_resources.fskx");
+  private static final String[] ENTRIES =
+      new String[] {"./model-pars.csv", "./campy-obs-censoring.csv"};
+
+  @Test
+  public void testCreateEnvironment_twice_shouldReturnIndependentDirectories() throws Exception {
+    ArchiveExtractionCache cache = new ArchiveExtractionCache(Long.MAX_VALUE);
+
+    Path first = cache.createEnvironment(ARCHIVE, ENTRIES);
+    Path second = cache.createEnvironment(ARCHIVE, ENTRIES);
+    assertNotEquals(first, second);
+
+    byte[] expected = Files.readAllBytes(first.resolve("model-pars.csv"));
+    FileUtils.deleteQuietly(first.toFile());
+
+    assertArrayEquals(expected, Files.readAllBytes(second.resolve("model-pars.csv")));
+    assertTrue(Files.exists(second.resolve("campy-obs-censoring.csv")));
+    FileUtils.deleteQuietly(second.toFile());
+  }
+
+  @Test
+  public void testCreateEnvironment_modifiedResource_shouldExtractAgain() throws Exception {
+    ArchiveExtractionCache cache = new ArchiveExtractionCache(Long.MAX_VALUE);
+
+    Path first = cache.createEnvironment(ARCHIVE, ENTRIES);
+    byte[] expected = Files.readAllBytes(first.resolve("model-pars.csv"));
+    Files.write(first.resolve("model-pars.csv"), new byte[] {1, 2, 3});
+
+    Path second = cache.createEnvironment(ARCHIVE, ENTRIES);
+    assertArrayEquals(expected, Files.readAllBytes(second.resolve("model-pars.csv")));
+
+    FileUtils.deleteQuietly(first.toFile());
+    FileUtils.deleteQuietly(second.toFile());
+  }
+
+  @Test
+  public void testCreateEnvironment_resourceWrittenInPlace_shouldNotChangeOtherEnvironments()
+      throws Exception {
+    ArchiveExtractionCache cache = new ArchiveExtractionCache(Long.MAX_VALUE);
+
+    Path first = cache.createEnvironment(ARCHIVE, ENTRIES);
+    Path second = cache.createEnvironment(ARCHIVE, ENTRIES);
+    byte[] expected = Files.readAllBytes(second.resolve("model-pars.csv"));
+
+    // Same size, so that the change is only visible in the content
+    byte[] modified = new byte[expected.length];
+    Files.write(first.resolve("model-pars.csv"), modified);
+
+    assertArrayEquals(expected, Files.readAllBytes(second.resolve("model-pars.csv")));
+
+    Path third = cache.createEnvironment(ARCHIVE, ENTRIES);
+    assertArrayEquals(expected, Files.readAllBytes(third.resolve("model-pars.csv")));
+
+    FileUtils.deleteQuietly(first.toFile());
+    FileUtils.deleteQuietly(second.toFile());
+    FileUtils.deleteQuietly(third.toFile());
+  }
+
+  @Test
+  public void testCreateEnvironment_smallCache_shouldStillProvideAllEntries() throws Exception {
+    ArchiveExtractionCache cache = new ArchiveExtractionCache(1);
+
+    Path environment = cache.createEnvironment(ARCHIVE, ENTRIES);
+    assertTrue(Files.exists(environment.resolve("model-pars.csv")));
+    assertTrue(Files.exists(environment.resolve("campy-obs-censoring.csv")));
+    FileUtils.deleteQuietly(environment.toFile());
+  }
+}
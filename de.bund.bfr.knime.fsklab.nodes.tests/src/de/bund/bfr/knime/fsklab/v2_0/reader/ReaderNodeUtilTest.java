@@ -1,8 +1,16 @@
 package de.bund.bfr.knime.fsklab.v2_0.reader;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -10,6 +18,7 @@ import java.util.List;
 
 import org.junit.Test;
 
+import de.bund.bfr.knime.fsklab.v2_0.FskPortObject;
 import de.bund.bfr.knime.fsklab.v2_0.FskSimulation;
 import de.bund.bfr.knime.fsklab.v2_0.JoinRelation;
 import de.bund.bfr.knime.fsklab.v2_0.joiner.JoinerNodeModel;
@@ -207,6 +216,28 @@ public class ReaderNodeUtilTest {
 		assertEquals("R3", language);
 
 	}
-	
-	
+
+	@Test
+	public void testReadArchive_lazy_shouldExtractWorkspaceOnDemand() throws Exception {
+		File archive = new File("files/model_without_resources.fskx");
+
+		FskPortObject eager = ReaderNodeUtil.readArchive(archive);
+		FskPortObject lazy = ReaderNodeUtil.readArchive(archive, true);
+
+		assertEquals(eager.getModel(), lazy.getModel());
+		assertEquals(eager.simulations.size(), lazy.simulations.size());
+		assertNotNull(lazy.getWorkspace());
+		assertArrayEquals(Files.readAllBytes(eager.getWorkspace()), Files.readAllBytes(lazy.getWorkspace()));
+	}
+
+	@Test(expected = UncheckedIOException.class)
+	public void testReadArchive_lazy_archiveDeleted_shouldFail() throws Exception {
+		Path archive = Files.createTempFile("model", ".fskx");
+		Files.copy(Paths.get("files/model_without_resources.fskx"), archive, StandardCopyOption.REPLACE_EXISTING);
+
+		FskPortObject lazy = ReaderNodeUtil.readArchive(archive.toFile(), true);
+		Files.delete(archive);
+
+		lazy.getWorkspace();
+	}
 }
@@ -0,0 +1,100 @@
+package de.bund.bfr.knime.fsklab.v2_0.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.bund.bfr.fskml.FskMetaDataObject;
+import de.bund.bfr.fskml.FskMetaDataObject.ResourceType;
+import de.unirostock.sems.cbarchive.ArchiveEntry;
+import de.unirostock.sems.cbarchive.CombineArchive;
+
+public class FskxArchiveWriterTest {
+
+	private static final URI PLAIN = URI.create("http://purl.org/NET/mediatypes/text/plain");
+	private static final URI RDATA = URI.create("http://purl.org/NET/mediatypes/application/rdata");
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testArchiveIsReadByCombineArchive() throws Exception {
+		File archiveFile = folder.newFile("model.fskx");
+
+		try (FskxArchiveWriter writer = new FskxArchiveWriter(new FileOutputStream(archiveFile))) {
+			writer.addEntry("x <- 1", "model.r", PLAIN)
+					.addDescription(new FskMetaDataObject(ResourceType.modelScript).metaDataObject);
+			writer.addEntry("old", "sub\\README.txt", PLAIN);
+			writer.addEntry("new", "sub\\README.txt", PLAIN);
+			writer.pack();
+		}
+
+		try (CombineArchive archive = new CombineArchive(archiveFile)) {
+			assertEquals(2, archive.getEntries().size());
+
+			ArchiveEntry model = archive.getEntry("model.r");
+			assertEquals(PLAIN, model.getFormat());
+			assertEquals(1, model.getDescriptions().size());
+			assertEquals(ResourceType.modelScript,
+					new FskMetaDataObject(model.getDescriptions().get(0)).getResourceType());
+
+			File readme = folder.newFile("README.txt");
+			archive.getEntry("sub/README.txt").extractFile(readme);
+			assertEquals("new", new String(Files.readAllBytes(readme.toPath()), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testCompressedFilesAreStored() throws Exception {
+		byte[] data = new byte[200_000];
+		new Random(0).nextBytes(data);
+
+		File workspace = folder.newFile("workspace.RData");
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(workspace))) {
+			out.write(data);
+		}
+		File plain = folder.newFile("data.csv");
+		Files.write(plain.toPath(), new byte[200_000]);
+
+		File archiveFile = folder.newFile("model.fskx");
+		try (FskxArchiveWriter writer = new FskxArchiveWriter(new FileOutputStream(archiveFile))) {
+			writer.addEntry(workspace, "workspace.RData", RDATA);
+			writer.addEntry(plain, "data.csv", PLAIN);
+			writer.pack();
+		}
+
+		try (ZipFile zip = new ZipFile(archiveFile)) {
+			ZipEntry workspaceEntry = zip.getEntry("workspace.RData");
+			assertEquals(ZipEntry.STORED, workspaceEntry.getMethod());
+			assertEquals(workspace.length(), workspaceEntry.getCompressedSize());
+			assertEquals(ZipEntry.DEFLATED, zip.getEntry("data.csv").getMethod());
+			assertTrue(zip.getEntry("manifest.xml") != null);
+			assertTrue(zip.getEntry("metadata.rdf") != null);
+		}
+	}
+
+	@Test
+	public void testIsCompressed() {
+		byte[] gzip = { 0x1f, (byte) 0x8b, 8, 0 };
+		byte[] text = "x <- 1".getBytes(StandardCharsets.UTF_8);
+
+		assertTrue(FskxArchiveWriter.isCompressed(gzip, gzip.length));
+		assertFalse(FskxArchiveWriter.isCompressed(text, text.length));
+		assertFalse(FskxArchiveWriter.isCompressed(gzip, 1));
+	}
+}
@@ -6,10 +6,18 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.eclipse.core.runtime.FileLocator;
 import org.eclipse.core.runtime.Platform;
+import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
 import org.osgi.framework.Bundle;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.bund.bfr.knime.fsklab.FskPlugin;
@@ -36,11 +44,31 @@ public abstract class JsonHandler {
   public static final String JSON_FILE_NAME = "parameters.json";
   protected static final String JSON_PARAMETERS_NAME = "fsk_parameters";
 
+  private static final NodeLogger LOGGER = NodeLogger.getLogger(JsonHandler.class);
+
   protected ScriptHandler scriptHandler;
   protected ExecutionContext exec;
   protected ParameterData parameterJson;
   protected static ObjectMapper MAPPER = FskPlugin.getDefault().MAPPER104;//new ObjectMapper();
 
+  /**
+   * Names of the files in the working directory holding output parameters in the native format of
+   * the script language. They are written next to parameters.json by
+   * {@link #saveOutputParameters(FskPortObject, Path)}.
+   */
+  protected final List<String> nativeParameterFiles = new ArrayList<>();
+
+  /**
+   * Output parameters of the model that are joined to a model of the same language. They are saved
+   * only in the native format of the script language and not converted to JSON. Set by
+   * {@link #applyJoinRelation(FskPortObject, List, String)}.
+   */
+  protected final Set<String> nativeOutputParameters = new HashSet<>();
+
+  // parameter data of the source models by the path of their parameters.json, so that a file is
+  // read only once per run of applyJoinRelation and not once per join relation
+  private final Map<String, ParameterData> sourceParameterData = new HashMap<>();
+
   protected JsonHandler(ScriptHandler scriptHandler, ExecutionContext exec) {
     this.scriptHandler = scriptHandler;
     this.exec = exec;
@@ -56,7 +84,17 @@ public abstract class JsonHandler {
   public void applyJoinRelation(FskPortObject fskObj, List<JoinRelationAdvanced> joinRelationList,
       String suffix) throws Exception {
 
+    nativeOutputParameters.clear();
+
     if (joinRelationList != null) {
+      String language = SwaggerUtil.getLanguageWrittenIn(fskObj.modelMetadata);
+      for (JoinRelationAdvanced joinRelation : joinRelationList) {
+        if (joinRelation.getModel() == fskObj
+            && isSameLanguage(language, joinRelation.getTargetLanguage())) {
+          nativeOutputParameters.add(joinRelation.getSourceParam());
+        }
+      }
+
       for (JoinRelationAdvanced joinRelation : joinRelationList) {
         String targetParameter = joinRelation.getTargetParam();
         FskPortObject sourceModel = joinRelation.getModel();
@@ -67,7 +105,10 @@ public abstract class JsonHandler {
             String resourcePath = sourceModel.getGeneratedResourcesDirectory().get()
                 .getAbsolutePath().replaceAll("\\\\", "/") + "/";
             String jsonPath = resourcePath + JSON_FILE_NAME;
-            loadParametersIntoWorkspace(jsonPath, sourceParameter, param.getId());
+            long start = System.currentTimeMillis();
+            String format = loadParametersIntoWorkspace(jsonPath, sourceParameter, param.getId());
+            LOGGER.info("Transferred " + sourceParameter + " to " + param.getId() + " via " + format
+                + " in " + (System.currentTimeMillis() - start) + " ms");
 
             // if target parameter is of type FILE, add path to generatedResources to sourceParam
             // This should be safe since source and target parameter must have the same type (if
@@ -80,11 +121,29 @@ public abstract class JsonHandler {
           }
         }
       }
+      sourceParameterData.clear();
     }
   }
 
   protected abstract void applyJoinCommand(String parameter, String command) throws Exception;
 
+  /**
+   * @return whether models of both languages are run with the same kind of script handler, so that
+   *         a parameter saved in the native format by one can be loaded by the other.
+   */
+  static boolean isSameLanguage(String language, String otherLanguage) {
+    return otherLanguage != null && getLanguageKey(language).equals(getLanguageKey(otherLanguage));
+  }
+
+  /** Same distinction of languages as {@link ScriptHandler#createHandler(String, List)}. */
+  private static String getLanguageKey(String language) {
+    final String type = language == null ? "r" : language.toLowerCase();
+    if (type.startsWith("python 2")) {
+      return "python 2";
+    }
+    return type.startsWith("py") ? "python" : "r";
+  }
+
   /**
    * Import the required hdf5 library into workspace using the runscript() metod of the
    * scriptHandler. Installs package if no library is available (R).
@@ -104,7 +163,8 @@ public abstract class JsonHandler {
 
   /**
    * Method to save output parameters in the hdf files. This needs to be called after the execution
-   * of the model script.
+   * of the model script. Parameters in {@link #nativeOutputParameters} are saved in the native
+   * format of the script language instead, unless that fails.
    * 
    * @param FSKPortObject fsk object containing the parameter names
    * @throws Exception if an error occurs running the script.
@@ -115,16 +175,58 @@ public abstract class JsonHandler {
 
   /**
    * Method to load input parameters into the workspace of the currently active (to be executed)
-   * model.
-   * 
-   * Work in progress.
+   * model. If the source model was written in the same language and saved the parameter in its
+   * native format next to the JSON file, that file is loaded instead of the JSON data.
    * 
-   * @param FSKPortObject fsk object containing the parameter names
+   * @param parameterJson path to the parameters.json of the source model
+   * @param sourceParam parameter of the source model
+   * @param targetParam parameter of the current model to be overwritten
+   * @return name of the format the parameter has been transferred with
    * @throws Exception if an error occurs running the script.
    */
-  public abstract void loadParametersIntoWorkspace(String parameterJson, String sourceParam,
+  public abstract String loadParametersIntoWorkspace(String parameterJson, String sourceParam,
       String targetParam) throws Exception;
 
+  /**
+   * Copies the native parameter files to the generated resources directory of the model. Needs to
+   * be called after {@link #saveOutputParameters(FskPortObject, Path)}.
+   */
+  public void publishOutputParameters(File workingDirectory, File resourcesDirectory,
+      ExecutionContext exec) throws IOException, CanceledExecutionException {
+    for (String filename : nativeParameterFiles) {
+      File sourceFile = new File(workingDirectory, filename);
+      // an empty file is left if the parameter could not be serialized
+      if (sourceFile.length() > 0) {
+        FileUtil.copy(sourceFile, new File(resourcesDirectory, filename), exec);
+      }
+    }
+  }
+
+  /** @return the parameter data of a parameters.json. */
+  protected ParameterData getParameterData(String parameterJson) throws IOException {
+    ParameterData data = sourceParameterData.get(parameterJson);
+    if (data == null) {
+      data = MAPPER.readValue(new File(parameterJson), ParameterData.class);
+      sourceParameterData.put(parameterJson, data);
+    }
+    return data;
+  }
+
+  protected static String getNativeParameterFileName(String parameter, String extension) {
+    return JSON_PARAMETERS_NAME + "_" + parameter + extension;
+  }
+
+  /**
+   * @return the native parameter file of {@code parameter} next to {@code parameterJson} or null if
+   *         the source model did not write one.
+   */
+  protected static File getNativeParameterFile(String parameterJson, String parameter,
+      String extension) {
+    File file = new File(new File(parameterJson).getParentFile(),
+        getNativeParameterFileName(parameter, extension));
+    return file.exists() ? file : null;
+  }
+
 
   /**
    * Creates and returns an HDFHandler instance of the correct language (Python or R).
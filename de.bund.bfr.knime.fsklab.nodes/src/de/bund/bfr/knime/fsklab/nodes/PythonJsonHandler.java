@@ -21,6 +21,8 @@ import org.rosuda.REngine.REXPMismatchException;
 
 public class PythonJsonHandler extends JsonHandler {
 
+  private static final String PICKLE_EXTENSION = ".pickle";
+
   public PythonJsonHandler(ScriptHandler scriptHandler, ExecutionContext exec) {
     super(scriptHandler, exec);
     // TODO Auto-generated constructor stub
@@ -34,6 +36,7 @@ public class PythonJsonHandler extends JsonHandler {
       scriptHandler.runScript("import copy", exec, false);
       scriptHandler.runScript("import json", exec, false);
       scriptHandler.runScript("import numpy", exec, false);
+      scriptHandler.runScript("import pickle", exec, false);
 
     } catch (RException | CanceledExecutionException | InterruptedException | REXPMismatchException
         | IOException e) {
@@ -81,6 +84,12 @@ public class PythonJsonHandler extends JsonHandler {
     List<Parameter> parameters = SwaggerUtil.getParameter(fskObj.modelMetadata);
     for (Parameter p : parameters) {
       if (p.getClassification() == Parameter.ClassificationEnum.OUTPUT) {
+        // Python models joined to this one load the parameter from pickle instead of JSON
+        if (nativeOutputParameters.contains(p.getId())
+            && savePickle(p.getId(), workingDirectory)) {
+          continue;
+        }
+
         try {
           StringBuilder script = new StringBuilder();
           script.append("#JSON_PARAMETER_OUTUT\n");
@@ -105,6 +114,31 @@ public class PythonJsonHandler extends JsonHandler {
     MAPPER.writer().writeValue(new File(path), parameterJson);
   }
 
+  /**
+   * Saves a parameter as pickle file in the working directory.
+   * 
+   * @return whether the file could be written. Otherwise the parameter needs to be saved as JSON.
+   */
+  private boolean savePickle(String parameter, Path workingDirectory) {
+    String pickleName = getNativeParameterFileName(parameter, PICKLE_EXTENSION);
+    File pickle = workingDirectory.resolve(pickleName).toFile();
+    try {
+      scriptHandler.runScript("with open('" + pickle.getAbsolutePath().replaceAll("\\\\", "/")
+          + "', 'wb') as pickleFile: pickleFile.write(pickle.dumps(" + parameter + "))", exec,
+          false);
+    } catch (RException | CanceledExecutionException | InterruptedException
+        | REXPMismatchException | IOException e) {
+      FileUtils.deleteQuietly(pickle);
+      return false;
+    }
+    if (pickle.length() == 0) {
+      FileUtils.deleteQuietly(pickle);
+      return false;
+    }
+    nativeParameterFiles.add(pickleName);
+    return true;
+  }
+
 
 
   /**
@@ -114,13 +148,20 @@ public class PythonJsonHandler extends JsonHandler {
    * @throws Exception
    */
   @Override
-  public void loadParametersIntoWorkspace(String parameterJson, String sourceParam,
+  public String loadParametersIntoWorkspace(String parameterJson, String sourceParam,
       String targetParam) throws Exception {
 
+    File pickle = getNativeParameterFile(parameterJson, sourceParam, PICKLE_EXTENSION);
+    if (pickle != null) {
+      scriptHandler.runScript("with open('" + pickle.getAbsolutePath().replaceAll("\\\\", "/")
+          + "', 'rb') as pickleFile: " + targetParam + " = pickle.load(pickleFile)", exec, false);
+      return "pickle";
+    }
+
     // StringBuilder script = new StringBuilder();
 
     // load source and target into workspace as strings
-    ParameterData parameterData = MAPPER.readValue(new File(parameterJson), ParameterData.class);
+    ParameterData parameterData = getParameterData(parameterJson);
     
     for (DataArray param : parameterData.getParameters()) {
       if (sourceParam.equals(param.getMetadata().getId())) {
@@ -135,6 +176,7 @@ public class PythonJsonHandler extends JsonHandler {
 
       }
     }
+    return "JSON";
   }
 
   private String convertRawJson(String data, String language, String type) throws Exception {
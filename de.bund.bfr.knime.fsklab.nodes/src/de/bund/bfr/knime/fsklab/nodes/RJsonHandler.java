@@ -21,6 +21,7 @@ import org.rosuda.REngine.REXPMismatchException;
 
 public class RJsonHandler extends JsonHandler {
 
+  private static final String RDS_EXTENSION = ".rds";
 
 
   public RJsonHandler(ScriptHandler scriptHandler, ExecutionContext exec) {
@@ -92,6 +93,11 @@ public class RJsonHandler extends JsonHandler {
     for (Parameter p : parameters) {
       
       if (p.getClassification() == Parameter.ClassificationEnum.OUTPUT) {
+        // R models joined to this one load the parameter from RDS instead of JSON
+        if (nativeOutputParameters.contains(p.getId()) && saveRds(p.getId(), workingDirectory)) {
+          continue;
+        }
+
         File temp = FileUtil.createTempFile("temp_parameters", ".json");
         try {
 
@@ -122,6 +128,30 @@ public class RJsonHandler extends JsonHandler {
     MAPPER.writer().writeValue(new File(path), parameterJson);
   }
 
+  /**
+   * Saves a parameter as RDS file in the working directory.
+   * 
+   * @return whether the file could be written. Otherwise the parameter needs to be saved as JSON.
+   */
+  private boolean saveRds(String parameter, Path workingDirectory) {
+    String rdsName = getNativeParameterFileName(parameter, RDS_EXTENSION);
+    File rds = workingDirectory.resolve(rdsName).toFile();
+    try {
+      scriptHandler.runScript("saveRDS(" + parameter + ", file='"
+          + rds.getAbsolutePath().replaceAll("\\\\", "/") + "')", exec, false);
+    } catch (RException | CanceledExecutionException | InterruptedException
+        | REXPMismatchException | IOException e) {
+      FileUtil.deleteRecursively(rds);
+      return false;
+    }
+    if (rds.length() == 0) {
+      FileUtil.deleteRecursively(rds);
+      return false;
+    }
+    nativeParameterFiles.add(rdsName);
+    return true;
+  }
+
 
 
   /**
@@ -131,10 +161,17 @@ public class RJsonHandler extends JsonHandler {
    * @throws Exception
    */
   @Override
-  public void loadParametersIntoWorkspace(String parameterJson, String sourceParam,
+  public String loadParametersIntoWorkspace(String parameterJson, String sourceParam,
       String targetParam) throws Exception {
 
-    ParameterData parameterData = MAPPER.readValue(new File(parameterJson), ParameterData.class);
+    File rds = getNativeParameterFile(parameterJson, sourceParam, RDS_EXTENSION);
+    if (rds != null) {
+      scriptHandler.runScript(targetParam + " <- readRDS('"
+          + rds.getAbsolutePath().replaceAll("\\\\", "/") + "')", exec, false);
+      return "RDS";
+    }
+
+    ParameterData parameterData = getParameterData(parameterJson);
     
     for (DataArray param : parameterData.getParameters()) {
       if (sourceParam.equals(param.getMetadata().getId())) {
@@ -148,6 +185,7 @@ public class RJsonHandler extends JsonHandler {
 
       }
     }
+    return "JSON";
   }
 
 
@@ -118,7 +118,7 @@ public class RScriptHandler extends ScriptHandler {
       throws Exception {
     // Install needed libraries
     if (!fskObj.packages.isEmpty()) {
-      LibRegistry.instance().install(fskObj.packages);
+      LibRegistry.instance().install(fskObj.packages, exec.createSubProgress(0.6));
     }
 
     exec.setProgress(0.71, "Add paths to libraries");
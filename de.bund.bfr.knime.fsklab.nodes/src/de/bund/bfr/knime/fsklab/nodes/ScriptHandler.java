@@ -5,7 +5,10 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
@@ -185,6 +188,41 @@ public abstract class ScriptHandler implements AutoCloseable {
   public abstract void convertToKnimeDataTable(FskPortObject fskObj, ExecutionContext exec)
       throws Exception;
 
+  /**
+   * Read the values of the output parameters of a model from the running session. Has to be
+   * called after {@link #runSnippet} and before {@link #close()}.
+   *
+   * @param fskObj A {@link FSKPortObject} containing the model metadata
+   * @param exec KNIME way of managing storage and information output during the current NodeModels
+   *        execution
+   * @return map of output parameter ids and their values joined by comma. Parameters that cannot
+   *         be represented as a vector of strings (e.g. data frames) are mapped to null.
+   */
+  public final Map<String, String> getOutputParameterValues(final FskPortObject fskObj,
+      final ExecutionContext exec) {
+
+    Map<String, String> values = new LinkedHashMap<>();
+
+    List<Parameter> parameters = SwaggerUtil.getParameter(fskObj.modelMetadata);
+    if (parameters == null) {
+      return values;
+    }
+
+    for (Parameter param : parameters) {
+      if (param.getClassification() == ClassificationEnum.OUTPUT) {
+        String query = createVectorQuery(Collections.singletonList(param.getId()));
+        try {
+          String[] value = runScript(query, exec, true);
+          values.put(param.getId(), value != null ? String.join(",", value) : null);
+        } catch (Exception e) {
+          values.put(param.getId(), null);
+        }
+      }
+    }
+
+    return values;
+  }
+
   public static ScriptHandler createHandler(String script_type, List<String> packages)
       throws Exception {
 
@@ -433,6 +471,7 @@ public abstract class ScriptHandler implements AutoCloseable {
         File sourceFile = new File(workingDirectory, JsonHandler.JSON_FILE_NAME);
         File targetFile = new File(newResourcesDirectory, JsonHandler.JSON_FILE_NAME);
         FileUtil.copy(sourceFile, targetFile, exec);
+        jsonHandler.publishOutputParameters(workingDirectory, newResourcesDirectory, exec);
       }
       fskPortObject.setGeneratedResourcesDirectory(newResourcesDirectory);
 
@@ -0,0 +1,309 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.nodes.environment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jdom2.JDOMException;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import de.unirostock.sems.cbarchive.ArchiveEntry;
+import de.unirostock.sems.cbarchive.CombineArchive;
+import de.unirostock.sems.cbarchive.CombineArchiveException;
+
+/**
+ * Cache of resource files extracted from FSKX archives, shared by all
+ * {@link ArchivedEnvironmentManager}s. The files are keyed by the SHA-256 of the archive content
+ * and the entry path, so that a model executed again, or by several Runner nodes at the same time,
+ * does not need to unzip its resources again. Working directories get copies of the cached files,
+ * since models may write to their resources and must not change the files of other runs.
+ * 
+ * The total size of the cached files is bounded by the system property
+ * {@value #MAX_SIZE_PROPERTY} (in bytes, 2 GB by default). The least recently used files are
+ * evicted first.
+ */
+final class ArchiveExtractionCache {
+
+  private static final NodeLogger LOGGER = NodeLogger.getLogger(ArchiveExtractionCache.class);
+
+  static final String MAX_SIZE_PROPERTY = "fsklab.extractionCache.maxSize";
+
+  private static final long DEFAULT_MAX_SIZE = 2L * 1024 * 1024 * 1024;
+
+  private static final int KEY_LOCKS = 64;
+
+  static final ArchiveExtractionCache INSTANCE =
+      new ArchiveExtractionCache(Long.getLong(MAX_SIZE_PROPERTY, DEFAULT_MAX_SIZE));
+
+  private final long maxSize;
+
+  /** Directory of the cached files. Created on first use. */
+  private Path directory;
+
+  /** Cached files by key in access order. */
+  private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long size = 0;
+
+  /** Content hashes of archives by their path. */
+  private final Map<Path, ArchiveHash> archiveHashes = new HashMap<>();
+
+  /**
+   * Locks striped by key, so that an entry is extracted only once if requested concurrently. A fixed
+   * number of locks is used, since the keys of all archives ever run would accumulate otherwise.
+   */
+  private final Object[] keyLocks = new Object[KEY_LOCKS];
+
+  ArchiveExtractionCache(long maxSize) {
+    this.maxSize = maxSize;
+    for (int i = 0; i < keyLocks.length; i++) {
+      keyLocks[i] = new Object();
+    }
+  }
+
+  /**
+   * Creates a new working directory with the given entries of the archive. Entries not in the cache
+   * yet are extracted from the archive, which needs to be locked by the caller.
+   * 
+   * @return new directory that may be deleted by the caller
+   */
+  Path createEnvironment(Path archiveFile, String[] entries)
+      throws IOException, JDOMException, ParseException, CombineArchiveException {
+
+    String archiveHash = getArchiveHash(archiveFile);
+    Path environment = Files.createTempDirectory("workingDirectory");
+
+    CombineArchive archive = null;
+    try {
+      for (String entryLocation : entries) {
+        String key = sha256(archiveHash + "\n" + entryLocation);
+
+        synchronized (keyLocks[Math.floorMod(key.hashCode(), keyLocks.length)]) {
+          CachedFile cachedFile = get(key);
+          if (cachedFile == null || !copy(cachedFile, environment)) {
+            if (archive == null) {
+              archive = new CombineArchive(archiveFile.toFile());
+            }
+            cachedFile = extract(key, archive.getEntry(entryLocation));
+            if (!copy(cachedFile, environment)) {
+              throw new IOException("Could not extract " + entryLocation);
+            }
+          }
+        }
+      }
+    } catch (IOException | JDOMException | ParseException | CombineArchiveException
+        | RuntimeException e) {
+      FileUtil.deleteRecursively(environment.toFile());
+      throw e;
+    } finally {
+      if (archive != null) {
+        archive.close();
+      }
+    }
+
+    return environment;
+  }
+
+  /** @return the cached file for the key or null if it is missing or has been modified. */
+  private synchronized CachedFile get(String key) {
+    CachedFile cachedFile = files.get(key);
+    if (cachedFile != null && !cachedFile.isUnchanged()) {
+      remove(key);
+      return null;
+    }
+    return cachedFile;
+  }
+
+  private CachedFile extract(String key, ArchiveEntry entry) throws IOException {
+
+    Path cacheFile = getDirectory().resolve(key);
+    Path tempFile = getDirectory().resolve(key + ".tmp");
+    entry.extractFile(tempFile.toFile());
+    Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+
+    CachedFile cachedFile = new CachedFile(cacheFile, entry.getFileName());
+    synchronized (this) {
+      CachedFile previous = files.put(key, cachedFile);
+      if (previous != null) {
+        size -= previous.size;
+      }
+      size += cachedFile.size;
+
+      // evict least recently used files but keep the new one
+      Iterator<Map.Entry<String, CachedFile>> iterator = files.entrySet().iterator();
+      while (size > maxSize && files.size() > 1) {
+        CachedFile eldest = iterator.next().getValue();
+        iterator.remove();
+        size -= eldest.size;
+        delete(eldest);
+      }
+    }
+
+    return cachedFile;
+  }
+
+  private synchronized void remove(String key) {
+    CachedFile cachedFile = files.remove(key);
+    if (cachedFile != null) {
+      size -= cachedFile.size;
+      delete(cachedFile);
+    }
+  }
+
+  /**
+   * Deletes a file that has already been removed from the cache. Failures are only logged, e.g. if
+   * the file is still open on Windows, since the file is not used anymore.
+   */
+  private static void delete(CachedFile cachedFile) {
+    try {
+      Files.deleteIfExists(cachedFile.path);
+    } catch (IOException e) {
+      LOGGER.warn("Could not delete cached file " + cachedFile.path, e);
+    }
+  }
+
+  /**
+   * Adds a copy of the cached file to the environment.
+   * 
+   * @return false if the cached file has been evicted in the meantime
+   */
+  private static boolean copy(CachedFile cachedFile, Path environment) throws IOException {
+    Path target = environment.resolve(cachedFile.fileName);
+    try {
+      Files.copy(cachedFile.path, target, StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    } catch (NoSuchFileException e) {
+      return false;
+    }
+  }
+
+  private synchronized Path getDirectory() throws IOException {
+    if (directory == null || Files.notExists(directory)) {
+      directory = FileUtil.createTempDir("fskExtractionCache").toPath();
+      files.clear();
+      size = 0;
+    }
+    return directory;
+  }
+
+  /** @return SHA-256 of the archive, computed again only if its size or modification changed. */
+  private String getArchiveHash(Path archiveFile) throws IOException {
+    Path path = archiveFile.toAbsolutePath();
+    long length = Files.size(path);
+    long lastModified = Files.getLastModifiedTime(path).toMillis();
+
+    synchronized (archiveHashes) {
+      ArchiveHash archiveHash = archiveHashes.get(path);
+      if (archiveHash != null && archiveHash.length == length
+          && archiveHash.lastModified == lastModified) {
+        return archiveHash.hash;
+      }
+    }
+
+    MessageDigest digest = createDigest();
+    try (InputStream in = Files.newInputStream(path)) {
+      byte[] buffer = new byte[1 << 16];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    String hash = toHex(digest.digest());
+
+    synchronized (archiveHashes) {
+      archiveHashes.put(path, new ArchiveHash(length, lastModified, hash));
+    }
+    return hash;
+  }
+
+  private static String sha256(String text) {
+    return toHex(createDigest().digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(String.format("%02x", b));
+    }
+    return hex.toString();
+  }
+
+  private static class CachedFile {
+
+    final Path path;
+
+    /** Name of the file in the working directory. */
+    final String fileName;
+
+    final long size;
+    final long lastModified;
+
+    CachedFile(Path path, String fileName) throws IOException {
+      this.path = path;
+      this.fileName = fileName;
+      this.size = Files.size(path);
+      this.lastModified = Files.getLastModifiedTime(path).toMillis();
+    }
+
+    /** Guards against cached files changed outside of the cache. */
+    boolean isUnchanged() {
+      try {
+        return Files.size(path) == size
+            && Files.getLastModifiedTime(path).toMillis() == lastModified;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  private static class ArchiveHash {
+
+    final long length;
+    final long lastModified;
+    final String hash;
+
+    ArchiveHash(long length, long lastModified, String hash) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+}
@@ -11,8 +11,6 @@ import org.jdom2.JDOMException;
 import org.knime.core.util.FileUtil;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
-import de.unirostock.sems.cbarchive.ArchiveEntry;
-import de.unirostock.sems.cbarchive.CombineArchive;
 import de.unirostock.sems.cbarchive.CombineArchiveException;
 import static de.bund.bfr.knime.fsklab.v2_0.reader.ReaderNodeUtil.lock;
 import static de.bund.bfr.knime.fsklab.v2_0.reader.ReaderNodeUtil.release;
@@ -72,16 +70,9 @@ public class ArchivedEnvironmentManager implements EnvironmentManager {
       return Optional.empty();
     lock(archiveFile.toFile());
     
-    try (CombineArchive archive = new CombineArchive(archiveFile.toFile())) {
-
-      Path environment = Files.createTempDirectory("workingDirectory");
-      for (String entryLocation : entries) {
-        ArchiveEntry resourceEntry = archive.getEntry(entryLocation);
-
-        Path extractedResourcePath = environment.resolve(resourceEntry.getFileName());
-        resourceEntry.extractFile(extractedResourcePath.toFile());
-      }
-
+    try {
+      // resources are extracted once per archive content and shared by working directories
+      Path environment = ArchiveExtractionCache.INSTANCE.createEnvironment(archiveFile, entries);
       return Optional.of(environment);
 
     } catch (IOException | JDOMException | ParseException | CombineArchiveException e) {
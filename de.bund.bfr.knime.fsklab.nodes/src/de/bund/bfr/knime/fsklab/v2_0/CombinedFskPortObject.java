@@ -91,6 +91,7 @@ import de.bund.bfr.knime.fsklab.nodes.environment.EnvironmentManager;
 import de.bund.bfr.knime.fsklab.nodes.environment.GeneratedResourceFiles;
 import de.bund.bfr.knime.fsklab.rakip.RakipModule;
 import de.bund.bfr.knime.fsklab.rakip.RakipUtil;
+import de.bund.bfr.knime.fsklab.v2_0.joiner.CombinedSimulationList;
 import de.bund.bfr.metadata.swagger.ConsumptionModel;
 import de.bund.bfr.metadata.swagger.DataModel;
 import de.bund.bfr.metadata.swagger.DoseResponseModel;
@@ -301,19 +302,21 @@ public class CombinedFskPortObject extends FskPortObject {
         out.closeEntry();
 
         // workspace entry
-        if (portObject.getWorkspace() != null) {
+        Path workspace = portObject.loadWorkspace();
+        if (workspace != null) {
           out.putNextEntry(new ZipEntry(JOINED_WORKSPACE + level));
-          Files.copy(portObject.getWorkspace(), out);
+          Files.copy(workspace, out);
           out.closeEntry();
         }
 
-        // Save simulations
+        // Save simulations. The combinations of the simulations of both models are written as
+        // the simulations of both models and created again when loaded.
         if (!portObject.simulations.isEmpty()) {
           out.putNextEntry(new ZipEntry(JOINED_SIMULATION + level));
 
           try {
             ObjectOutputStream oos = new ObjectOutputStream(out);
-            oos.writeObject(portObject.simulations);
+            oos.writeObject(compactSimulations(joinedPortObject));
           } catch (IOException exception) {
             exception.printStackTrace();
           }
@@ -371,9 +374,10 @@ public class CombinedFskPortObject extends FskPortObject {
         out.closeEntry();
 
         // workspace entry
-        if (portObject.getWorkspace() != null) {
+        Path workspace = portObject.loadWorkspace();
+        if (workspace != null) {
           out.putNextEntry(new ZipEntry(WORKSPACE + level));
-          Files.copy(portObject.getWorkspace(), out);
+          Files.copy(workspace, out);
           out.closeEntry();
         }
 
@@ -442,6 +446,17 @@ public class CombinedFskPortObject extends FskPortObject {
       }
     }
 
+    private static List<FskSimulation> compactSimulations(CombinedFskPortObject portObject) {
+      if (portObject.modelMetadata == null) {
+        return portObject.simulations;
+      }
+      FskPortObject first = portObject.getFirstFskPortObject();
+      FskPortObject second = portObject.getSecondFskPortObject();
+      return CombinedSimulationList.compact(portObject.simulations, first.simulations,
+          first.selectedSimulationIndex, second.simulations, second.selectedSimulationIndex,
+          SwaggerUtil.getParameter(portObject.modelMetadata));
+    }
+
     @SuppressWarnings("unchecked")
     public FskPortObject loadFSKPortObject(PortObjectZipInputStream in, PortObjectSpec spec,
         ExecutionMonitor exec) throws IOException, CanceledExecutionException {
@@ -32,6 +32,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -43,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.TreeMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import javax.swing.BorderFactory;
@@ -139,6 +141,9 @@ public class FskPortObject implements PortObject {
    */
   private Path workspace;
 
+  /** Creates the workspace on the first call of {@link #getWorkspace()}. May be null. */
+  private Supplier<Path> workspaceLoader;
+
   /** List of R packages. */
   public final List<String> packages;
 
@@ -223,12 +228,46 @@ public class FskPortObject implements PortObject {
     this.readme = readme;
   }
   
-  public Path getWorkspace() {
+  /**
+   * Returns the workspace of the model. A workspace set with
+   * {@link #setWorkspaceLoader(Supplier)} is created on the first call.
+   * 
+   * @return path to the workspace. Null if the model has no workspace.
+   * @throws UncheckedIOException if a workspace to be created on demand cannot be created, e.g.
+   *         because the archive it is extracted from was moved or deleted
+   */
+  public synchronized Path getWorkspace() {
+    if (workspaceLoader != null) {
+      workspace = workspaceLoader.get();
+      workspaceLoader = null;
+    }
     return workspace;
   }
+
+  /**
+   * Like {@link #getWorkspace()} but reports a failure to create the workspace as checked
+   * exception.
+   */
+  Path loadWorkspace() throws IOException {
+    try {
+      return getWorkspace();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
   
-  public void setWorkspace(Path workspace) {
+  public synchronized void setWorkspace(Path workspace) {
     this.workspace = workspace;
+    this.workspaceLoader = null;
+  }
+
+  /**
+   * Sets a workspace that is only created when it is first requested. Used for reading workspaces
+   * from archives on demand.
+   */
+  public synchronized void setWorkspaceLoader(Supplier<Path> workspaceLoader) {
+    this.workspace = null;
+    this.workspaceLoader = workspaceLoader;
   }
   
   public Optional<File> getGeneratedResourcesDirectory() {
@@ -310,9 +349,10 @@ public class FskPortObject implements PortObject {
       out.closeEntry();
 
       // workspace entry
-      if (portObject.workspace != null) {
+      Path workspace = portObject.loadWorkspace();
+      if (workspace != null) {
         out.putNextEntry(new ZipEntry(WORKSPACE));
-        Files.copy(portObject.workspace, out);
+        Files.copy(workspace, out);
         out.closeEntry();
       }
 
@@ -3,10 +3,21 @@ package de.bund.bfr.knime.fsklab.v2_0;
 public class JoinRelationAdvanced extends JoinRelation {
 
   private final FskPortObject fskObj;
+
+  /** Language of the model the target parameter belongs to. Null if unknown. */
+  private String targetLanguage;
   
   public FskPortObject getModel() {
     return fskObj;
   }
+
+  public String getTargetLanguage() {
+    return targetLanguage;
+  }
+
+  public void setTargetLanguage(String targetLanguage) {
+    this.targetLanguage = targetLanguage;
+  }
   
   public JoinRelationAdvanced(JoinRelation joinRelation, FskPortObject fskObj, String suffix) {
     
@@ -0,0 +1,150 @@
+package de.bund.bfr.knime.fsklab.v2_0.joiner;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import de.bund.bfr.knime.fsklab.v2_0.FskSimulation;
+import de.bund.bfr.metadata.swagger.Parameter;
+
+/**
+ * Simulations of a joined model followed by the cross product of the simulations of the first and
+ * second model. A combination is only created when it is accessed, and the serialized form holds
+ * the simulations of both models instead of every combination of them.
+ *
+ * The combination of the selected simulations of both models is left out, since it is already the
+ * default simulation of the joined model. The list cannot be modified. Every call of
+ * {@link #get(int)} for a combination returns a new simulation.
+ */
+public class CombinedSimulationList extends AbstractList<FskSimulation>
+    implements RandomAccess, Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /** Simulations of the joined model before the combinations. */
+  private final List<FskSimulation> simulations;
+
+  private final List<FskSimulation> firstSimulations;
+  private final List<FskSimulation> secondSimulations;
+
+  /** Index of the left out combination in the full cross product or -1. */
+  private final int skippedIndex;
+
+  /** Ids of the non-output parameters of the joined model and the ids in their own model. */
+  private final String[] parameterIds;
+  private final String[] originalIds;
+  private final boolean[] ofFirstModel;
+
+  /**
+   * @param simulations simulations of the joined model before the combinations
+   * @param firstSimulations simulations of the first model
+   * @param selectedFirst index of the selected simulation of the first model
+   * @param secondSimulations simulations of the second model
+   * @param selectedSecond index of the selected simulation of the second model
+   * @param combinedParameters parameters of the joined model with the suffixes
+   *        {@link JoinerNodeModel#SUFFIX_FIRST} and {@link JoinerNodeModel#SUFFIX_SECOND}
+   */
+  public CombinedSimulationList(List<FskSimulation> simulations,
+      List<FskSimulation> firstSimulations, int selectedFirst,
+      List<FskSimulation> secondSimulations, int selectedSecond,
+      List<Parameter> combinedParameters) {
+
+    this.simulations = new ArrayList<>(simulations);
+    this.firstSimulations = new ArrayList<>(firstSimulations);
+    this.secondSimulations = new ArrayList<>(secondSimulations);
+
+    if (selectedFirst >= 0 && selectedFirst < firstSimulations.size() && selectedSecond >= 0
+        && selectedSecond < secondSimulations.size()) {
+      skippedIndex = selectedFirst * secondSimulations.size() + selectedSecond;
+    } else {
+      skippedIndex = -1;
+    }
+
+    List<String> inputs = new ArrayList<>();
+    if (combinedParameters != null) {
+      for (Parameter p : combinedParameters) {
+        if (!p.getClassification().equals(Parameter.ClassificationEnum.OUTPUT)
+            && (p.getId().endsWith(JoinerNodeModel.SUFFIX_FIRST)
+                || p.getId().endsWith(JoinerNodeModel.SUFFIX_SECOND))) {
+          inputs.add(p.getId());
+        }
+      }
+    }
+
+    parameterIds = inputs.toArray(new String[0]);
+    originalIds = new String[parameterIds.length];
+    ofFirstModel = new boolean[parameterIds.length];
+    for (int i = 0; i < parameterIds.length; i++) {
+      // remove last suffix from the parameter to get the id in its own model
+      originalIds[i] = parameterIds[i].substring(0, parameterIds[i].length() - 1);
+      ofFirstModel[i] = parameterIds[i].endsWith(JoinerNodeModel.SUFFIX_FIRST);
+    }
+  }
+
+  /**
+   * @return a {@link CombinedSimulationList} with the same simulations as {@code simulations} if
+   *         they end with the combinations of the simulations of the first and second model, or
+   *         else {@code simulations} itself.
+   */
+  public static List<FskSimulation> compact(List<FskSimulation> simulations,
+      List<FskSimulation> firstSimulations, int selectedFirst,
+      List<FskSimulation> secondSimulations, int selectedSecond,
+      List<Parameter> combinedParameters) {
+
+    CombinedSimulationList combinations = new CombinedSimulationList(new ArrayList<>(),
+        firstSimulations, selectedFirst, secondSimulations, selectedSecond, combinedParameters);
+    int start = simulations.size() - combinations.size();
+
+    // not worth it for a single combination
+    if (combinations.size() < 2 || start < 0) {
+      return simulations;
+    }
+
+    for (int i = 0; i < combinations.size(); i++) {
+      FskSimulation simulation = simulations.get(start + i);
+      FskSimulation combination = combinations.get(i);
+      if (!simulation.getName().equals(combination.getName())
+          || !simulation.getParameters().equals(combination.getParameters())) {
+        return simulations;
+      }
+    }
+
+    return new CombinedSimulationList(simulations.subList(0, start), firstSimulations,
+        selectedFirst, secondSimulations, selectedSecond, combinedParameters);
+  }
+
+  @Override
+  public FskSimulation get(int index) {
+    if (index < 0 || index >= size()) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+    }
+    if (index < simulations.size()) {
+      return simulations.get(index);
+    }
+
+    int productIndex = index - simulations.size();
+    if (skippedIndex >= 0 && productIndex >= skippedIndex) {
+      productIndex++;
+    }
+    FskSimulation simFirst = firstSimulations.get(productIndex / secondSimulations.size());
+    FskSimulation simSecond = secondSimulations.get(productIndex % secondSimulations.size());
+
+    FskSimulation simComb = new FskSimulation(simFirst.getName() + "_" + simSecond.getName());
+    for (int i = 0; i < parameterIds.length; i++) {
+      FskSimulation source = ofFirstModel[i] ? simFirst : simSecond;
+      simComb.getParameters().put(parameterIds[i], source.getParameters().get(originalIds[i]));
+    }
+
+    return simComb;
+  }
+
+  @Override
+  public int size() {
+    int combinations = firstSimulations.size() * secondSimulations.size();
+    if (skippedIndex >= 0) {
+      combinations--;
+    }
+    return simulations.size() + combinations;
+  }
+}
@@ -968,7 +968,7 @@ public final class JoinerNodeModel
       String fileLocation = model[5].substring(1, model[5].length() - 1);
       fileLocation = fileLocation.replace("file:", "");
       try {
-        portObject = ReaderNodeUtil.readArchive(new File(fileLocation));
+        portObject = ReaderNodeUtil.readArchive(new File(fileLocation), true);
       } catch (Exception e) {
         e.printStackTrace();
       }
@@ -979,7 +979,7 @@ public final class JoinerNodeModel
         downloadFile(new URL(model[6]), fileZip);
       }
       try {
-        portObject = ReaderNodeUtil.readArchive(new File(fileZip));
+        portObject = ReaderNodeUtil.readArchive(new File(fileZip), true);
       } catch (Exception e) {
         e.printStackTrace();
       }
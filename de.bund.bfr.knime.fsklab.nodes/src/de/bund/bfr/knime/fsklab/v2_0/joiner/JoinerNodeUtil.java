@@ -325,7 +325,9 @@ public class JoinerNodeUtil {
 
   /**
    * This method creates a cross product of all simulations from the first and second models and
-   * combines them to create simulations for the joined model.
+   * combines them to create simulations for the joined model. When the joined model is saved, only
+   * the simulations of both models are written for the cross product, see
+   * {@link CombinedSimulationList}.
    * 
    * @param firstFskObj First FSK object with simulations
    * @param secondFskObj Second FSK object with simulations
@@ -333,54 +335,9 @@ public class JoinerNodeUtil {
    */
   public static void createAllPossibleSimulations(FskPortObject firstFskObj,
       FskPortObject secondFskObj, CombinedFskPortObject outObj) {
-
-    int indexFirst = 0;
-    int indexSecond = 0;
-    for (FskSimulation simFirst : firstFskObj.simulations) {
-
-      for (FskSimulation simSecond : secondFskObj.simulations) {
-
-        // these simulations are already used for the default simulation of the combined model. So
-        // skip it.
-        if (indexFirst == firstFskObj.selectedSimulationIndex
-            && indexSecond == secondFskObj.selectedSimulationIndex) {
-          indexSecond++;
-          continue;
-        }
-
-
-        List<Parameter> combinedModelParameters = SwaggerUtil.getParameter(outObj.modelMetadata);
-
-        FskSimulation simComb = new FskSimulation(simFirst.getName() + "_" + simSecond.getName());
-
-        // unless the parameter is output, add it to new simulation
-        for (Parameter p : combinedModelParameters) {
-          if (p.getClassification().equals(Parameter.ClassificationEnum.OUTPUT))
-            continue;
-
-
-          String p_id = p.getId();
-          // for convenience remove last suffix from the parameter to make comparison easier
-          String p_trim = p.getId().substring(0, p.getId().length() - 1);
-          // if simulation-parameter belongs to first model, get its value and add it to the
-          // combined simulation
-          if (p_id.endsWith(JoinerNodeModel.SUFFIX_FIRST)) {
-            simComb.getParameters().put(p_id, simFirst.getParameters().get(p_trim));
-          }
-          if (p_id.endsWith(JoinerNodeModel.SUFFIX_SECOND)) {
-            simComb.getParameters().put(p_id, simSecond.getParameters().get(p_trim));
-          }
-        }
-
-        // add new simulation to combined model
-        outObj.simulations.add(simComb);
-        indexSecond++;
-      }
-      indexSecond = 0;
-      indexFirst++;
-
-    }
-
+    outObj.simulations.addAll(new CombinedSimulationList(Collections.emptyList(),
+        firstFskObj.simulations, firstFskObj.selectedSimulationIndex, secondFskObj.simulations,
+        secondFskObj.selectedSimulationIndex, SwaggerUtil.getParameter(outObj.modelMetadata)));
   }
 
 
@@ -139,7 +139,8 @@ public class ReaderNodeModel extends NoInternalsModel {
       }
 
       
-      inObject = ReaderNodeUtil.readArchive(fskxFile);
+      // The downloaded archive is kept until reset, so its workspaces are extracted on demand
+      inObject = ReaderNodeUtil.readArchive(fskxFile, true);
     }
 
     return new PortObject[] {inObject};
@@ -27,8 +27,13 @@ import de.unirostock.sems.cbarchive.ArchiveEntry;
 import de.unirostock.sems.cbarchive.CombineArchive;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -41,8 +46,10 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import org.apache.commons.io.FileUtils;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import org.apache.commons.lang3.StringUtils;
 import org.jdom.Text;
 import org.jlibsedml.ChangeAttribute;
@@ -322,7 +329,7 @@ public class ReaderNodeUtil {
   }
   
   private static FskPortObject readFskPortObject(CombineArchive archive, List<String> ListOfPaths,
-      int readLevel) throws Exception {
+      int readLevel, boolean lazy) throws Exception {
     Map<String, URI> URIS = FSKML.getURIS(1, 0, 12);
 
     Model model = new Model();
@@ -340,8 +347,9 @@ public class ReaderNodeUtil {
       }
 
       // invoke this mothod recursively to get the sub model using the corresponding path group
-      FskPortObject firstFskPortObject = readFskPortObject(archive, firstGroup, ++readLevel);
-      FskPortObject secondFskPortObject = readFskPortObject(archive, secondGroup, ++readLevel);
+      FskPortObject firstFskPortObject = readFskPortObject(archive, firstGroup, ++readLevel, lazy);
+      FskPortObject secondFskPortObject =
+          readFskPortObject(archive, secondGroup, ++readLevel, lazy);
       String tempString = firstelement.substring(0, firstelement.length() - 2);
       String parentPath = tempString.substring(0, tempString.lastIndexOf('/'));
 
@@ -361,7 +369,7 @@ public class ReaderNodeUtil {
 
       // Get workspace
       URI rdataUri = URIS.get("rdata");
-      File workspace = null; // null if missing
+      ArchiveEntry workspace = null; // null if missing
 
       Optional<ArchiveEntry> workspaceEntry = archive.getEntriesWithFormat(rdataUri).stream()
           .filter(entry -> entry.getEntityPath().startsWith(parentPath))
@@ -372,8 +380,7 @@ public class ReaderNodeUtil {
         ArchiveEntry entry = workspaceEntry.get();
         FskMetaDataObject fmdo = new FskMetaDataObject(entry.getDescriptions().get(0));
         if (fmdo.getResourceType() == ResourceType.workspace) {
-            workspace = FileUtil.createTempFile("workspace", ".RData");
-            entry.extractFile(workspace);
+            workspace = entry;
         }
       }
 
@@ -390,11 +397,11 @@ public class ReaderNodeUtil {
       String firstModelId = "";
       if (sbmlEntry.isPresent()) {
 
-        // Extract entry to temporary file
-        File temporaryFile = File.createTempFile("model", ".sbml");
-        sbmlEntry.get().extractFile(temporaryFile);
-        SBMLDocument sbmlDocument = SBMLReader.read(temporaryFile);
-        temporaryFile.delete();
+        // Read entry directly from the archive
+        SBMLDocument sbmlDocument;
+        try (InputStream stream = Files.newInputStream(sbmlEntry.get().getPath())) {
+          sbmlDocument = SBMLReader.read(stream);
+        }
 
         // Get first model's id
         CompModelPlugin compModelPlugin =
@@ -500,7 +507,7 @@ public class ReaderNodeUtil {
       }
       
       if (workspace != null) {
-        topfskObj.setWorkspace(workspace.toPath());
+        readWorkspace(topfskObj, workspace, lazy);
       }
 
       topfskObj.setJoinerRelation(connectionList.toArray(new JoinRelation[connectionList.size()]));
@@ -509,7 +516,7 @@ public class ReaderNodeUtil {
     } else {
       String modelScript = "";
       String visualizationScript = "";
-      File workspace = null; // null if missing
+      ArchiveEntry workspace = null; // null if missing
       String pathToResource = ListOfPaths.get(0);
       String readme = "";
 
@@ -556,8 +563,7 @@ public class ReaderNodeUtil {
             visualizationScript = loadTextEntry(entry);
           } else if (resourceType == ResourceType.workspace) {
             // Legacy check. Look for R workspace with R URI (from old files)
-            workspace = FileUtil.createTempFile("workspace", ".RData");
-            entry.extractFile(workspace);
+            workspace = entry;
           }
         }
       }
@@ -576,8 +582,7 @@ public class ReaderNodeUtil {
         FskMetaDataObject fmdo =
             new FskMetaDataObject(workspaceEntry.get().getDescriptions().get(0));
         if (fmdo.getResourceType() == ResourceType.workspace) {
-          workspace = FileUtil.createTempFile("workspace", ".RData");
-          workspaceEntry.get().extractFile(workspace);
+          workspace = workspaceEntry.get();
         }
       }
 
@@ -607,14 +612,15 @@ public class ReaderNodeUtil {
       }
       List<String> packagesList = new ArrayList<>(packagesSet);
 
-      Path workspacePath = workspace == null ? null : workspace.toPath();
-
       // The reader node is not using currently the plot, if present. Therefore an
       // empty string is used.
       String plotPath = "";
 
       FskPortObject fskObj = new FskPortObject(modelScript, visualizationScript, model,
-          workspacePath, packagesList, Optional.of(environmentManager), plotPath, readme);
+          null, packagesList, Optional.of(environmentManager), plotPath, readme);
+      if (workspace != null) {
+        readWorkspace(fskObj, workspace, lazy);
+      }
 
       // Read selected simulation index and simulations
       Optional<ArchiveEntry> simulationEntry =
@@ -658,6 +664,21 @@ public class ReaderNodeUtil {
    * @throws Exception
    */
   public static FskPortObject readArchive(File in) throws Exception {
+    return readArchive(in, false);
+  }
+
+  /**
+   * Reads an archive into a FSK Object. In lazy mode the workspaces, which are the largest entries
+   * of the archive, are only extracted when they are first requested with
+   * {@link FskPortObject#getWorkspace()}. The archive must not be moved, changed or deleted until
+   * then, otherwise {@link FskPortObject#getWorkspace()} fails.
+   * 
+   * @param in a file to be read and converted into FSK Object
+   * @param lazy whether workspaces are extracted on demand
+   * @return FskPortObject
+   * @throws Exception
+   */
+  public static FskPortObject readArchive(File in, boolean lazy) throws Exception {
     FskPortObject fskObj = null;
     lock(in);
     try (final CombineArchive archive = new CombineArchive(in)) {
@@ -693,7 +714,7 @@ public class ReaderNodeUtil {
         modelFolders = Arrays.asList("/");
       }
 
-      fskObj = readFskPortObject(archive, modelFolders, 0);
+      fskObj = readFskPortObject(archive, modelFolders, 0, lazy);
     }
     finally {
       release(in);
@@ -706,6 +727,55 @@ public class ReaderNodeUtil {
     return fskObj;
   }
 
+  /**
+   * Sets the workspace of a model from an archive entry. In lazy mode the entry is extracted when
+   * the workspace is first requested.
+   */
+  private static void readWorkspace(FskPortObject fskObj, ArchiveEntry entry, boolean lazy)
+      throws IOException {
+    if (lazy) {
+      fskObj.setWorkspaceLoader(
+          createWorkspaceLoader(entry.getArchive().getZipLocation(), entry.getFilePath()));
+    } else {
+      File workspace = FileUtil.createTempFile("workspace", ".RData");
+      entry.extractFile(workspace);
+      fskObj.setWorkspace(workspace.toPath());
+    }
+  }
+
+  private static Supplier<Path> createWorkspaceLoader(File archiveFile, String entryPath) {
+    final String entryName = StringUtils.removeStart(entryPath, "/");
+    final long length = archiveFile.length();
+    final long lastModified = archiveFile.lastModified();
+
+    return () -> {
+      // Do not extract a workspace of another model if the archive was replaced in the meantime
+      if (!archiveFile.isFile() || archiveFile.length() != length
+          || archiveFile.lastModified() != lastModified) {
+        throw new UncheckedIOException(new IOException("Workspace " + entryName
+            + " cannot be loaded. The archive " + archiveFile + " was moved, changed or deleted."));
+      }
+
+      lock(archiveFile);
+      try (ZipFile zipFile = new ZipFile(archiveFile)) {
+        ZipEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
+          throw new IOException("Workspace " + entryName + " is missing in " + archiveFile);
+        }
+
+        Path workspace = FileUtil.createTempFile("workspace", ".RData").toPath();
+        try (InputStream stream = zipFile.getInputStream(entry)) {
+          Files.copy(stream, workspace, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return workspace;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      } finally {
+        release(archiveFile);
+      }
+    };
+  }
+
   private static FskPortObject getEmbedSecondFSKObject(CombinedFskPortObject comFskObj) {
     FskPortObject embedFSKObject = comFskObj.getSecondFskPortObject();
     if (embedFSKObject instanceof CombinedFskPortObject) {
@@ -726,39 +796,22 @@ public class ReaderNodeUtil {
 
   /** @return text content out of an {@link ArchiveEntry}. */
   private static String loadTextEntry(final ArchiveEntry entry) throws IOException {
-
-    // Create temporary file with script
-    File temp = File.createTempFile("temp", null);
-    String contents;
-
-    try {
-      // extractFile throws IOException if the file does not exist (was deleted manually) or is
-      // not writable.
-      entry.extractFile(temp);
-
-      // readFileToString throws IOException if the file was deleted manually
-      contents = FileUtils.readFileToString(temp, "UTF-8");
-    } catch (IOException exception) {
-      throw exception;
-    } finally {
-      temp.delete();
-    }
-
-    return contents;
+    // Read the entry directly from the archive. Throws IOException if the entry is missing.
+    return new String(Files.readAllBytes(entry.getPath()), StandardCharsets.UTF_8);
   }
 
   private static Model readMetadata(ArchiveEntry metadataEntry)
       throws JsonProcessingException, IOException {
+    try (InputStream stream = Files.newInputStream(metadataEntry.getPath())) {
+      return readMetadata(stream);
+    }
+  }
 
-    // Create temporary file with metadata
-    File temp = File.createTempFile("metadata", ".json");
-    metadataEntry.extractFile(temp);
+  private static Model readMetadata(InputStream stream)
+      throws JsonProcessingException, IOException {
 
-    // Load metadata from temporary file
     final ObjectMapper mapper = FskPlugin.getDefault().MAPPER104;
-    JsonNode jsonNode = mapper.readTree(temp);
-
-    temp.delete(); // Delete temporary file
+    JsonNode jsonNode = mapper.readTree(stream);
 
     Model model;
 
@@ -834,13 +887,10 @@ public class ReaderNodeUtil {
   private static SimulationSettings readSimulationSettings(ArchiveEntry simulationsEntry)
       throws IOException, XMLException {
 
-    // Create temporary file for extracting SEDML and read it.
-    File tempFile = File.createTempFile("simulations", ".sedml");
-    simulationsEntry.extractFile(tempFile);
-
-    // Read SEDML and delete temporary file
-    SedML sedml = Libsedml.readDocument(tempFile).getSedMLModel();
-    tempFile.delete();
+    // Read SEDML directly from the archive
+    String sedmlString =
+        new String(Files.readAllBytes(simulationsEntry.getPath()), StandardCharsets.UTF_8);
+    SedML sedml = Libsedml.readDocumentFromString(sedmlString).getSedMLModel();
 
     // Read selected simulation
     int selectedSimulationIndex = 0;
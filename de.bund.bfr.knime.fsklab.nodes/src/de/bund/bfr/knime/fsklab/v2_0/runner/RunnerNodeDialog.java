@@ -59,8 +59,17 @@ public class RunnerNodeDialog extends DataAwareNodeDialogPane {
   private final DefaultComboBoxModel<FskSimulation> simulationModel;
   private final ScriptPanel scriptPanel;
   private final JCheckBox saveOutputToJsonFileCheckBock; 
+  private final SpinnerNumberModel parallelSimulationsModel;
+
+  /** Whether the dialog configures the FSK Simulations Runner. */
+  private final boolean runAllSimulations;
   
   public RunnerNodeDialog() {
+    this(false);
+  }
+
+  RunnerNodeDialog(boolean runAllSimulations) {
+    this.runAllSimulations = runAllSimulations;
     settings = new RunnerNodeSettings();
 
     widthModel = new SpinnerNumberModel(settings.width, null, null, 1);
@@ -70,6 +79,7 @@ public class RunnerNodeDialog extends DataAwareNodeDialogPane {
     simulationModel = new DefaultComboBoxModel<>();
     scriptPanel = new ScriptPanel("Preview", "", false, false);
     saveOutputToJsonFileCheckBock = new JCheckBox();
+    parallelSimulationsModel = new SpinnerNumberModel(settings.parallelSimulations, 1, 64, 1);
     createUI();
   }
 
@@ -117,6 +127,18 @@ public class RunnerNodeDialog extends DataAwareNodeDialogPane {
     saveToJsonFilePanel.add(saveOutputToJsonFileCheckBock);
     
     simulationSettingsPanel.add(saveToJsonFilePanel);
+
+    // Several simulations of the model are run at the same time
+    if (runAllSimulations) {
+      JSpinner parallelSimulationsSpinner = new JSpinner(parallelSimulationsModel);
+      parallelSimulationsSpinner.setToolTipText("Number of simulations run at the same time");
+
+      JPanel parallelSimulationsPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+      parallelSimulationsPanel.add(new JLabel("Parallel simulations:"));
+      parallelSimulationsPanel.add(parallelSimulationsSpinner);
+
+      simulationSettingsPanel.add(parallelSimulationsPanel);
+    }
     addTab("Simulation settings", simulationSettingsPanel);
 
     JPanel plotSettingsPanel = new JPanel(new GridBagLayout());
@@ -193,6 +215,9 @@ public class RunnerNodeDialog extends DataAwareNodeDialogPane {
     } catch (InvalidSettingsException e) {
       saveOutputToJsonFileCheckBock.setSelected(false);
     }
+
+    parallelSimulationsModel.setValue(
+        settings.getInt("parallelSimulations", Runtime.getRuntime().availableProcessors()));
     
   }
 
@@ -209,6 +234,7 @@ public class RunnerNodeDialog extends DataAwareNodeDialogPane {
     this.settings.simulation = selectedSimulation.getName();
 
     this.settings.saveToJson = saveOutputToJsonFileCheckBock.isSelected();
+    this.settings.parallelSimulations = parallelSimulationsModel.getNumber().intValue();
     this.settings.save(settings);
   }
 }
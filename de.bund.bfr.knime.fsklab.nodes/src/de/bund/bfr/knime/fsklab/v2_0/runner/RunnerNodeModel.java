@@ -30,10 +30,12 @@ import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.knime.base.data.xml.SvgCell;
 import org.knime.base.data.xml.SvgImageContent;
 import org.knime.base.node.util.exttool.ExtToolOutputNodeModel;
+import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.ExecutionMonitor;
@@ -64,6 +66,7 @@ import de.bund.bfr.knime.fsklab.v2_0.JoinRelation;
 import de.bund.bfr.knime.fsklab.v2_0.JoinRelationAdvanced;
 import de.bund.bfr.knime.fsklab.v2_0.joiner.JoinerNodeModel;
 import de.bund.bfr.knime.fsklab.v2_0.joiner.JoinerNodeUtil;
+import de.bund.bfr.knime.fsklab.v2_0.runner.SimulationBatchRunner.SimulationResult;
 import de.bund.bfr.metadata.swagger.Parameter;
 import metadata.SwaggerUtil;
 
@@ -86,12 +89,26 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
   // Input and output port types
   private static final PortType[] IN_TYPES = {FskPortObject.TYPE};
   private static final PortType[] OUT_TYPES = {FskPortObject.TYPE, ImagePortObject.TYPE_OPTIONAL};
+  private static final PortType[] ALL_SIMULATIONS_OUT_TYPES =
+      {FskPortObject.TYPE, ImagePortObject.TYPE_OPTIONAL, BufferedDataTable.TYPE};
+
+  /** Whether every simulation is run and returned in an additional table. */
+  private final boolean runAllSimulations;
 
   // isTest field is only used by maven build
   public static boolean isTest = false;
 
   public RunnerNodeModel() {
-    super(IN_TYPES, OUT_TYPES);
+    this(false);
+  }
+
+  /**
+   * @param runAllSimulations whether every simulation of the model is run. The results are
+   *        returned in a third port, so a Runner with this flag has a different port layout.
+   */
+  RunnerNodeModel(boolean runAllSimulations) {
+    super(IN_TYPES, runAllSimulations ? ALL_SIMULATIONS_OUT_TYPES : OUT_TYPES);
+    this.runAllSimulations = runAllSimulations;
   }
 
   // --- internal settings methods ---
@@ -134,6 +151,9 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
 
   @Override
   protected PortObjectSpec[] configure(PortObjectSpec[] inSpecs) throws InvalidSettingsException {
+    if (runAllSimulations) {
+      return new PortObjectSpec[] {FSK_SPEC, SVG_SPEC, SimulationBatchRunner.SPEC};
+    }
     return new PortObjectSpec[] {FSK_SPEC, SVG_SPEC};
   }
 
@@ -153,24 +173,23 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
           .findFirst().ifPresent(index -> reSelectSimulation(fskObjk, index));
     }
 
-    try {
-      
-      FskSimulation combinedSim = fskObj.simulations.get(fskObj.selectedSimulationIndex);
-      List<JoinRelationAdvanced> joinRelationList = null;
-      if (fskObj instanceof CombinedFskPortObject) {
-        joinRelationList = getMapOfSourceParameters(
-            fskObj,
-            getJoinRelations((CombinedFskPortObject)fskObj, new ArrayList<JoinRelation>()),
-            null,
-            ""
-            );
-          
+    BufferedDataTable simulationsTable = null;
+    if (runAllSimulations) {
+      simulationsTable = runAllSimulations(fskObj, exec);
+    } else {
+      try {
+        
+        FskSimulation combinedSim = fskObj.simulations.get(fskObj.selectedSimulationIndex);
+        List<JoinRelationAdvanced> joinRelationList = null;
+        if (fskObj instanceof CombinedFskPortObject) {
+          joinRelationList = getJoinRelationList((CombinedFskPortObject) fskObj);
+        }
+       
+        runFskPortObject(fskObj, combinedSim, exec, joinRelationList, "");
+        
+      } catch (Exception e) {
+        throw new Exception(e.getLocalizedMessage(), e);
       }
-     
-      runFskPortObject(fskObj, combinedSim, exec, joinRelationList, "");
-      
-    } catch (Exception e) {
-      throw new Exception(e.getLocalizedMessage(), e);
     }
     if (fskObj instanceof CombinedFskPortObject) {
       createTopLevelJsonFile((CombinedFskPortObject) fskObj, exec);
@@ -183,7 +202,8 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
     }
     
     // add flow-variable stating which simulation (name) was executed
-    String simulationName = fskObj.simulations != null
+    String simulationName = fskObj.simulations != null && fskObj.selectedSimulationIndex >= 0
+        && fskObj.selectedSimulationIndex < fskObj.simulations.size()
         ? fskObj.simulations.get(fskObj.selectedSimulationIndex).getName()
             : "defaultSimulation";
     this.pushFlowVariableString("selectedSimulation", simulationName);
@@ -209,19 +229,70 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
         final SvgImageContent content = new SvgImageContent(fis);
         ImagePortObject imgObj = new ImagePortObject(content, SVG_SPEC);
         fskObj.setPlot(internalSettings.imageFile.getPath());
-        return new PortObject[] {fskObj, imgObj};
+        return createOutputs(fskObj, imgObj, simulationsTable);
       }
     }
     try (FileInputStream fis = new FileInputStream(internalSettings.imageFile)) {
       final SvgImageContent content = new SvgImageContent(fis);
       ImagePortObject imgObj = new ImagePortObject(content, SVG_SPEC);
       // create a parameter.json for the top level combined model
-      return new PortObject[] {fskObj, imgObj};
+      return createOutputs(fskObj, imgObj, simulationsTable);
     } catch (IOException e) {
       LOGGER.warn("There is no image created");
-      return new PortObject[] {fskObj};
+      return createOutputs(fskObj, null, simulationsTable);
     }
   }
+
+  private PortObject[] createOutputs(FskPortObject fskObj, ImagePortObject imgObj,
+      BufferedDataTable simulationsTable) {
+    if (runAllSimulations) {
+      return new PortObject[] {fskObj, imgObj, simulationsTable};
+    }
+    return new PortObject[] {fskObj, imgObj};
+  }
+
+  /**
+   * Run every simulation of the model with up to {@link RunnerNodeSettings#parallelSimulations}
+   * simulations at the same time. The results of the selected simulation are kept in the model.
+   *
+   * @return table with the results of every simulation
+   */
+  private BufferedDataTable runAllSimulations(FskPortObject fskObj, ExecutionContext exec)
+      throws Exception {
+
+    SimulationBatchRunner batchRunner = new SimulationBatchRunner(this,
+        nodeSettings.parallelSimulations, nodeSettings.saveToJson);
+    List<SimulationResult> results = batchRunner.run(fskObj, exec.createSubExecutionContext(0.95));
+    BufferedDataTable table =
+        SimulationBatchRunner.createTable(results, exec.createSubExecutionContext(0.05));
+
+    long failed = results.stream().filter(result -> result.error != null).count();
+    if (failed > 0) {
+      setWarningMessage(failed + " of " + results.size() + " simulations failed");
+    }
+
+    if (fskObj.selectedSimulationIndex < 0 || fskObj.selectedSimulationIndex >= results.size()) {
+      SimulationBatchRunner.deleteUnusedFiles(results, null);
+      setWarningMessage("No selected simulation to keep in the model");
+      return table;
+    }
+
+    SimulationResult selected = results.get(fskObj.selectedSimulationIndex);
+    SimulationBatchRunner.deleteUnusedFiles(results, selected);
+    if (selected.error != null) {
+      throw new Exception(selected.error);
+    }
+
+    fskObj.setWorkspace(selected.workspace);
+    if (selected.generatedResources != null) {
+      fskObj.setGeneratedResourcesDirectory(selected.generatedResources);
+    }
+    if (selected.plot != null && !selected.plot.equals(internalSettings.imageFile.getPath())) {
+      FileUtils.copyFile(new File(selected.plot), internalSettings.imageFile);
+    }
+
+    return table;
+  }
   private boolean isVisScriptEmpty(FskPortObject fskObject) {
     if (fskObject instanceof CombinedFskPortObject) {
       return isVisScriptEmpty(((CombinedFskPortObject)fskObject).getSecondFskPortObject());
@@ -374,6 +445,34 @@ public class RunnerNodeModel extends ExtToolOutputNodeModel implements PortObjec
    * helper method to get all join relations for top and sub-models 
    */
   
+  /** @return join relations of every nested model of a combined model. */
+  List<JoinRelationAdvanced> getJoinRelationList(CombinedFskPortObject portObject) {
+    List<JoinRelationAdvanced> joinRelationList = getMapOfSourceParameters(portObject,
+        getJoinRelations(portObject, new ArrayList<JoinRelation>()), null, "");
+    setTargetLanguages(portObject, joinRelationList, "");
+    return joinRelationList;
+  }
+
+  /** Sets the language of the model of the target parameter of every join relation. */
+  private static void setTargetLanguages(FskPortObject portObject,
+      List<JoinRelationAdvanced> joinRelationList, String suffix) {
+    if (portObject instanceof CombinedFskPortObject) {
+      setTargetLanguages(((CombinedFskPortObject) portObject).getFirstFskPortObject(),
+          joinRelationList, suffix + JoinerNodeModel.SUFFIX_FIRST);
+      setTargetLanguages(((CombinedFskPortObject) portObject).getSecondFskPortObject(),
+          joinRelationList, suffix + JoinerNodeModel.SUFFIX_SECOND);
+    } else {
+      String language = SwaggerUtil.getLanguageWrittenIn(portObject.modelMetadata);
+      for (Parameter param : SwaggerUtil.getParameter(portObject.modelMetadata)) {
+        for (JoinRelationAdvanced joinRelation : joinRelationList) {
+          if (joinRelation.getTargetParam().equals(param.getId() + suffix)) {
+            joinRelation.setTargetLanguage(language);
+          }
+        }
+      }
+    }
+  }
+
   private List<JoinRelation> getJoinRelations(CombinedFskPortObject portObject,
       List<JoinRelation> joinRelations) {
     if (portObject.getJoinerRelation() != null) {
@@ -30,6 +30,7 @@ public class RunnerNodeSettings {
   private static final String CFG_POINT_SIZE = "textPointSize";
   private static final String CFG_SIMULATION = "simulation";
   private static final String CFG_SAVETOJSON = "saveToJson";
+  private static final String CFG_PARALLEL_SIMULATIONS = "parallelSimulations";
 
   /** Width of the plot. */
   public int width = 640;
@@ -44,6 +45,9 @@ public class RunnerNodeSettings {
   public String simulation = "";
   /** Checkbox if parameters should be written to JSON file */
   public boolean saveToJson = false;
+
+  /** Maximum number of simulations run at the same time by the FSK Simulations Runner. */
+  public int parallelSimulations = Runtime.getRuntime().availableProcessors();
   /**
    * The default pointsize of plotted text, interpreted as big points (1/72 inch) at {@link res}
    * ppi.
@@ -62,6 +66,8 @@ public class RunnerNodeSettings {
      */
     simulation = settings.getString(CFG_SIMULATION, "");
     saveToJson = settings.getBoolean(CFG_SAVETOJSON, false);
+    parallelSimulations =
+        settings.getInt(CFG_PARALLEL_SIMULATIONS, Runtime.getRuntime().availableProcessors());
   }
 
   public void save(final NodeSettingsWO settings) {
@@ -71,5 +77,6 @@ public class RunnerNodeSettings {
     settings.addInt(CFG_POINT_SIZE, pointSize);
     settings.addString(CFG_SIMULATION, simulation);
     settings.addBoolean(CFG_SAVETOJSON, saveToJson);
+    settings.addInt(CFG_PARALLEL_SIMULATIONS, parallelSimulations);
   }
 }
@@ -0,0 +1,363 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2017 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.v2_0.runner;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.commons.io.FileUtils;
+import org.knime.base.data.xml.SvgCell;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.json.JSONCell;
+import org.knime.core.data.json.JSONCellFactory;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.FileUtil;
+import org.knime.core.util.ThreadUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.bund.bfr.knime.fsklab.nodes.ScriptHandler;
+import de.bund.bfr.knime.fsklab.r.client.IRController.RException;
+import de.bund.bfr.knime.fsklab.r.client.ScriptExecutor;
+import de.bund.bfr.knime.fsklab.v2_0.CombinedFskPortObject;
+import de.bund.bfr.knime.fsklab.v2_0.FskPortObject;
+import de.bund.bfr.knime.fsklab.v2_0.FskSimulation;
+import metadata.SwaggerUtil;
+
+/**
+ * Runs every simulation of a model and gathers their results in a table.
+ *
+ * <p>
+ * Simulations of plain models run concurrently, each one on its own copy of the model and in its
+ * own R/Python session. Combined models share their nested port objects between simulations so
+ * their simulations are run one after another.
+ */
+class SimulationBatchRunner {
+
+  private static final NodeLogger LOGGER = NodeLogger.getLogger(SimulationBatchRunner.class);
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  /** Interval in milliseconds for checking cancellation while waiting for simulations. */
+  private static final long POLL_INTERVAL = 500;
+
+  static final DataTableSpec SPEC = new DataTableSpec(
+      new DataColumnSpecCreator("Simulation", StringCell.TYPE).createSpec(),
+      new DataColumnSpecCreator("Error", StringCell.TYPE).createSpec(),
+      new DataColumnSpecCreator("Outputs", JSONCell.TYPE).createSpec(),
+      new DataColumnSpecCreator("Plot", SvgCell.TYPE).createSpec());
+
+  private final RunnerNodeModel nodeModel;
+  private final int parallelism;
+  private final boolean saveToJson;
+
+  /**
+   * @param nodeModel Runner used to run the simulations of combined models
+   * @param parallelism maximum number of simulations run at the same time
+   * @param saveToJson whether the parameters of every simulation are saved to JSON
+   */
+  SimulationBatchRunner(final RunnerNodeModel nodeModel, final int parallelism,
+      final boolean saveToJson) {
+    this.nodeModel = nodeModel;
+    this.parallelism = Math.max(1, parallelism);
+    this.saveToJson = saveToJson;
+  }
+
+  /**
+   * Run every simulation of a model.
+   *
+   * @param fskObj model whose simulations are run. It is not modified for plain models.
+   * @param exec execution context. Its progress is split evenly between the simulations.
+   * @return results in the order of the simulations of the model
+   */
+  List<SimulationResult> run(final FskPortObject fskObj, final ExecutionContext exec)
+      throws CanceledExecutionException, InterruptedException {
+
+    final int numberOfSimulations = fskObj.simulations.size();
+    if (numberOfSimulations == 0) {
+      return Collections.emptyList();
+    }
+
+    // Sub contexts are created upfront in the node thread
+    final List<ExecutionContext> contexts = new ArrayList<>(numberOfSimulations);
+    for (int i = 0; i < numberOfSimulations; i++) {
+      contexts.add(exec.createSubExecutionContext(1.0 / numberOfSimulations));
+    }
+
+    if (fskObj instanceof CombinedFskPortObject) {
+      // Run the selected simulation last so the combined model keeps its results
+      List<Integer> order = new ArrayList<>(numberOfSimulations);
+      for (int i = 0; i < numberOfSimulations; i++) {
+        if (i != fskObj.selectedSimulationIndex) {
+          order.add(i);
+        }
+      }
+      if (fskObj.selectedSimulationIndex >= 0
+          && fskObj.selectedSimulationIndex < numberOfSimulations) {
+        order.add(fskObj.selectedSimulationIndex);
+      }
+
+      SimulationResult[] results = new SimulationResult[numberOfSimulations];
+      int finished = 0;
+      for (int i : order) {
+        exec.checkCanceled();
+        FskSimulation simulation = fskObj.simulations.get(i);
+        results[i] =
+            runCombinedSimulation((CombinedFskPortObject) fskObj, simulation, contexts.get(i));
+        reportProgress(exec, simulation, ++finished, numberOfSimulations);
+      }
+      return Arrays.asList(results);
+    }
+
+    final ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parallelism, numberOfSimulations), new SimulationThreadFactory());
+    final List<Future<SimulationResult>> futures = new ArrayList<>(numberOfSimulations);
+    try {
+      for (int i = 0; i < numberOfSimulations; i++) {
+        final FskSimulation simulation = fskObj.simulations.get(i);
+        final ExecutionContext context = contexts.get(i);
+        futures.add(executor.submit(
+            ThreadUtils.callableWithContext(() -> runSimulation(fskObj, simulation, context))));
+      }
+
+      List<SimulationResult> results = new ArrayList<>(numberOfSimulations);
+      for (int i = 0; i < numberOfSimulations; i++) {
+        results.add(waitFor(futures.get(i), exec));
+        reportProgress(exec, fskObj.simulations.get(i), i + 1, numberOfSimulations);
+      }
+      return results;
+    } catch (CanceledExecutionException | InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      throw e;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Create a table with a row per simulation result. */
+  static BufferedDataTable createTable(final List<SimulationResult> results,
+      final ExecutionContext exec) {
+
+    BufferedDataContainer container = exec.createDataContainer(SPEC);
+    int rowIndex = 0;
+    for (SimulationResult result : results) {
+      DataCell[] cells = new DataCell[SPEC.getNumColumns()];
+      cells[0] = new StringCell(result.simulation);
+      cells[1] = result.error != null ? new StringCell(result.error) : DataType.getMissingCell();
+      cells[2] = createOutputsCell(result.outputs);
+      cells[3] = createPlotCell(result.plot);
+
+      container.addRowToTable(new DefaultRow(RowKey.createRowKey(rowIndex++), cells));
+    }
+    container.close();
+
+    return container.getTable();
+  }
+
+  /**
+   * Delete the workspaces and generated resources of the results that are not kept in the model.
+   * They are temporary files that nothing refers to after the run.
+   */
+  static void deleteUnusedFiles(final List<SimulationResult> results, final SimulationResult kept) {
+    for (SimulationResult result : results) {
+      if (result.workspace != null
+          && (kept == null || !result.workspace.equals(kept.workspace))) {
+        FileUtils.deleteQuietly(result.workspace.toFile());
+      }
+      if (result.generatedResources != null
+          && (kept == null || !result.generatedResources.equals(kept.generatedResources))) {
+        FileUtils.deleteQuietly(result.generatedResources);
+      }
+    }
+  }
+
+  private SimulationResult runSimulation(final FskPortObject fskObj,
+      final FskSimulation simulation, final ExecutionContext exec)
+      throws CanceledExecutionException {
+
+    final SimulationResult result = new SimulationResult(simulation.getName());
+
+    try {
+      // Every simulation works on its own copy to keep workspace, plot and resources apart
+      FskPortObject copy = new FskPortObject(fskObj.getModel(), fskObj.getViz(),
+          fskObj.modelMetadata, null, fskObj.packages, fskObj.getEnvironmentManager(), null,
+          fskObj.getReadme());
+      copy.simulations.addAll(fskObj.simulations);
+      copy.selectedSimulationIndex = fskObj.simulations.indexOf(simulation);
+
+      File imageFile = FileUtil.createTempFile("FskxRunner-", ".svg");
+
+      try (ScriptHandler handler = ScriptHandler.createHandler(
+          SwaggerUtil.getLanguageWrittenIn(fskObj.modelMetadata), fskObj.packages)) {
+
+        handler.setSaveToJsonChecked(saveToJson);
+        handler.runSnippet(copy, simulation, exec, LOGGER, imageFile, null, "");
+        result.outputs = handler.getOutputParameterValues(copy, exec);
+
+        for (String line : handler.getStdErr().split("\\r?\\n")) {
+          if (line.startsWith(ScriptExecutor.ERROR_PREFIX)) {
+            throw new RException(line, null);
+          }
+        }
+
+        handler.cleanup(exec);
+      }
+
+      result.workspace = copy.getWorkspace();
+      result.generatedResources = copy.getGeneratedResourcesDirectory().orElse(null);
+      result.plot = copy.getPlot();
+    } catch (CanceledExecutionException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      LOGGER.warn("Simulation " + simulation.getName() + " failed", exception);
+      result.error = exception.toString();
+    }
+
+    return result;
+  }
+
+  private SimulationResult runCombinedSimulation(final CombinedFskPortObject fskObj,
+      final FskSimulation simulation, final ExecutionContext exec)
+      throws CanceledExecutionException {
+
+    final SimulationResult result = new SimulationResult(simulation.getName());
+
+    try {
+      File imageFile = nodeModel.getResultImage();
+      FileUtils.deleteQuietly(imageFile);
+      nodeModel.runFskPortObject(fskObj, simulation, exec, nodeModel.getJoinRelationList(fskObj),
+          "");
+
+      // The combined model reuses its workspace file. The selected simulation runs last, so the
+      // file ends with its workspace.
+      result.workspace = fskObj.getWorkspace();
+
+      if (imageFile.exists()) {
+        File plot = FileUtil.createTempFile("FskxRunner-", ".svg");
+        FileUtils.copyFile(imageFile, plot);
+        result.plot = plot.getAbsolutePath();
+      }
+    } catch (CanceledExecutionException exception) {
+      throw exception;
+    } catch (Exception exception) {
+      LOGGER.warn("Simulation " + simulation.getName() + " failed", exception);
+      result.error = exception.toString();
+    }
+
+    return result;
+  }
+
+  private static SimulationResult waitFor(final Future<SimulationResult> future,
+      final ExecutionContext exec) throws CanceledExecutionException, InterruptedException {
+    while (true) {
+      exec.checkCanceled();
+      try {
+        return future.get(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        // still running
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof CanceledExecutionException) {
+          throw (CanceledExecutionException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+  }
+
+  private static void reportProgress(final ExecutionContext exec, final FskSimulation simulation,
+      final int finished, final int total) {
+    exec.setMessage("Simulation " + simulation.getName() + " finished (" + finished + "/" + total
+        + ")");
+  }
+
+  private static DataCell createOutputsCell(final Map<String, String> outputs) {
+    try {
+      return JSONCellFactory.create(MAPPER.writeValueAsString(outputs), false);
+    } catch (IOException e) {
+      return DataType.getMissingCell();
+    }
+  }
+
+  private static DataCell createPlotCell(final String plot) {
+    if (plot == null || !new File(plot).exists()) {
+      return DataType.getMissingCell();
+    }
+
+    try {
+      return new SvgCell(FileUtils.readFileToString(new File(plot), "UTF-8"));
+    } catch (IOException e) {
+      return DataType.getMissingCell();
+    }
+  }
+
+  /** Results of a single simulation. */
+  static final class SimulationResult {
+
+    final String simulation;
+
+    /** Error message if the simulation failed or null. */
+    String error;
+
+    Map<String, String> outputs = Collections.emptyMap();
+
+    Path workspace;
+
+    File generatedResources;
+
+    /** Path to the SVG plot or null. */
+    String plot;
+
+    SimulationResult(final String simulation) {
+      this.simulation = simulation;
+    }
+  }
+
+  private static final class SimulationThreadFactory implements ThreadFactory {
+
+    private final AtomicInteger threadIndex = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "FSK simulation " + threadIndex.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
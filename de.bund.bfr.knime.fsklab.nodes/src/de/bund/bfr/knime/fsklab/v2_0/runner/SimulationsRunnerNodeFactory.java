@@ -0,0 +1,55 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2017 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.v2_0.runner;
+
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeView;
+
+/**
+ * Runner that runs every simulation of a model and returns their results in a table. It is a
+ * node of its own, since the additional port would break workflows saved with the FSK Runner.
+ */
+public class SimulationsRunnerNodeFactory extends NodeFactory<RunnerNodeModel> {
+
+  @Override
+  public RunnerNodeModel createNodeModel() {
+    return new RunnerNodeModel(true);
+  }
+
+  @Override
+  protected int getNrNodeViews() {
+    return 1;
+  }
+
+  @Override
+  public NodeView<RunnerNodeModel> createNodeView(int viewIndex, RunnerNodeModel nodeModel) {
+    return new RunnerNodeView(nodeModel);
+  }
+
+  @Override
+  protected boolean hasDialog() {
+    return true;
+  }
+
+  @Override
+  protected NodeDialogPane createNodeDialogPane() {
+    return new RunnerNodeDialog(true);
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2017 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.v2_0.writer;
+
+import de.unirostock.sems.cbarchive.meta.MetaDataObject;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.Namespace;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+
+/**
+ * Writes a COMBINE archive straight into a {@link ZipOutputStream}, including the OMEX manifest and
+ * the metadata file read by {@link de.unirostock.sems.cbarchive.CombineArchive}.
+ *
+ * <p>
+ * Unlike {@code CombineArchive}, which copies every entry into a zip file system that is rewritten
+ * on close, files are only referenced when added and are copied once into the output by
+ * {@link #pack()}. Large files that are already compressed (gzip, bzip2, xz or zip data like R
+ * workspaces and package tarballs, PNG and JPEG images) are stored without recompression. Their
+ * checksums, which stored entries need before their data is written, are computed in parallel.
+ *
+ * <p>
+ * Adding an entry with the location of an earlier entry replaces it, as with
+ * {@code CombineArchive}.
+ */
+final class FskxArchiveWriter implements AutoCloseable {
+
+  private static final URI OMEX_URI =
+      URI.create("http://identifiers.org/combine.specifications/omex");
+  private static final URI MANIFEST_URI =
+      URI.create("http://identifiers.org/combine.specifications/omex-manifest");
+  private static final URI METADATA_URI =
+      URI.create("http://identifiers.org/combine.specifications/omex-metadata");
+
+  private static final String MANIFEST_LOCATION = "manifest.xml";
+  private static final String METADATA_LOCATION = "metadata.rdf";
+
+  private static final Namespace OMEX_NS = Namespace.getNamespace(MANIFEST_URI.toString());
+  private static final Namespace RDF_NS =
+      Namespace.getNamespace("rdf", "http://www.w3.org/1999/02/22-rdf-syntax-ns#");
+  private static final Namespace DC_NS =
+      Namespace.getNamespace("dcterms", "http://purl.org/dc/terms/");
+  private static final Namespace VCARD_NS =
+      Namespace.getNamespace("vCard", "http://www.w3.org/2006/vcard/ns#");
+
+  /** Files smaller than this are always deflated. */
+  private static final long STORE_THRESHOLD = 64 * 1024;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final ZipOutputStream out;
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+  private final List<MetaDataObject> descriptions = new ArrayList<>();
+
+  private boolean packed;
+
+  /**
+   * @param stream stream the archive is written to. It is closed with this writer.
+   */
+  FskxArchiveWriter(OutputStream stream) {
+    out = new ZipOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+  }
+
+  /** Adds a file. The file is read when the archive is packed. */
+  Entry addEntry(File file, String location, URI format) {
+    return putEntry(new Entry(normalizeLocation(location), format, file, null));
+  }
+
+  /** Adds a text entry encoded in UTF-8. */
+  Entry addEntry(String content, String location, URI format) {
+    return addEntry(content.getBytes(StandardCharsets.UTF_8), location, format);
+  }
+
+  Entry addEntry(byte[] content, String location, URI format) {
+    return putEntry(new Entry(normalizeLocation(location), format, null, content));
+  }
+
+  /** Adds a description of the archive itself. */
+  void addDescription(MetaDataObject description) {
+    descriptions.add(description);
+  }
+
+  /**
+   * Writes the entries, the manifest and the metadata file. Nothing can be added afterwards.
+   */
+  void pack() throws IOException {
+    if (packed) {
+      throw new IllegalStateException("Archive is already packed");
+    }
+    packed = true;
+
+    Map<Entry, Future<Long>> checksums = new LinkedHashMap<>();
+    List<Entry> candidates = new ArrayList<>();
+    for (Entry entry : entries.values()) {
+      if (entry.file != null && entry.file.length() >= STORE_THRESHOLD) {
+        candidates.add(entry);
+      }
+    }
+
+    ExecutorService executor = candidates.isEmpty() ? null
+        : Executors.newFixedThreadPool(
+            Math.min(candidates.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      for (Entry entry : candidates) {
+        checksums.put(entry, executor.submit(() -> checksumIfCompressed(entry.file)));
+      }
+
+      for (Entry entry : entries.values()) {
+        Future<Long> checksum = checksums.get(entry);
+        writeEntry(entry, checksum != null ? getChecksum(checksum) : null);
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+
+    XMLOutputter outputter = new XMLOutputter(Format.getPrettyFormat());
+    writeEntry(MANIFEST_LOCATION, outputter.outputString(createManifest()));
+    writeEntry(METADATA_LOCATION, outputter.outputString(createMetadata()));
+
+    out.finish();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private Entry putEntry(Entry entry) {
+    if (packed) {
+      throw new IllegalStateException("Archive is already packed");
+    }
+    entries.remove(entry.location);
+    entries.put(entry.location, entry);
+    return entry;
+  }
+
+  private void writeEntry(Entry entry, Long checksum) throws IOException {
+    ZipEntry zipEntry = new ZipEntry(entry.location);
+
+    if (entry.file == null) {
+      out.putNextEntry(zipEntry);
+      out.write(entry.content);
+    } else {
+      if (checksum != null) {
+        long size = entry.file.length();
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(size);
+        zipEntry.setCompressedSize(size);
+        zipEntry.setCrc(checksum);
+      }
+      out.putNextEntry(zipEntry);
+      Files.copy(entry.file.toPath(), out);
+    }
+
+    out.closeEntry();
+  }
+
+  private void writeEntry(String location, String content) throws IOException {
+    out.putNextEntry(new ZipEntry(location));
+    out.write(content.getBytes(StandardCharsets.UTF_8));
+    out.closeEntry();
+  }
+
+  private Document createManifest() {
+    Element root = new Element("omexManifest", OMEX_NS);
+    root.addContent(createManifestEntry(".", OMEX_URI));
+    root.addContent(createManifestEntry("./" + MANIFEST_LOCATION, MANIFEST_URI));
+    for (Entry entry : entries.values()) {
+      root.addContent(createManifestEntry("./" + entry.location, entry.format));
+    }
+    root.addContent(createManifestEntry("./" + METADATA_LOCATION, METADATA_URI));
+
+    return new Document(root);
+  }
+
+  private static Element createManifestEntry(String location, URI format) {
+    Element element = new Element("content", OMEX_NS);
+    element.setAttribute("location", location);
+    element.setAttribute("format", format.toString());
+    return element;
+  }
+
+  private Document createMetadata() {
+    Element root = new Element("RDF", RDF_NS);
+    root.addNamespaceDeclaration(DC_NS);
+    root.addNamespaceDeclaration(VCARD_NS);
+
+    for (MetaDataObject description : descriptions) {
+      root.addContent(createDescription(".", description));
+    }
+    for (Entry entry : entries.values()) {
+      for (MetaDataObject description : entry.descriptions) {
+        root.addContent(createDescription("/" + entry.location, description));
+      }
+    }
+
+    return new Document(root);
+  }
+
+  private static Element createDescription(String about, MetaDataObject description) {
+    Element element = new Element("Description", RDF_NS);
+    element.setAttribute("about", about, RDF_NS);
+    description.injectDescription(element);
+    return element;
+  }
+
+  /**
+   * @return CRC-32 of the file if it starts with the signature of a compressed format or null
+   */
+  private static Long checksumIfCompressed(File file) throws IOException {
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+
+      int length = 0;
+      int read;
+      while (length < buffer.length
+          && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+        length += read;
+      }
+      if (!isCompressed(buffer, length)) {
+        return null;
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(buffer, 0, length);
+      while ((read = in.read(buffer)) > 0) {
+        crc.update(buffer, 0, read);
+      }
+      return crc.getValue();
+    }
+  }
+
+  static boolean isCompressed(byte[] header, int length) {
+    if (length >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b) {
+      return true; // gzip: RData, rds and tar.gz
+    }
+    if (length >= 3 && header[0] == 'B' && header[1] == 'Z' && header[2] == 'h') {
+      return true; // bzip2
+    }
+    if (length >= 6 && (header[0] & 0xff) == 0xfd && header[1] == '7' && header[2] == 'z'
+        && header[3] == 'X' && header[4] == 'Z' && header[5] == 0) {
+      return true; // xz
+    }
+    if (length >= 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4) {
+      return true; // zip: xlsx and zipped packages
+    }
+    if (length >= 4 && (header[0] & 0xff) == 0x89 && header[1] == 'P' && header[2] == 'N'
+        && header[3] == 'G') {
+      return true; // png
+    }
+    return length >= 3 && (header[0] & 0xff) == 0xff && (header[1] & 0xff) == 0xd8
+        && (header[2] & 0xff) == 0xff; // jpeg
+  }
+
+  private static Long getChecksum(Future<Long> checksum) throws IOException {
+    try {
+      return checksum.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /** Zip entries use forward slashes and are relative to the archive root. */
+  private static String normalizeLocation(String location) {
+    String normalized = location.replace('\\', '/');
+    while (normalized.startsWith("./") || normalized.startsWith("/")) {
+      normalized = normalized.substring(normalized.startsWith("/") ? 1 : 2);
+    }
+    if (normalized.isEmpty() || normalized.equals(MANIFEST_LOCATION)
+        || normalized.equals(METADATA_LOCATION)) {
+      throw new IllegalArgumentException("Invalid entry location: " + location);
+    }
+    return normalized;
+  }
+
+  /** Entry of the archive. Descriptions are written to the metadata file of the archive. */
+  static final class Entry {
+
+    final String location;
+    final URI format;
+    final File file;
+    final byte[] content;
+    final List<MetaDataObject> descriptions = new ArrayList<>();
+
+    private Entry(String location, URI format, File file, byte[] content) {
+      this.location = location;
+      this.format = format;
+      this.file = file;
+      this.content = content;
+    }
+
+    void addDescription(MetaDataObject description) {
+      descriptions.add(description);
+    }
+  }
+}
@@ -40,15 +40,14 @@ import de.bund.bfr.knime.fsklab.v2_0.FskSimulation;
 import de.bund.bfr.knime.fsklab.v2_0.JoinRelation;
 import de.bund.bfr.metadata.swagger.Model;
 import de.bund.bfr.metadata.swagger.Parameter;
-import de.unirostock.sems.cbarchive.ArchiveEntry;
-import de.unirostock.sems.cbarchive.CombineArchive;
+import de.bund.bfr.knime.fsklab.v2_0.writer.FskxArchiveWriter.Entry;
 import de.unirostock.sems.cbarchive.meta.DefaultMetaDataObject;
 import de.unirostock.sems.cbarchive.meta.MetaDataObject;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -60,7 +59,6 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.xml.stream.XMLStreamException;
 import metadata.SwaggerUtil;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jdom2.DefaultJDOMFactory;
@@ -159,7 +157,7 @@ class WriterNodeModel extends NoInternalsModel {
   /*
    * add resource files to archive
    */
-  private static void addResourcesToArchive(List<Path> resources, CombineArchive archive,
+  private static void addResourcesToArchive(List<Path> resources, FskxArchiveWriter archive,
       String filePrefix, Map<String, URI> uris, ScriptHandler scriptHandler) throws Exception {
     for (final Path resourcePath : resources) {
 
@@ -198,8 +196,8 @@ class WriterNodeModel extends NoInternalsModel {
     }
   }
   
-  public static void writeFSKObject(FskPortObject fskObj, CombineArchive archive, String filePrefix,
-      Map<String, URI> URIS, ScriptHandler scriptHandler) throws Exception {
+  public static void writeFSKObject(FskPortObject fskObj, FskxArchiveWriter archive,
+      String filePrefix, Map<String, URI> URIS, ScriptHandler scriptHandler) throws Exception {
 
     
     addVersion(archive);
@@ -234,12 +232,12 @@ class WriterNodeModel extends NoInternalsModel {
     }
 
     // Adds model script
-    final ArchiveEntry modelEntry =
+    final Entry modelEntry =
         addRScript(archive, fskObj.getModel(), filePrefix + "model." + scriptHandler.getFileExtension(), scriptHandler);
     modelEntry.addDescription(new FskMetaDataObject(ResourceType.modelScript).metaDataObject);
 
     // Adds visualization script
-    final ArchiveEntry vizEntry = addRScript(archive, fskObj.getViz(),
+    final Entry vizEntry = addRScript(archive, fskObj.getViz(),
         filePrefix + "visualization." + scriptHandler.getFileExtension(), scriptHandler);
     vizEntry.addDescription(new FskMetaDataObject(ResourceType.visualizationScript).metaDataObject);
 
@@ -250,10 +248,8 @@ class WriterNodeModel extends NoInternalsModel {
     // Add simulations
     {
       SEDMLDocument sedmlDoc = createSedml(fskObj, scriptHandler);
-
-      File tempFile = FileUtil.createTempFile("sim", "");
-      sedmlDoc.writeDocument(tempFile);
-      archive.addEntry(tempFile, filePrefix + "sim.sedml", URIS.get("sedml"));
+      archive.addEntry(sedmlDoc.writeDocumentToString(), filePrefix + "sim.sedml",
+          URIS.get("sedml"));
     }
 
     // Add simulations as parameter scripts
@@ -276,7 +272,7 @@ class WriterNodeModel extends NoInternalsModel {
     addReadme(archive, finalReadme, filePrefix);
   }
 
-  private static void writeCombinedObject(CombinedFskPortObject fskObj, CombineArchive archive,
+  private static void writeCombinedObject(CombinedFskPortObject fskObj, FskxArchiveWriter archive,
       Map<String, URI> URIS, String filePrefix, ScriptHandler scriptHandler) throws Exception {
     filePrefix = filePrefix + normalizeName(fskObj) + System.getProperty("file.separator");
     
@@ -322,10 +318,8 @@ class WriterNodeModel extends NoInternalsModel {
     // Add combined simulations
     {
       SEDMLDocument sedmlDoc = createSedml(fskObj, scriptHandler);
-
-      File tempFile = FileUtil.createTempFile("sim", "");
-      sedmlDoc.writeDocument(tempFile);
-      archive.addEntry(tempFile, filePrefix + "sim.sedml", URIS.get("sedml"));
+      archive.addEntry(sedmlDoc.writeDocumentToString(), filePrefix + "sim.sedml",
+          URIS.get("sedml"));
     }
 
   }
@@ -343,25 +337,14 @@ class WriterNodeModel extends NoInternalsModel {
 
       if (localPath != null) {
         localPath.delete();
-        writeArchive(localPath, in, exec, scriptHandler);
+        try (OutputStream os = new FileOutputStream(localPath)) {
+          writeArchive(os, in, exec, scriptHandler);
+        }
       } else {
-
-        // Creates archive in temporary archive file
-        File archiveFile = FileUtil.createTempFile("model", "fskx");
-
-        // The file is deleted since we need the path only for the COMBINE archive
-        archiveFile.delete();
-
-        // Writes COMBINE archive
-        writeArchive(archiveFile, in, exec, scriptHandler);
-
-        // Copies temporary file to output stream
+        // Writes COMBINE archive directly to the remote location
         try (OutputStream os = FileUtil.openOutputConnection(url, "PUT").getOutputStream()) {
-          Files.copy(archiveFile.toPath(), os);
+          writeArchive(os, in, exec, scriptHandler);
         }
-
-        // Deletes temporary file
-        archiveFile.delete();
       }
 
       
@@ -372,12 +355,12 @@ class WriterNodeModel extends NoInternalsModel {
     return new PortObject[] {};
   }
 
-  private static void writeArchive(File archiveFile, FskPortObject portObject,
+  private static void writeArchive(OutputStream stream, FskPortObject portObject,
       ExecutionContext exec, ScriptHandler scriptHandler) throws Exception {
 
     Map<String, URI> URIS = FSKML.getURIS(1, 0, 12);
 
-    try (final CombineArchive archive = new CombineArchive(archiveFile)) {
+    try (final FskxArchiveWriter archive = new FskxArchiveWriter(stream)) {
 
       if (portObject instanceof CombinedFskPortObject) {
         writeCombinedObject((CombinedFskPortObject) portObject, archive, URIS, "", scriptHandler);
@@ -389,10 +372,6 @@ class WriterNodeModel extends NoInternalsModel {
       {
         SBMLDocument sbmlDocument = createSBML(portObject, archive, "model", URIS, "");
 
-        // Create temporary file and write sbmlDocument into it
-        File temporaryFile = File.createTempFile("connections", ".sbml");
-        SBMLWriter.write(sbmlDocument, temporaryFile, null, null);
-
         String targetName;
         if (portObject instanceof CombinedFskPortObject) {
           targetName = normalizeName(portObject) + "/" + sbmlDocument.getModel().getId() + ".sbml";
@@ -400,7 +379,8 @@ class WriterNodeModel extends NoInternalsModel {
           targetName = sbmlDocument.getModel().getId() + ".sbml";
         }
 
-        archive.addEntry(temporaryFile, targetName, URIS.get("sbml"));
+        archive.addEntry(new SBMLWriter().writeSBMLToString(sbmlDocument), targetName,
+            URIS.get("sbml"));
       }
 
       final URI libUri = NodeUtils.getLibURI();
@@ -497,22 +477,16 @@ class WriterNodeModel extends NoInternalsModel {
     }
   }
 
-  private static void addPackagesFile(final CombineArchive archive, final String packageInfoList,
-      final String filename) throws IOException, URISyntaxException {
-
-    File rPackagesFile = File.createTempFile("tempPackage", ".json");
-    FileUtils.writeStringToFile(rPackagesFile, packageInfoList, "UTF-8");
-
-    archive.addEntry(rPackagesFile, filename, FSKML.getURIS(1, 0, 12).get("json"));
-    rPackagesFile.delete();
-
+  private static void addPackagesFile(final FskxArchiveWriter archive,
+      final String packageInfoList, final String filename) {
+    archive.addEntry(packageInfoList, filename, FSKML.getURIS(1, 0, 12).get("json"));
   }
 
   public static String normalizeName(FskPortObject fskObj) {
     return SwaggerUtil.getModelName(fskObj.modelMetadata).replaceAll("\\W", "").replace(" ", "");
   }
 
-  private static SBMLDocument createSBML(FskPortObject fskObj, CombineArchive archive,
+  private static SBMLDocument createSBML(FskPortObject fskObj, FskxArchiveWriter archive,
       String ModelId, Map<String, URI> URIS, String filePrefix) throws IOException {
     filePrefix = filePrefix + normalizeName(fskObj) + System.getProperty("file.separator");
     SBMLDocument doc = new SBMLDocument(3, 1);
@@ -597,12 +571,11 @@ class WriterNodeModel extends NoInternalsModel {
     return doc;
   }
 
-  public static String writeSBMLFile(SBMLDocument doc, CombineArchive archive, String filePrefix,
-      Map<String, URI> URIS) throws IOException, SBMLException, XMLStreamException {
-    File tempFile = FileUtil.createTempFile("sbml", "");
+  public static String writeSBMLFile(SBMLDocument doc, FskxArchiveWriter archive,
+      String filePrefix, Map<String, URI> URIS) throws SBMLException, XMLStreamException {
     String fileName = filePrefix + doc.getModel().getId() + ".sbml";
-    new SBMLWriter().write(doc, tempFile);
-    archive.addEntry(tempFile, fileName, FSKML.getURIS(1, 0, 12).get("sbml"));
+    archive.addEntry(new SBMLWriter().writeSBMLToString(doc), fileName,
+        FSKML.getURIS(1, 0, 12).get("sbml"));
     return fileName;
   }
 
@@ -619,19 +592,13 @@ class WriterNodeModel extends NoInternalsModel {
     return externalModel;
   }
 
-  private static ArchiveEntry addRScript(final CombineArchive archive, final String script,
-      final String filename, ScriptHandler scriptHandler) throws IOException, URISyntaxException {
-
-    final File file = File.createTempFile("temp", ".r");
-    FileUtils.writeStringToFile(file, script, "UTF-8");
-
-    final ArchiveEntry entry = archive.addEntry(file, filename, FSKML.getURIS(1, 0, 12).get(scriptHandler.getFileExtension()));
-    file.delete();
-
-    return entry;
+  private static Entry addRScript(final FskxArchiveWriter archive, final String script,
+      final String filename, ScriptHandler scriptHandler) {
+    return archive.addEntry(script, filename,
+        FSKML.getURIS(1, 0, 12).get(scriptHandler.getFileExtension()));
   }
 
-  private static ArchiveEntry addMetaData(CombineArchive archive, Model model, String filename)
+  private static Entry addMetaData(FskxArchiveWriter archive, Model model, String filename)
       throws IOException {
 
     JsonFactory jsonFactory = new JsonFactory();
@@ -641,15 +608,8 @@ class WriterNodeModel extends NoInternalsModel {
     mapper.registerModule(new ThreeTenModule());
     mapper.setSerializationInclusion(Include.NON_NULL);
 
-    File file = File.createTempFile("temp", ".json");
-
-    mapper.writeValue(file, model);
-
-
-    ArchiveEntry entry = archive.addEntry(file, filename, FSKML.getURIS(1, 0, 12).get("json"));
-    file.delete();
-
-    return entry;
+    return archive.addEntry(mapper.writeValueAsBytes(model), filename,
+        FSKML.getURIS(1, 0, 12).get("json"));
   }
 
 
@@ -737,7 +697,7 @@ class WriterNodeModel extends NoInternalsModel {
     return doc;
   }
 
-  private static void addVersion(CombineArchive archive) {
+  private static void addVersion(FskxArchiveWriter archive) {
 
     DefaultJDOMFactory factory = new DefaultJDOMFactory();
     Namespace dcTermsNamespace = Namespace.getNamespace("dcterms", "http://purl.org/dc/terms/");
@@ -752,7 +712,7 @@ class WriterNodeModel extends NoInternalsModel {
     archive.addDescription(metaDataObject);
   }
 
-  private static void addWorkspace(CombineArchive archive, Path workspace, String filePrefix)
+  private static void addWorkspace(FskxArchiveWriter archive, Path workspace, String filePrefix)
       throws IOException {
 
     // Get length of file in bytes
@@ -766,7 +726,7 @@ class WriterNodeModel extends NoInternalsModel {
 
     // Only save R workspace smaller than 100 MB
     if (fileSizeInMB < 100) {
-      final ArchiveEntry workspaceEntry = archive.addEntry(workspace.toFile(),
+      final Entry workspaceEntry = archive.addEntry(workspace.toFile(),
           filePrefix + "workspace.RData", FSKML.getURIS(1, 0, 12).get("rdata"));
       workspaceEntry.addDescription(new FskMetaDataObject(ResourceType.workspace).metaDataObject);
     } else {
@@ -775,33 +735,22 @@ class WriterNodeModel extends NoInternalsModel {
   }
 
 
-  private static void addParameterScript(CombineArchive archive, FskSimulation simulation,
-      String filePrefix, ScriptHandler scriptHandler) throws IOException {
+  private static void addParameterScript(FskxArchiveWriter archive, FskSimulation simulation,
+      String filePrefix, ScriptHandler scriptHandler) {
 
     String script = scriptHandler.buildParameterScript(simulation);
 
-    File tempFile = File.createTempFile("temp", "." + scriptHandler.getFileExtension());
-    FileUtils.writeStringToFile(tempFile, script, "UTF-8");
-
     String targetName =
         filePrefix + "simulations/" + simulation.getName() + "." + scriptHandler.getFileExtension();
-    archive.addEntry(tempFile, targetName,
+    archive.addEntry(script, targetName,
         FSKML.getURIS(1, 0, 12).get(scriptHandler.getFileExtension()));
-
-    tempFile.delete();
   }
 
-  private static void addReadme(CombineArchive archive, String readme, String filePrefix)
-      throws IOException {
-
-    File readmeFile = File.createTempFile("README", ".txt");
-    FileUtils.writeStringToFile(readmeFile, readme, "UTF-8");
+  private static void addReadme(FskxArchiveWriter archive, String readme, String filePrefix) {
 
-    ArchiveEntry readmeEntry = archive.addEntry(readmeFile, filePrefix + "README.txt",
+    Entry readmeEntry = archive.addEntry(readme, filePrefix + "README.txt",
         FSKML.getURIS(1, 0, 12).get("plain"));
 
-    readmeFile.delete();
-
     // Add annotation to readmeEntry
     readmeEntry.addDescription(new FskMetaDataObject(ResourceType.readme).metaDataObject);
   }
@@ -30,6 +30,10 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	static final String R3_PATH_CFG = "r3.path";
 	static final String PYTHON2_PATH_CFG = "python2Path";
 	static final String CV_URL_CFG = "controlledvocabulary.path";
+	/** Maximum number of concurrently leased Rserve sessions */
+	static final String R_POOL_SIZE_CFG = "r.pool.size";
+	/** Compression of saved R workspaces, see WorkspaceFormat of the R plugin */
+	static final String R_WORKSPACE_FORMAT_CFG = "r.workspace.format";
 	private static RPreferenceProvider cachedRProvider = null;
 
 	@Override
@@ -47,6 +51,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		store.setDefault(R3_PATH_CFG, rHome);
 		store.setDefault(PYTHON2_PATH_CFG, "");
 		store.setDefault(CV_URL_CFG, "https://knime.bfr.berlin/vocabularies-app/");
+		store.setDefault(R_POOL_SIZE_CFG, Runtime.getRuntime().availableProcessors());
+		store.setDefault(R_WORKSPACE_FORMAT_CFG, "gzip");
 	}
 
 	/** @return provider to the path to the R3 executable. */
@@ -59,6 +65,21 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		return cachedRProvider;
 	}
 
+	/**
+	 * @return maximum number of Rserve sessions that may be leased at the same
+	 *         time. At least two, since the package registry keeps one session
+	 *         for itself.
+	 */
+	public static final int getRPoolSize() {
+		final int poolSize = Plugin.getDefault().getPreferenceStore().getInt(R_POOL_SIZE_CFG);
+		return Math.max(2, poolSize);
+	}
+
+	/** @return key of the format of saved R workspaces */
+	public static final String getRWorkspaceFormat() {
+		return Plugin.getDefault().getPreferenceStore().getString(R_WORKSPACE_FORMAT_CFG);
+	}
+
 	public static final String getControlledVocabularyURL() {
 		return Plugin.getDefault().getPreferenceStore().getString(CV_URL_CFG);
 	}
@@ -23,8 +23,10 @@ import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.DirectoryFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.jface.resource.JFaceResources;
 import org.eclipse.swt.widgets.Composite;
@@ -54,6 +56,17 @@ public class PreferencePage extends FieldEditorPreferencePage implements IWorkbe
 		addField(new RHomeDirectoryFieldEditor(PreferenceInitializer.R3_PATH_CFG, "Path to R 3", parent));
 		addField(new DirectoryFieldEditor(PreferenceInitializer.PYTHON2_PATH_CFG, "Path to Python 2", parent));
 		addField(new StringFieldEditor(PreferenceInitializer.CV_URL_CFG, "Controlled vocabulary URL", parent));
+
+		IntegerFieldEditor poolSizeEditor = new IntegerFieldEditor(PreferenceInitializer.R_POOL_SIZE_CFG,
+				"Maximum number of R sessions", parent);
+		poolSizeEditor.setValidRange(2, 64);
+		addField(poolSizeEditor);
+
+		// R's load() reads all of these, so the format can be changed at any time
+		addField(new ComboFieldEditor(PreferenceInitializer.R_WORKSPACE_FORMAT_CFG, "R workspace compression",
+				new String[][] { { "gzip", "gzip" }, { "Fast gzip (larger, faster)", "gzip-fast" },
+						{ "None (fastest, largest files)", "none" }, { "xz (smallest, slowest)", "xz" } },
+				parent));
 	}
 
 	@Override
@@ -265,7 +265,8 @@ public interface IRController extends AutoCloseable {
   List<String> importListOfLibrariesAndDelete() throws RException;
 
   /**
-   * Save the workspace in the current R session to the specified file.
+   * Save the workspace in the current R session to the specified file, in the format selected in
+   * the preferences.
    *
    * @param workspaceFile File to save the workspace to.
    * @param exec For monitoring the progress.
@@ -275,6 +276,18 @@ public interface IRController extends AutoCloseable {
   void saveWorkspace(Path workspace, ExecutionMonitor exec)
       throws RException, CanceledExecutionException;
 
+  /**
+   * Save the workspace in the current R session to the specified file.
+   *
+   * @param workspaceFile File to save the workspace to.
+   * @param format Compression of the file. Files of any format are read by {@code load}.
+   * @param exec For monitoring the progress.
+   * @throws RException If an R related error occurred during execution.
+   * @throws CanceledExecutionException If execution was cancelled.
+   */
+  void saveWorkspace(Path workspace, WorkspaceFormat format, ExecutionMonitor exec)
+      throws RException, CanceledExecutionException;
+
   /**
    * Import RInputPorts and BufferedDataTables into the current R workspace.
    *
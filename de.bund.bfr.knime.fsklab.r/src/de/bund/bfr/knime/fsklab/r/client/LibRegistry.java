@@ -25,16 +25,23 @@ import java.net.MalformedURLException;
 import java.net.Proxy;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FilenameUtils;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
 import org.rosuda.REngine.REXP;
 import org.rosuda.REngine.REXPMismatchException;
 import org.rosuda.REngine.RList;
@@ -58,8 +65,20 @@ public class LibRegistry {
   /** miniCRAN repository path. */
   private final Path repoPath;
 
-  /** Utility set to keep count of installed libraries. */
-  private final Set<String> installedLibs;
+  /**
+   * Libraries in {@link #installPath} that cannot be loaded, e.g. because they were built for
+   * another version of R. They are not considered installed and are installed again when needed.
+   */
+  private final Set<String> incompatibleLibs = ConcurrentHashMap.newKeySet();
+
+  /** Library folders of R, including {@link #installPath}. */
+  private final List<Path> libraryFolders;
+
+  /** Index of the installed packages. Null or outdated indices are rebuilt on access. */
+  private volatile PackageIndex packageIndex;
+
+  /** Lock held while packages are installed. Checking installed packages needs no lock. */
+  private final Object installLock = new Object();
 
   /** Utility RController for running R commands. */
   private final RController controller = new RController();
@@ -95,20 +114,14 @@ public class LibRegistry {
     if (Files.exists(installPath) && Files.exists(repoPath)) {
       // TODO: Need to validate further: library and CRAN
 
-      // Initialize `installedLibs` with `installPath`
-      String[] pkgArray = installPath.toFile().list();
-      installedLibs = Arrays.stream(pkgArray).collect(Collectors.toSet());
-
-      // Remove libraries, that are technically installed but with an incompatible version to avoid trouble during execution
-      installedLibs.removeIf(
-          lib ->{
-            try {
-              controller.eval("library("+ lib + ")", true);
-              return false;
-            }catch(Exception e) {
-              return true;
-            }
-          });
+      // Remember libraries, that are technically installed but with an incompatible version to avoid trouble during execution
+      for (String lib : installPath.toFile().list()) {
+        try {
+          controller.eval("library("+ lib + ")", true);
+        } catch (Exception e) {
+          incompatibleLibs.add(lib);
+        }
+      }
     } else {
 
       // Create directories
@@ -117,8 +130,14 @@ public class LibRegistry {
 
       // Create CRAN structure in repoPath
       rWrapper.makeRepo(repoPath);
+    }
 
-      installedLibs = new HashSet<>();
+    controller.addPackagePath(installPath);
+    try {
+      String[] folders = controller.eval(".libPaths()", true).asStrings();
+      libraryFolders = Arrays.stream(folders).map(Paths::get).collect(Collectors.toList());
+    } catch (REXPMismatchException e) {
+      throw new RException("Could not get library folders of R", e);
     }
   }
 
@@ -138,67 +157,123 @@ public class LibRegistry {
    * @throws REXPMismatchException
    * @throws NoInternetException
    */
-  public synchronized void install(final List<String> packages)
+  public void install(final List<String> packages)
       throws RException, REXPMismatchException, NoInternetException {
-    
-    if (!isNetAvailable()) {
-      throw new NoInternetException(packages);
+    try {
+      install(packages, new ExecutionMonitor());
+    } catch (CanceledExecutionException e) {
+      // Cannot happen, the monitor is not canceled
+      throw new RException("Installation of packages canceled", e);
     }
-    
-    if (Platform.isLinux() || Platform.isMac()) {
-      // Install missing packages
-      controller.addPackagePath(installPath);
-      
-      String[] installedPackagesArray = controller.eval("rownames(installed.packages())", true).asStrings();
-      Set<String> installedPackagesSet = Arrays.stream(installedPackagesArray).collect(Collectors.toSet());
-      
-      for (String pkg : packages) {
-        if (!installedPackagesSet.contains(pkg)) {
-          String cmd = String.format("install.packages('%s', lib = '%s', repos = '%s')", pkg, rWrapper._path2String(installPath), MIRROR);
-          controller.eval(cmd, false);
-        }
-      }
-      
-      installedPackagesArray = controller.eval("rownames(installed.packages())", true).asStrings();
-      installedPackagesSet = Arrays.stream(installedPackagesArray).collect(Collectors.toSet());
-      
-    } else {
-      if (installedLibs.containsAll(packages))
-        return;
+  }
 
-      if (rWrapper.areAllInstalled(packages))
-        return;
+  /**
+   * Install a list of packages into the repository. Already installed packages
+   * are ignored.
+   * <p>
+   * Whether the packages are installed is looked up in an index of the library
+   * folders without locking, so that parallel callers do not wait for each
+   * other if nothing has to be installed. Missing packages are installed by one
+   * caller at a time.
+   * 
+   * @param libs list of names of R libraries
+   * @param exec execution monitor to report progress on
+   * @throws RException
+   * @throws REXPMismatchException
+   * @throws NoInternetException
+   * @throws CanceledExecutionException
+   */
+  public void install(final List<String> packages, final ExecutionMonitor exec)
+      throws RException, REXPMismatchException, NoInternetException, CanceledExecutionException {
 
-      // pkgDep requires miniCRAN to be loaded, on repeated executions of the Runner this might not have happened 
-      rWrapper.library("miniCRAN");
+    if (getInstalledPackages().containsAll(packages)) {
+      exec.setProgress(1.0);
+      return;
+    }
 
-      // Gets missing packages
-      List<String> missingPackages;
+    synchronized (installLock) {
+      // Packages may have been installed while waiting for the lock
+      Set<String> installedPackages = getInstalledPackages();
+      if (installedPackages.containsAll(packages)) {
+        exec.setProgress(1.0);
+        return;
+      }
 
-      // try to collect missing packages; if it fails, consider all packages as missing
-      try {
-        missingPackages = rWrapper.pkgDep(packages).stream().filter(pkg -> !installedLibs.contains(pkg))
-            .collect(Collectors.toList());
-      } catch(Exception e) {
-        missingPackages = packages;
+      if (!isNetAvailable()) {
+        throw new NoInternetException(packages);
       }
 
-      if (!missingPackages.isEmpty()) {
+      if (Platform.isLinux() || Platform.isMac()) {
+        List<String> missingPackages = packages.stream()
+            .filter(pkg -> !installedPackages.contains(pkg)).collect(Collectors.toList());
+
+        // Install missing packages with their dependencies in one call. R installs them in order of
+        // their dependencies and builds source packages in parallel.
+        exec.setMessage("Installing " + String.join(", ", missingPackages));
+        String cmd = String.format("install.packages(%s, lib = '%s', repos = '%s', Ncpus = %d)",
+            rWrapper._pkgList(missingPackages), rWrapper._path2String(installPath), MIRROR,
+            Runtime.getRuntime().availableProcessors());
+        controller.eval(cmd, false);
+        incompatibleLibs.removeAll(missingPackages);
+
+      } else {
+        // pkgDep requires miniCRAN to be loaded, on repeated executions of the Runner this might not have happened 
+        rWrapper.library("miniCRAN");
+
+        // Gets missing packages
+        exec.setProgress(0.1, "Resolving dependencies");
+        List<String> missingPackages;
+
+        // try to collect missing packages; if it fails, consider all packages as missing
+        try {
+          missingPackages = rWrapper.pkgDep(packages).stream().filter(pkg -> !installedPackages.contains(pkg))
+              .collect(Collectors.toList());
+        } catch(Exception e) {
+          missingPackages = packages;
+        }
+
+        if (!missingPackages.isEmpty()) {
+          exec.checkCanceled();
 
-        // Adds the dependencies to the miniCRAN repository
-        rWrapper.addPackage(missingPackages, repoPath);
+          // Adds the dependencies to the miniCRAN repository
+          exec.setProgress(0.3, "Downloading " + String.join(", ", missingPackages));
+          rWrapper.addPackage(missingPackages, repoPath);
 
-        // Install with install.packages directly on Linux
-        // Gets the paths to the binaries of these dependencies
-        List<Path> paths = rWrapper.checkVersions(missingPackages, repoPath);
+          // Gets the paths to the binaries of these dependencies
+          List<Path> paths = rWrapper.checkVersions(missingPackages, repoPath);
+          exec.checkCanceled();
+
+          // Install binaries
+          exec.setProgress(0.7, "Installing " + String.join(", ", missingPackages));
+          rWrapper.installPackages(paths, installPath);
+          incompatibleLibs.removeAll(missingPackages);
+        } 
+      }
 
-        // Install binaries
-        rWrapper.installPackages(paths, installPath);
+      // Rebuild the index even if the modification time of the library folder has a coarse
+      // resolution and did not change
+      packageIndex = null;
+      exec.setProgress(1.0);
+    }
+  }
+
+  /**
+   * @return names of the packages in the library folders of R, without incompatible libraries
+   */
+  private Set<String> getInstalledPackages() {
+    PackageIndex index = packageIndex;
+    if (index == null || !index.isUpToDate()) {
+      // Concurrent callers may build the index twice, which is harmless
+      index = new PackageIndex(libraryFolders);
+      packageIndex = index;
+    }
 
-        // Adds names of installed libraries to utility set
-        installedLibs.addAll(missingPackages);
-      } 
+    if (incompatibleLibs.isEmpty()) {
+      return index.packages;
     }
+    Set<String> packages = new HashSet<>(index.packages);
+    packages.removeAll(incompatibleLibs);
+    return packages;
   }
 
   /**
@@ -269,6 +344,51 @@ public class LibRegistry {
     }
   }
 
+  /**
+   * Names of the packages in a list of library folders. A package is a sub folder with a DESCRIPTION
+   * file. The index is outdated once the modification time of a library folder changes, which
+   * happens when packages are added to or removed from it.
+   */
+  private static class PackageIndex {
+
+    final Set<String> packages = new HashSet<>();
+
+    /** Modification times of the library folders when the index was built. */
+    private final Map<Path, FileTime> modificationTimes = new HashMap<>();
+
+    PackageIndex(final List<Path> folders) {
+      for (Path folder : folders) {
+        modificationTimes.put(folder, getModificationTime(folder));
+
+        if (!Files.isDirectory(folder)) {
+          continue;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder, Files::isDirectory)) {
+          for (Path pkg : stream) {
+            if (Files.exists(pkg.resolve("DESCRIPTION"))) {
+              packages.add(pkg.getFileName().toString());
+            }
+          }
+        } catch (IOException e) {
+          // An unreadable folder provides no packages
+        }
+      }
+    }
+
+    boolean isUpToDate() {
+      return modificationTimes.entrySet().stream()
+          .allMatch(entry -> entry.getValue().equals(getModificationTime(entry.getKey())));
+    }
+
+    private static FileTime getModificationTime(final Path folder) {
+      try {
+        return Files.getLastModifiedTime(folder);
+      } catch (IOException e) {
+        return FileTime.fromMillis(0);
+      }
+    }
+  }
+
   private class RWrapper {
 
     // R commands
@@ -287,17 +407,6 @@ public class LibRegistry {
       controller.eval(cmd, false);
     }
 
-    boolean areAllInstalled(final List<String> pkgs) {
-      for (String pkg : pkgs) {
-        try {
-          library(pkg);
-        } catch (RException e) {
-          return false;
-        }
-      }
-      return true;
-    }
-
     /**
      * Install packages from local files.
      * 
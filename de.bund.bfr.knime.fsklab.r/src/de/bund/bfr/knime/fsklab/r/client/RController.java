@@ -213,6 +213,7 @@ public class RController implements IRController {
     if (m_connection != null) {
       m_connection.release();
       m_connection = null;
+      LOGGER.debug("Released R session. Pool statistics: " + RConnectionFactory.getStatistics());
     }
 
     m_initialized = false;
@@ -1389,10 +1390,17 @@ public class RController implements IRController {
   @Override
   public void saveWorkspace(final Path workspace, final ExecutionMonitor exec)
       throws RException, CanceledExecutionException {
+    saveWorkspace(workspace,
+        WorkspaceFormat.fromKey(PreferenceInitializer.getRWorkspaceFormat()), exec);
+  }
+
+  @Override
+  public void saveWorkspace(final Path workspace, final WorkspaceFormat format,
+      final ExecutionMonitor exec) throws RException, CanceledExecutionException {
     // save workspace to file
     try {
       String unixPath = FilenameUtils.separatorsToUnix(workspace.toString());
-      monitoredEval("save.image(\"" + unixPath + "\");", exec, false);
+      monitoredEval(format.getSaveCommand(unixPath), exec, false);
     } catch (InterruptedException e) {
       throw new RException("Interrupted while saving R workspace.", e);
     }
@@ -0,0 +1,79 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2017 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.r.client;
+
+/**
+ * Compression of saved R workspaces. All formats are plain RData files: {@code load} recognizes
+ * the compression from the file header, so workspaces of any format can be read by FSK-Lab, the
+ * R nodes of KNIME and R itself without knowing the format they were saved in.
+ */
+public enum WorkspaceFormat {
+
+  /** gzip with the default level of {@code save.image}. The format of previous versions. */
+  GZIP("gzip", null),
+
+  /** gzip with level 1: several times faster than {@link #GZIP} and only slightly larger. */
+  GZIP_FAST("gzip-fast", "compress = \"gzip\", compression_level = 1"),
+
+  /** No compression. Fastest to save and load, but large vectors take their full size. */
+  UNCOMPRESSED("none", "compress = FALSE"),
+
+  /** xz: smallest files but by far the slowest. For workspaces that are archived. */
+  XZ("xz", "compress = \"xz\"");
+
+  private final String key;
+
+  /** Arguments of {@code save}, or null for {@code save.image} with its defaults. */
+  private final String saveArguments;
+
+  private WorkspaceFormat(String key, String saveArguments) {
+    this.key = key;
+    this.saveArguments = saveArguments;
+  }
+
+  /** @return key of the format in the preferences */
+  public String getKey() {
+    return key;
+  }
+
+  /**
+   * @return format with the given key, or {@link #GZIP} if the key is unknown, e.g. because it
+   *         was not set
+   */
+  public static WorkspaceFormat fromKey(String key) {
+    for (WorkspaceFormat format : values()) {
+      if (format.key.equals(key)) {
+        return format;
+      }
+    }
+    return GZIP;
+  }
+
+  /**
+   * @return R command that saves the global environment to the given file. The file is written
+   *         safely, i.e. to a temporary file first, so that a failed save keeps the previous one.
+   */
+  String getSaveCommand(String unixPath) {
+    if (saveArguments == null) {
+      return "save.image(\"" + unixPath + "\");";
+    }
+    return "save(list = ls(envir = .GlobalEnv, all.names = TRUE), envir = .GlobalEnv, file = \""
+        + unixPath + "\", safe = TRUE, " + saveArguments + ");";
+  }
+}
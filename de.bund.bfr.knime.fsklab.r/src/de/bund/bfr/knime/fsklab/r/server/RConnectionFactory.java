@@ -50,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.filechooser.FileSystemView;
@@ -85,6 +86,19 @@ public class RConnectionFactory {
 
 	private static final ArrayList<RConnectionResource> m_resources = new ArrayList<>();
 
+	private static final RConnectionPoolStatistics m_statistics = new RConnectionPoolStatistics();
+
+	/**
+	 * System property with the number of seconds {@link #createConnection()} waits
+	 * for a leased R session before failing. 10 minutes by default.
+	 */
+	public static final String WAIT_TIMEOUT_PROPERTY = "fsklab.rPool.waitTimeout";
+
+	private static final long WAIT_TIMEOUT = TimeUnit.SECONDS.toMillis(Long.getLong(WAIT_TIMEOUT_PROPERTY, 600));
+
+	/** Interval in which waiting threads check the pool again, e.g. for died sessions. */
+	private static final long WAIT_INTERVAL = 1000;
+
 	private static final File tempDir;
 
 	/**
@@ -275,13 +289,22 @@ public class RConnectionFactory {
 	 * unless a connection of an existing instance has been closed in which case an
 	 * R instance will be reused.
 	 * <p>
+	 * The number of R instances is bounded by
+	 * {@link PreferenceInitializer#getRPoolSize()}. If all of them are leased, this
+	 * method blocks until one is released. Reused instances are checked before
+	 * being handed out and replaced if their process died or cannot be connected.
+	 * The pool is checked again every second while waiting, and the wait fails
+	 * after {@value #WAIT_TIMEOUT_PROPERTY} seconds or when the thread is
+	 * interrupted, as by canceling the node.
+	 * <p>
 	 * The method does not check {@link RConnection#isConnected()}.
 	 *
 	 * @return an RConnectionResource which has already been acquired, never
 	 *         <code>null</code>
 	 * @throws IOException if Rserve could not be launched. This may be the case if
 	 *                     R is either not found or does not have Rserve package
-	 *                     installed. Or if there was no open port found.
+	 *                     installed. Or if there was no open port found. Or if no
+	 *                     session became free in time.
 	 */
 	public static RConnectionResource createConnection() throws RserveException, IOException {
 		initializeShutdownHook(); // checks for re-initialization
@@ -289,25 +312,94 @@ public class RConnectionFactory {
 		// synchronizing on the entire class would completely lag out KNIME for
 		// some reason
 		synchronized (m_resources) {
-			// try to reuse an existing instance. Ensures there is max one R
-			// instance per parallel executed node.
-			for (RConnectionResource resource : m_resources) {
-				if (resource.acquireIfAvailable()) {
-					// connections are closed when released => we need to
-					// reconnect
-					resource.getUnderlyingRInstance().createConnection();
+			long deadline = System.currentTimeMillis() + WAIT_TIMEOUT;
+			boolean waited = false;
+
+			while (true) {
+				// try to reuse an existing instance. Ensures there is max one R
+				// instance per parallel executed node.
+				for (RConnectionResource resource : new ArrayList<>(m_resources)) {
+					if (resource.acquireIfAvailable()) {
+						if (!resource.isRInstanceAlive()) {
+							LOGGER.debug("Pooled Rserve process terminated unexpectedly. Replacing it.");
+							resource.destroy(true);
+							m_statistics.relaunch();
+							continue;
+						}
+
+						// connections are closed when released => we need to
+						// reconnect
+						try {
+							resource.getUnderlyingRInstance().createConnection();
+						} catch (RserveException e) {
+							LOGGER.debug("Could not reconnect to pooled Rserve process. Replacing it.", e);
+							resource.destroy(true);
+							m_statistics.relaunch();
+							continue;
+						}
 
+						m_statistics.hit();
+						return resource;
+					}
+				}
+
+				if (m_resources.size() < PreferenceInitializer.getRPoolSize()) {
+					// no existing resource is available. Create a new one.
+					String path = PreferenceInitializer.getR3Provider().getRServeBinPath().toString();
+					int port = findFreePort();
+					final RInstance instance = launchRserve(path, "127.0.0.1", port);
+					RConnectionResource resource = new RConnectionResource(instance);
+					resource.acquire();
+					m_resources.add(resource);
+					m_statistics.launch();
 					return resource;
 				}
+
+				// every instance is leased. Wait for one to be released or destroyed.
+				long remaining = deadline - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new IOException("No R session became free within " + WAIT_TIMEOUT / 1000 + " seconds. All "
+							+ m_resources.size() + " sessions of the pool are in use. Increase the maximum number of R sessions"
+							+ " in the preferences or wait for other nodes to finish.");
+				}
+				if (!waited) {
+					m_statistics.waited();
+					waited = true;
+				}
+				try {
+					m_resources.wait(Math.min(remaining, WAIT_INTERVAL));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a free R session.", e);
+				}
 			}
-			// no existing resource is available. Create a new one.
-			String path = PreferenceInitializer.getR3Provider().getRServeBinPath().toString();
-			int port = findFreePort();
-			final RInstance instance = launchRserve(path, "127.0.0.1", port);
-			RConnectionResource resource = new RConnectionResource(instance);
-			resource.acquire();
-			m_resources.add(resource);
-			return resource;
+		}
+	}
+
+	/**
+	 * @return counters of the Rserve session pool
+	 */
+	public static RConnectionPoolStatistics getStatistics() {
+		return m_statistics;
+	}
+
+	/**
+	 * Remove a destroyed resource from the pool and wake up the threads waiting in
+	 * {@link #createConnection()} for a session.
+	 */
+	private static void removeResource(final RConnectionResource resource) {
+		synchronized (m_resources) {
+			m_resources.remove(resource);
+			m_resources.notifyAll();
+		}
+	}
+
+	/**
+	 * Wake up the threads waiting in {@link #createConnection()} for a session.
+	 */
+	private static void signalAvailable() {
+		synchronized (m_resources) {
+			m_resources.notifyAll();
 		}
 	}
 
@@ -566,11 +658,12 @@ public class RConnectionFactory {
 		 * Acquire ownership of this resource, if it is available. Only the factory
 		 * should be able to do this.
 		 *
-		 * @return Whether the resource has been acquired.
+		 * @return Whether the resource has been acquired. A destroyed resource is
+		 *         never available.
 		 */
 		private synchronized boolean acquireIfAvailable() {
 			if (m_instance == null) {
-				throw new NullPointerException("The resouce has been destroyed already");
+				return false;
 			}
 
 			if (m_available) {
@@ -629,7 +722,17 @@ public class RConnectionFactory {
 		 *
 		 * @throws RException If the RConnection could not be closed/detached
 		 */
-		public synchronized void release() throws RException {
+		public void release() throws RException {
+			try {
+				doRelease();
+			} finally {
+				// outside of the resource lock to keep the lock order of
+				// createConnection (pool first, resource second)
+				signalAvailable();
+			}
+		}
+
+		private synchronized void doRelease() throws RException {
 			if (!m_available) {
 				// Either m_pendingDestructionTask is null, which means
 				// this resource is being held, or the resource is available
@@ -676,13 +779,20 @@ public class RConnectionFactory {
 					@Override
 					public void run() {
 						try {
-							synchronized (RConnectionResource.this) {
-								if (m_available) {
+							// destroy and remove in one step, so that
+							// createConnection never sees a destroyed resource
+							synchronized (m_resources) {
+								synchronized (RConnectionResource.this) {
 									// if not acquired in the meantime, destroy
 									// the resource
-									destroy(true);
+									if (!m_available || m_instance == null) {
+										return;
+									}
+									destroyInstance();
 								}
+								removeResource(RConnectionResource.this);
 							}
+							m_statistics.evict();
 						} catch (Throwable t) {
 							// FIXME: There is a known bug where TimerTasks in
 							// KnimeTimer can crash KNIME. We are simply making
@@ -701,19 +811,21 @@ public class RConnectionFactory {
 		 *
 		 * @param remove Whether to automatically remove this resource from m_resources.
 		 */
-		public synchronized void destroy(final boolean remove) {
+		public void destroy(final boolean remove) {
+			destroyInstance();
+
+			if (remove) {
+				removeResource(this);
+			}
+		}
+
+		private synchronized void destroyInstance() {
 			if (m_instance == null) {
 				throw new NullPointerException("The resource has been destroyed already.");
 			}
 
 			m_available = false;
 			m_instance.close();
-
-			if (remove) {
-				synchronized (m_resources) {
-					m_resources.remove(this);
-				}
-			}
 			m_instance = null;
 
 			// cleanup TimerTask
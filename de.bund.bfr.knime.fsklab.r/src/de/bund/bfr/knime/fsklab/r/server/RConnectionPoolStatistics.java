@@ -0,0 +1,91 @@
+/*
+ ***************************************************************************************************
+ * Copyright (c) 2017 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU General Public License as published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without
+ * even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this program. If
+ * not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors: Department Biological Safety - BfR
+ *************************************************************************************************
+ */
+package de.bund.bfr.knime.fsklab.r.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the Rserve session pool managed by {@link RConnectionFactory}.
+ * <p>
+ * All counters are cumulative since the start of KNIME.
+ *
+ * @author Miguel Alba
+ */
+public class RConnectionPoolStatistics {
+
+	private final AtomicLong m_hits = new AtomicLong();
+	private final AtomicLong m_launches = new AtomicLong();
+	private final AtomicLong m_waits = new AtomicLong();
+	private final AtomicLong m_relaunches = new AtomicLong();
+	private final AtomicLong m_evictions = new AtomicLong();
+
+	RConnectionPoolStatistics() {
+	}
+
+	void hit() {
+		m_hits.incrementAndGet();
+	}
+
+	void launch() {
+		m_launches.incrementAndGet();
+	}
+
+	void waited() {
+		m_waits.incrementAndGet();
+	}
+
+	void relaunch() {
+		m_relaunches.incrementAndGet();
+	}
+
+	void evict() {
+		m_evictions.incrementAndGet();
+	}
+
+	/** @return number of leases served by an already running Rserve process. */
+	public long getHits() {
+		return m_hits.get();
+	}
+
+	/** @return number of Rserve processes launched to serve a lease. */
+	public long getLaunches() {
+		return m_launches.get();
+	}
+
+	/** @return number of times a lease had to wait for a session to be released. */
+	public long getWaits() {
+		return m_waits.get();
+	}
+
+	/** @return number of dead or unreachable Rserve processes that were replaced. */
+	public long getRelaunches() {
+		return m_relaunches.get();
+	}
+
+	/** @return number of idle Rserve processes shut down after the idle timeout. */
+	public long getEvictions() {
+		return m_evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "hits=" + getHits() + ", launches=" + getLaunches() + ", waits=" + getWaits() + ", relaunches="
+				+ getRelaunches() + ", evictions=" + getEvictions();
+	}
+}
@@ -0,0 +1,111 @@
+package de.bund.bfr.knime.fsklab.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * Read-only copy of a vocabulary with its JSON responses. The vocabularies database only changes
+ * when FSK-Lab is updated (see {@link VocabularyDatabase}), so a vocabulary is loaded once and kept
+ * for the lifetime of the service.
+ */
+class CachedVocabulary {
+
+	/** JSON of a response and its entity tag. */
+	static class Response {
+
+		final String json;
+
+		final String etag;
+
+		Response(String json) {
+			this.json = json;
+
+			byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+			CRC32 crc = new CRC32();
+			crc.update(bytes);
+			etag = "\"" + Integer.toHexString(bytes.length) + "-" + Long.toHexString(crc.getValue()) + "\"";
+		}
+	}
+
+	final Response all;
+
+	final Response allNames;
+
+	/** Responses of getById, added when an id is requested for the first time. */
+	private final Map<Integer, Response> byId = new ConcurrentHashMap<>();
+
+	/** Names sorted by their lower case keys. */
+	private final String[] sortedNames;
+
+	/** Lower case names in ascending order, for binary search. */
+	private final String[] sortedKeys;
+
+	/**
+	 * @param allJson JSON of all the entries
+	 * @param names names of all the entries. Null names are not searched.
+	 * @param namesJson JSON of the names
+	 */
+	CachedVocabulary(String allJson, String[] names, String namesJson) {
+		all = new Response(allJson);
+		allNames = new Response(namesJson);
+
+		sortedNames = Arrays.stream(names).filter(name -> name != null)
+				.sorted(Comparator.comparing(CachedVocabulary::getKey)).toArray(String[]::new);
+		sortedKeys = Arrays.stream(sortedNames).map(CachedVocabulary::getKey).toArray(String[]::new);
+	}
+
+	/** @return cached response of getById or null if the id was not requested yet */
+	Response getById(int id) {
+		return byId.get(id);
+	}
+
+	/** Caches the response of getById. @return the cached response */
+	Response putById(int id, String json) {
+		Response response = byId.putIfAbsent(id, new Response(json));
+		return response != null ? response : byId.get(id);
+	}
+
+	/**
+	 * Searches the names case-insensitively. Names that start with the query come first, followed by
+	 * names that contain it elsewhere, both in alphabetical order.
+	 *
+	 * @param query part of the name
+	 * @param limit maximum number of names
+	 * @return matching names
+	 */
+	List<String> search(String query, int limit) {
+		String key = getKey(query);
+		List<String> result = new ArrayList<>();
+
+		// Prefix matches are a range of the sorted keys that starts at the insertion point of the query
+		int start = Arrays.binarySearch(sortedKeys, key);
+		if (start < 0) {
+			start = -start - 1;
+		}
+		int end = start;
+		while (end < sortedKeys.length && sortedKeys[end].startsWith(key) && result.size() < limit) {
+			result.add(sortedNames[end]);
+			end++;
+		}
+
+		// Fill up with names that contain the query after the first character
+		for (int i = 0; i < sortedKeys.length && result.size() < limit; i++) {
+			if ((i < start || i >= end) && sortedKeys[i].indexOf(key, 1) >= 0) {
+				result.add(sortedNames[i]);
+			}
+		}
+
+		return result;
+	}
+
+	private static String getKey(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+}
@@ -1,31 +1,21 @@
 package de.bund.bfr.knime.fsklab.service;
 
+import static spark.Spark.afterAfter;
 import static spark.Spark.awaitInitialization;
 import static spark.Spark.before;
 import static spark.Spark.get;
+import static spark.Spark.halt;
 import static spark.Spark.options;
 import static spark.Spark.port;
 import static spark.Spark.post;
 
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.Enumeration;
-import java.util.Properties;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.LineIterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.eclipse.core.runtime.Platform;
-import org.h2.tools.DeleteDbFiles;
 import org.knime.core.node.NodeLogger;
 import org.osgi.framework.Bundle;
 
@@ -79,12 +69,23 @@ import de.bund.bfr.rakip.vocabularies.data.UnitCategoryRepository;
 import de.bund.bfr.rakip.vocabularies.data.UnitRepository;
 import metadata.ConversionUtils;
 import metadata.ConversionUtils.ModelClass;
+import spark.Request;
+import spark.Response;
+import spark.Route;
 import spark.ResponseTransformer;
 
 public class FskService implements Runnable {
 
 	private static final String MIME_JSON = "application/json";
 
+	/** Request attribute with the start time of a request in nanoseconds. */
+	private static final String START_TIME = "fsk.startTime";
+
+	/** Request attribute with the route of a request. Only set if the request matched a route. */
+	private static final String ROUTE = "fsk.route";
+
+	private static final int DEFAULT_SEARCH_LIMIT = 20;
+
 	private static final NodeLogger LOGGER = NodeLogger.getLogger(FskService.class);
 
 	private static final JsonTransformer jsonTransformer = new JsonTransformer();
@@ -92,6 +93,13 @@ public class FskService implements Runnable {
 	private final ConversionUtils utils = new ConversionUtils();
 
 	private int port;
+
+	private VocabularyDatabase vocabularies;
+
+	/** Vocabularies loaded by the REST endpoints. */
+	private final Map<String, CachedVocabulary> cachedVocabularies = new ConcurrentHashMap<>();
+
+	private final RequestMetrics metrics = new RequestMetrics();
 	
 	private static FskService service = new FskService();
 
@@ -109,15 +117,9 @@ public class FskService implements Runnable {
 	@Override
 	public void run() {
 
-		try {
-			initDatabase();
-		} catch (ClassNotFoundException err) {
-			LOGGER.error("Initializing DB", err);
-			return;
-		} catch (SQLException | IOException err) {
-			// These two exceptions are already logged in initDatabase
-			return;
-		}
+		// Vocabularies are imported after the service is started. Requests wait for their table.
+		Bundle bundle = Platform.getBundle("de.bund.bfr.knime.fsklab.service");
+		vocabularies = new VocabularyDatabase(bundle.getEntry("/vocabularies-2.0.2.jar"));
 
 		port(0);
 
@@ -139,33 +141,57 @@ public class FskService implements Runnable {
 
 		before((request, response) -> response.header("Access-Control-Allow-Origin", "*"));
 
-		get("getById/:vocabulary/:id", (req, res) -> {
-			try (Connection connection = DriverManager.getConnection("jdbc:h2:~/.fsk/vocabularies")) {
-				res.type(MIME_JSON);
-				BasicRepository<?> repository = getRepository(req.params(":vocabulary"), connection);
-				int id = Integer.parseInt(req.params(":id"));
-				return repository.getById(id);
+		// Request latency, see /metrics
+		before((request, response) -> request.attribute(START_TIME, System.nanoTime()));
+		afterAfter((request, response) -> {
+			Long startTime = request.attribute(START_TIME);
+			String route = request.attribute(ROUTE);
+			if (startTime != null && route != null) {
+				metrics.record(request.requestMethod() + " " + route, System.nanoTime() - startTime);
 			}
-		}, jsonTransformer);
+		});
 
-		get("/getAll/:vocabulary", (req, res) -> {
-			try (Connection connection = DriverManager.getConnection("jdbc:h2:~/.fsk/vocabularies")) {
-				res.type(MIME_JSON);
-				BasicRepository<?> repository = getRepository(req.params(":vocabulary"), connection);
-				return repository.getAll();
-			}
-		}, jsonTransformer);
+		get("getById/:vocabulary/:id", timed("/getById", (req, res) -> {
+			String vocabulary = req.params(":vocabulary");
+			CachedVocabulary cachedVocabulary = getCachedVocabulary(vocabulary);
+			int id = Integer.parseInt(req.params(":id"));
 
-		get("/getAllNames/:vocabulary", (req, res) -> {
-			try (Connection connection = DriverManager.getConnection("jdbc:h2:~/.fsk/vocabularies")) {
-				res.type(MIME_JSON);
-				BasicRepository<?> repository = getRepository(req.params(":vocabulary"), connection);
-				return repository.getAllNames();
+			CachedVocabulary.Response response = cachedVocabulary.getById(id);
+			if (response == null) {
+				try (Connection connection = getConnection(vocabulary)) {
+					BasicRepository<?> repository = getRepository(vocabulary, connection);
+					response = cachedVocabulary.putById(id, jsonTransformer.render(repository.getById(id)));
+				}
 			}
-		}, jsonTransformer);
+			return send(req, res, response);
+		}));
+
+		get("/getAll/:vocabulary", timed("/getAll", (req, res) -> {
+			CachedVocabulary cachedVocabulary = getCachedVocabulary(req.params(":vocabulary"));
+			return send(req, res, cachedVocabulary.all);
+		}));
+
+		get("/getAllNames/:vocabulary", timed("/getAllNames", (req, res) -> {
+			CachedVocabulary cachedVocabulary = getCachedVocabulary(req.params(":vocabulary"));
+			return send(req, res, cachedVocabulary.allNames);
+		}));
+
+		// Names of a vocabulary that start with or contain the query parameter q
+		get("/search/:vocabulary", timed("/search", (req, res) -> {
+			res.type(MIME_JSON);
+			int limit = getLimit(req.queryParams("limit"));
+			CachedVocabulary cachedVocabulary = getCachedVocabulary(req.params(":vocabulary"));
+			String query = req.queryParams("q");
+			return cachedVocabulary.search(query != null ? query : "", limit);
+		}), jsonTransformer);
+
+		get("/metrics", timed("/metrics", (req, res) -> {
+			res.type(MIME_JSON);
+			return metrics.getSnapshot();
+		}), jsonTransformer);
 
 		// input metadata as body parameter
-		post("convertMetadata/:targetModelClass", (req, res) -> {
+		post("convertMetadata/:targetModelClass", timed("/convertMetadata", (req, res) -> {
 			res.type("application/json");
 
 			try {
@@ -178,9 +204,9 @@ public class FskService implements Runnable {
 				res.status(400);
 				return err;
 			}
-		}, jsonTransformer);
+		}), jsonTransformer);
 
-		post("joinMetadata", (req, res) -> {
+		post("joinMetadata", timed("/joinMetadata", (req, res) -> {
 			// The body keeps two JSON models in an array.
 			res.type("application/json");
 
@@ -195,11 +221,19 @@ public class FskService implements Runnable {
 				res.status(500);
 				return err;
 			}
-		}, jsonTransformer);
+		}), jsonTransformer);
 
 		// After initializing the service, get the randomly picked port by Spark.
 		awaitInitialization();
 		port = port();
+
+		try {
+			vocabularies.importVocabularies();
+		} catch (ClassNotFoundException err) {
+			LOGGER.error("Initializing DB", err);
+		} catch (SQLException | IOException err) {
+			// These two exceptions are already logged in importVocabularies
+		}
 	}
 
 	private static class JsonTransformer implements ResponseTransformer {
@@ -217,6 +251,95 @@ public class FskService implements Runnable {
 		}
 	}
 
+	/**
+	 * Gets a vocabulary from the cache and loads it if needed. Concurrent requests may load a
+	 * vocabulary twice, but only one copy is kept.
+	 */
+	private CachedVocabulary getCachedVocabulary(String vocabulary) throws SQLException, InterruptedException {
+		CachedVocabulary cachedVocabulary = cachedVocabularies.get(vocabulary);
+		if (cachedVocabulary != null) {
+			return cachedVocabulary;
+		}
+
+		// Checked before waiting for a connection, which would wait for a table that never comes
+		if (getRepository(vocabulary, null) == null) {
+			throw halt(404, "Unknown vocabulary: " + vocabulary);
+		}
+
+		try (Connection connection = getConnection(vocabulary)) {
+			BasicRepository<?> repository = getRepository(vocabulary, connection);
+			String[] names = repository.getAllNames();
+			cachedVocabulary = new CachedVocabulary(jsonTransformer.render(repository.getAll()), names,
+					jsonTransformer.render(names));
+		}
+
+		CachedVocabulary previous = cachedVocabularies.putIfAbsent(vocabulary, cachedVocabulary);
+		return previous != null ? previous : cachedVocabulary;
+	}
+
+	/**
+	 * Sends a cached JSON response. Responds with 304 Not Modified if the client already has it.
+	 */
+	private static String send(Request req, Response res, CachedVocabulary.Response response) {
+		res.type(MIME_JSON);
+		res.header("ETag", response.etag);
+		res.header("Cache-Control", "no-cache");
+
+		if (response.etag.equals(req.headers("If-None-Match"))) {
+			res.status(304);
+			return "";
+		}
+		return response.json;
+	}
+
+	/**
+	 * Marks the requests of a route for the metrics, e.g. "/getAll" for "/getAll/hazard". Metrics
+	 * are kept per route and not per vocabulary, and only for requests that matched a route.
+	 */
+	private static Route timed(String name, Route route) {
+		return (request, response) -> {
+			request.attribute(ROUTE, name);
+			return route.handle(request, response);
+		};
+	}
+
+	/** @return limit of a search, or {@link #DEFAULT_SEARCH_LIMIT} if not given */
+	private static int getLimit(String limit) {
+		if (limit == null) {
+			return DEFAULT_SEARCH_LIMIT;
+		}
+		try {
+			int value = Integer.parseInt(limit);
+			if (value > 0) {
+				return value;
+			}
+		} catch (NumberFormatException err) {
+			// answered below
+		}
+		throw halt(400, "Invalid limit: " + limit);
+	}
+
+	/** Opens a connection to the vocabularies once the table of the given vocabulary is imported. */
+	private Connection getConnection(String vocabulary) throws SQLException, InterruptedException {
+		return vocabularies.getConnection(getTable(vocabulary));
+	}
+
+	/** @return name of the table of a vocabulary */
+	private static String getTable(String vocabulary) {
+		switch (vocabulary) {
+		case "product_treatment":
+			return "prodTreat";
+		case "production_method":
+			return "prodmeth";
+		case "right":
+			return "rights";
+		case "source":
+			return "sources";
+		default:
+			return vocabulary;
+		}
+	}
+
 	private BasicRepository<?> getRepository(String vocabulary, Connection connection) {
 		switch (vocabulary) {
 		case "accreditation_procedure":
@@ -305,88 +428,4 @@ public class FskService implements Runnable {
 
 		return null;
 	}
-
-	/**
-	 * Import database from SQL files in bundle to local DB in ~/.fsk/vocabularies.
-	 * <p>
-	 * Import stops if the database could not be created. Individual tables can fail
-	 * and the import will continue with the rest of tables.
-	 * 
-	 * @throws SQLException If connection to local DB could not be opened.
-	 * @throws ClassNotFoundException If H2 DB driver is missing.
-	 * @throws IOException If the database or its structure could not be created.
-	 */
-	private void initDatabase() throws SQLException, ClassNotFoundException, IOException {
-
-		final Properties fastImportProperties = new Properties();
-		fastImportProperties.put("LOG", 0);
-		fastImportProperties.put("CACHE_SIZE", 65536);
-		fastImportProperties.put("LOCK_MODE", 0);
-		fastImportProperties.put("UNDO_LOG", 0);
-
-		Class.forName("org.h2.Driver");
-		DeleteDbFiles.execute("~/.fsk", "vocabularies", true); // Delete DB if it exists
-		try (Connection connection = DriverManager.getConnection("jdbc:h2:~/.fsk/vocabularies",
-				fastImportProperties)) {
-			
-			// Load tables
-			Bundle bundle = Platform.getBundle("de.bund.bfr.knime.fsklab.service");
-			
-			File temporaryFile = File.createTempFile("vocabularies", ".jar");
-			URL bundleUrl = bundle.getEntry("/vocabularies-2.0.2.jar");
-			
-			try {
-				// Extract vocabularies jar from bundle to a temporary file
-				try (InputStream inputStream = bundleUrl.openStream()) {
-					FileUtils.copyToFile(inputStream, temporaryFile);
-				}
-				
-				try (JarFile jarFile = new JarFile(temporaryFile)) {
-										
-					// Read tables.sql
-					String tableSqlScript;
-					JarEntry tablesEntry = jarFile.getJarEntry("data/tables.sql");
-					try (InputStream inputStream = jarFile.getInputStream(tablesEntry)) {
-						tableSqlScript = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
-					} catch (IOException err) {
-						LOGGER.error("RAKIP vocabularies could not be imported", err);
-						throw err;
-					}
-					
-					// Import tables.sql
-					try (Statement statement = connection.createStatement()) {
-						statement.execute(tableSqlScript);
-					} catch (SQLException err) {
-						LOGGER.error("RAKIP vocabularies could not be imported", err);
-						throw err;
-					}
-					
-					// Get and import SQL data files
-					Enumeration<JarEntry> entries = jarFile.entries();
-					while (entries.hasMoreElements()) {
-						JarEntry nextEntry = entries.nextElement();
-						
-						if (nextEntry.getName().startsWith("data/initialdata/") && nextEntry.getName().endsWith(".sql")) {
-							try (InputStream is = jarFile.getInputStream(nextEntry);
-									LineIterator lineIterator = IOUtils.lineIterator(is, StandardCharsets.UTF_8)) {
-								while (lineIterator.hasNext()) {
-									try (Statement statement = connection.createStatement()) {
-										statement.execute(lineIterator.nextLine());
-									}
-								}
-							} catch (IOException | SQLException err) {
-								// Log error and continue with other vocabularies
-								LOGGER.warn("SQL file could not be imported: " + nextEntry.getName(), err);
-							}
-						}
-					}
-				}
-				
-			} finally {
-				if (temporaryFile.exists()) {
-					temporaryFile.delete();
-				}
-			}
-		}
-	}
 }
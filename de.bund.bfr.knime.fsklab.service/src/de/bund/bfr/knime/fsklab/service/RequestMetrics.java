@@ -0,0 +1,53 @@
+package de.bund.bfr.knime.fsklab.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Number and latency of the requests of each route of the service. */
+class RequestMetrics {
+
+	private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+	/**
+	 * @param route method and path pattern of the route, e.g. "GET /getAll/:vocabulary"
+	 * @param nanos duration of the request in nanoseconds
+	 */
+	void record(String route, long nanos) {
+		routes.computeIfAbsent(route, key -> new RouteMetrics()).record(nanos);
+	}
+
+	/** @return count, mean and maximum latency in milliseconds of each route, sorted by route */
+	Map<String, Map<String, Number>> getSnapshot() {
+		Map<String, Map<String, Number>> snapshot = new TreeMap<>();
+		routes.forEach((route, metrics) -> snapshot.put(route, metrics.getSnapshot()));
+		return snapshot;
+	}
+
+	private static class RouteMetrics {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder totalNanos = new LongAdder();
+
+		private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+		void record(long nanos) {
+			count.increment();
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+		}
+
+		Map<String, Number> getSnapshot() {
+			long n = count.sum();
+			Map<String, Number> snapshot = new TreeMap<>();
+			snapshot.put("count", n);
+			snapshot.put("meanMillis", n == 0 ? 0.0 : totalNanos.sum() / (double) n / TimeUnit.MILLISECONDS.toNanos(1));
+			snapshot.put("maxMillis", maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+			return snapshot;
+		}
+	}
+}
@@ -0,0 +1,249 @@
+package de.bund.bfr.knime.fsklab.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.LineIterator;
+import org.h2.tools.DeleteDbFiles;
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Local database with the RAKIP vocabularies in ~/.fsk/vocabularies.
+ * <p>
+ * The vocabularies are imported from the SQL files of the vocabularies jar in the bundle. The
+ * checksum of the jar is stored with the vocabularies, so that they are only imported again when
+ * the jar changes. Every data file is imported in its own transaction, so that connections for a
+ * table can be handed out as soon as that table is imported. The checksum is stored last: an
+ * interrupted import is repeated on the next start.
+ */
+class VocabularyDatabase {
+
+	private static final NodeLogger LOGGER = NodeLogger.getLogger(VocabularyDatabase.class);
+
+	private static final String URL = "jdbc:h2:~/.fsk/vocabularies";
+
+	private static final String VERSION_TABLE = "vocabularies_version";
+
+	private static final Pattern INSERT_PATTERN = Pattern.compile("^\\s*INSERT\\s+INTO\\s+(\\w+)",
+			Pattern.CASE_INSENSITIVE);
+
+	/** Completed when the import is finished, or exceptionally when it failed. */
+	private final CompletableFuture<Void> imported = new CompletableFuture<>();
+
+	/** Completed for each table when its data is imported. Keys are upper case table names. */
+	private final Map<String, CompletableFuture<Void>> tables = new ConcurrentHashMap<>();
+
+	private final URL jarUrl;
+
+	/**
+	 * @param jarUrl URL of the vocabularies jar
+	 */
+	VocabularyDatabase(URL jarUrl) {
+		this.jarUrl = jarUrl;
+	}
+
+	/**
+	 * Opens a connection to the database once the given table is imported. Waits for the import if
+	 * needed.
+	 *
+	 * @param table name of the table to be queried
+	 * @throws SQLException If the vocabularies could not be imported or the connection could not be
+	 *                      opened.
+	 * @throws InterruptedException If interrupted while waiting for the import.
+	 */
+	Connection getConnection(String table) throws SQLException, InterruptedException {
+		CompletableFuture<Void> tableImported = getTableFuture(table);
+		try {
+			CompletableFuture.anyOf(tableImported, imported).get();
+		} catch (ExecutionException err) {
+			throw new SQLException("RAKIP vocabularies could not be imported", err.getCause());
+		}
+		return DriverManager.getConnection(URL);
+	}
+
+	/**
+	 * Imports the vocabularies if the database is missing or was imported from another jar.
+	 * Connections are handed out while the import runs, see {@link #getConnection(String)}.
+	 * <p>
+	 * Import stops if the database could not be created. Individual tables can fail and the import
+	 * will continue with the rest of tables.
+	 *
+	 * @throws SQLException If connection to local DB could not be opened.
+	 * @throws ClassNotFoundException If H2 DB driver is missing.
+	 * @throws IOException If the database or its structure could not be created.
+	 */
+	void importVocabularies() throws SQLException, ClassNotFoundException, IOException {
+		try {
+			Class.forName("org.h2.Driver");
+
+			byte[] jar;
+			try (InputStream inputStream = jarUrl.openStream()) {
+				jar = IOUtils.toByteArray(inputStream);
+			}
+			String checksum = getChecksum(jar);
+
+			if (checksum.equals(readChecksum())) {
+				LOGGER.debug("RAKIP vocabularies are up to date");
+			} else {
+				importJar(jar, checksum);
+			}
+			imported.complete(null);
+		} catch (SQLException | ClassNotFoundException | IOException | RuntimeException err) {
+			imported.completeExceptionally(err);
+			throw err;
+		} finally {
+			// Tables of failed files or without data files are released with the import
+			tables.values().forEach(future -> future.complete(null));
+		}
+	}
+
+	private void importJar(byte[] jar, String checksum) throws SQLException, IOException {
+
+		// The transaction log and locking are kept, since readers query imported tables while the
+		// import goes on, and an interrupted import must leave a database that can be opened again
+		final Properties importProperties = new Properties();
+		importProperties.put("CACHE_SIZE", 65536);
+
+		DeleteDbFiles.execute("~/.fsk", "vocabularies", true); // Delete DB if it exists
+		try (Connection connection = DriverManager.getConnection(URL, importProperties)) {
+			connection.setAutoCommit(false);
+
+			// Read tables.sql and the SQL data files
+			String tableSqlScript = null;
+			Map<String, byte[]> dataFiles = new LinkedHashMap<>();
+			try (JarInputStream jarStream = new JarInputStream(new ByteArrayInputStream(jar))) {
+				JarEntry entry;
+				while ((entry = jarStream.getNextJarEntry()) != null) {
+					String name = entry.getName();
+					if (name.equals("data/tables.sql")) {
+						tableSqlScript = IOUtils.toString(jarStream, StandardCharsets.UTF_8);
+					} else if (name.startsWith("data/initialdata/") && name.endsWith(".sql")) {
+						dataFiles.put(name, IOUtils.toByteArray(jarStream));
+					}
+				}
+				if (tableSqlScript == null) {
+					throw new IOException("data/tables.sql is missing");
+				}
+			} catch (IOException err) {
+				LOGGER.error("RAKIP vocabularies could not be imported", err);
+				throw err;
+			}
+
+			// Import tables.sql
+			try (Statement statement = connection.createStatement()) {
+				statement.execute(tableSqlScript);
+				connection.commit();
+			} catch (SQLException err) {
+				LOGGER.error("RAKIP vocabularies could not be imported", err);
+				throw err;
+			}
+
+			// Import SQL data files
+			for (Map.Entry<String, byte[]> dataFile : dataFiles.entrySet()) {
+				importDataFile(connection, dataFile.getValue(), dataFile.getKey());
+			}
+
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("CREATE TABLE " + VERSION_TABLE + " (checksum VARCHAR(64) NOT NULL)");
+			}
+			try (PreparedStatement statement = connection
+					.prepareStatement("INSERT INTO " + VERSION_TABLE + " (checksum) VALUES (?)")) {
+				statement.setString(1, checksum);
+				statement.executeUpdate();
+			}
+			connection.commit();
+		}
+	}
+
+	/** Imports the lines of a data file as one batch and releases the tables it fills. */
+	private void importDataFile(Connection connection, byte[] data, String name)
+			throws SQLException {
+
+		Set<String> dataTables = new HashSet<>();
+		try (Statement statement = connection.createStatement();
+				LineIterator lineIterator = IOUtils.lineIterator(new ByteArrayInputStream(data),
+						StandardCharsets.UTF_8)) {
+			while (lineIterator.hasNext()) {
+				String line = lineIterator.nextLine();
+				if (line.trim().isEmpty()) {
+					continue;
+				}
+				Matcher matcher = INSERT_PATTERN.matcher(line);
+				if (matcher.find()) {
+					dataTables.add(matcher.group(1).toUpperCase(Locale.ROOT));
+				}
+				statement.addBatch(line);
+			}
+
+			statement.executeBatch();
+			connection.commit();
+		} catch (BatchUpdateException err) {
+			// Keep the rows that could be imported and continue with other vocabularies
+			LOGGER.warn("SQL file could not be imported completely: " + name, err);
+			connection.commit();
+		} catch (IOException | IllegalStateException | SQLException err) {
+			// Log error and continue with other vocabularies
+			LOGGER.warn("SQL file could not be imported: " + name, err);
+			connection.rollback();
+		}
+
+		for (String table : dataTables) {
+			getTableFuture(table).complete(null);
+		}
+	}
+
+	private CompletableFuture<Void> getTableFuture(String table) {
+		return tables.computeIfAbsent(table.toUpperCase(Locale.ROOT), key -> new CompletableFuture<>());
+	}
+
+	/** @return checksum of the imported jar, or null if the database is missing or incomplete */
+	private static String readChecksum() {
+		try (Connection connection = DriverManager.getConnection(URL + ";IFEXISTS=TRUE");
+				Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT checksum FROM " + VERSION_TABLE)) {
+			return resultSet.next() ? resultSet.getString(1) : null;
+		} catch (SQLException err) {
+			return null;
+		}
+	}
+
+	private static String getChecksum(byte[] data) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+			StringBuilder checksum = new StringBuilder();
+			for (byte b : digest) {
+				checksum.append(String.format("%02x", b));
+			}
+			return checksum.toString();
+		} catch (NoSuchAlgorithmException err) {
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(err);
+		}
+	}
+}
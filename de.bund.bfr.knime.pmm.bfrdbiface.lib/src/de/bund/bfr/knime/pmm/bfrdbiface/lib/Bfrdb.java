@@ -202,6 +202,14 @@ public class Bfrdb {
 			+ " LEFT JOIN \"Einheiten\" ON \"Einheiten\".\"ID\" = \"ModellkatalogParameter\".\"Einheit\"" + "    WHERE \"" + ATT_PARAMTYPE + "\"=2  OR \"" + ATT_PARAMTYPE + "\"=4\n" + "    GROUP BY \""
 			+ ATT_MODELID + "\" )AS \"P\"\n" + "ON \"" + REL_MODEL + "\".\"ID\"=\"P\".\"" + ATT_MODELID + "\"\n";
 
+	private static final CacheRefresher TS_REFRESHER = new CacheRefresher(CacheRefresher.Key.CONDITION, ATT_CONDITIONID, " AND \"VersuchsbedingungenEinfach\".\"ID\" IN (%s)");
+	private static final CacheRefresher PEI_REFRESHER = new CacheRefresher(CacheRefresher.Key.ESTIMATED_MODEL, ATT_ESTMODELID, " WHERE \"EstModelPrimView\".\""
+			+ ATT_ESTMODELID + "\" IN (%s)");
+	private static final CacheRefresher SEI_REFRESHER = new CacheRefresher(CacheRefresher.Key.SECONDARY_MODEL, ATT_ESTMODELID + "2", " WHERE \"EstModelSecView\".\""
+			+ ATT_ESTMODELID + "2\" IN (%s)");
+	private static final CacheRefresher SEC_ONLY_REFRESHER = new CacheRefresher(CacheRefresher.Key.ESTIMATED_MODEL, ATT_ESTMODELID + "2", " WHERE \"EstModelSecView\".\""
+			+ ATT_ESTMODELID + "2\" IN (%s)");
+
 	private static final String querySecOnly = "SELECT " + "*" + "FROM" + "\"EstModelSecView\"\n";
 	
 	private static final String queryPei2 = "SELECT\n" + "\n" + "    \"MicrobialDataView\".\"" + ATT_CONDITIONID + "\",\n" + "    \"MicrobialDataView\".\"CombaseID\",\n"
@@ -442,8 +450,10 @@ public class Bfrdb {
 		String q;
 		String myWhere = "";
 		String myWhereCache = "";
+		CacheRefresher refresher;
 		if (level == 1) {
 			q = queryPei2;
+			refresher = PEI_REFRESHER;
 			//System.err.println(q);
 			if (estimatedModelID > 0) {
 				myWhere = " WHERE \"EstModelPrimView\".\"" + ATT_ESTMODELID + "\" = " + estimatedModelID;
@@ -451,6 +461,7 @@ public class Bfrdb {
 			}
 		} else if (level == 2) {
 			q = querySei2;
+			refresher = SEI_REFRESHER;
 			if (estimatedModelID > 0) {
 				myWhere = " WHERE \"EstModelSecView\".\"" + ATT_ESTMODELID + "2\" = " + estimatedModelID;
 				myWhereCache = " WHERE \"" + ATT_ESTMODELID + "2\" = " + estimatedModelID;
@@ -458,6 +469,7 @@ public class Bfrdb {
 		}
 		else { // level = 3
 			q = querySecOnly;
+			refresher = SEC_ONLY_REFRESHER;
 			if (estimatedModelID > 0) {
 				myWhere = " WHERE \"EstModelSOView\".\"" + ATT_ESTMODELID + "\" = " + estimatedModelID;
 				myWhereCache = " WHERE \"" + ATT_ESTMODELID + "\" = " + estimatedModelID;
@@ -470,7 +482,7 @@ public class Bfrdb {
 		//System.err.println(q + myWhere);
 		return getCachedTable("CACHE_selectEstModel" + level, q, myWhere, myWhereCache, new String[] { "GeschaetzteModelle", "Modellkatalog", "ModellkatalogParameter",
 				"GeschaetzteParameter", "GueltigkeitsBereiche", "Modell_Referenz", "Literatur", "GeschaetztesModell_Referenz", "Sekundaermodelle_Primaermodelle", "Einheiten",
-				"Versuchsbedingungen_Sonstiges", "SonstigeParameter", "DoubleKennzahlen", "Messwerte", "Versuchsbedingungen" });
+				"Versuchsbedingungen_Sonstiges", "SonstigeParameter", "DoubleKennzahlen", "Messwerte", "Versuchsbedingungen" }, refresher);
 	}
 
 	private String prepareCaching(ResultSet rs, String cacheTableneme) throws SQLException {
@@ -503,19 +515,25 @@ public class Bfrdb {
 		//return pushQuery(queryTimeSeries9, true);
 		//System.err.println(queryTimeSeries9);
 		return getCachedTable("CACHE_TS", queryTimeSeries9, where, where, new String[] { "Einheiten", "Versuchsbedingungen_Sonstiges", "SonstigeParameter", "DoubleKennzahlen",
-				"Messwerte", "Versuchsbedingungen" });
+				"Messwerte", "Versuchsbedingungen" }, TS_REFRESHER);
 	}
 
-	private ResultSet getCachedTable(String cacheTable, String selectSQL, String whereSQL, String cacheWhereSQL, String[] relevantTables) throws SQLException {
+	private ResultSet getCachedTable(String cacheTable, String selectSQL, String whereSQL, String cacheWhereSQL, String[] relevantTables, CacheRefresher refresher)
+			throws SQLException {
 		boolean dropCacheFirst = false;
 		long lastCaching = DBKernel.getLastCache(conn, cacheTable);
 		//System.err.println(selectSQL + whereSQL);
 		//long ttt = System.currentTimeMillis();
+		// taken before the ChangeLog is flushed: changes committed later are stamped later, even within the same millisecond
+		long newCaching = System.currentTimeMillis() - 1;
 		long lastRelevantChange = DBKernel.getLastRelevantChange(conn, relevantTables);
 		//System.err.println(System.currentTimeMillis() - ttt);
 		if (lastRelevantChange > lastCaching) {
-			dropCacheFirst = true;
-			DBKernel.setLastCache(conn, cacheTable, System.currentTimeMillis());
+			// refresh only the rows of the changed time series and models, rebuild the cache if that is not possible
+			dropCacheFirst = refresher == null || lastCaching <= 0 || cacheTable.isEmpty() || DBKernel.getRowCount(conn, cacheTable, "") == 0
+					|| !refresher.refresh(conn, cacheTable, selectSQL, relevantTables, lastCaching);
+			reconnect();
+			DBKernel.setLastCache(conn, cacheTable, newCaching);
 		}
 
 		if (!dropCacheFirst && !cacheTable.isEmpty() && DBKernel.getRowCount(conn, cacheTable, "") > 0) {
@@ -539,19 +557,24 @@ public class Bfrdb {
 			DBKernel.sendRequest(conn, "GRANT SELECT ON TABLE \"" + cacheTable + "\" TO \"PUBLIC\";", false, true);
 			//System.err.println(q);
 			DBKernel.sendRequest(conn, "INSERT INTO " + DBKernel.delimitL(cacheTable) + " (" + selectSQL + ")", false, true);
-			if (conn == null || conn.isClosed()) {
-				try {
-					conn = DBKernel.getDBConnection();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
+			reconnect();
 			ps = conn.prepareStatement("SELECT * FROM " + DBKernel.delimitL(cacheTable) + " " + cacheWhereSQL, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
 			return ps.executeQuery();
 		}
 		return rs;
 	}
 
+	/** Opens the connection again if sendRequest closed it to fetch the admin connection. */
+	private void reconnect() throws SQLException {
+		if (conn == null || conn.isClosed()) {
+			try {
+				conn = DBKernel.getDBConnection();
+			} catch (Exception e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
 	public ResultSet selectRelatedLiterature(final String modelName) throws SQLException {
 		String q = "SELECT \"" + ATT_LITERATUREID + "\".\"" + ATT_FIRSTAUTHOR + "\", \"" + ATT_LITERATUREID + "\".\"" + ATT_YEAR + "\" FROM \"" + REL_MODEL + "\" JOIN \""
 				+ REL_MODEL_LITERATURE + "\" ON \"" + REL_MODEL + "\".\"ID\"=\"" + REL_MODEL_LITERATURE + "\".\"" + ATT_MODELID + "\" JOIN \"" + ATT_LITERATUREID + "\" ON \""
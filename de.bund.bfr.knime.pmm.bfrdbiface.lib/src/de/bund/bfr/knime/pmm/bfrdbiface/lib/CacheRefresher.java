@@ -0,0 +1,276 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.bfrdbiface.lib;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.hsh.bfr.db.DBKernel;
+
+/**
+ * Refreshes the rows of a cache table of {@link Bfrdb} that belong to changed
+ * time series or estimated models, instead of building the whole table again.
+ * <p>
+ * The changes since the last caching are read from the ChangeLog. Changed rows
+ * of the tables of time series, estimated models and catalog models are traced
+ * to the keys of the cache, both with their current values and with the values
+ * before the change. Rows inserted into shared tables like DoubleKennzahlen or
+ * Literatur can only show up in the cache through rows that reference them, so
+ * they are ignored. Any other change, e.g. an edited unit, may affect an unknown
+ * number of rows and requires a full rebuild.
+ */
+class CacheRefresher {
+
+	/** What the rows of a cache table are identified by. */
+	enum Key {
+		/** ID of the time series ("Versuchsbedingungen"). */
+		CONDITION,
+		/** ID of the estimated model. */
+		ESTIMATED_MODEL,
+		/** ID of the secondary estimated model, whose rows include its primary models. */
+		SECONDARY_MODEL
+	}
+
+	/** Changes that are refreshed at most, beyond that the cache is rebuilt. */
+	private static final int MAX_CHANGES = 10000;
+	/** Keys that are refreshed at most, beyond that the cache is rebuilt. */
+	private static final int MAX_KEYS = 1000;
+
+	private static final String ID = "ID";
+
+	/** Columns of the tables of time series that reference the time series. */
+	private static final Map<String, String[]> CONDITION_COLUMNS = new HashMap<>();
+	/** Columns of the tables of estimated models that reference estimated models. */
+	private static final Map<String, String[]> ESTIMATED_MODEL_COLUMNS = new HashMap<>();
+	/** Columns of the tables of the model catalog that reference catalog models. */
+	private static final Map<String, String[]> MODEL_COLUMNS = new HashMap<>();
+	/** Tables that are only referenced by the other tables. */
+	private static final Set<String> SHARED_TABLES = new HashSet<>(Arrays.asList("Literatur", "Einheiten", "SonstigeParameter", "DoubleKennzahlen"));
+
+	static {
+		CONDITION_COLUMNS.put("Versuchsbedingungen", new String[] { ID });
+		CONDITION_COLUMNS.put("Messwerte", new String[] { "Versuchsbedingungen" });
+		CONDITION_COLUMNS.put("Versuchsbedingungen_Sonstiges", new String[] { "Versuchsbedingungen" });
+
+		ESTIMATED_MODEL_COLUMNS.put("GeschaetzteModelle", new String[] { ID });
+		ESTIMATED_MODEL_COLUMNS.put("GeschaetzteParameter", new String[] { "GeschaetztesModell" });
+		ESTIMATED_MODEL_COLUMNS.put("GueltigkeitsBereiche", new String[] { "GeschaetztesModell" });
+		ESTIMATED_MODEL_COLUMNS.put("GeschaetztesModell_Referenz", new String[] { "GeschaetztesModell" });
+		ESTIMATED_MODEL_COLUMNS.put("Sekundaermodelle_Primaermodelle", new String[] { "GeschaetztesPrimaermodell", "GeschaetztesSekundaermodell" });
+
+		MODEL_COLUMNS.put("Modellkatalog", new String[] { ID });
+		MODEL_COLUMNS.put("ModellkatalogParameter", new String[] { "Modell" });
+		MODEL_COLUMNS.put("Modell_Referenz", new String[] { "Modell" });
+	}
+
+	/** Positions of columns in the rows of the ChangeLog, by table and column. */
+	private static final Map<String, Integer> columnIndices = new ConcurrentHashMap<>();
+
+	private final Key key;
+	private final String keyColumn;
+	private final String keyFilter;
+
+	/**
+	 * @param key what the rows of the cache table are identified by
+	 * @param keyColumn the column of the cache table with the key
+	 * @param keyFilter the condition that restricts the select of the cache
+	 * table to the keys, including the leading WHERE or AND. %s is replaced by
+	 * the comma separated keys.
+	 */
+	CacheRefresher(final Key key, final String keyColumn, final String keyFilter) {
+		this.key = key;
+		this.keyColumn = keyColumn;
+		this.keyFilter = keyFilter;
+	}
+
+	/**
+	 * Refreshes the rows of the cache table that are affected by the changes
+	 * of the relevant tables since the given time.
+	 * @param conn the connection to read the changes with
+	 * @param cacheTable the cache table, which must exist
+	 * @param selectSQL the select the cache table was filled with
+	 * @param relevantTables the tables the select depends on
+	 * @param since the time of the last caching
+	 * @return whether the cache table is up to date. If false, it must be
+	 * rebuilt.
+	 */
+	boolean refresh(final Connection conn, final String cacheTable, final String selectSQL, final String[] relevantTables, final long since) {
+		List<Object[]> changes = DBKernel.getChangeLogEntriesSince(conn, relevantTables, since, MAX_CHANGES);
+		if (changes == null) {
+			return false;
+		}
+
+		try {
+			Set<Integer> conditions = new TreeSet<>();
+			Set<Integer> estimatedModels = new TreeSet<>();
+			Set<Integer> models = new TreeSet<>();
+			Map<String, Set<Integer>> changedRows = new LinkedHashMap<>();
+
+			for (Object[] change : changes) {
+				String table = (String) change[0];
+				int id = (Integer) change[1];
+				Object[] oldRow = (Object[]) change[2];
+
+				if (SHARED_TABLES.contains(table)) {
+					if (oldRow == null) continue;
+					return false;
+				}
+				Set<Integer> ids = getIds(table, conditions, estimatedModels, models);
+				if (ids == null || id < 0) {
+					return false;
+				}
+
+				changedRows.computeIfAbsent(table, t -> new TreeSet<>()).add(id);
+				if (oldRow != null) {
+					// the row may have been deleted or its references changed
+					for (String column : getColumns(table)) {
+						Object value = column.equals(ID) ? id : oldRow[getColumnIndex(conn, table, column)];
+						if (value != null) ids.add(((Number) value).intValue());
+					}
+				}
+			}
+
+			// the current references of the changed rows
+			for (Map.Entry<String, Set<Integer>> entry : changedRows.entrySet()) {
+				String table = entry.getKey();
+				Set<Integer> ids = getIds(table, conditions, estimatedModels, models);
+				String[] columns = getColumns(table);
+				if (Arrays.asList(columns).contains(ID)) {
+					ids.addAll(entry.getValue());
+				} else {
+					String select = "SELECT " + Arrays.stream(columns).map(DBKernel::delimitL).collect(Collectors.joining(",")) + " FROM " + DBKernel.delimitL(table)
+							+ " WHERE " + DBKernel.delimitL(ID) + " IN (" + join(entry.getValue()) + ")";
+					for (Integer[] row : query(conn, select, columns.length)) {
+						for (Integer value : row) {
+							if (value != null) ids.add(value);
+						}
+					}
+				}
+			}
+
+			Set<Integer> keys = getKeys(conn, conditions, estimatedModels, models);
+			if (keys.isEmpty()) {
+				return true;
+			}
+			if (keys.size() > MAX_KEYS) {
+				return false;
+			}
+
+			String idList = join(keys);
+			String refreshSQL;
+			int orderIndex = selectSQL.lastIndexOf("ORDER BY ");
+			if (orderIndex > 0) refreshSQL = selectSQL.substring(0, orderIndex) + String.format(keyFilter, idList) + " " + selectSQL.substring(orderIndex);
+			else refreshSQL = selectSQL + String.format(keyFilter, idList);
+
+			return DBKernel.sendRequest(conn, "DELETE FROM " + DBKernel.delimitL(cacheTable) + " WHERE " + DBKernel.delimitL(keyColumn) + " IN (" + idList + ")", false, true)
+					&& DBKernel.sendRequest(conn, "INSERT INTO " + DBKernel.delimitL(cacheTable) + " (" + refreshSQL + ")", false, true);
+		} catch (SQLException | RuntimeException e) {
+			// e.g. an unexpected row in the ChangeLog, the cache is rebuilt
+			return false;
+		}
+	}
+
+	/** Returns the keys of the rows of the cache that belong to the changed time series and models. */
+	private Set<Integer> getKeys(final Connection conn, final Set<Integer> conditions, final Set<Integer> estimatedModels, final Set<Integer> models) throws SQLException {
+		if (key == Key.CONDITION) {
+			return conditions;
+		}
+
+		Set<Integer> keys = new TreeSet<>(estimatedModels);
+		String where = "";
+		if (!conditions.isEmpty()) where += DBKernel.delimitL("Versuchsbedingung") + " IN (" + join(conditions) + ")";
+		if (!models.isEmpty()) where += (where.isEmpty() ? "" : " OR ") + DBKernel.delimitL("Modell") + " IN (" + join(models) + ")";
+		if (!where.isEmpty()) {
+			for (Integer[] row : query(conn, "SELECT " + DBKernel.delimitL(ID) + " FROM " + DBKernel.delimitL("GeschaetzteModelle") + " WHERE " + where, 1)) {
+				keys.add(row[0]);
+			}
+		}
+
+		if (key == Key.SECONDARY_MODEL && !keys.isEmpty() && keys.size() <= MAX_KEYS) {
+			for (Integer[] row : query(conn, "SELECT " + DBKernel.delimitL("GeschaetztesSekundaermodell") + " FROM " + DBKernel.delimitL("Sekundaermodelle_Primaermodelle")
+					+ " WHERE " + DBKernel.delimitL("GeschaetztesPrimaermodell") + " IN (" + join(keys) + ")", 1)) {
+				if (row[0] != null) keys.add(row[0]);
+			}
+		}
+		return keys;
+	}
+
+	/** Returns the set the references of the rows of the table go to, or null if the table is unknown. */
+	private static Set<Integer> getIds(final String table, final Set<Integer> conditions, final Set<Integer> estimatedModels, final Set<Integer> models) {
+		if (CONDITION_COLUMNS.containsKey(table)) return conditions;
+		if (ESTIMATED_MODEL_COLUMNS.containsKey(table)) return estimatedModels;
+		if (MODEL_COLUMNS.containsKey(table)) return models;
+		return null;
+	}
+
+	private static String[] getColumns(final String table) {
+		if (CONDITION_COLUMNS.containsKey(table)) return CONDITION_COLUMNS.get(table);
+		if (ESTIMATED_MODEL_COLUMNS.containsKey(table)) return ESTIMATED_MODEL_COLUMNS.get(table);
+		return MODEL_COLUMNS.get(table);
+	}
+
+	/** Returns the position of the column in the rows of the table, as they are stored in the ChangeLog. */
+	private static int getColumnIndex(final Connection conn, final String table, final String column) throws SQLException {
+		String name = table + "." + column;
+		Integer index = columnIndices.get(name);
+		if (index == null) {
+			DatabaseMetaData metaData = conn.getMetaData();
+			try (ResultSet rs = metaData.getColumns(null, null, table, column)) {
+				if (!rs.next()) throw new SQLException("Column " + name + " not found");
+				index = rs.getInt("ORDINAL_POSITION") - 1;
+			}
+			columnIndices.put(name, index);
+		}
+		return index;
+	}
+
+	private static List<Integer[]> query(final Connection conn, final String sql, final int columnCount) throws SQLException {
+		try (Statement statement = conn.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+			List<Integer[]> rows = new ArrayList<>();
+			while (rs.next()) {
+				Integer[] row = new Integer[columnCount];
+				for (int i = 0; i < columnCount; i++) {
+					int value = rs.getInt(i + 1);
+					row[i] = rs.wasNull() ? null : value;
+				}
+				rows.add(row);
+			}
+			return rows;
+		}
+	}
+
+	private static String join(final Set<Integer> ids) {
+		return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+	}
+}
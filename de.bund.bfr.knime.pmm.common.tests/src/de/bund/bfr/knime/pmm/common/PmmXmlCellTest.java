@@ -0,0 +1,113 @@
+package de.bund.bfr.knime.pmm.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+@SuppressWarnings("static-method")
+public class PmmXmlCellTest {
+
+	@Test
+	public void testCreate() {
+		assertNull(PmmXmlCell.create(new PmmXmlDoc()));
+		assertNull(PmmXmlCell.create(new PmmXmlDoc(new MatrixXml())));
+		assertTrue(PmmXmlCell.create(createTimeSeries()) instanceof TimeSeriesCell);
+		assertTrue(PmmXmlCell.create(createParams()) instanceof ParamCell);
+
+		PmmXmlDoc mixed = createParams();
+		mixed.add(new MatrixXml());
+		assertNull(PmmXmlCell.create(mixed));
+	}
+
+	@Test
+	public void testTimeSeriesCell() throws Exception {
+		PmmXmlDoc doc = createTimeSeries();
+		TimeSeriesCell cell = new TimeSeriesCell(doc);
+
+		assertEquals(3, cell.size());
+		assertArrayEquals(new double[] { 0.0, 1.5, Double.NaN }, cell.getTimes(), 0.0);
+		assertArrayEquals(new double[] { 3.0, 4.0, 5.0 }, cell.getConcentrations(), 0.0);
+		assertEquals(parse(doc), cell.getPmmXmlDoc().toXmlString());
+		assertEquals(parse(doc), cell.getStringValue());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		cell.write(new DataOutputStream(bytes));
+
+		TimeSeriesCell copy = TimeSeriesCell.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(cell, copy);
+		assertEquals(cell.hashCode(), copy.hashCode());
+		assertEquals(parse(doc), copy.getPmmXmlDoc().toXmlString());
+	}
+
+	@Test
+	public void testParamCell() throws Exception {
+		PmmXmlDoc doc = createParams();
+		ParamCell cell = new ParamCell(doc);
+
+		assertEquals(parse(doc), cell.getPmmXmlDoc().toXmlString());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		cell.write(new DataOutputStream(bytes));
+
+		ParamCell copy = ParamCell.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+		assertEquals(cell, copy);
+		assertEquals(parse(doc), copy.getPmmXmlDoc().toXmlString());
+
+		ParamXml mu = (ParamXml) copy.getPmmXmlDoc().get(0);
+		assertEquals(0.5, mu.correlations.get("lambda"), 0.0);
+		assertNull(mu.min);
+	}
+
+	@Test
+	public void testCellIO() {
+		PmmXmlDoc doc = createTimeSeries();
+
+		assertTrue(CellIO.createXmlCell(doc) instanceof TimeSeriesCell);
+		assertEquals(parse(doc), CellIO.getPmmXml(CellIO.createXmlCell(doc)).toXmlString());
+	}
+
+	/** @return XML string of doc after a round trip through its XML form */
+	private static String parse(PmmXmlDoc doc) {
+		try {
+			return new PmmXmlDoc(doc.toXmlString()).toXmlString();
+		} catch (IOException | org.jdom2.JDOMException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static PmmXmlDoc createTimeSeries() {
+		PmmXmlDoc doc = new PmmXmlDoc();
+
+		doc.add(new TimeSeriesXml("t0", 0.0, "h", 3.0, "log10(count/g)", 0.1, 2));
+		doc.add(new TimeSeriesXml("t1", 1.5, "h", 4.0, "log10(count/g)", null, null));
+		doc.add(new TimeSeriesXml("", Double.NaN, "h", 5.0, "log10(count/g)", Double.NaN, 1));
+
+		return doc;
+	}
+
+	private static PmmXmlDoc createParams() {
+		PmmXmlDoc doc = new PmmXmlDoc();
+		ParamXml mu = new ParamXml("mu", true, 0.3, 0.01, null, 2.0, 0.001, 30.0, "Rate", "1/h");
+		ParamXml lambda = new ParamXml("lambda", false, Double.NaN);
+
+		mu.correlations.put("mu", 1.0);
+		mu.correlations.put("lambda", 0.5);
+		lambda.description = "";
+
+		doc.add(mu);
+		doc.add(lambda);
+
+		return doc;
+	}
+}
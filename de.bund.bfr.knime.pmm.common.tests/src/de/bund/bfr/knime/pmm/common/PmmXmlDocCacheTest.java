@@ -0,0 +1,91 @@
+package de.bund.bfr.knime.pmm.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SuppressWarnings("static-method")
+public class PmmXmlDocCacheTest {
+
+	private static final String XML = new PmmXmlDoc(new ParamXml("mu", null, 1.0)).toXmlString();
+
+	@Before
+	public void setUp() {
+		PmmXmlDocCache.clear();
+	}
+
+	@Test
+	public void testHitsAndMisses() throws Exception {
+		PmmXmlDocCache.get(XML);
+		PmmXmlDocCache.get(XML);
+		PmmXmlDocCache.get(XML);
+
+		assertEquals(1, PmmXmlDocCache.getMisses());
+		assertEquals(2, PmmXmlDocCache.getHits());
+	}
+
+	@Test
+	public void testCopiesAreIndependent() throws Exception {
+		PmmXmlDoc doc1 = PmmXmlDocCache.get(XML);
+		PmmXmlDoc doc2 = PmmXmlDocCache.get(XML);
+
+		assertNotSame(doc1, doc2);
+		assertNotSame(doc1.get(0), doc2.get(0));
+
+		((ParamXml) doc1.get(0)).value = 2.0;
+		doc1.add(new ParamXml("lambda", null, null));
+
+		PmmXmlDoc doc3 = PmmXmlDocCache.get(XML);
+
+		assertEquals(1, doc3.size());
+		assertEquals(1.0, ((ParamXml) doc3.get(0)).value, 0.0);
+		assertNull(((ParamXml) doc3.get(0)).min);
+	}
+
+	@Test
+	public void testCopyHasSameXml() throws Exception {
+		assertEquals(XML, PmmXmlDocCache.get(XML).toXmlString());
+	}
+
+	@Test
+	public void testChangedElementSetIsNotShared() throws Exception {
+		PmmXmlDoc doc1 = PmmXmlDocCache.get(XML);
+		PmmXmlDoc doc2 = PmmXmlDocCache.get(XML);
+
+		doc1.getElementSet().clear();
+
+		assertEquals(0, doc1.size());
+		assertEquals(1, doc2.size());
+		assertEquals(XML, doc2.toXmlString());
+		assertEquals(XML, PmmXmlDocCache.get(XML).toXmlString());
+	}
+
+	@Test
+	public void testSameHashIsNotMixedUp() throws Exception {
+		String xml1 = new PmmXmlDoc(new ParamXml("Aa", null, 1.0)).toXmlString();
+		String xml2 = new PmmXmlDoc(new ParamXml("BB", null, 1.0)).toXmlString();
+
+		assertEquals(xml1.hashCode(), xml2.hashCode());
+		assertEquals("Aa", ((ParamXml) PmmXmlDocCache.get(xml1).get(0)).name);
+		assertEquals("BB", ((ParamXml) PmmXmlDocCache.get(xml2).get(0)).name);
+		assertEquals("Aa", ((ParamXml) PmmXmlDocCache.get(xml1).get(0)).name);
+		assertEquals(3, PmmXmlDocCache.getMisses());
+	}
+
+	@Test
+	public void testLargeDocumentIsNotCached() throws Exception {
+		char[] name = new char[PmmXmlDocCache.MAX_DOC_CHARS];
+		Arrays.fill(name, 'a');
+		String xml = new PmmXmlDoc(new ParamXml(new String(name), null, 1.0)).toXmlString();
+
+		assertEquals(xml, PmmXmlDocCache.get(xml).toXmlString());
+		assertEquals(xml, PmmXmlDocCache.get(xml).toXmlString());
+		assertEquals(2, PmmXmlDocCache.getMisses());
+		assertEquals(0, PmmXmlDocCache.getHits());
+	}
+}
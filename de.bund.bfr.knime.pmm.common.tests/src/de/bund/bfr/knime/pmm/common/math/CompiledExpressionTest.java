@@ -0,0 +1,100 @@
+package de.bund.bfr.knime.pmm.common.math;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.lsmp.djep.djep.DJep;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+
+@SuppressWarnings("static-method")
+public class CompiledExpressionTest {
+
+	private static final List<String> VARIABLES = Arrays.asList("a", "b", "Time");
+
+	private static final double[][] VALUES = { { 1.0, 2.0, 0.0 }, { 0.5, -3.0, 2.5 }, { 10.0, 0.1, 100.0 } };
+
+	@Test
+	public void testArithmetic() throws ParseException {
+		assertSameAsParser("a+b*Time-a/b");
+		assertSameAsParser("-a^2+Time^b");
+		assertSameAsParser("a+b+Time+1");
+	}
+
+	@Test
+	public void testFunctions() throws ParseException {
+		assertSameAsParser("exp(-a*Time)+ln(abs(b)+1)");
+		assertSameAsParser("log10(a*Time+1)");
+		assertSameAsParser("sqrt(a)*sin(Time)+cos(b)");
+	}
+
+	@Test
+	public void testComparisons() throws ParseException {
+		assertSameAsParser("a+1000000*(b<0)+1000000*(a>5)");
+		assertSameAsParser("(a<=1)&&(b>=0)");
+	}
+
+	@Test
+	public void testDerivatives() throws ParseException {
+		DJep parser = createParser();
+		Node function = parser.parse("a*exp(-b*Time)+log10(Time+1)");
+
+		for (String param : Arrays.asList("a", "b")) {
+			assertSameAsParser(parser, parser.differentiate(function, param));
+		}
+	}
+
+	@Test
+	public void testComplexResultIsNaN() throws ParseException {
+		DJep parser = createParser();
+		CompiledExpression expression = CompiledExpression.compile(parser.parse("sqrt(b)"), VARIABLES);
+
+		assertTrue(Double.isNaN(expression.evaluate(new double[] { 0.0, -1.0, 0.0 }, expression.createStack())));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testUnknownVariable() throws ParseException {
+		DJep parser = createParser();
+		CompiledExpression.compile(parser.parse("a*c"), VARIABLES);
+	}
+
+	private static DJep createParser() {
+		DJep parser = MathUtilities.createParser();
+
+		for (String var : VARIABLES) {
+			parser.addVariable(var, 0.0);
+		}
+
+		return parser;
+	}
+
+	private static void assertSameAsParser(String formula) throws ParseException {
+		DJep parser = createParser();
+
+		assertSameAsParser(parser, parser.parse(formula));
+	}
+
+	private static void assertSameAsParser(DJep parser, Node node) throws ParseException {
+		CompiledExpression expression = CompiledExpression.compile(node, VARIABLES);
+		double[] stack = expression.createStack();
+
+		for (double[] values : VALUES) {
+			for (int i = 0; i < VARIABLES.size(); i++) {
+				parser.setVarValue(VARIABLES.get(i), values[i]);
+			}
+
+			Object expected = parser.evaluate(node);
+			double actual = expression.evaluate(values, stack);
+
+			if (expected instanceof Double) {
+				assertEquals((Double) expected, actual, 1e-12 * Math.max(1.0, Math.abs((Double) expected)));
+			} else {
+				assertTrue(Double.isNaN(actual));
+			}
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package de.bund.bfr.knime.pmm.common.units;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
@@ -32,6 +33,11 @@ public class NoCategoryTest {
 		assertEquals(0.0, noCategory.convert(0.0, "", ""), 0.0);
 	}
 
+	@Test
+	public void testConvertArray() {
+		assertArrayEquals(new double[] { 0.0, 1.5 }, noCategory.convert(new double[] { 0.0, 1.5 }, "", ""), 0.0);
+	}
+
 	@Test
 	public void testGetConversionString() {
 		assertEquals("var", noCategory.getConversionString("var", "", ""));
@@ -0,0 +1,96 @@
+package de.bund.bfr.knime.pmm.common.units;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.function.DoubleUnaryOperator;
+
+import org.junit.Test;
+import org.lsmp.djep.djep.DJep;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+
+import de.bund.bfr.knime.pmm.common.math.MathUtilities;
+
+@SuppressWarnings("static-method")
+public class UnitConversionTest {
+
+	private static final double[] VALUES = { 0.001, 0.5, 1.0, 37.0, 1.0e6 };
+
+	@Test
+	public void testAffine() throws ParseException {
+		assertTrue(compile("x*1000") instanceof UnitConversion);
+		assertTrue(compile("(x-32)*5/9") instanceof UnitConversion);
+		assertTrue(compile("x+273.15") instanceof UnitConversion);
+		assertSameAsParser("x*1000");
+		assertSameAsParser("x/60");
+		assertSameAsParser("(x-32)*5/9");
+		assertSameAsParser("-x+273.15");
+	}
+
+	@Test
+	public void testLogarithmic() throws ParseException {
+		assertTrue(compile("log10(x)") instanceof UnitConversion);
+		assertTrue(compile("10^x") instanceof UnitConversion);
+		assertSameAsParser("log10(x)");
+		assertSameAsParser("ln(x)/ln(10)");
+		assertSameAsParser("10^x");
+		assertSameAsParser("exp(x*ln(10))");
+		assertSameAsParser("log10(x*1000)+2");
+	}
+
+	@Test
+	public void testCompiled() throws ParseException {
+		assertSameAsParser("x^2");
+		assertSameAsParser("sqrt(x)*2");
+		assertSameAsParser("log10(x)*log10(x)");
+	}
+
+	@Test
+	public void testCompose() throws ParseException {
+		DoubleUnaryOperator first = compile("x*60");
+		DoubleUnaryOperator second = compile("x/3600");
+		DoubleUnaryOperator composed = UnitConversion.compose(first, second);
+
+		assertTrue(composed instanceof UnitConversion);
+
+		for (double value : VALUES) {
+			assertEquals(second.applyAsDouble(first.applyAsDouble(value)), composed.applyAsDouble(value),
+					1e-12 * Math.abs(value));
+		}
+
+		DoubleUnaryOperator log = UnitConversion.compose(first, compile("log10(x)"));
+
+		for (double value : VALUES) {
+			assertEquals(Math.log10(value * 60), log.applyAsDouble(value), 1e-12);
+		}
+	}
+
+	private static DoubleUnaryOperator compile(String formula) throws ParseException {
+		DJep parser = createParser();
+
+		return UnitConversion.compile(parser.parse(formula), parser);
+	}
+
+	private static DJep createParser() {
+		DJep parser = MathUtilities.createParser();
+
+		parser.addVariable("x", 0.0);
+
+		return parser;
+	}
+
+	private static void assertSameAsParser(String formula) throws ParseException {
+		DJep parser = createParser();
+		Node node = parser.parse(formula);
+		DoubleUnaryOperator conversion = UnitConversion.compile(node, parser);
+
+		for (double value : VALUES) {
+			parser.setVarValue("x", value);
+
+			double expected = (Double) parser.evaluate(node);
+
+			assertEquals(expected, conversion.applyAsDouble(value), 1e-12 * Math.max(1.0, Math.abs(expected)));
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package org.hsh.bfr.db;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("static-method")
+public class FuzzyDuplicateFinderTest {
+
+	@Test
+	public void testFind() {
+		FuzzyDuplicateFinder finder = new FuzzyDuplicateFinder(new int[] { 2, 0 }, false);
+		finder.add(1, new Object[] { "Meier", 10115 });
+		finder.add(2, new Object[] { "meyer", 10115 });
+		finder.add(3, new Object[] { "Meier", 10117 });
+		finder.add(4, new Object[] { "Schulze", 10115 });
+
+		Map<Integer, List<Integer>> expected = new LinkedHashMap<>();
+		expected.put(1, Arrays.asList(2));
+		assertEquals(expected, finder.find());
+	}
+
+	@Test
+	public void testFind_nullValues() {
+		FuzzyDuplicateFinder finder = new FuzzyDuplicateFinder(new int[] { 1 }, false);
+		finder.add(1, new Object[] { null });
+		finder.add(2, new Object[] { null });
+		finder.add(3, new Object[] { "" });
+
+		// null only matches null
+		Map<Integer, List<Integer>> expected = new LinkedHashMap<>();
+		expected.put(1, Arrays.asList(2));
+		assertEquals(expected, finder.find());
+	}
+
+	@Test
+	public void testFind_gentle() {
+		FuzzyDuplicateFinder finder = new FuzzyDuplicateFinder(new int[] { 0, 0 }, true);
+		finder.add(1, new Object[] { "A", null });
+		finder.add(2, new Object[] { "A", "B" });
+		finder.add(3, new Object[] { "A", "C" });
+
+		// only nulls of the row with the lower ID are ignored
+		Map<Integer, List<Integer>> expected = new LinkedHashMap<>();
+		expected.put(1, Arrays.asList(2, 3));
+		assertEquals(expected, finder.find());
+	}
+
+	@Test
+	public void testFind_noRows() {
+		assertTrue(new FuzzyDuplicateFinder(new int[] { 1 }, false).find().isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAdd_wrongNumberOfValues() {
+		new FuzzyDuplicateFinder(new int[] { 1, 1 }, false).add(1, new Object[] { "A" });
+	}
+
+	@Test
+	public void testFind_sameAsPairwiseCheck() {
+		Random random = new Random(42);
+		int[][] maxScoresList = { { 0, 1, 2 }, { 1, 100000, 0 }, { 3, 2, 1 }, { 100000, 100000, 100000 } };
+
+		for (int[] maxScores : maxScoresList) {
+			for (boolean gentle : new boolean[] { false, true }) {
+				List<Object[]> rows = new ArrayList<>();
+				for (int id = 0; id < 200; id++) {
+					rows.add(new Object[] { randomValue(random), randomValue(random), randomValue(random) });
+				}
+
+				FuzzyDuplicateFinder finder = new FuzzyDuplicateFinder(maxScores, gentle);
+				for (int id = 0; id < rows.size(); id++) {
+					finder.add(id, rows.get(id));
+				}
+
+				assertEquals(findPairwise(rows, maxScores, gentle), finder.find());
+			}
+		}
+	}
+
+	private static String randomValue(Random random) {
+		if (random.nextInt(10) == 0) {
+			return null;
+		}
+		char[] chars = new char[random.nextInt(4)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(3));
+		}
+		return new String(chars);
+	}
+
+	/** Duplicates as found by the LD query of the ISM check, with the ID as index of the row. */
+	private static Map<Integer, List<Integer>> findPairwise(List<Object[]> rows, int[] maxScores, boolean gentle) {
+		Map<Integer, List<Integer>> duplicates = new LinkedHashMap<>();
+		for (int id = 0; id < rows.size(); id++) {
+			List<Integer> others = new ArrayList<>();
+			for (int other = id + 1; other < rows.size(); other++) {
+				boolean duplicate = true;
+				for (int i = 0; i < maxScores.length && duplicate; i++) {
+					Object value = rows.get(id)[i];
+					Object otherValue = rows.get(other)[i];
+					if (gentle && value == null) {
+						continue;
+					}
+					duplicate = Levenshtein.LD(value == null ? null : value.toString().toUpperCase(),
+							otherValue == null ? null : otherValue.toString().toUpperCase()) <= maxScores[i];
+				}
+				if (duplicate) {
+					others.add(other);
+				}
+			}
+			if (!others.isEmpty()) {
+				duplicates.put(id, others);
+			}
+		}
+		return duplicates;
+	}
+}
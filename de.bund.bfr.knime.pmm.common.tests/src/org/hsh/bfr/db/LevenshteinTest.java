@@ -0,0 +1,86 @@
+package org.hsh.bfr.db;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+@SuppressWarnings("static-method")
+public class LevenshteinTest {
+
+	@Test
+	public void testLD() {
+		assertEquals(0, Levenshtein.LD(null, null));
+		assertEquals(100000, Levenshtein.LD(null, ""));
+		assertEquals(100000, Levenshtein.LD("abc", null));
+
+		assertEquals(0, Levenshtein.LD("", ""));
+		assertEquals(3, Levenshtein.LD("kitten", "sitting"));
+		assertEquals(3, Levenshtein.LD("sitting", "kitten"));
+	}
+
+	@Test
+	public void testDistance_emptyStrings() {
+		assertEquals(0, Levenshtein.distance("", "", 0));
+		assertEquals(3, Levenshtein.distance("", "abc", 3));
+		assertEquals(3, Levenshtein.distance("abc", "", 3));
+
+		// Exceeded maximum
+		assertEquals(3, Levenshtein.distance("", "abc", 2));
+		assertEquals(1, Levenshtein.distance("abc", "", 0));
+	}
+
+	@Test
+	public void testDistance_bounds() {
+		// Distance within the maximum
+		assertEquals(3, Levenshtein.distance("kitten", "sitting", 3));
+		assertEquals(3, Levenshtein.distance("kitten", "sitting", Integer.MAX_VALUE));
+
+		// Exceeded maximum returns max + 1
+		assertEquals(3, Levenshtein.distance("kitten", "sitting", 2));
+		assertEquals(1, Levenshtein.distance("kitten", "sitting", 0));
+		assertEquals(0, Levenshtein.distance("kitten", "kitten", 0));
+	}
+
+	@Test
+	public void testDistance_sameAsFullMatrix() {
+		Random random = new Random(42);
+		for (int n = 0; n < 1000; n++) {
+			String s = randomString(random);
+			String t = randomString(random);
+			int expected = fullDistance(s, t);
+
+			assertEquals(s + "/" + t, expected, Levenshtein.LD(s, t));
+			for (int max = 0; max < 8; max++) {
+				assertEquals(s + "/" + t, Math.min(expected, max + 1), Levenshtein.distance(s, t, max));
+			}
+		}
+	}
+
+	private static String randomString(Random random) {
+		char[] chars = new char[random.nextInt(8)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = (char) ('a' + random.nextInt(3));
+		}
+		return new String(chars);
+	}
+
+	/** Levenshtein distance with the full matrix, as computed by LD before. */
+	private static int fullDistance(String s, String t) {
+		int[][] d = new int[s.length() + 1][t.length() + 1];
+		for (int i = 0; i <= s.length(); i++) {
+			d[i][0] = i;
+		}
+		for (int j = 0; j <= t.length(); j++) {
+			d[0][j] = j;
+		}
+		for (int i = 1; i <= s.length(); i++) {
+			for (int j = 1; j <= t.length(); j++) {
+				int cost = s.charAt(i - 1) == t.charAt(j - 1) ? 0 : 1;
+				d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+			}
+		}
+		return d[s.length()][t.length()];
+	}
+}
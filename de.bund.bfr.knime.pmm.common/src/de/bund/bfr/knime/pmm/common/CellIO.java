@@ -91,8 +91,11 @@ public class CellIO {
 		if (((DataCell) cell).isMissing())
 			return new PmmXmlDoc();
 
+		if (cell instanceof PmmXmlCell)
+			return ((PmmXmlCell) cell).getPmmXmlDoc();
+
 		try {
-			return new PmmXmlDoc(((StringValue) cell).getStringValue());
+			return PmmXmlDocCache.get(((StringValue) cell).getStringValue());
 		} catch (Exception e) {
 			return new PmmXmlDoc();
 		}
@@ -193,9 +196,18 @@ public class CellIO {
 		return DataType.getMissingCell();
 	}
 
-	/** @return null if xmlDoc is null or XMLCell. */
+	/**
+	 * @return null if xmlDoc is null, {@link PmmXmlCell} for time series and
+	 *         parameters, or XMLCell.
+	 */
 	public static DataCell createXmlCell(PmmXmlDoc xmlDoc) {
-		return xmlDoc == null ? null : XMLCellFactory.create(xmlDoc.getW3C());
+		if (xmlDoc == null) {
+			return null;
+		}
+
+		DataCell cell = PmmXmlCell.create(xmlDoc);
+
+		return cell != null ? cell : XMLCellFactory.create(xmlDoc.getW3C());
 	}
 
 	/** @return null if xmlDoc is null or XMLCell. */
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+
+/**
+ * Binary cell for a {@link PmmXmlDoc} of {@link ParamXml}s. Each parameter is
+ * stored as one binary record and the records are only decoded in
+ * {@link #getPmmXmlDoc()}.
+ */
+public final class ParamCell extends PmmXmlCell {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final DataType TYPE = DataType.getType(ParamCell.class);
+
+	private final byte[] records;
+
+	/**
+	 * @param xmlDoc
+	 *            {@link PmmXmlDoc} that contains only {@link ParamXml}s
+	 */
+	public ParamCell(PmmXmlDoc xmlDoc) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeInt(xmlDoc.size());
+
+			for (PmmXmlElementConvertable el : xmlDoc.getElementSet()) {
+				writeParam(output, (ParamXml) el);
+			}
+		} catch (IOException e) {
+			// cannot happen with a ByteArrayOutputStream
+			throw new UncheckedIOException(e);
+		}
+
+		records = bytes.toByteArray();
+	}
+
+	private ParamCell(byte[] records) {
+		this.records = records;
+	}
+
+	@Override
+	public PmmXmlDoc getPmmXmlDoc() {
+		PmmXmlDoc xmlDoc = new PmmXmlDoc();
+
+		try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(records))) {
+			int n = input.readInt();
+
+			for (int i = 0; i < n; i++) {
+				xmlDoc.add(readParam(input));
+			}
+		} catch (IOException e) {
+			// records are always complete
+			throw new UncheckedIOException(e);
+		}
+
+		return xmlDoc;
+	}
+
+	@Override
+	protected boolean equalsDataCell(DataCell dc) {
+		return Arrays.equals(records, ((ParamCell) dc).records);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(records);
+	}
+
+	private static void writeParam(DataOutput output, ParamXml param) throws IOException {
+		writeString(output, normalize(param.name));
+		writeString(output, normalize(param.origName));
+		output.writeBoolean(param.isStartParam != null && param.isStartParam);
+		writeDouble(output, param.value);
+		writeDouble(output, param.error);
+		writeDouble(output, param.min);
+		writeDouble(output, param.max);
+		writeDouble(output, param.P);
+		writeDouble(output, param.t);
+		writeDouble(output, param.minGuess);
+		writeDouble(output, param.maxGuess);
+		writeString(output, normalize(param.category));
+		writeString(output, normalize(param.unit));
+		writeString(output, normalize(param.description));
+
+		if (param.correlations != null) {
+			output.writeInt(param.correlations.size());
+
+			for (Map.Entry<String, Double> entry : param.correlations.entrySet()) {
+				writeString(output, entry.getKey());
+				writeDouble(output, entry.getValue());
+			}
+		} else {
+			output.writeInt(0);
+		}
+	}
+
+	private static ParamXml readParam(DataInput input) throws IOException {
+		String name = readString(input);
+		String origName = readString(input);
+		boolean isStartParam = input.readBoolean();
+		Double value = readDouble(input);
+		Double error = readDouble(input);
+		Double min = readDouble(input);
+		Double max = readDouble(input);
+		Double p = readDouble(input);
+		Double t = readDouble(input);
+		Double minGuess = readDouble(input);
+		Double maxGuess = readDouble(input);
+		String category = readString(input);
+		String unit = readString(input);
+		String description = readString(input);
+		int n = input.readInt();
+		HashMap<String, Double> correlations = new HashMap<>();
+
+		for (int i = 0; i < n; i++) {
+			String key = readString(input);
+
+			correlations.put(key, readDouble(input));
+		}
+
+		return new ParamXml(name, origName, isStartParam, value, error, min, max, p, t, minGuess, maxGuess, category,
+				unit, description, correlations);
+	}
+
+	private static void writeDouble(DataOutput output, Double value) throws IOException {
+		Double d = normalize(value);
+
+		output.writeBoolean(d != null);
+
+		if (d != null) {
+			output.writeDouble(d);
+		}
+	}
+
+	private static Double readDouble(DataInput input) throws IOException {
+		return input.readBoolean() ? input.readDouble() : null;
+	}
+
+	void write(DataOutput output) throws IOException {
+		output.writeInt(records.length);
+		output.write(records);
+	}
+
+	static ParamCell read(DataInput input) throws IOException {
+		byte[] records = new byte[input.readInt()];
+
+		input.readFully(records);
+
+		return new ParamCell(records);
+	}
+
+	/** Serializer of {@link ParamCell}s. */
+	public static final class ParamCellSerializer implements DataCellSerializer<ParamCell> {
+
+		@Override
+		public void serialize(ParamCell cell, DataCellDataOutput output) throws IOException {
+			cell.write(output);
+		}
+
+		@Override
+		public ParamCell deserialize(DataCellDataInput input) throws IOException {
+			return read(input);
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.xml.XMLValue;
+import org.w3c.dom.Document;
+
+/**
+ * Base class of the binary cells for {@link PmmXmlDoc}s. The cells implement
+ * {@link XMLValue} and {@link StringValue}, so that they can be stored in the
+ * XML columns of the PMM schemas and are read like XML cells by nodes that do
+ * not know them. {@link CellIO#getPmmXml(DataCell)} converts them directly
+ * without creating and parsing the XML string.
+ */
+public abstract class PmmXmlCell extends DataCell implements XMLValue<Document>, StringValue {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @return a {@link TimeSeriesCell} if xmlDoc only contains
+	 *         {@link TimeSeriesXml}s, a {@link ParamCell} if xmlDoc only contains
+	 *         {@link ParamXml}s and null otherwise.
+	 */
+	public static PmmXmlCell create(PmmXmlDoc xmlDoc) {
+		if (xmlDoc.size() == 0) {
+			return null;
+		}
+
+		boolean timeSeries = true;
+		boolean params = true;
+
+		for (PmmXmlElementConvertable el : xmlDoc.getElementSet()) {
+			timeSeries &= el.getClass() == TimeSeriesXml.class;
+			params &= el.getClass() == ParamXml.class;
+		}
+
+		if (timeSeries) {
+			return new TimeSeriesCell(xmlDoc);
+		} else if (params) {
+			return new ParamCell(xmlDoc);
+		}
+
+		return null;
+	}
+
+	/** @return a new {@link PmmXmlDoc} with the content of this cell */
+	public abstract PmmXmlDoc getPmmXmlDoc();
+
+	@Override
+	public String getStringValue() {
+		return getPmmXmlDoc().toXmlString();
+	}
+
+	@Override
+	public Document getDocument() {
+		return getPmmXmlDoc().getW3C();
+	}
+
+	@Override
+	public String toString() {
+		return getStringValue();
+	}
+
+	/**
+	 * Doubles are stored like in the XML form, where NaN is written as an empty
+	 * attribute and read back as null.
+	 */
+	static Double normalize(Double d) {
+		return d == null || d.isNaN() ? null : d;
+	}
+
+	/** Empty strings are read back as null from the XML form. */
+	static String normalize(String s) {
+		return s == null || s.isEmpty() ? null : s;
+	}
+
+	static void writeString(DataOutput output, String s) throws IOException {
+		if (s == null) {
+			output.writeInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	static String readString(DataInput input) throws IOException {
+		int length = input.readInt();
+
+		if (length < 0) {
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+
+		input.readFully(bytes);
+
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
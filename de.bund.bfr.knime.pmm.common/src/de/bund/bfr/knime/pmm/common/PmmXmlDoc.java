@@ -38,6 +38,12 @@ public class PmmXmlDoc {
 	private List<PmmXmlElementConvertable> elementSet;
 	private String warning = "";
 
+	/**
+	 * Document whose elements are used until they are accessed, see
+	 * {@link #copyOnWrite()}. Null if this document has its own elements.
+	 */
+	private PmmXmlDoc source;
+
 	public PmmXmlDoc() {
 		elementSet = new ArrayList<>();
 	}
@@ -142,11 +148,11 @@ public class PmmXmlDoc {
 	}
 
 	public void add(PmmXmlElementConvertable el) {
-		elementSet.add(el);
+		elements().add(el);
 	}
 
 	public void remove(PmmXmlElementConvertable el) {
-		elementSet.remove(el);
+		elements().remove(el);
 	}
 
 	public org.w3c.dom.Document getW3C() {
@@ -164,7 +170,7 @@ public class PmmXmlDoc {
 		Element rootElement = new Element(ELEMENT_PMMDOC);
 		doc.setRootElement(rootElement);
 
-		for (PmmXmlElementConvertable element : elementSet) {
+		for (PmmXmlElementConvertable element : source != null ? source.elementSet : elementSet) {
 			rootElement.addContent(element.toXmlElement());
 		}
 		return doc;
@@ -177,21 +183,63 @@ public class PmmXmlDoc {
 	}
 
 	public int size() {
-		return elementSet.size();
+		return source != null ? source.size() : elementSet.size();
 	}
 
 	public PmmXmlElementConvertable get(int i) {
-		if (elementSet.size() > 0)
-			return elementSet.get(i);
+		if (size() > 0)
+			return elements().get(i);
 		else
 			return null;
 	}
 
 	public void set(int i, PmmXmlElementConvertable el) {
-		elementSet.set(i, el);
+		elements().set(i, el);
 	}
 
 	public List<PmmXmlElementConvertable> getElementSet() {
+		return elements();
+	}
+
+	/**
+	 * @return deep copy of this document, created from the XML elements of
+	 *         this document without parsing its XML string
+	 */
+	public PmmXmlDoc copy() {
+		PmmXmlDoc doc = new PmmXmlDoc();
+
+		doc.parseElement(toXmlDocument().getRootElement());
+		doc.warning = warning;
+
+		return doc;
+	}
+
+	/**
+	 * The copy shares the elements of this document until one of them is
+	 * accessed or the document is changed. Only then the elements are copied
+	 * like in {@link #copy()}, so documents that are only written out again
+	 * are never copied. This document must not be changed afterwards.
+	 * 
+	 * @return copy of this document that copies its elements on first access
+	 */
+	PmmXmlDoc copyOnWrite() {
+		PmmXmlDoc doc = new PmmXmlDoc();
+
+		doc.source = source != null ? source : this;
+		doc.warning = warning;
+
+		return doc;
+	}
+
+	/** @return own elements of this document, copied first if needed */
+	private List<PmmXmlElementConvertable> elements() {
+		if (source != null) {
+			Element rootElement = source.toXmlDocument().getRootElement();
+
+			source = null;
+			parseElement(rootElement);
+		}
+
 		return elementSet;
 	}
 
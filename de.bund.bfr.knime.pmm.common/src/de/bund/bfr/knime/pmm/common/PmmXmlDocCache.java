@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jdom2.JDOMException;
+
+/**
+ * Bounded cache of parsed {@link PmmXmlDoc}s, keyed by the hash of their XML
+ * string. The XML string is compared on a hit, so documents with the same hash
+ * are never mixed up. The cache holds at most {@link #MAX_CHARS} characters of
+ * XML, and documents longer than {@link #MAX_DOC_CHARS} are not cached at all.
+ * The cached documents are never handed out. Each call of {@link #get(String)}
+ * returns a {@link PmmXmlDoc#copyOnWrite() copy on write}, so callers can
+ * modify the result like a freshly parsed document, while documents that are
+ * only counted or written out again are not copied at all.
+ */
+public final class PmmXmlDocCache {
+
+	static final long MAX_CHARS = 1 << 24;
+
+	static final int MAX_DOC_CHARS = (int) (MAX_CHARS / 16);
+
+	private static final Map<Integer, Entry> CACHE = new LinkedHashMap<>(16,
+			0.75f, true);
+
+	private static long chars = 0;
+
+	private static final AtomicLong HITS = new AtomicLong();
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private PmmXmlDocCache() {
+	}
+
+	/**
+	 * @param xmlString
+	 *            XML string of a {@link PmmXmlDoc}
+	 * @return a new copy on write of the parsed document
+	 * @throws IOException
+	 *             if xmlString cannot be read
+	 * @throws JDOMException
+	 *             if xmlString is not well-formed
+	 */
+	public static PmmXmlDoc get(String xmlString) throws IOException,
+			JDOMException {
+		if (xmlString.length() > MAX_DOC_CHARS) {
+			MISSES.incrementAndGet();
+			return new PmmXmlDoc(xmlString);
+		}
+
+		Integer hash = xmlString.hashCode();
+		Entry entry;
+
+		synchronized (CACHE) {
+			entry = CACHE.get(hash);
+		}
+
+		if (entry != null && entry.xmlString.equals(xmlString)) {
+			HITS.incrementAndGet();
+			return entry.doc.copyOnWrite();
+		}
+
+		MISSES.incrementAndGet();
+		entry = new Entry(xmlString, new PmmXmlDoc(xmlString));
+
+		synchronized (CACHE) {
+			Entry previous = CACHE.put(hash, entry);
+
+			if (previous != null) {
+				chars -= previous.xmlString.length();
+			}
+
+			chars += xmlString.length();
+
+			// evict least recently used documents
+			Iterator<Entry> iterator = CACHE.values().iterator();
+
+			while (chars > MAX_CHARS) {
+				chars -= iterator.next().xmlString.length();
+				iterator.remove();
+			}
+		}
+
+		return entry.doc.copyOnWrite();
+	}
+
+	public static long getHits() {
+		return HITS.get();
+	}
+
+	public static long getMisses() {
+		return MISSES.get();
+	}
+
+	public static void clear() {
+		synchronized (CACHE) {
+			CACHE.clear();
+			chars = 0;
+		}
+
+		HITS.set(0);
+		MISSES.set(0);
+	}
+
+	private static class Entry {
+
+		private final String xmlString;
+		private final PmmXmlDoc doc;
+
+		private Entry(String xmlString, PmmXmlDoc doc) {
+			this.xmlString = xmlString;
+			this.doc = doc;
+		}
+	}
+}
@@ -0,0 +1,378 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataCellDataInput;
+import org.knime.core.data.DataCellDataOutput;
+import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.DataType;
+
+/**
+ * Binary cell for a {@link PmmXmlDoc} of {@link TimeSeriesXml}s. Times,
+ * concentrations and standard deviations are kept in primitive double columns
+ * and the units and names, which usually do not change within one series, are
+ * dictionary encoded.
+ */
+public final class TimeSeriesCell extends PmmXmlCell {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final DataType TYPE = DataType.getType(TimeSeriesCell.class);
+
+	private final int size;
+
+	private final double[] time;
+	private final double[] concentration;
+	private final double[] concentrationStdDev;
+	private final int[] numberOfMeasurements;
+	private final BitSet missingTime;
+	private final BitSet missingConcentration;
+	private final BitSet missingConcentrationStdDev;
+	private final BitSet missingNumberOfMeasurements;
+
+	private final StringColumn name;
+	private final StringColumn timeUnit;
+	private final StringColumn origTimeUnit;
+	private final StringColumn concentrationUnit;
+	private final StringColumn concentrationUnitObjectType;
+	private final StringColumn origConcentrationUnit;
+
+	/**
+	 * @param xmlDoc
+	 *            {@link PmmXmlDoc} that contains only {@link TimeSeriesXml}s
+	 */
+	public TimeSeriesCell(PmmXmlDoc xmlDoc) {
+		size = xmlDoc.size();
+		time = new double[size];
+		concentration = new double[size];
+		concentrationStdDev = new double[size];
+		numberOfMeasurements = new int[size];
+		missingTime = new BitSet(size);
+		missingConcentration = new BitSet(size);
+		missingConcentrationStdDev = new BitSet(size);
+		missingNumberOfMeasurements = new BitSet(size);
+
+		StringColumn.Builder nameBuilder = new StringColumn.Builder(size);
+		StringColumn.Builder timeUnitBuilder = new StringColumn.Builder(size);
+		StringColumn.Builder origTimeUnitBuilder = new StringColumn.Builder(size);
+		StringColumn.Builder concentrationUnitBuilder = new StringColumn.Builder(size);
+		StringColumn.Builder concentrationUnitObjectTypeBuilder = new StringColumn.Builder(size);
+		StringColumn.Builder origConcentrationUnitBuilder = new StringColumn.Builder(size);
+
+		for (int i = 0; i < size; i++) {
+			TimeSeriesXml element = (TimeSeriesXml) xmlDoc.get(i);
+
+			setDouble(time, missingTime, i, element.time);
+			setDouble(concentration, missingConcentration, i, element.concentration);
+			setDouble(concentrationStdDev, missingConcentrationStdDev, i, element.concentrationStdDev);
+
+			if (element.numberOfMeasurements != null) {
+				numberOfMeasurements[i] = element.numberOfMeasurements;
+			} else {
+				missingNumberOfMeasurements.set(i);
+			}
+
+			nameBuilder.add(element.name);
+			timeUnitBuilder.add(element.timeUnit);
+			origTimeUnitBuilder.add(element.origTimeUnit);
+			concentrationUnitBuilder.add(element.concentrationUnit);
+			concentrationUnitObjectTypeBuilder.add(element.concentrationUnitObjectType);
+			origConcentrationUnitBuilder.add(element.origConcentrationUnit);
+		}
+
+		name = nameBuilder.build();
+		timeUnit = timeUnitBuilder.build();
+		origTimeUnit = origTimeUnitBuilder.build();
+		concentrationUnit = concentrationUnitBuilder.build();
+		concentrationUnitObjectType = concentrationUnitObjectTypeBuilder.build();
+		origConcentrationUnit = origConcentrationUnitBuilder.build();
+	}
+
+	private TimeSeriesCell(DataInput input) throws IOException {
+		size = input.readInt();
+		time = readDoubles(input, size);
+		missingTime = readBitSet(input);
+		concentration = readDoubles(input, size);
+		missingConcentration = readBitSet(input);
+		concentrationStdDev = readDoubles(input, size);
+		missingConcentrationStdDev = readBitSet(input);
+		numberOfMeasurements = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			numberOfMeasurements[i] = input.readInt();
+		}
+
+		missingNumberOfMeasurements = readBitSet(input);
+		name = StringColumn.read(input, size);
+		timeUnit = StringColumn.read(input, size);
+		origTimeUnit = StringColumn.read(input, size);
+		concentrationUnit = StringColumn.read(input, size);
+		concentrationUnitObjectType = StringColumn.read(input, size);
+		origConcentrationUnit = StringColumn.read(input, size);
+	}
+
+	/** @return number of points in the time series */
+	public int size() {
+		return size;
+	}
+
+	/** @return copy of the times. Missing values are NaN. */
+	public double[] getTimes() {
+		return time.clone();
+	}
+
+	/** @return copy of the concentrations. Missing values are NaN. */
+	public double[] getConcentrations() {
+		return concentration.clone();
+	}
+
+	@Override
+	public PmmXmlDoc getPmmXmlDoc() {
+		PmmXmlDoc xmlDoc = new PmmXmlDoc();
+
+		for (int i = 0; i < size; i++) {
+			xmlDoc.add(new TimeSeriesXml(name.get(i), getDouble(time, missingTime, i), timeUnit.get(i),
+					origTimeUnit.get(i), getDouble(concentration, missingConcentration, i), concentrationUnit.get(i),
+					concentrationUnitObjectType.get(i), origConcentrationUnit.get(i),
+					getDouble(concentrationStdDev, missingConcentrationStdDev, i),
+					missingNumberOfMeasurements.get(i) ? null : numberOfMeasurements[i]));
+		}
+
+		return xmlDoc;
+	}
+
+	@Override
+	protected boolean equalsDataCell(DataCell dc) {
+		TimeSeriesCell other = (TimeSeriesCell) dc;
+
+		return size == other.size && Arrays.equals(time, other.time)
+				&& Arrays.equals(concentration, other.concentration)
+				&& Arrays.equals(concentrationStdDev, other.concentrationStdDev)
+				&& Arrays.equals(numberOfMeasurements, other.numberOfMeasurements)
+				&& missingTime.equals(other.missingTime) && missingConcentration.equals(other.missingConcentration)
+				&& missingConcentrationStdDev.equals(other.missingConcentrationStdDev)
+				&& missingNumberOfMeasurements.equals(other.missingNumberOfMeasurements) && name.equals(other.name)
+				&& timeUnit.equals(other.timeUnit) && origTimeUnit.equals(other.origTimeUnit)
+				&& concentrationUnit.equals(other.concentrationUnit)
+				&& concentrationUnitObjectType.equals(other.concentrationUnitObjectType)
+				&& origConcentrationUnit.equals(other.origConcentrationUnit);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(size, Arrays.hashCode(time), Arrays.hashCode(concentration), name);
+	}
+
+	void write(DataOutput output) throws IOException {
+		output.writeInt(size);
+		writeDoubles(output, time);
+		writeBitSet(output, missingTime);
+		writeDoubles(output, concentration);
+		writeBitSet(output, missingConcentration);
+		writeDoubles(output, concentrationStdDev);
+		writeBitSet(output, missingConcentrationStdDev);
+
+		for (int n : numberOfMeasurements) {
+			output.writeInt(n);
+		}
+
+		writeBitSet(output, missingNumberOfMeasurements);
+		name.write(output);
+		timeUnit.write(output);
+		origTimeUnit.write(output);
+		concentrationUnit.write(output);
+		concentrationUnitObjectType.write(output);
+		origConcentrationUnit.write(output);
+	}
+
+	static TimeSeriesCell read(DataInput input) throws IOException {
+		return new TimeSeriesCell(input);
+	}
+
+	private static void setDouble(double[] values, BitSet missing, int i, Double value) {
+		Double d = normalize(value);
+
+		if (d != null) {
+			values[i] = d;
+		} else {
+			values[i] = Double.NaN;
+			missing.set(i);
+		}
+	}
+
+	private static Double getDouble(double[] values, BitSet missing, int i) {
+		return missing.get(i) ? null : values[i];
+	}
+
+	private static void writeDoubles(DataOutput output, double[] values) throws IOException {
+		for (double d : values) {
+			output.writeDouble(d);
+		}
+	}
+
+	private static double[] readDoubles(DataInput input, int n) throws IOException {
+		double[] values = new double[n];
+
+		for (int i = 0; i < n; i++) {
+			values[i] = input.readDouble();
+		}
+
+		return values;
+	}
+
+	private static void writeBitSet(DataOutput output, BitSet bits) throws IOException {
+		long[] words = bits.toLongArray();
+
+		output.writeInt(words.length);
+
+		for (long word : words) {
+			output.writeLong(word);
+		}
+	}
+
+	private static BitSet readBitSet(DataInput input) throws IOException {
+		long[] words = new long[input.readInt()];
+
+		for (int i = 0; i < words.length; i++) {
+			words[i] = input.readLong();
+		}
+
+		return BitSet.valueOf(words);
+	}
+
+	/** Dictionary encoded string column. Index -1 stands for null. */
+	private static final class StringColumn implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] dictionary;
+		private final int[] indices;
+
+		private StringColumn(String[] dictionary, int[] indices) {
+			this.dictionary = dictionary;
+			this.indices = indices;
+		}
+
+		public String get(int i) {
+			return indices[i] >= 0 ? dictionary[indices[i]] : null;
+		}
+
+		public void write(DataOutput output) throws IOException {
+			output.writeInt(dictionary.length);
+
+			for (String s : dictionary) {
+				writeString(output, s);
+			}
+
+			for (int index : indices) {
+				output.writeInt(index);
+			}
+		}
+
+		public static StringColumn read(DataInput input, int n) throws IOException {
+			String[] dictionary = new String[input.readInt()];
+			int[] indices = new int[n];
+
+			for (int i = 0; i < dictionary.length; i++) {
+				dictionary[i] = readString(input);
+			}
+
+			for (int i = 0; i < n; i++) {
+				indices[i] = input.readInt();
+			}
+
+			return new StringColumn(dictionary, indices);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof StringColumn)) {
+				return false;
+			}
+
+			StringColumn other = (StringColumn) obj;
+
+			return Arrays.equals(dictionary, other.dictionary) && Arrays.equals(indices, other.indices);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(dictionary) + Arrays.hashCode(indices);
+		}
+
+		private static final class Builder {
+
+			private final Map<String, Integer> dictionary = new LinkedHashMap<>();
+			private final int[] indices;
+			private int size;
+
+			public Builder(int n) {
+				indices = new int[n];
+				size = 0;
+			}
+
+			public void add(String value) {
+				String s = normalize(value);
+
+				if (s == null) {
+					indices[size++] = -1;
+				} else {
+					Integer index = dictionary.get(s);
+
+					if (index == null) {
+						index = dictionary.size();
+						dictionary.put(s, index);
+					}
+
+					indices[size++] = index;
+				}
+			}
+
+			public StringColumn build() {
+				return new StringColumn(dictionary.keySet().toArray(new String[0]), indices);
+			}
+		}
+	}
+
+	/** Serializer of {@link TimeSeriesCell}s. */
+	public static final class TimeSeriesCellSerializer implements DataCellSerializer<TimeSeriesCell> {
+
+		@Override
+		public void serialize(TimeSeriesCell cell, DataCellDataOutput output) throws IOException {
+			cell.write(output);
+		}
+
+		@Override
+		public TimeSeriesCell deserialize(DataCellDataInput input) throws IOException {
+			return read(input);
+		}
+	}
+}
@@ -20,25 +20,13 @@
 package de.bund.bfr.knime.pmm.common;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-
-import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellValue;
-import org.apache.poi.ss.usermodel.FormulaEvaluator;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.ss.usermodel.WorkbookFactory;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.ListMultimap;
@@ -59,309 +47,319 @@ public class XLSReader {
 	public static String CONCENTRATION_STDDEV_COLUMN = "Value StdDev";
 	public static String CONCENTRATION_MEASURE_NUMBER = "Value Measurements";
 
+	private static final int SHEET_INDEX_CACHE_SIZE = 16;
+
+	private static final Map<String, SheetIndex> SHEET_INDEX_CACHE = new LinkedHashMap<String, SheetIndex>(16,
+			0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, SheetIndex> eldest) {
+			return size() > SHEET_INDEX_CACHE_SIZE;
+		}
+	};
+
 	private List<String> warnings;
-	private FormulaEvaluator evaluator;
 
 	public XLSReader() {
 		warnings = new ArrayList<>();
-		evaluator = null;
 	}
 
 	public Map<String, KnimeTuple> getTimeSeriesTuples(File file, String sheet, Map<String, Object> columnMappings,
 			String timeUnit, String concentrationUnit, String agentColumnName, Map<String, AgentXml> agentMappings,
 			String matrixColumnName, Map<String, MatrixXml> matrixMappings, boolean preserveIds, List<Integer> usedIds)
 					throws Exception {
-		Workbook wb = getWorkbook(file);
-		Sheet s = wb.getSheet(sheet);
-
 		warnings.clear();
-		evaluator = wb.getCreationHelper().createFormulaEvaluator();
-
-		if (s == null) {
-			throw new Exception("Sheet not found");
-		}
-
-		Map<String, KnimeTuple> tuples = new LinkedHashMap<>();
-		Map<String, Integer> columns = getColumns(s);
-		Map<String, Integer> miscColumns = new LinkedHashMap<>();
-		Integer idColumn = null;
-		Integer commentColumn = null;
-		Integer timeColumn = null;
-		Integer logcColumn = null;
-		Integer stdDevColumn = null;
-		Integer nMeasureColumn = null;
-		Integer agentDetailsColumn = null;
-		Integer matrixDetailsColumn = null;
-		Integer agentColumn = null;
-		Integer matrixColumn = null;
-		String timeColumnName = null;
-		String logcColumnName = null;
-		String stdDevColumnName = null;
-		String nMeasureColumnName = null;
-
-		if (agentColumnName != null) {
-			agentColumn = columns.get(agentColumnName);
-		}
-
-		if (matrixColumnName != null) {
-			matrixColumn = columns.get(matrixColumnName);
-		}
 
-		for (String column : columns.keySet()) {
-			if (columnMappings.containsKey(column)) {
-				Object mapping = columnMappings.get(column);
-
-				if (mapping instanceof MiscXml) {
-					miscColumns.put(column, columns.get(column));
-				} else if (mapping.equals(ID_COLUMN)) {
-					idColumn = columns.get(column);
-				} else if (mapping.equals("Comment")) {
-					commentColumn = columns.get(column);
-				} else if (mapping.equals(AttributeUtilities.TIME)) {
-					timeColumn = columns.get(column);
-					timeColumnName = column;
-				} else if (mapping.equals(AttributeUtilities.CONCENTRATION)) {
-					logcColumn = columns.get(column);
-					logcColumnName = column;
-				} else if (mapping.equals(XLSReader.CONCENTRATION_STDDEV_COLUMN)) {
-					stdDevColumn = columns.get(column);
-					stdDevColumnName = column;
-				} else if (mapping.equals(XLSReader.CONCENTRATION_MEASURE_NUMBER)) {
-					nMeasureColumn = columns.get(column);
-					nMeasureColumnName = column;
-				} else if (mapping.equals(AttributeUtilities.AGENT_DETAILS)) {
-					agentDetailsColumn = columns.get(column);
-				} else if (mapping.equals(AttributeUtilities.MATRIX_DETAILS)) {
-					matrixDetailsColumn = columns.get(column);
-				}
+		try (XLSRowReader rows = XLSRowReader.open(file, sheet)) {
+			Map<String, KnimeTuple> tuples = new LinkedHashMap<>();
+			Map<String, Integer> columns = getColumns(rows.next());
+			Map<String, Integer> miscColumns = new LinkedHashMap<>();
+			Integer idColumn = null;
+			Integer commentColumn = null;
+			Integer timeColumn = null;
+			Integer logcColumn = null;
+			Integer stdDevColumn = null;
+			Integer nMeasureColumn = null;
+			Integer agentDetailsColumn = null;
+			Integer matrixDetailsColumn = null;
+			Integer agentColumn = null;
+			Integer matrixColumn = null;
+			String timeColumnName = null;
+			String logcColumnName = null;
+			String stdDevColumnName = null;
+			String nMeasureColumnName = null;
+
+			if (agentColumnName != null) {
+				agentColumn = columns.get(agentColumnName);
 			}
-		}
-
-		List<Integer> newIds = new ArrayList<>();
-		ListMultimap<String, Row> rowsById = LinkedListMultimap.create();
 
-		if (idColumn != null) {
-			for (int i = 1; !isEndOfFile(s, i); i++) {
-				Row row = s.getRow(i);
-				Cell idCell = row.getCell(idColumn);
+			if (matrixColumnName != null) {
+				matrixColumn = columns.get(matrixColumnName);
+			}
 
-				if (hasData(idCell)) {
-					rowsById.put(getData(idCell), row);
+			for (String column : columns.keySet()) {
+				if (columnMappings.containsKey(column)) {
+					Object mapping = columnMappings.get(column);
+
+					if (mapping instanceof MiscXml) {
+						miscColumns.put(column, columns.get(column));
+					} else if (mapping.equals(ID_COLUMN)) {
+						idColumn = columns.get(column);
+					} else if (mapping.equals("Comment")) {
+						commentColumn = columns.get(column);
+					} else if (mapping.equals(AttributeUtilities.TIME)) {
+						timeColumn = columns.get(column);
+						timeColumnName = column;
+					} else if (mapping.equals(AttributeUtilities.CONCENTRATION)) {
+						logcColumn = columns.get(column);
+						logcColumnName = column;
+					} else if (mapping.equals(XLSReader.CONCENTRATION_STDDEV_COLUMN)) {
+						stdDevColumn = columns.get(column);
+						stdDevColumnName = column;
+					} else if (mapping.equals(XLSReader.CONCENTRATION_MEASURE_NUMBER)) {
+						nMeasureColumn = columns.get(column);
+						nMeasureColumnName = column;
+					} else if (mapping.equals(AttributeUtilities.AGENT_DETAILS)) {
+						agentDetailsColumn = columns.get(column);
+					} else if (mapping.equals(AttributeUtilities.MATRIX_DETAILS)) {
+						matrixDetailsColumn = columns.get(column);
+					}
 				}
 			}
-		}
 
-		for (Map.Entry<String, List<Row>> entry : Multimaps.asMap(rowsById).entrySet()) {
-			KnimeTuple tuple = new KnimeTuple(SchemaFactory.createDataSchema());
-			PmmXmlDoc timeSeriesXml = new PmmXmlDoc();
-			String idString = entry.getKey();
-			Row firstRow = entry.getValue().get(0);
+			List<Integer> newIds = new ArrayList<>();
+			ListMultimap<String, XLSRow> rowsById = LinkedListMultimap.create();
 
-			Cell commentCell = null;
-			Cell agentDetailsCell = null;
-			Cell matrixDetailsCell = null;
-			Cell agentCell = null;
-			Cell matrixCell = null;
+			if (idColumn != null) {
+				for (int i = 1;; i++) {
+					XLSRow row = rows.next();
 
-			if (commentColumn != null) {
-				commentCell = firstRow.getCell(commentColumn);
-			}
-
-			if (agentDetailsColumn != null) {
-				agentDetailsCell = firstRow.getCell(agentDetailsColumn);
-			}
+					if (isEndOfFile(row, i, columns)) {
+						break;
+					}
 
-			if (matrixDetailsColumn != null) {
-				matrixDetailsCell = firstRow.getCell(matrixDetailsColumn);
-			}
+					String idCell = row.getCell(idColumn);
 
-			if (agentColumn != null) {
-				agentCell = firstRow.getCell(agentColumn);
+					if (hasData(idCell)) {
+						rowsById.put(idCell, row);
+					}
+				}
 			}
 
-			if (matrixColumn != null) {
-				matrixCell = firstRow.getCell(matrixColumn);
-			}
+			for (Map.Entry<String, List<XLSRow>> entry : Multimaps.asMap(rowsById).entrySet()) {
+				KnimeTuple tuple = new KnimeTuple(SchemaFactory.createDataSchema());
+				PmmXmlDoc timeSeriesXml = new PmmXmlDoc();
+				String idString = entry.getKey();
+				XLSRow firstRow = entry.getValue().get(0);
 
-			int id;
+				String commentCell = null;
+				String agentDetailsCell = null;
+				String matrixDetailsCell = null;
+				String agentCell = null;
+				String matrixCell = null;
 
-			if (preserveIds && !usedIds.isEmpty()) {
-				id = usedIds.remove(0);
-			} else {
-				id = MathUtilities.getRandomNegativeInt();
-			}
+				if (commentColumn != null) {
+					commentCell = firstRow.getCell(commentColumn);
+				}
 
-			newIds.add(id);
-			tuple = new KnimeTuple(SchemaFactory.createDataSchema());
-			tuple.setValue(TimeSeriesSchema.ATT_COMBASEID, idString);
-			tuple.setValue(TimeSeriesSchema.ATT_CONDID, id);
-			timeSeriesXml = new PmmXmlDoc();
+				if (agentDetailsColumn != null) {
+					agentDetailsCell = firstRow.getCell(agentDetailsColumn);
+				}
 
-			PmmXmlDoc dataInfo = new PmmXmlDoc();
-			PmmXmlDoc agentXml = new PmmXmlDoc();
-			PmmXmlDoc matrixXml = new PmmXmlDoc();
+				if (matrixDetailsColumn != null) {
+					matrixDetailsCell = firstRow.getCell(matrixDetailsColumn);
+				}
 
-			if (commentCell != null) {
-				dataInfo.add(new MdInfoXml(null, null, getData(commentCell), null, null));
-			} else {
-				dataInfo.add(new MdInfoXml(null, null, null, null, null));
-			}
+				if (agentColumn != null) {
+					agentCell = firstRow.getCell(agentColumn);
+				}
 
-			if (hasData(agentCell) && agentMappings.get(getData(agentCell)) != null) {
-				agentXml.add(agentMappings.get(getData(agentCell)));
-			} else {
-				agentXml.add(new AgentXml());
-			}
+				if (matrixColumn != null) {
+					matrixCell = firstRow.getCell(matrixColumn);
+				}
 
-			if (hasData(matrixCell) && matrixMappings.get(getData(matrixCell)) != null) {
-				matrixXml.add(matrixMappings.get(getData(matrixCell)));
-			} else {
-				matrixXml.add(new MatrixXml());
-			}
+				int id;
 
-			if (hasData(agentDetailsCell)) {
-				((AgentXml) agentXml.get(0)).detail = getData(agentDetailsCell);
-			}
+				if (preserveIds && !usedIds.isEmpty()) {
+					id = usedIds.remove(0);
+				} else {
+					id = MathUtilities.getRandomNegativeInt();
+				}
 
-			if (hasData(matrixDetailsCell)) {
-				((MatrixXml) matrixXml.get(0)).detail = getData(matrixDetailsCell);
-			}
+				newIds.add(id);
+				tuple = new KnimeTuple(SchemaFactory.createDataSchema());
+				tuple.setValue(TimeSeriesSchema.ATT_COMBASEID, idString);
+				tuple.setValue(TimeSeriesSchema.ATT_CONDID, id);
+				timeSeriesXml = new PmmXmlDoc();
 
-			tuple.setValue(TimeSeriesSchema.ATT_MDINFO, dataInfo);
-			tuple.setValue(TimeSeriesSchema.ATT_AGENT, agentXml);
-			tuple.setValue(TimeSeriesSchema.ATT_MATRIX, matrixXml);
+				PmmXmlDoc dataInfo = new PmmXmlDoc();
+				PmmXmlDoc agentXml = new PmmXmlDoc();
+				PmmXmlDoc matrixXml = new PmmXmlDoc();
 
-			PmmXmlDoc miscXML = new PmmXmlDoc();
+				if (commentCell != null) {
+					dataInfo.add(new MdInfoXml(null, null, commentCell, null, null));
+				} else {
+					dataInfo.add(new MdInfoXml(null, null, null, null, null));
+				}
 
-			for (String column : miscColumns.keySet()) {
-				MiscXml misc = (MiscXml) columnMappings.get(column);
-				Cell cell = firstRow.getCell(miscColumns.get(column));
+				if (hasData(agentCell) && agentMappings.get(agentCell) != null) {
+					agentXml.add(agentMappings.get(agentCell));
+				} else {
+					agentXml.add(new AgentXml());
+				}
 
-				if (hasData(cell)) {
-					try {
-						misc.value = Double.parseDouble(getData(cell).replace(",", "."));
-					} catch (NumberFormatException e) {
-						warnings.add(column + " value in row " + (firstRow.getRowNum() + 1) + " is not valid ("
-								+ getData(cell) + ")");
-						misc.value = null;
-					}
+				if (hasData(matrixCell) && matrixMappings.get(matrixCell) != null) {
+					matrixXml.add(matrixMappings.get(matrixCell));
 				} else {
-					misc.value = null;
+					matrixXml.add(new MatrixXml());
 				}
 
-				misc.origUnit = misc.unit;
-				miscXML.add(misc);
-			}
+				if (hasData(agentDetailsCell)) {
+					((AgentXml) agentXml.get(0)).detail = agentDetailsCell;
+				}
 
-			tuple.setValue(TimeSeriesSchema.ATT_MISC, miscXML);
+				if (hasData(matrixDetailsCell)) {
+					((MatrixXml) matrixXml.get(0)).detail = matrixDetailsCell;
+				}
 
-			for (Row row : entry.getValue()) {
-				Cell timeCell = null;
-				Cell logcCell = null;
-				Cell stdDevCell = null;
-				Cell nMeasureCell = null;
+				tuple.setValue(TimeSeriesSchema.ATT_MDINFO, dataInfo);
+				tuple.setValue(TimeSeriesSchema.ATT_AGENT, agentXml);
+				tuple.setValue(TimeSeriesSchema.ATT_MATRIX, matrixXml);
 
-				if (timeColumn != null) {
-					timeCell = row.getCell(timeColumn);
-				}
+				PmmXmlDoc miscXML = new PmmXmlDoc();
 
-				if (logcColumn != null) {
-					logcCell = row.getCell(logcColumn);
-				}
+				for (String column : miscColumns.keySet()) {
+					MiscXml misc = (MiscXml) columnMappings.get(column);
+					String cell = firstRow.getCell(miscColumns.get(column));
 
-				if (stdDevColumn != null) {
-					stdDevCell = row.getCell(stdDevColumn);
-				}
+					if (hasData(cell)) {
+						try {
+							misc.value = Double.parseDouble(cell.replace(",", "."));
+						} catch (NumberFormatException e) {
+							warnings.add(column + " value in row " + (firstRow.getRowNum() + 1) + " is not valid ("
+									+ cell + ")");
+							misc.value = null;
+						}
+					} else {
+						misc.value = null;
+					}
 
-				if (nMeasureColumn != null) {
-					nMeasureCell = row.getCell(nMeasureColumn);
+					misc.origUnit = misc.unit;
+					miscXML.add(misc);
 				}
 
-				Double time = null;
-				Double logc = null;
-				Double stdDev = null;
-				Integer nMeasure = null;
+				tuple.setValue(TimeSeriesSchema.ATT_MISC, miscXML);
 
-				if (hasData(timeCell)) {
-					try {
-						time = Double.parseDouble(getData(timeCell).replace(",", "."));
-					} catch (NumberFormatException e) {
-						warnings.add(timeColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
-								+ getData(timeCell) + ")");
+				for (XLSRow row : entry.getValue()) {
+					String timeCell = null;
+					String logcCell = null;
+					String stdDevCell = null;
+					String nMeasureCell = null;
+
+					if (timeColumn != null) {
+						timeCell = row.getCell(timeColumn);
 					}
-				} else if (timeColumn != null) {
-					warnings.add(timeColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
-				}
 
-				if (hasData(logcCell)) {
-					try {
-						logc = Double.parseDouble(getData(logcCell).replace(",", "."));
-					} catch (NumberFormatException e) {
-						warnings.add(logcColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
-								+ getData(logcCell) + ")");
+					if (logcColumn != null) {
+						logcCell = row.getCell(logcColumn);
 					}
-				} else if (logcColumn != null) {
-					warnings.add(logcColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
-				}
 
-				if (hasData(stdDevCell)) {
-					try {
-						stdDev = Double.parseDouble(getData(stdDevCell).replace(",", "."));
-					} catch (NumberFormatException e) {
-						warnings.add(stdDevColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
-								+ getData(stdDevCell) + ")");
+					if (stdDevColumn != null) {
+						stdDevCell = row.getCell(stdDevColumn);
 					}
-				} else if (stdDevColumn != null) {
-					warnings.add(stdDevColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
-				}
 
-				if (hasData(nMeasureCell)) {
-					try {
-						String number = getData(nMeasureCell).replace(",", ".");
+					if (nMeasureColumn != null) {
+						nMeasureCell = row.getCell(nMeasureColumn);
+					}
+
+					Double time = null;
+					Double logc = null;
+					Double stdDev = null;
+					Integer nMeasure = null;
 
-						if (number.contains(".")) {
-							number = number.substring(0, number.indexOf("."));
+					if (hasData(timeCell)) {
+						try {
+							time = Double.parseDouble(timeCell.replace(",", "."));
+						} catch (NumberFormatException e) {
+							warnings.add(timeColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
+									+ timeCell + ")");
 						}
+					} else if (timeColumn != null) {
+						warnings.add(timeColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
+					}
 
-						nMeasure = Integer.parseInt(number);
-					} catch (NumberFormatException e) {
-						warnings.add(nMeasureColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
-								+ getData(nMeasureCell) + ")");
+					if (hasData(logcCell)) {
+						try {
+							logc = Double.parseDouble(logcCell.replace(",", "."));
+						} catch (NumberFormatException e) {
+							warnings.add(logcColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
+									+ logcCell + ")");
+						}
+					} else if (logcColumn != null) {
+						warnings.add(logcColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
 					}
-				} else if (nMeasureColumn != null) {
-					warnings.add(nMeasureColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
-				}
 
-				for (String column : miscColumns.keySet()) {
-					PmmXmlDoc misc = tuple.getPmmXml(TimeSeriesSchema.ATT_MISC);
-					Cell cell = row.getCell(miscColumns.get(column));
+					if (hasData(stdDevCell)) {
+						try {
+							stdDev = Double.parseDouble(stdDevCell.replace(",", "."));
+						} catch (NumberFormatException e) {
+							warnings.add(stdDevColumnName + " value in row " + (row.getRowNum() + 1) + " is not valid ("
+									+ stdDevCell + ")");
+						}
+					} else if (stdDevColumn != null) {
+						warnings.add(stdDevColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
+					}
 
-					if (hasData(cell)) {
+					if (hasData(nMeasureCell)) {
 						try {
-							String param = ((MiscXml) columnMappings.get(column)).name;
-							double value = Double.parseDouble(getData(cell).replace(",", "."));
+							String number = nMeasureCell.replace(",", ".");
 
-							if (!hasSameValue(param, value, misc)) {
-								warnings.add("Variable conditions cannot be imported: " + "Only first value for "
-										+ column + " is used");
+							if (number.contains(".")) {
+								number = number.substring(0, number.indexOf("."));
 							}
+
+							nMeasure = Integer.parseInt(number);
 						} catch (NumberFormatException e) {
+							warnings.add(nMeasureColumnName + " value in row " + (row.getRowNum() + 1)
+									+ " is not valid (" + nMeasureCell + ")");
 						}
+					} else if (nMeasureColumn != null) {
+						warnings.add(nMeasureColumnName + " value in row " + (row.getRowNum() + 1) + " is missing");
 					}
-				}
 
-				timeSeriesXml.add(new TimeSeriesXml(null, time, timeUnit, logc, concentrationUnit, stdDev, nMeasure));
-			}
+					for (String column : miscColumns.keySet()) {
+						PmmXmlDoc misc = tuple.getPmmXml(TimeSeriesSchema.ATT_MISC);
+						String cell = row.getCell(miscColumns.get(column));
 
-			tuple.setValue(TimeSeriesSchema.ATT_TIMESERIES, timeSeriesXml);
-			tuples.put(idString, tuple);
-		}
+						if (hasData(cell)) {
+							try {
+								String param = ((MiscXml) columnMappings.get(column)).name;
+								double value = Double.parseDouble(cell.replace(",", "."));
+
+								if (!hasSameValue(param, value, misc)) {
+									warnings.add("Variable conditions cannot be imported: " + "Only first value for "
+											+ column + " is used");
+								}
+							} catch (NumberFormatException e) {
+							}
+						}
+					}
+
+					timeSeriesXml
+							.add(new TimeSeriesXml(null, time, timeUnit, logc, concentrationUnit, stdDev, nMeasure));
+				}
 
-		usedIds.clear();
-		usedIds.addAll(newIds);
+				tuple.setValue(TimeSeriesSchema.ATT_TIMESERIES, timeSeriesXml);
+				tuples.put(idString, tuple);
+			}
 
-		return tuples;
+			usedIds.clear();
+			usedIds.addAll(newIds);
 
+			return tuples;
+		}
 	}
 
 	public Map<String, KnimeTuple> getModelTuples(File file, String sheet, Map<String, Object> columnMappings,
@@ -377,527 +375,523 @@ public class XLSReader {
 			Map<String, String> secModelR2, Map<String, String> secModelAic, Map<String, String> secModelDataPoints,
 			boolean preserveIds, List<Integer> usedIds, Map<String, List<Integer>> secUsedIds,
 			List<Integer> globalUsedIds) throws Exception {
-		Workbook wb = getWorkbook(file);
-		Sheet s = wb.getSheet(sheet);
-
 		warnings.clear();
-		evaluator = wb.getCreationHelper().createFormulaEvaluator();
 
-		if (s == null) {
-			throw new Exception("Sheet not found");
-		}
-
-		Map<String, KnimeTuple> tuples = new LinkedHashMap<>();
-		Map<String, Integer> columns = getColumns(s);
-		Map<String, Integer> miscColumns = new LinkedHashMap<>();
-		Integer idColumn = null;
-		Integer commentColumn = null;
-		Integer agentDetailsColumn = null;
-		Integer matrixDetailsColumn = null;
-		Integer agentColumn = columns.get(agentColumnName);
-		Integer matrixColumn = columns.get(matrixColumnName);
-		Integer depMinColumn = columns.get(modelDepMin);
-		Integer depMaxColumn = columns.get(modelDepMax);
-		Integer indepMinColumn = columns.get(modelIndepMin);
-		Integer indepMaxColumn = columns.get(modelIndepMax);
-		Integer rmseColumn = columns.get(modelRmse);
-		Integer r2Column = columns.get(modelR2);
-		Integer aicColumn = columns.get(modelAic);
-		Integer dataPointsColumn = columns.get(modelDataPoints);
-
-		for (String column : columns.keySet()) {
-			if (columnMappings.containsKey(column)) {
-				Object mapping = columnMappings.get(column);
-
-				if (mapping instanceof MiscXml) {
-					miscColumns.put(column, columns.get(column));
-				} else if (mapping.equals(NAME_COLUMN)) {
-					idColumn = columns.get(column);
-				} else if (mapping.equals("Comment")) {
-					commentColumn = columns.get(column);
-				} else if (mapping.equals(AttributeUtilities.AGENT_DETAILS)) {
-					agentDetailsColumn = columns.get(column);
-				} else if (mapping.equals(AttributeUtilities.MATRIX_DETAILS)) {
-					matrixDetailsColumn = columns.get(column);
+		try (XLSRowReader rows = XLSRowReader.open(file, sheet)) {
+			Map<String, KnimeTuple> tuples = new LinkedHashMap<>();
+			Map<String, Integer> columns = getColumns(rows.next());
+			Map<String, Integer> miscColumns = new LinkedHashMap<>();
+			Integer idColumn = null;
+			Integer commentColumn = null;
+			Integer agentDetailsColumn = null;
+			Integer matrixDetailsColumn = null;
+			Integer agentColumn = columns.get(agentColumnName);
+			Integer matrixColumn = columns.get(matrixColumnName);
+			Integer depMinColumn = columns.get(modelDepMin);
+			Integer depMaxColumn = columns.get(modelDepMax);
+			Integer indepMinColumn = columns.get(modelIndepMin);
+			Integer indepMaxColumn = columns.get(modelIndepMax);
+			Integer rmseColumn = columns.get(modelRmse);
+			Integer r2Column = columns.get(modelR2);
+			Integer aicColumn = columns.get(modelAic);
+			Integer dataPointsColumn = columns.get(modelDataPoints);
+
+			for (String column : columns.keySet()) {
+				if (columnMappings.containsKey(column)) {
+					Object mapping = columnMappings.get(column);
+
+					if (mapping instanceof MiscXml) {
+						miscColumns.put(column, columns.get(column));
+					} else if (mapping.equals(NAME_COLUMN)) {
+						idColumn = columns.get(column);
+					} else if (mapping.equals("Comment")) {
+						commentColumn = columns.get(column);
+					} else if (mapping.equals(AttributeUtilities.AGENT_DETAILS)) {
+						agentDetailsColumn = columns.get(column);
+					} else if (mapping.equals(AttributeUtilities.MATRIX_DETAILS)) {
+						matrixDetailsColumn = columns.get(column);
+					}
 				}
 			}
-		}
 
-		int index = 0;
-		List<Integer> newIds = new ArrayList<>();
-		Map<String, List<Integer>> newSecIds = new LinkedHashMap<>();
-		List<Integer> newGlobalIds = new ArrayList<>();
+			int index = 0;
+			List<Integer> newIds = new ArrayList<>();
+			Map<String, List<Integer>> newSecIds = new LinkedHashMap<>();
+			List<Integer> newGlobalIds = new ArrayList<>();
 
-		for (int rowNumber = 1;; rowNumber++) {
-			if (isEndOfFile(s, rowNumber)) {
-				break;
-			}
+			for (int rowNumber = 1;; rowNumber++) {
+				XLSRow row = rows.next();
 
-			int globalID;
+				if (isEndOfFile(row, rowNumber, columns)) {
+					break;
+				}
 
-			if (preserveIds && !globalUsedIds.isEmpty()) {
-				globalID = globalUsedIds.remove(0);
-			} else {
-				globalID = MathUtilities.getRandomNegativeInt();
-			}
+				int globalID;
 
-			newGlobalIds.add(globalID);
-			KnimeTuple dataTuple = new KnimeTuple(SchemaFactory.createDataSchema());
-			Row row = s.getRow(rowNumber);
-			Cell idCell = getCell(row, idColumn);
-			Cell commentCell = getCell(row, commentColumn);
-			Cell agentDetailsCell = getCell(row, agentDetailsColumn);
-			Cell matrixDetailsCell = getCell(row, matrixDetailsColumn);
-			Cell agentCell = getCell(row, agentColumn);
-			Cell matrixCell = getCell(row, matrixColumn);
-			Cell depMinCell = getCell(row, depMinColumn);
-			Cell depMaxCell = getCell(row, depMaxColumn);
-			Cell indepMinCell = getCell(row, indepMinColumn);
-			Cell indepMaxCell = getCell(row, indepMaxColumn);
-			Cell rmseCell = getCell(row, rmseColumn);
-			Cell r2Cell = getCell(row, r2Column);
-			Cell aicCell = getCell(row, aicColumn);
-			Cell dataPointsCell = getCell(row, dataPointsColumn);
-
-			dataTuple.setValue(TimeSeriesSchema.ATT_CONDID, MathUtilities.getRandomNegativeInt());
-
-			PmmXmlDoc dataInfo = new PmmXmlDoc();
-			PmmXmlDoc agentXml = new PmmXmlDoc();
-			PmmXmlDoc matrixXml = new PmmXmlDoc();
-
-			if (hasData(commentCell)) {
-				dataInfo.add(new MdInfoXml(null, null, getData(commentCell), null, null));
-			} else {
-				dataInfo.add(new MdInfoXml(null, null, null, null, null));
+				if (preserveIds && !globalUsedIds.isEmpty()) {
+					globalID = globalUsedIds.remove(0);
+				} else {
+					globalID = MathUtilities.getRandomNegativeInt();
+				}
 
-				if (commentColumn != null) {
-					// warnings.add(MdInfoXml.ATT_COMMENT + " value in row "
-					// + (rowNumber + 1) + " is missing");
+				newGlobalIds.add(globalID);
+				KnimeTuple dataTuple = new KnimeTuple(SchemaFactory.createDataSchema());
+				String idCell = getCell(row, idColumn);
+				String commentCell = getCell(row, commentColumn);
+				String agentDetailsCell = getCell(row, agentDetailsColumn);
+				String matrixDetailsCell = getCell(row, matrixDetailsColumn);
+				String agentCell = getCell(row, agentColumn);
+				String matrixCell = getCell(row, matrixColumn);
+				String depMinCell = getCell(row, depMinColumn);
+				String depMaxCell = getCell(row, depMaxColumn);
+				String indepMinCell = getCell(row, indepMinColumn);
+				String indepMaxCell = getCell(row, indepMaxColumn);
+				String rmseCell = getCell(row, rmseColumn);
+				String r2Cell = getCell(row, r2Column);
+				String aicCell = getCell(row, aicColumn);
+				String dataPointsCell = getCell(row, dataPointsColumn);
+
+				dataTuple.setValue(TimeSeriesSchema.ATT_CONDID, MathUtilities.getRandomNegativeInt());
+
+				PmmXmlDoc dataInfo = new PmmXmlDoc();
+				PmmXmlDoc agentXml = new PmmXmlDoc();
+				PmmXmlDoc matrixXml = new PmmXmlDoc();
+
+				if (hasData(commentCell)) {
+					dataInfo.add(new MdInfoXml(null, null, commentCell, null, null));
+				} else {
+					dataInfo.add(new MdInfoXml(null, null, null, null, null));
+
+					if (commentColumn != null) {
+						// warnings.add(MdInfoXml.ATT_COMMENT + " value in row "
+						// + (rowNumber + 1) + " is missing");
+					}
 				}
-			}
 
-			if (hasData(agentCell) && agentMappings.get(getData(agentCell)) != null) {
-				agentXml.add(new AgentXml(agentMappings.get(getData(agentCell))));
-			} else {
-				agentXml.add(new AgentXml());
+				if (hasData(agentCell) && agentMappings.get(agentCell) != null) {
+					agentXml.add(new AgentXml(agentMappings.get(agentCell)));
+				} else {
+					agentXml.add(new AgentXml());
 
-				if (agentColumn != null) {
-					warnings.add(TimeSeriesSchema.ATT_AGENT + " value in row " + (rowNumber + 1) + " is missing");
+					if (agentColumn != null) {
+						warnings.add(TimeSeriesSchema.ATT_AGENT + " value in row " + (rowNumber + 1) + " is missing");
+					}
 				}
-			}
 
-			if (hasData(matrixCell) && matrixMappings.get(getData(matrixCell)) != null) {
-				matrixXml.add(new MatrixXml(matrixMappings.get(getData(matrixCell))));
-			} else {
-				matrixXml.add(new MatrixXml());
+				if (hasData(matrixCell) && matrixMappings.get(matrixCell) != null) {
+					matrixXml.add(new MatrixXml(matrixMappings.get(matrixCell)));
+				} else {
+					matrixXml.add(new MatrixXml());
 
-				if (matrixColumn != null) {
-					warnings.add(TimeSeriesSchema.ATT_MATRIX + " value in row " + (rowNumber + 1) + " is missing");
+					if (matrixColumn != null) {
+						warnings.add(TimeSeriesSchema.ATT_MATRIX + " value in row " + (rowNumber + 1) + " is missing");
+					}
 				}
-			}
 
-			if (hasData(agentDetailsCell)) {
-				((AgentXml) agentXml.get(0)).detail = getData(agentDetailsCell);
-			}
+				if (hasData(agentDetailsCell)) {
+					((AgentXml) agentXml.get(0)).detail = agentDetailsCell;
+				}
 
-			if (hasData(matrixDetailsCell)) {
-				((MatrixXml) matrixXml.get(0)).detail = getData(matrixDetailsCell);
-			}
+				if (hasData(matrixDetailsCell)) {
+					((MatrixXml) matrixXml.get(0)).detail = matrixDetailsCell;
+				}
 
-			dataTuple.setValue(TimeSeriesSchema.ATT_MDINFO, dataInfo);
-			dataTuple.setValue(TimeSeriesSchema.ATT_AGENT, agentXml);
-			dataTuple.setValue(TimeSeriesSchema.ATT_MATRIX, matrixXml);
+				dataTuple.setValue(TimeSeriesSchema.ATT_MDINFO, dataInfo);
+				dataTuple.setValue(TimeSeriesSchema.ATT_AGENT, agentXml);
+				dataTuple.setValue(TimeSeriesSchema.ATT_MATRIX, matrixXml);
 
-			PmmXmlDoc miscXML = new PmmXmlDoc();
+				PmmXmlDoc miscXML = new PmmXmlDoc();
 
-			for (String column : miscColumns.keySet()) {
-				MiscXml misc = new MiscXml((MiscXml) columnMappings.get(column));
-				Cell cell = row.getCell(miscColumns.get(column));
+				for (String column : miscColumns.keySet()) {
+					MiscXml misc = new MiscXml((MiscXml) columnMappings.get(column));
+					String cell = row.getCell(miscColumns.get(column));
 
-				if (hasData(cell)) {
-					try {
-						misc.value = Double.parseDouble(getData(cell).replace(",", "."));
-					} catch (NumberFormatException e) {
-						warnings.add(
-								column + " value in row " + (rowNumber + 1) + " is not valid (" + getData(cell) + ")");
+					if (hasData(cell)) {
+						try {
+							misc.value = Double.parseDouble(cell.replace(",", "."));
+						} catch (NumberFormatException e) {
+							warnings.add(
+									column + " value in row " + (rowNumber + 1) + " is not valid (" + cell + ")");
+						}
+					} else {
+						warnings.add(column + " value in row " + (rowNumber + 1) + " is missing");
 					}
-				} else {
-					warnings.add(column + " value in row " + (rowNumber + 1) + " is missing");
-				}
 
-				misc.origUnit = misc.unit;
-				miscXML.add(misc);
-			}
+					misc.origUnit = misc.unit;
+					miscXML.add(misc);
+				}
 
-			dataTuple.setValue(TimeSeriesSchema.ATT_MISC, miscXML);
+				dataTuple.setValue(TimeSeriesSchema.ATT_MISC, miscXML);
 
-			PmmXmlDoc modelXml = modelTuple.getPmmXml(Model1Schema.ATT_MODELCATALOG);
-			PmmXmlDoc paramXml = modelTuple.getPmmXml(Model1Schema.ATT_PARAMETER);
-			PmmXmlDoc estXml = modelTuple.getPmmXml(Model1Schema.ATT_ESTMODEL);
-			PmmXmlDoc depXml = modelTuple.getPmmXml(Model1Schema.ATT_DEPENDENT);
-			PmmXmlDoc indepXml = modelTuple.getPmmXml(Model1Schema.ATT_INDEPENDENT);
-			int primId;
+				PmmXmlDoc modelXml = modelTuple.getPmmXml(Model1Schema.ATT_MODELCATALOG);
+				PmmXmlDoc paramXml = modelTuple.getPmmXml(Model1Schema.ATT_PARAMETER);
+				PmmXmlDoc estXml = modelTuple.getPmmXml(Model1Schema.ATT_ESTMODEL);
+				PmmXmlDoc depXml = modelTuple.getPmmXml(Model1Schema.ATT_DEPENDENT);
+				PmmXmlDoc indepXml = modelTuple.getPmmXml(Model1Schema.ATT_INDEPENDENT);
+				int primId;
 
-			if (preserveIds && !usedIds.isEmpty()) {
-				primId = usedIds.remove(0);
-			} else {
-				primId = MathUtilities.getRandomNegativeInt();
-			}
+				if (preserveIds && !usedIds.isEmpty()) {
+					primId = usedIds.remove(0);
+				} else {
+					primId = MathUtilities.getRandomNegativeInt();
+				}
 
-			newIds.add(primId);
+				newIds.add(primId);
 
-			if (modelDepUnit != null && !modelDepUnit.equals(((DepXml) depXml.get(0)).unit)) {
-				((DepXml) depXml.get(0)).unit = modelDepUnit;
-				((CatalogModelXml) modelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
-			}
+				if (modelDepUnit != null && !modelDepUnit.equals(((DepXml) depXml.get(0)).unit)) {
+					((DepXml) depXml.get(0)).unit = modelDepUnit;
+					((CatalogModelXml) modelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
+				}
 
-			if (hasData(depMinCell)) {
-				try {
-					((DepXml) depXml.get(0)).min = Double.parseDouble(getData(depMinCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(modelDepMin + " value in row " + (rowNumber + 1) + " is not valid ("
-							+ getData(depMinCell) + ")");
+				if (hasData(depMinCell)) {
+					try {
+						((DepXml) depXml.get(0)).min = Double.parseDouble(depMinCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(modelDepMin + " value in row " + (rowNumber + 1) + " is not valid ("
+								+ depMinCell + ")");
+					}
+				} else if (modelDepMin != null) {
+					warnings.add(modelDepMin + " value in row " + (rowNumber + 1) + " is missing");
 				}
-			} else if (modelDepMin != null) {
-				warnings.add(modelDepMin + " value in row " + (rowNumber + 1) + " is missing");
-			}
 
-			if (hasData(depMaxCell)) {
-				try {
-					((DepXml) depXml.get(0)).max = Double.parseDouble(getData(depMaxCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(modelDepMax + " value in row " + (rowNumber + 1) + " is not valid ("
-							+ getData(depMaxCell) + ")");
+				if (hasData(depMaxCell)) {
+					try {
+						((DepXml) depXml.get(0)).max = Double.parseDouble(depMaxCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(modelDepMax + " value in row " + (rowNumber + 1) + " is not valid ("
+								+ depMaxCell + ")");
+					}
+				} else if (modelDepMax != null) {
+					warnings.add(modelDepMax + " value in row " + (rowNumber + 1) + " is missing");
 				}
-			} else if (modelDepMax != null) {
-				warnings.add(modelDepMax + " value in row " + (rowNumber + 1) + " is missing");
-			}
 
-			if (hasData(indepMinCell)) {
-				try {
-					((IndepXml) indepXml.get(0)).min = Double.parseDouble(getData(indepMinCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(modelIndepMin + " value in row " + (rowNumber + 1) + " is not valid ("
-							+ getData(indepMinCell) + ")");
+				if (hasData(indepMinCell)) {
+					try {
+						((IndepXml) indepXml.get(0)).min = Double.parseDouble(indepMinCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(modelIndepMin + " value in row " + (rowNumber + 1) + " is not valid ("
+								+ indepMinCell + ")");
+					}
+				} else if (modelIndepMin != null) {
+					warnings.add(modelIndepMin + " value in row " + (rowNumber + 1) + " is missing");
 				}
-			} else if (modelIndepMin != null) {
-				warnings.add(modelIndepMin + " value in row " + (rowNumber + 1) + " is missing");
-			}
 
-			if (hasData(indepMaxCell)) {
-				try {
-					((IndepXml) indepXml.get(0)).max = Double.parseDouble(getData(indepMaxCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(modelIndepMax + " value in row " + (rowNumber + 1) + " is not valid ("
-							+ getData(indepMaxCell) + ")");
+				if (hasData(indepMaxCell)) {
+					try {
+						((IndepXml) indepXml.get(0)).max = Double.parseDouble(indepMaxCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(modelIndepMax + " value in row " + (rowNumber + 1) + " is not valid ("
+								+ indepMaxCell + ")");
+					}
+				} else if (modelIndepMax != null) {
+					warnings.add(modelIndepMax + " value in row " + (rowNumber + 1) + " is missing");
 				}
-			} else if (modelIndepMax != null) {
-				warnings.add(modelIndepMax + " value in row " + (rowNumber + 1) + " is missing");
-			}
 
-			if (modelIndepUnit != null && !modelIndepUnit.equals(((IndepXml) indepXml.get(0)).unit)) {
-				((IndepXml) indepXml.get(0)).unit = modelIndepUnit;
-				((CatalogModelXml) modelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
-			}
+				if (modelIndepUnit != null && !modelIndepUnit.equals(((IndepXml) indepXml.get(0)).unit)) {
+					((IndepXml) indepXml.get(0)).unit = modelIndepUnit;
+					((CatalogModelXml) modelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
+				}
 
-			((EstModelXml) estXml.get(0)).id = primId;
-			((EstModelXml) estXml.get(0)).comment = getData(commentCell);
+				((EstModelXml) estXml.get(0)).id = primId;
+				((EstModelXml) estXml.get(0)).comment = commentCell;
 
-			if (hasData(rmseCell)) {
-				try {
-					((EstModelXml) estXml.get(0)).rms = Double.parseDouble(getData(rmseCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(modelRmse + " value in row " + (rowNumber + 1) + " is not valid (" + getData(rmseCell)
-							+ ")");
+				if (hasData(rmseCell)) {
+					try {
+						((EstModelXml) estXml.get(0)).rms = Double.parseDouble(rmseCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(modelRmse + " value in row " + (rowNumber + 1) + " is not valid (" + rmseCell
+								+ ")");
+					}
 				}
-			}
 
-			if (hasData(r2Cell)) {
-				try {
-					((EstModelXml) estXml.get(0)).r2 = Double.parseDouble(getData(r2Cell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(
-							modelR2 + " value in row " + (rowNumber + 1) + " is not valid (" + getData(r2Cell) + ")");
+				if (hasData(r2Cell)) {
+					try {
+						((EstModelXml) estXml.get(0)).r2 = Double.parseDouble(r2Cell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(
+								modelR2 + " value in row " + (rowNumber + 1) + " is not valid (" + r2Cell + ")");
+					}
 				}
-			}
 
-			if (hasData(aicCell)) {
-				try {
-					((EstModelXml) estXml.get(0)).aic = Double.parseDouble(getData(aicCell).replace(",", "."));
-				} catch (NumberFormatException e) {
-					warnings.add(
-							modelAic + " value in row " + (rowNumber + 1) + " is not valid (" + getData(aicCell) + ")");
+				if (hasData(aicCell)) {
+					try {
+						((EstModelXml) estXml.get(0)).aic = Double.parseDouble(aicCell.replace(",", "."));
+					} catch (NumberFormatException e) {
+						warnings.add(
+								modelAic + " value in row " + (rowNumber + 1) + " is not valid (" + aicCell + ")");
+					}
 				}
-			}
 
-			if (hasData(dataPointsCell)) {
-				String data = getData(dataPointsCell).replace(".0", "").replace(",0", "");
+				if (hasData(dataPointsCell)) {
+					String data = dataPointsCell.replace(".0", "").replace(",0", "");
 
-				try {
-					((EstModelXml) estXml.get(0)).dof = Integer.parseInt(data) - paramXml.size();
-				} catch (NumberFormatException e) {
-					warnings.add(modelDataPoints + " value in row " + (rowNumber + 1) + " is not valid (" + data + ")");
+					try {
+						((EstModelXml) estXml.get(0)).dof = Integer.parseInt(data) - paramXml.size();
+					} catch (NumberFormatException e) {
+						warnings.add(
+								modelDataPoints + " value in row " + (rowNumber + 1) + " is not valid (" + data + ")");
+					}
 				}
-			}
 
-			if (hasData(idCell)) {
-				((EstModelXml) estXml.get(0)).name = getData(idCell);
-			}
+				if (hasData(idCell)) {
+					((EstModelXml) estXml.get(0)).name = idCell;
+				}
 
-			for (PmmXmlElementConvertable el : paramXml.getElementSet()) {
-				ParamXml element = (ParamXml) el;
-				String mapping = modelMappings.get(element.name);
+				for (PmmXmlElementConvertable el : paramXml.getElementSet()) {
+					ParamXml element = (ParamXml) el;
+					String mapping = modelMappings.get(element.name);
 
-				if (mapping != null) {
-					Cell cell = row.getCell(columns.get(mapping));
+					if (mapping != null) {
+						String cell = row.getCell(columns.get(mapping));
 
-					if (hasData(cell)) {
-						try {
-							element.value = Double.parseDouble(getData(cell).replace(",", "."));
-						} catch (NumberFormatException e) {
-							warnings.add(mapping + " value in row " + (rowNumber + 1) + " is not valid ("
-									+ getData(cell) + ")");
+						if (hasData(cell)) {
+							try {
+								element.value = Double.parseDouble(cell.replace(",", "."));
+							} catch (NumberFormatException e) {
+								warnings.add(mapping + " value in row " + (rowNumber + 1) + " is not valid ("
+										+ cell + ")");
+							}
+						} else {
+							warnings.add(mapping + " value in row " + (rowNumber + 1) + " is missing");
 						}
-					} else {
-						warnings.add(mapping + " value in row " + (rowNumber + 1) + " is missing");
 					}
-				}
 
-				String errorMapping = modelParamErrors.get(element.name);
+					String errorMapping = modelParamErrors.get(element.name);
 
-				if (errorMapping != null) {
-					Cell cell = row.getCell(columns.get(errorMapping));
+					if (errorMapping != null) {
+						String cell = row.getCell(columns.get(errorMapping));
 
-					if (hasData(cell)) {
-						try {
-							element.error = Double.parseDouble(getData(cell).replace(",", "."));
-						} catch (NumberFormatException e) {
-							warnings.add(errorMapping + " value in row " + (rowNumber + 1) + " is not valid ("
-									+ getData(cell) + ")");
+						if (hasData(cell)) {
+							try {
+								element.error = Double.parseDouble(cell.replace(",", "."));
+							} catch (NumberFormatException e) {
+								warnings.add(errorMapping + " value in row " + (rowNumber + 1) + " is not valid ("
+										+ cell + ")");
+							}
+						} else {
+							warnings.add(errorMapping + " value in row " + (rowNumber + 1) + " is missing");
 						}
-					} else {
-						warnings.add(errorMapping + " value in row " + (rowNumber + 1) + " is missing");
 					}
 				}
-			}
 
-			modelTuple.setValue(Model1Schema.ATT_DEPENDENT, depXml);
-			modelTuple.setValue(Model1Schema.ATT_INDEPENDENT, indepXml);
-			modelTuple.setValue(Model1Schema.ATT_MODELCATALOG, modelXml);
-			modelTuple.setValue(Model1Schema.ATT_PARAMETER, paramXml);
-			modelTuple.setValue(Model1Schema.ATT_ESTMODEL, estXml);
-
-			if (secModelTuples.isEmpty()) {
-				tuples.put(index + "", new KnimeTuple(SchemaFactory.createM1DataSchema(), modelTuple, dataTuple));
-				index++;
-			} else {
-				for (String param : secModelTuples.keySet()) {
-					KnimeTuple secTuple = secModelTuples.get(param);
-					PmmXmlDoc secParamXml = secTuple.getPmmXml(Model2Schema.ATT_PARAMETER);
-					PmmXmlDoc secDepXml = secTuple.getPmmXml(Model2Schema.ATT_DEPENDENT);
-					PmmXmlDoc secEstXml = secTuple.getPmmXml(Model2Schema.ATT_ESTMODEL);
-					PmmXmlDoc secModelXml = secTuple.getPmmXml(Model2Schema.ATT_MODELCATALOG);
-					PmmXmlDoc secIndepXml = secTuple.getPmmXml(Model2Schema.ATT_INDEPENDENT);
-					String formula = ((CatalogModelXml) secModelXml.get(0)).formula;
-					int secID;
-
-					if (preserveIds && secUsedIds.containsKey(param) && !secUsedIds.get(param).isEmpty()) {
-						secID = secUsedIds.get(param).remove(0);
-					} else {
-						secID = MathUtilities.getRandomNegativeInt();
-					}
+				modelTuple.setValue(Model1Schema.ATT_DEPENDENT, depXml);
+				modelTuple.setValue(Model1Schema.ATT_INDEPENDENT, indepXml);
+				modelTuple.setValue(Model1Schema.ATT_MODELCATALOG, modelXml);
+				modelTuple.setValue(Model1Schema.ATT_PARAMETER, paramXml);
+				modelTuple.setValue(Model1Schema.ATT_ESTMODEL, estXml);
 
-					if (!newSecIds.containsKey(param)) {
-						newSecIds.put(param, new ArrayList<Integer>());
-					}
-
-					newSecIds.get(param).add(secID);
-					formula = MathUtilities.replaceVariable(formula, ((DepXml) secDepXml.get(0)).name, param);
-					((CatalogModelXml) secModelXml.get(0)).formula = formula;
-					((DepXml) secDepXml.get(0)).name = param;
-					((EstModelXml) secEstXml.get(0)).id = secID;
+				if (secModelTuples.isEmpty()) {
+					tuples.put(index + "", new KnimeTuple(SchemaFactory.createM1DataSchema(), modelTuple, dataTuple));
+					index++;
+				} else {
+					for (String param : secModelTuples.keySet()) {
+						KnimeTuple secTuple = secModelTuples.get(param);
+						PmmXmlDoc secParamXml = secTuple.getPmmXml(Model2Schema.ATT_PARAMETER);
+						PmmXmlDoc secDepXml = secTuple.getPmmXml(Model2Schema.ATT_DEPENDENT);
+						PmmXmlDoc secEstXml = secTuple.getPmmXml(Model2Schema.ATT_ESTMODEL);
+						PmmXmlDoc secModelXml = secTuple.getPmmXml(Model2Schema.ATT_MODELCATALOG);
+						PmmXmlDoc secIndepXml = secTuple.getPmmXml(Model2Schema.ATT_INDEPENDENT);
+						String formula = ((CatalogModelXml) secModelXml.get(0)).formula;
+						int secID;
+
+						if (preserveIds && secUsedIds.containsKey(param) && !secUsedIds.get(param).isEmpty()) {
+							secID = secUsedIds.get(param).remove(0);
+						} else {
+							secID = MathUtilities.getRandomNegativeInt();
+						}
 
-					for (PmmXmlElementConvertable el : secParamXml.getElementSet()) {
-						ParamXml element = (ParamXml) el;
-						String mapping = secModelMappings.get(param).get(element.name);
-						String error = secModelParamErrors.get(param).get(element.name);
+						if (!newSecIds.containsKey(param)) {
+							newSecIds.put(param, new ArrayList<Integer>());
+						}
 
-						if (mapping != null) {
-							Cell cell = row.getCell(columns.get(mapping));
+						newSecIds.get(param).add(secID);
+						formula = MathUtilities.replaceVariable(formula, ((DepXml) secDepXml.get(0)).name, param);
+						((CatalogModelXml) secModelXml.get(0)).formula = formula;
+						((DepXml) secDepXml.get(0)).name = param;
+						((EstModelXml) secEstXml.get(0)).id = secID;
+
+						for (PmmXmlElementConvertable el : secParamXml.getElementSet()) {
+							ParamXml element = (ParamXml) el;
+							String mapping = secModelMappings.get(param).get(element.name);
+							String error = secModelParamErrors.get(param).get(element.name);
+
+							if (mapping != null) {
+								String cell = row.getCell(columns.get(mapping));
+
+								if (hasData(cell)) {
+									try {
+										element.value = Double.parseDouble(cell.replace(",", "."));
+									} catch (NumberFormatException e) {
+										warnings.add(mapping + " value in row " + (rowNumber + 1) + " is not valid ("
+												+ cell + ")");
+									}
+								} else {
+									warnings.add(mapping + " value in row " + (rowNumber + 1) + " is missing");
+								}
+							}
 
-							if (hasData(cell)) {
-								try {
-									element.value = Double.parseDouble(getData(cell).replace(",", "."));
-								} catch (NumberFormatException e) {
-									warnings.add(mapping + " value in row " + (rowNumber + 1) + " is not valid ("
-											+ getData(cell) + ")");
+							if (error != null) {
+								String cell = row.getCell(columns.get(error));
+
+								if (hasData(cell)) {
+									try {
+										element.error = Double.parseDouble(cell.replace(",", "."));
+									} catch (NumberFormatException e) {
+										warnings.add(error + " value in row " + (rowNumber + 1) + " is not valid ("
+												+ cell + ")");
+									}
+								} else {
+									warnings.add(error + " value in row " + (rowNumber + 1) + " is missing");
 								}
-							} else {
-								warnings.add(mapping + " value in row " + (rowNumber + 1) + " is missing");
 							}
 						}
 
-						if (error != null) {
-							Cell cell = row.getCell(columns.get(error));
+						for (PmmXmlElementConvertable el : secIndepXml.getElementSet()) {
+							IndepXml element = (IndepXml) el;
+							String category = secModelIndepCategories.get(param).get(element.name);
+							String unit = secModelIndepUnits.get(param).get(element.name);
 
-							if (hasData(cell)) {
-								try {
-									element.error = Double.parseDouble(getData(cell).replace(",", "."));
-								} catch (NumberFormatException e) {
-									warnings.add(error + " value in row " + (rowNumber + 1) + " is not valid ("
-											+ getData(cell) + ")");
-								}
-							} else {
-								warnings.add(error + " value in row " + (rowNumber + 1) + " is missing");
+							if (category == null || unit == null) {
+								continue;
 							}
-						}
-					}
 
-					for (PmmXmlElementConvertable el : secIndepXml.getElementSet()) {
-						IndepXml element = (IndepXml) el;
-						String category = secModelIndepCategories.get(param).get(element.name);
-						String unit = secModelIndepUnits.get(param).get(element.name);
+							if (!category.equals(element.category)) {
+								element.category = category;
+								((CatalogModelXml) secModelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
+							}
 
-						if (category == null || unit == null) {
-							continue;
-						}
+							if (!unit.equals(element.unit)) {
+								element.unit = unit;
+								((CatalogModelXml) secModelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
+							}
 
-						if (!category.equals(element.category)) {
-							element.category = category;
-							((CatalogModelXml) secModelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
-						}
+							String minColumn = secModelIndepMins.get(param).get(element.name);
+							String maxColumn = secModelIndepMaxs.get(param).get(element.name);
+
+							if (minColumn != null) {
+								String minCell = row.getCell(columns.get(minColumn));
+
+								if (hasData(minCell)) {
+									try {
+										element.min = Double.parseDouble(minCell.replace(",", "."));
+									} catch (NumberFormatException e) {
+										warnings.add(minColumn + " value in row " + (rowNumber + 1) + " is not valid ("
+												+ minCell + ")");
+									}
+								} else {
+									warnings.add(minColumn + " value in row " + (rowNumber + 1) + " is missing");
+								}
+							}
 
-						if (!unit.equals(element.unit)) {
-							element.unit = unit;
-							((CatalogModelXml) secModelXml.get(0)).id = MathUtilities.getRandomNegativeInt();
+							if (maxColumn != null) {
+								String maxCell = row.getCell(columns.get(maxColumn));
+
+								if (hasData(maxCell)) {
+									try {
+										element.max = Double.parseDouble(maxCell.replace(",", "."));
+									} catch (NumberFormatException e) {
+										warnings.add(maxColumn + " value in row " + (rowNumber + 1) + " is not valid ("
+												+ maxCell + ")");
+									}
+								} else {
+									warnings.add(maxColumn + " value in row " + (rowNumber + 1) + " is missing");
+								}
+							}
 						}
 
-						String minColumn = secModelIndepMins.get(param).get(element.name);
-						String maxColumn = secModelIndepMaxs.get(param).get(element.name);
+						String rmse = secModelRmse.get(param);
+						String r2 = secModelR2.get(param);
+						String aic = secModelAic.get(param);
+						String dataPoints = secModelDataPoints.get(param);
 
-						if (minColumn != null) {
-							Cell minCell = row.getCell(columns.get(minColumn));
+						if (rmse != null) {
+							String cell = row.getCell(columns.get(rmse));
 
-							if (hasData(minCell)) {
+							if (hasData(cell)) {
 								try {
-									element.min = Double.parseDouble(getData(minCell).replace(",", "."));
+									((EstModelXml) secEstXml.get(0))
+											.rms = Double.parseDouble(cell.replace(",", "."));
 								} catch (NumberFormatException e) {
-									warnings.add(minColumn + " value in row " + (rowNumber + 1) + " is not valid ("
-											+ getData(minCell) + ")");
+									warnings.add(rmse + " value in row " + (rowNumber + 1) + " is not valid ("
+											+ cell + ")");
 								}
 							} else {
-								warnings.add(minColumn + " value in row " + (rowNumber + 1) + " is missing");
+								warnings.add(rmse + " value in row " + (rowNumber + 1) + " is missing");
 							}
 						}
 
-						if (maxColumn != null) {
-							Cell maxCell = row.getCell(columns.get(maxColumn));
+						if (r2 != null) {
+							String cell = row.getCell(columns.get(r2));
 
-							if (hasData(maxCell)) {
+							if (hasData(cell)) {
 								try {
-									element.max = Double.parseDouble(getData(maxCell).replace(",", "."));
+									((EstModelXml) secEstXml.get(0))
+											.r2 = Double.parseDouble(cell.replace(",", "."));
 								} catch (NumberFormatException e) {
-									warnings.add(maxColumn + " value in row " + (rowNumber + 1) + " is not valid ("
-											+ getData(maxCell) + ")");
+									warnings.add(r2 + " value in row " + (rowNumber + 1) + " is not valid (" + cell
+											+ ")");
 								}
 							} else {
-								warnings.add(maxColumn + " value in row " + (rowNumber + 1) + " is missing");
+								warnings.add(r2 + " value in row " + (rowNumber + 1) + " is missing");
 							}
 						}
-					}
-
-					String rmse = secModelRmse.get(param);
-					String r2 = secModelR2.get(param);
-					String aic = secModelAic.get(param);
-					String dataPoints = secModelDataPoints.get(param);
 
-					if (rmse != null) {
-						Cell cell = row.getCell(columns.get(rmse));
+						if (aic != null) {
+							String cell = row.getCell(columns.get(aic));
 
-						if (hasData(cell)) {
-							try {
-								((EstModelXml) secEstXml.get(0))
-										.rms = Double.parseDouble(getData(cell).replace(",", "."));
-							} catch (NumberFormatException e) {
-								warnings.add(rmse + " value in row " + (rowNumber + 1) + " is not valid ("
-										+ getData(cell) + ")");
+							if (hasData(cell)) {
+								try {
+									((EstModelXml) secEstXml.get(0))
+											.aic = Double.parseDouble(cell.replace(",", "."));
+								} catch (NumberFormatException e) {
+									warnings.add(aic + " value in row " + (rowNumber + 1) + " is not valid ("
+											+ cell + ")");
+								}
+							} else {
+								warnings.add(aic + " value in row " + (rowNumber + 1) + " is missing");
 							}
-						} else {
-							warnings.add(rmse + " value in row " + (rowNumber + 1) + " is missing");
 						}
-					}
 
-					if (r2 != null) {
-						Cell cell = row.getCell(columns.get(r2));
+						if (dataPoints != null) {
+							String cell = row.getCell(columns.get(dataPoints));
 
-						if (hasData(cell)) {
-							try {
-								((EstModelXml) secEstXml.get(0))
-										.r2 = Double.parseDouble(getData(cell).replace(",", "."));
-							} catch (NumberFormatException e) {
-								warnings.add(r2 + " value in row " + (rowNumber + 1) + " is not valid (" + getData(cell)
-										+ ")");
-							}
-						} else {
-							warnings.add(r2 + " value in row " + (rowNumber + 1) + " is missing");
-						}
-					}
-
-					if (aic != null) {
-						Cell cell = row.getCell(columns.get(aic));
+							if (hasData(cell)) {
+								String data = cell.replace(".0", "").replace(",0", "");
 
-						if (hasData(cell)) {
-							try {
-								((EstModelXml) secEstXml.get(0))
-										.aic = Double.parseDouble(getData(cell).replace(",", "."));
-							} catch (NumberFormatException e) {
-								warnings.add(aic + " value in row " + (rowNumber + 1) + " is not valid ("
-										+ getData(cell) + ")");
+								try {
+									((EstModelXml) secEstXml.get(0)).dof = Integer.parseInt(data) - secParamXml.size();
+								} catch (NumberFormatException e) {
+									warnings.add(dataPoints + " value in row " + (rowNumber + 1) + " is not valid ("
+											+ data + ")");
+								}
+							} else {
+								warnings.add(dataPoints + " value in row " + (rowNumber + 1) + " is missing");
 							}
-						} else {
-							warnings.add(aic + " value in row " + (rowNumber + 1) + " is missing");
 						}
-					}
-
-					if (dataPoints != null) {
-						Cell cell = row.getCell(columns.get(dataPoints));
 
-						if (hasData(cell)) {
-							String data = getData(cell).replace(".0", "").replace(",0", "");
+						secTuple.setValue(Model2Schema.ATT_MODELCATALOG, secModelXml);
+						secTuple.setValue(Model2Schema.ATT_PARAMETER, secParamXml);
+						secTuple.setValue(Model2Schema.ATT_DEPENDENT, secDepXml);
+						secTuple.setValue(Model2Schema.ATT_ESTMODEL, secEstXml);
+						secTuple.setValue(Model2Schema.ATT_INDEPENDENT, secIndepXml);
+						secTuple.setValue(Model2Schema.ATT_GLOBAL_MODEL_ID, globalID);
 
-							try {
-								((EstModelXml) secEstXml.get(0)).dof = Integer.parseInt(data) - secParamXml.size();
-							} catch (NumberFormatException e) {
-								warnings.add(dataPoints + " value in row " + (rowNumber + 1) + " is not valid (" + data
-										+ ")");
-							}
-						} else {
-							warnings.add(dataPoints + " value in row " + (rowNumber + 1) + " is missing");
-						}
+						tuples.put(index + "", new KnimeTuple(SchemaFactory.createM12DataSchema(),
+								new KnimeTuple(SchemaFactory.createM1DataSchema(), modelTuple, dataTuple), secTuple));
+						index++;
 					}
-
-					secTuple.setValue(Model2Schema.ATT_MODELCATALOG, secModelXml);
-					secTuple.setValue(Model2Schema.ATT_PARAMETER, secParamXml);
-					secTuple.setValue(Model2Schema.ATT_DEPENDENT, secDepXml);
-					secTuple.setValue(Model2Schema.ATT_ESTMODEL, secEstXml);
-					secTuple.setValue(Model2Schema.ATT_INDEPENDENT, secIndepXml);
-					secTuple.setValue(Model2Schema.ATT_GLOBAL_MODEL_ID, globalID);
-
-					tuples.put(index + "", new KnimeTuple(SchemaFactory.createM12DataSchema(),
-							new KnimeTuple(SchemaFactory.createM1DataSchema(), modelTuple, dataTuple), secTuple));
-					index++;
 				}
 			}
-		}
 
-		usedIds.clear();
-		usedIds.addAll(newIds);
-		secUsedIds.clear();
-		secUsedIds.putAll(newSecIds);
-		globalUsedIds.clear();
-		globalUsedIds.addAll(newGlobalIds);
+			usedIds.clear();
+			usedIds.addAll(newIds);
+			secUsedIds.clear();
+			secUsedIds.putAll(newSecIds);
+			globalUsedIds.clear();
+			globalUsedIds.addAll(newGlobalIds);
 
-		return tuples;
+			return tuples;
+		}
 	}
 
 	public List<String> getWarnings() {
@@ -905,49 +899,42 @@ public class XLSReader {
 	}
 
 	public List<String> getSheets(File file) throws Exception {
-		List<String> sheets = new ArrayList<>();
-		Workbook workbook = getWorkbook(file);
-
-		for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
-			sheets.add(workbook.getSheetName(i));
-		}
-
-		return sheets;
+		return new ArrayList<>(getSheetIndex(file).sheets);
 	}
 
 	public List<String> getColumns(File file, String sheet) throws Exception {
-		Workbook wb = getWorkbook(file);
-		Sheet s = wb.getSheet(sheet);
-
-		evaluator = wb.getCreationHelper().createFormulaEvaluator();
+		SheetIndex index = getSheetIndex(file);
 
-		if (s == null) {
+		if (!index.sheets.contains(sheet)) {
 			throw new Exception("Sheet not found");
 		}
 
-		return new ArrayList<>(getColumns(s).keySet());
+		List<String> columns = index.columns.get(sheet);
+
+		if (columns == null) {
+			try (XLSRowReader rows = XLSRowReader.open(file, sheet)) {
+				columns = new ArrayList<>(getColumns(rows.next()).keySet());
+			}
+
+			index.columns.put(sheet, columns);
+		}
+
+		return new ArrayList<>(columns);
 	}
 
 	public Set<String> getValuesInColumn(File file, String sheet, String column) throws Exception {
 		Set<String> valueSet = new LinkedHashSet<>();
-		Workbook wb = getWorkbook(file);
-		Sheet s = wb.getSheet(sheet);
-
-		evaluator = wb.getCreationHelper().createFormulaEvaluator();
-
-		if (s == null) {
-			throw new Exception("Sheet not found");
-		}
 
-		Map<String, Integer> columns = getColumns(s);
-		int columnId = columns.get(column);
+		try (XLSRowReader rows = XLSRowReader.open(file, sheet)) {
+			Map<String, Integer> columns = getColumns(rows.next());
+			int columnId = columns.get(column);
+			XLSRow row;
 
-		for (int i = 1; i <= s.getLastRowNum(); i++) {
-			if (s.getRow(i) != null) {
-				Cell cell = s.getRow(i).getCell(columnId);
+			while ((row = rows.next()) != null) {
+				String cell = row.getCell(columnId);
 
 				if (hasData(cell)) {
-					valueSet.add(getData(cell));
+					valueSet.add(cell);
 				}
 			}
 		}
@@ -957,20 +944,19 @@ public class XLSReader {
 
 	public List<Integer> getMissingData(File file, String sheet, String column) throws Exception {
 		List<Integer> missing = new ArrayList<>();
-		Workbook wb = getWorkbook(file);
-		Sheet s = wb.getSheet(sheet);
 
-		evaluator = wb.getCreationHelper().createFormulaEvaluator();
-
-		Map<String, Integer> columns = getColumns(s);
-		int columnId = columns.get(column);
-
-		for (int i = 1; i <= s.getLastRowNum(); i++) {
-			if (s.getRow(i) != null && !hasData(s.getRow(i).getCell(columnId))) {
-				for (int c : columns.values()) {
-					if (hasData(s.getRow(i).getCell(c))) {
-						missing.add(i + 1);
-						break;
+		try (XLSRowReader rows = XLSRowReader.open(file, sheet)) {
+			Map<String, Integer> columns = getColumns(rows.next());
+			int columnId = columns.get(column);
+			XLSRow row;
+
+			while ((row = rows.next()) != null) {
+				if (!hasData(row.getCell(columnId))) {
+					for (int c : columns.values()) {
+						if (hasData(row.getCell(c))) {
+							missing.add(row.getRowNum() + 1);
+							break;
+						}
 					}
 				}
 			}
@@ -979,83 +965,73 @@ public class XLSReader {
 		return missing;
 	}
 
-	private Workbook getWorkbook(File file) throws IOException, InvalidFormatException {
-		if (file.exists()) {
-			try (InputStream in = new FileInputStream(file)) {
-				return WorkbookFactory.create(in);
-			}
-		} else {
-			try (InputStream in = new URL(file.getPath()).openStream()) {
-				return WorkbookFactory.create(in);
+	/**
+	 * Sheet names and header rows are cached per file, so that dialogs can
+	 * query them repeatedly without parsing the file again. Entries are
+	 * invalidated when the file is modified.
+	 */
+	private static SheetIndex getSheetIndex(File file) throws Exception {
+		if (!file.exists()) {
+			return new SheetIndex(file, XLSRowReader.getSheetNames(file));
+		}
+
+		String key = file.getAbsolutePath();
+		SheetIndex index;
+
+		synchronized (SHEET_INDEX_CACHE) {
+			index = SHEET_INDEX_CACHE.get(key);
+		}
+
+		if (index == null || !index.isValid(file)) {
+			index = new SheetIndex(file, XLSRowReader.getSheetNames(file));
+
+			synchronized (SHEET_INDEX_CACHE) {
+				SHEET_INDEX_CACHE.put(key, index);
 			}
 		}
+
+		return index;
 	}
 
-	private Map<String, Integer> getColumns(Sheet sheet) {
+	private static Map<String, Integer> getColumns(XLSRow header) {
 		Map<String, Integer> columns = new LinkedHashMap<>();
 
+		if (header == null || header.getRowNum() != 0) {
+			return columns;
+		}
+
 		for (int i = 0;; i++) {
-			Cell cell = sheet.getRow(0).getCell(i);
+			String cell = header.getCell(i);
 
 			if (!hasData(cell)) {
 				break;
 			}
 
-			columns.put(getData(cell), i);
+			columns.put(cell, i);
 		}
 
 		return columns;
 	}
 
-	private boolean isEndOfFile(Sheet sheet, int i) {
-		Row row = sheet.getRow(i);
-
-		if (row == null) {
+	private static boolean isEndOfFile(XLSRow row, int rowNum, Map<String, Integer> columns) {
+		if (row == null || row.getRowNum() != rowNum) {
 			return true;
 		}
 
-		for (int j = 0;; j++) {
-			Cell headerCell = sheet.getRow(0).getCell(j);
-			Cell cell = sheet.getRow(i).getCell(j);
-
-			if (!hasData(headerCell)) {
-				return true;
-			}
-
-			if (hasData(cell)) {
+		for (int column : columns.values()) {
+			if (hasData(row.getCell(column))) {
 				return false;
 			}
 		}
-	}
 
-	private boolean hasData(Cell cell) {
-		return cell != null && !cell.toString().trim().isEmpty();
+		return true;
 	}
 
-	private String getData(Cell cell) {
-		if (cell != null) {
-			if (cell.getCellType() == Cell.CELL_TYPE_FORMULA) {
-				CellValue value = evaluator.evaluate(cell);
-
-				switch (value.getCellType()) {
-				case Cell.CELL_TYPE_BOOLEAN:
-					return value.getBooleanValue() + "";
-				case Cell.CELL_TYPE_NUMERIC:
-					return value.getNumberValue() + "";
-				case Cell.CELL_TYPE_STRING:
-					return value.getStringValue();
-				default:
-					return "";
-				}
-			} else {
-				return cell.toString().trim();
-			}
-		}
-
-		return null;
+	private static boolean hasData(String cell) {
+		return cell != null && !cell.trim().isEmpty();
 	}
 
-	private Cell getCell(Row row, Integer column) {
+	private static String getCell(XLSRow row, Integer column) {
 		if (column == null) {
 			return null;
 		}
@@ -1074,4 +1050,23 @@ public class XLSReader {
 
 		return true;
 	}
+
+	private static class SheetIndex {
+
+		private long lastModified;
+		private long length;
+		private List<String> sheets;
+		private Map<String, List<String>> columns;
+
+		public SheetIndex(File file, List<String> sheets) {
+			this.sheets = sheets;
+			lastModified = file.lastModified();
+			length = file.length();
+			columns = new ConcurrentHashMap<>();
+		}
+
+		public boolean isValid(File file) {
+			return file.lastModified() == lastModified && file.length() == length;
+		}
+	}
 }
@@ -0,0 +1,55 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+/**
+ * Row of a sheet read with {@link XLSRowReader}. Cells are stored as the
+ * strings the {@link XLSReader} works with: numbers as returned by
+ * {@link Double#toString(double)}, formulas as their result and empty cells as
+ * <code>null</code>.
+ */
+final class XLSRow {
+
+	private final int rowNum;
+	private final String[] cells;
+
+	XLSRow(int rowNum, String[] cells) {
+		this.rowNum = rowNum;
+		this.cells = cells;
+	}
+
+	/**
+	 * @return zero based index of the row in the sheet
+	 */
+	int getRowNum() {
+		return rowNum;
+	}
+
+	/**
+	 * @return value of the cell or <code>null</code> if the cell is empty
+	 */
+	String getCell(Integer column) {
+		if (column == null || column < 0 || column >= cells.length) {
+			return null;
+		}
+
+		return cells[column];
+	}
+}
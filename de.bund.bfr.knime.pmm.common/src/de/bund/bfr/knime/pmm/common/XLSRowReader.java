@@ -0,0 +1,403 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellValue;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+/**
+ * Reads the rows of a sheet one after another.
+ * <p>
+ * Sheets of .xlsx files are streamed from the sheet XML with a pull parser, so
+ * only the current row is held in memory. Other files (.xls) are loaded with
+ * {@link WorkbookFactory} and converted row by row.
+ * <p>
+ * Rows are returned in ascending order. Rows without cells may be skipped, so
+ * callers have to check {@link XLSRow#getRowNum()}.
+ */
+abstract class XLSRowReader implements Closeable {
+
+	private static final String DATE_FORMAT = "dd-MMM-yyyy";
+
+	/**
+	 * @return next row or <code>null</code> if the end of the sheet is reached
+	 */
+	abstract XLSRow next() throws Exception;
+
+	static List<String> getSheetNames(File file) throws Exception {
+		try (InputStream in = new BufferedInputStream(openStream(file))) {
+			if (POIXMLDocument.hasOOXMLHeader(in)) {
+				OPCPackage pkg = openPackage(file, in);
+
+				try {
+					List<String> sheets = new ArrayList<>();
+					XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) new XSSFReader(pkg)
+							.getSheetsData();
+
+					while (iterator.hasNext()) {
+						iterator.next().close();
+						sheets.add(iterator.getSheetName());
+					}
+
+					return sheets;
+				} finally {
+					pkg.revert();
+				}
+			}
+
+			Workbook workbook = WorkbookFactory.create(in);
+			List<String> sheets = new ArrayList<>();
+
+			for (int i = 0; i < workbook.getNumberOfSheets(); i++) {
+				sheets.add(workbook.getSheetName(i));
+			}
+
+			return sheets;
+		}
+	}
+
+	/**
+	 * @throws Exception
+	 *             if the file cannot be read or does not contain the sheet
+	 */
+	static XLSRowReader open(File file, String sheet) throws Exception {
+		try (InputStream in = new BufferedInputStream(openStream(file))) {
+			if (POIXMLDocument.hasOOXMLHeader(in)) {
+				return new XSSFRowReader(openPackage(file, in), sheet);
+			}
+
+			return new WorkbookRowReader(WorkbookFactory.create(in), sheet);
+		}
+	}
+
+	private static InputStream openStream(File file) throws IOException {
+		if (file.exists()) {
+			return new FileInputStream(file);
+		}
+
+		return new URL(file.getPath()).openStream();
+	}
+
+	private static OPCPackage openPackage(File file, InputStream in) throws Exception {
+		if (file.exists()) {
+			return OPCPackage.open(file.getPath(), PackageAccess.READ);
+		}
+
+		return OPCPackage.open(in);
+	}
+
+	private static class XSSFRowReader extends XLSRowReader {
+
+		private OPCPackage pkg;
+		private ReadOnlySharedStringsTable strings;
+		private StylesTable styles;
+		private InputStream sheetStream;
+		private XMLStreamReader xml;
+		private int lastRowNum;
+
+		public XSSFRowReader(OPCPackage pkg, String sheet) throws Exception {
+			this.pkg = pkg;
+
+			try {
+				XSSFReader reader = new XSSFReader(pkg);
+				XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+
+				while (iterator.hasNext()) {
+					InputStream in = iterator.next();
+
+					if (iterator.getSheetName().equals(sheet)) {
+						sheetStream = in;
+						break;
+					}
+
+					in.close();
+				}
+
+				if (sheetStream == null) {
+					throw new Exception("Sheet not found");
+				}
+
+				strings = new ReadOnlySharedStringsTable(pkg);
+				styles = reader.getStylesTable();
+				XMLInputFactory factory = XMLInputFactory.newInstance();
+
+				factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+				xml = factory.createXMLStreamReader(sheetStream);
+				lastRowNum = -1;
+			} catch (Exception e) {
+				close();
+				throw e;
+			}
+		}
+
+		@Override
+		XLSRow next() throws XMLStreamException {
+			while (xml.hasNext()) {
+				if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("row")) {
+					String ref = xml.getAttributeValue(null, "r");
+
+					lastRowNum = ref != null ? Integer.parseInt(ref) - 1 : lastRowNum + 1;
+
+					return new XLSRow(lastRowNum, readCells());
+				}
+			}
+
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				if (xml != null) {
+					xml.close();
+				}
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			} finally {
+				if (sheetStream != null) {
+					sheetStream.close();
+				}
+
+				pkg.revert();
+			}
+		}
+
+		private String[] readCells() throws XMLStreamException {
+			List<String> cells = new ArrayList<>();
+			int column = -1;
+
+			while (xml.hasNext()) {
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("c")) {
+					String ref = xml.getAttributeValue(null, "r");
+					String type = xml.getAttributeValue(null, "t");
+					String style = xml.getAttributeValue(null, "s");
+
+					column = ref != null ? new CellReference(ref).getCol() : column + 1;
+
+					while (cells.size() <= column) {
+						cells.add(null);
+					}
+
+					cells.set(column, readCell(type, style));
+				} else if (event == XMLStreamConstants.END_ELEMENT && xml.getLocalName().equals("row")) {
+					break;
+				}
+			}
+
+			return cells.toArray(new String[0]);
+		}
+
+		private String readCell(String type, String style) throws XMLStreamException {
+			String value = null;
+			StringBuilder inline = null;
+			boolean formula = false;
+			int phoneticDepth = 0;
+
+			while (xml.hasNext()) {
+				int event = xml.next();
+
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					String name = xml.getLocalName();
+
+					if (name.equals("v")) {
+						value = xml.getElementText();
+					} else if (name.equals("f")) {
+						formula = true;
+						xml.getElementText();
+					} else if (name.equals("is")) {
+						inline = new StringBuilder();
+					} else if (name.equals("rPh")) {
+						phoneticDepth++;
+					} else if (name.equals("t") && inline != null && phoneticDepth == 0) {
+						inline.append(xml.getElementText());
+					}
+				} else if (event == XMLStreamConstants.END_ELEMENT) {
+					String name = xml.getLocalName();
+
+					if (name.equals("rPh")) {
+						phoneticDepth--;
+					} else if (name.equals("c")) {
+						break;
+					}
+				}
+			}
+
+			if (formula) {
+				return getFormulaResult(type, value);
+			}
+
+			if (type == null || type.equals("n")) {
+				return getNumber(style, value);
+			}
+
+			switch (type) {
+			case "s":
+				return value != null ? toText(strings.getEntryAt(Integer.parseInt(value))) : null;
+			case "inlineStr":
+				return inline != null ? toText(inline.toString()) : null;
+			case "b":
+				return value != null ? ("1".equals(value) ? "TRUE" : "FALSE") : null;
+			default:
+				return value != null ? toText(value) : null;
+			}
+		}
+
+		/** @return trimmed text, or null if it is empty like in {@link WorkbookRowReader} */
+		private static String toText(String value) {
+			String text = value.trim();
+
+			return !text.isEmpty() ? text : null;
+		}
+
+		private static String getFormulaResult(String type, String value) {
+			if (value == null) {
+				return "";
+			} else if ("str".equals(type)) {
+				return value;
+			} else if ("b".equals(type)) {
+				return "1".equals(value) ? "true" : "false";
+			} else if ("e".equals(type)) {
+				return "";
+			}
+
+			try {
+				return Double.parseDouble(value) + "";
+			} catch (NumberFormatException e) {
+				return value;
+			}
+		}
+
+		private String getNumber(String style, String value) {
+			if (value == null) {
+				return null;
+			}
+
+			double number;
+
+			try {
+				number = Double.parseDouble(value);
+			} catch (NumberFormatException e) {
+				return value.trim();
+			}
+
+			if (styles != null && style != null && DateUtil.isValidExcelDate(number)) {
+				XSSFCellStyle cellStyle = styles.getStyleAt(Integer.parseInt(style));
+
+				if (cellStyle != null
+						&& DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString())) {
+					return new SimpleDateFormat(DATE_FORMAT).format(DateUtil.getJavaDate(number));
+				}
+			}
+
+			return Double.toString(number);
+		}
+	}
+
+	private static class WorkbookRowReader extends XLSRowReader {
+
+		private FormulaEvaluator evaluator;
+		private Iterator<Row> rows;
+
+		public WorkbookRowReader(Workbook workbook, String sheet) throws Exception {
+			Sheet s = workbook.getSheet(sheet);
+
+			if (s == null) {
+				throw new Exception("Sheet not found");
+			}
+
+			evaluator = workbook.getCreationHelper().createFormulaEvaluator();
+			rows = s.rowIterator();
+		}
+
+		@Override
+		XLSRow next() {
+			if (!rows.hasNext()) {
+				return null;
+			}
+
+			Row row = rows.next();
+			String[] cells = new String[Math.max(row.getLastCellNum(), 0)];
+
+			for (Cell cell : row) {
+				cells[cell.getColumnIndex()] = getData(cell);
+			}
+
+			return new XLSRow(row.getRowNum(), cells);
+		}
+
+		@Override
+		public void close() {
+		}
+
+		private String getData(Cell cell) {
+			if (cell.getCellType() == Cell.CELL_TYPE_FORMULA) {
+				CellValue value = evaluator.evaluate(cell);
+
+				switch (value.getCellType()) {
+				case Cell.CELL_TYPE_BOOLEAN:
+					return value.getBooleanValue() + "";
+				case Cell.CELL_TYPE_NUMERIC:
+					return value.getNumberValue() + "";
+				case Cell.CELL_TYPE_STRING:
+					return value.getStringValue();
+				default:
+					return "";
+				}
+			}
+
+			String value = cell.toString().trim();
+
+			return !value.isEmpty() ? value : null;
+		}
+	}
+}
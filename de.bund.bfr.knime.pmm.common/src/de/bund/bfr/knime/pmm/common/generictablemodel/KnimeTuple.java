@@ -36,6 +36,7 @@ import org.knime.core.data.xml.XMLCell;
 
 import de.bund.bfr.knime.pmm.common.CellIO;
 import de.bund.bfr.knime.pmm.common.PmmException;
+import de.bund.bfr.knime.pmm.common.PmmXmlCell;
 import de.bund.bfr.knime.pmm.common.PmmXmlDoc;
 import de.bund.bfr.knime.pmm.extendedtable.Model1Metadata;
 import de.bund.bfr.knime.pmm.extendedtable.Model2Metadata;
@@ -263,6 +264,17 @@ public class KnimeTuple implements DataRow {
 		}
 	}
 
+	protected void setCell(final int i, final PmmXmlCell c) throws PmmException {
+		switch (schema.getType(i)) {
+		case KnimeAttribute.TYPE_XML:
+			cell[i] = c;
+			break;
+
+		default:
+			throw new PmmException("Some cells are not allowed for XML Types");
+		}
+	}
+
 	protected void setCell(final int i, final DataCell c) throws PmmException {
 
 		if (c instanceof IntCell)
@@ -275,6 +287,8 @@ public class KnimeTuple implements DataRow {
 			setCell(i, (XMLCell) c);
 		else if (c instanceof XMLBlobCell)
 			setCell(i, (XMLBlobCell) c);
+		else if (c instanceof PmmXmlCell)
+			setCell(i, (PmmXmlCell) c);
 		else if (c.isMissing())
 			cell[i] = CellIO.createMissingCell();
 		else
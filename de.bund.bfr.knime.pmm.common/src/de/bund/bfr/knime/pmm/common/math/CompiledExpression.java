@@ -0,0 +1,435 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common.math;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.Variable;
+
+/**
+ * Flat, stack based evaluator of a JEP expression tree created with
+ * {@link MathUtilities#createParser()}.
+ * <p>
+ * The expression is compiled once into an array of operations over
+ * <code>double</code> values. Evaluation does not allocate and does not touch
+ * the parser, so a compiled expression can be shared between threads as long as
+ * every thread uses its own stack (see {@link #createStack()}).
+ * <p>
+ * Results that JEP would return as complex numbers (e.g. the square root of a
+ * negative number) are returned as {@link Double#NaN}.
+ */
+public final class CompiledExpression {
+
+	private static final int CONST = 0;
+	private static final int VAR = 1;
+	private static final int ADD = 2;
+	private static final int SUB = 3;
+	private static final int MUL = 4;
+	private static final int DIV = 5;
+	private static final int POW = 6;
+	private static final int NEG = 7;
+	private static final int LT = 8;
+	private static final int GT = 9;
+	private static final int LE = 10;
+	private static final int GE = 11;
+	private static final int AND = 12;
+	private static final int OR = 13;
+	private static final int NOT = 14;
+	private static final int SIN = 15;
+	private static final int COS = 16;
+	private static final int TAN = 17;
+	private static final int ASIN = 18;
+	private static final int ACOS = 19;
+	private static final int ATAN = 20;
+	private static final int SINH = 21;
+	private static final int COSH = 22;
+	private static final int TANH = 23;
+	private static final int LN = 24;
+	private static final int LOG10 = 25;
+	private static final int EXP = 26;
+	private static final int SQRT = 27;
+	private static final int ABS = 28;
+	private static final int FLOOR = 29;
+	private static final int CEIL = 30;
+
+	private static final double LN_10 = Math.log(10.0);
+
+	private final int[] operations;
+	private final int[] operands;
+	private final double[] constants;
+	private final int stackSize;
+
+	private CompiledExpression(int[] operations, int[] operands,
+			double[] constants, int stackSize) {
+		this.operations = operations;
+		this.operands = operands;
+		this.constants = constants;
+		this.stackSize = stackSize;
+	}
+
+	/**
+	 * Compiles an expression tree.
+	 * 
+	 * @param node
+	 *            root of the expression tree
+	 * @param variables
+	 *            names of the variables in the order of the values passed to
+	 *            {@link #evaluate(double[], double[])}
+	 * @return compiled expression
+	 * @throws UnsupportedOperationException
+	 *             if the expression contains functions, operators or values
+	 *             that cannot be compiled. The expression then has to be
+	 *             evaluated with the parser.
+	 */
+	public static CompiledExpression compile(Node node, List<String> variables)
+			throws UnsupportedOperationException {
+		Compiler compiler = new Compiler(variables);
+
+		compiler.compile(node);
+
+		return new CompiledExpression(
+				Arrays.copyOf(compiler.operations, compiler.length),
+				Arrays.copyOf(compiler.operands, compiler.length),
+				Arrays.copyOf(compiler.constants, compiler.constantCount),
+				compiler.maxDepth);
+	}
+
+	/**
+	 * @return stack large enough to evaluate this expression
+	 */
+	public double[] createStack() {
+		return new double[stackSize];
+	}
+
+	/**
+	 * Evaluates the expression.
+	 * 
+	 * @param values
+	 *            values of the variables in the order passed to
+	 *            {@link #compile(Node, List)}
+	 * @param stack
+	 *            working memory created with {@link #createStack()}
+	 * @return value of the expression
+	 */
+	public double evaluate(double[] values, double[] stack) {
+		int top = -1;
+
+		for (int i = 0; i < operations.length; i++) {
+			switch (operations[i]) {
+			case CONST:
+				stack[++top] = constants[operands[i]];
+				break;
+			case VAR:
+				stack[++top] = values[operands[i]];
+				break;
+			case ADD:
+				top--;
+				stack[top] = stack[top] + stack[top + 1];
+				break;
+			case SUB:
+				top--;
+				stack[top] = stack[top] - stack[top + 1];
+				break;
+			case MUL:
+				top--;
+				stack[top] = stack[top] * stack[top + 1];
+				break;
+			case DIV:
+				top--;
+				stack[top] = stack[top] / stack[top + 1];
+				break;
+			case POW:
+				top--;
+				stack[top] = Math.pow(stack[top], stack[top + 1]);
+				break;
+			case NEG:
+				stack[top] = -stack[top];
+				break;
+			case LT:
+				top--;
+				stack[top] = stack[top] < stack[top + 1] ? 1.0 : 0.0;
+				break;
+			case GT:
+				top--;
+				stack[top] = stack[top] > stack[top + 1] ? 1.0 : 0.0;
+				break;
+			case LE:
+				top--;
+				stack[top] = stack[top] <= stack[top + 1] ? 1.0 : 0.0;
+				break;
+			case GE:
+				top--;
+				stack[top] = stack[top] >= stack[top + 1] ? 1.0 : 0.0;
+				break;
+			case AND:
+				top--;
+				stack[top] = stack[top] != 0.0 && stack[top + 1] != 0.0 ? 1.0
+						: 0.0;
+				break;
+			case OR:
+				top--;
+				stack[top] = stack[top] != 0.0 || stack[top + 1] != 0.0 ? 1.0
+						: 0.0;
+				break;
+			case NOT:
+				stack[top] = stack[top] == 0.0 ? 1.0 : 0.0;
+				break;
+			case SIN:
+				stack[top] = Math.sin(stack[top]);
+				break;
+			case COS:
+				stack[top] = Math.cos(stack[top]);
+				break;
+			case TAN:
+				stack[top] = Math.tan(stack[top]);
+				break;
+			case ASIN:
+				stack[top] = Math.asin(stack[top]);
+				break;
+			case ACOS:
+				stack[top] = Math.acos(stack[top]);
+				break;
+			case ATAN:
+				stack[top] = Math.atan(stack[top]);
+				break;
+			case SINH:
+				stack[top] = Math.sinh(stack[top]);
+				break;
+			case COSH:
+				stack[top] = Math.cosh(stack[top]);
+				break;
+			case TANH:
+				stack[top] = Math.tanh(stack[top]);
+				break;
+			case LN:
+				stack[top] = Math.log(stack[top]);
+				break;
+			case LOG10:
+				stack[top] = Math.log(stack[top]) / LN_10;
+				break;
+			case EXP:
+				stack[top] = Math.exp(stack[top]);
+				break;
+			case SQRT:
+				stack[top] = Math.sqrt(stack[top]);
+				break;
+			case ABS:
+				stack[top] = Math.abs(stack[top]);
+				break;
+			case FLOOR:
+				stack[top] = Math.floor(stack[top]);
+				break;
+			case CEIL:
+				stack[top] = Math.ceil(stack[top]);
+				break;
+			default:
+				throw new IllegalStateException("Unknown operation "
+						+ operations[i]);
+			}
+		}
+
+		return stack[0];
+	}
+
+	private static class Compiler {
+
+		private final List<String> variables;
+
+		private int[] operations = new int[16];
+		private int[] operands = new int[16];
+		private int length = 0;
+
+		private double[] constants = new double[8];
+		private int constantCount = 0;
+
+		private int depth = 0;
+		private int maxDepth = 0;
+
+		private Compiler(List<String> variables) {
+			this.variables = variables;
+		}
+
+		private void compile(Node node) {
+			if (node instanceof ASTConstant) {
+				Object value = ((ASTConstant) node).getValue();
+
+				if (!(value instanceof Double)) {
+					throw new UnsupportedOperationException(
+							"Unsupported constant: " + value);
+				}
+
+				emitConstant((Double) value);
+			} else if (node instanceof ASTVarNode) {
+				compileVariable((ASTVarNode) node);
+			} else if (node instanceof ASTFunNode) {
+				compileFunction((ASTFunNode) node);
+			} else {
+				throw new UnsupportedOperationException("Unsupported node: "
+						+ node);
+			}
+		}
+
+		private void compileVariable(ASTVarNode node) {
+			int index = variables.indexOf(node.getName());
+
+			if (index != -1) {
+				emit(VAR, index, 1);
+				return;
+			}
+
+			Variable var = node.getVar();
+
+			if (var != null && var.isConstant()
+					&& var.getValue() instanceof Double) {
+				emitConstant((Double) var.getValue());
+			} else {
+				throw new UnsupportedOperationException("Unknown variable: "
+						+ node.getName());
+			}
+		}
+
+		private void compileFunction(ASTFunNode node) {
+			String name = node.getName();
+			int n = node.jjtGetNumChildren();
+
+			// Add and multiply may have more than two children
+			if ((name.equals("+") || name.equals("*")) && n >= 2) {
+				int operation = name.equals("+") ? ADD : MUL;
+
+				compile(node.jjtGetChild(0));
+
+				for (int i = 1; i < n; i++) {
+					compile(node.jjtGetChild(i));
+					emit(operation, 0, -1);
+				}
+
+				return;
+			}
+
+			int operation = getOperation(name, n);
+
+			for (int i = 0; i < n; i++) {
+				compile(node.jjtGetChild(i));
+			}
+
+			emit(operation, 0, 1 - n);
+		}
+
+		private static int getOperation(String name, int n) {
+			if (n == 2) {
+				switch (name) {
+				case "-":
+					return SUB;
+				case "/":
+					return DIV;
+				case "^":
+					return POW;
+				case "<":
+					return LT;
+				case ">":
+					return GT;
+				case "<=":
+					return LE;
+				case ">=":
+					return GE;
+				case "&&":
+					return AND;
+				case "||":
+					return OR;
+				default:
+					break;
+				}
+			} else if (n == 1) {
+				switch (name) {
+				case "UMinus":
+					return NEG;
+				case "!":
+					return NOT;
+				case "sin":
+					return SIN;
+				case "cos":
+					return COS;
+				case "tan":
+					return TAN;
+				case "asin":
+					return ASIN;
+				case "acos":
+					return ACOS;
+				case "atan":
+					return ATAN;
+				case "sinh":
+					return SINH;
+				case "cosh":
+					return COSH;
+				case "tanh":
+					return TANH;
+				case "ln":
+					return LN;
+				case "log":
+				case "log10":
+					return LOG10;
+				case "exp":
+					return EXP;
+				case "sqrt":
+					return SQRT;
+				case "abs":
+					return ABS;
+				case "floor":
+					return FLOOR;
+				case "ceil":
+					return CEIL;
+				default:
+					break;
+				}
+			}
+
+			throw new UnsupportedOperationException("Unsupported function: "
+					+ name + " with " + n + " arguments");
+		}
+
+		private void emitConstant(double value) {
+			if (constantCount == constants.length) {
+				constants = Arrays.copyOf(constants, 2 * constants.length);
+			}
+
+			constants[constantCount] = value;
+			emit(CONST, constantCount++, 1);
+		}
+
+		private void emit(int operation, int operand, int depthChange) {
+			if (length == operations.length) {
+				operations = Arrays.copyOf(operations, 2 * length);
+				operands = Arrays.copyOf(operands, 2 * length);
+			}
+
+			operations[length] = operation;
+			operands[length] = operand;
+			length++;
+
+			depth += depthChange;
+			maxDepth = Math.max(maxDepth, depth);
+		}
+	}
+}
@@ -20,9 +20,16 @@
 package de.bund.bfr.knime.pmm.common.math;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.math3.analysis.MultivariateMatrixFunction;
@@ -41,6 +48,12 @@ public class ParameterOptimizer {
 
 	private static final int MAX_EVAL = 10000;
 
+	/**
+	 * Maximum number of grid points that are evaluated by one task of the
+	 * parallel grid search.
+	 */
+	private static final int GRID_CHUNK_SIZE = 256;
+
 	private List<String> parameters;
 	private List<Double> minParameterValues;
 	private List<Double> maxParameterValues;
@@ -53,7 +66,15 @@ public class ParameterOptimizer {
 
 	private DJep parser;
 
-	private LeastSquaresOptimizer.Optimum optimizerValues;
+	/**
+	 * Compiled function and derivatives over the values of the parameters
+	 * followed by the arguments. Null if the formula contains functions that
+	 * cannot be compiled, in which case the parser is used.
+	 */
+	private CompiledExpression compiledFunction;
+	private CompiledExpression[] compiledDerivatives;
+	private double[] targetArray;
+	private double[][] argumentRows;
 
 	private boolean successful;
 	private List<Double> parameterValues;
@@ -106,18 +127,60 @@ public class ParameterOptimizer {
 			parser.addVariable(param, 0.0);
 			derivatives.add(parser.differentiate(function, param));
 		}
+
+		List<String> variables = new ArrayList<>(parameters);
+
+		variables.addAll(arguments);
+
+		try {
+			compiledFunction = CompiledExpression.compile(function, variables);
+			compiledDerivatives = new CompiledExpression[derivatives.size()];
+
+			for (int i = 0; i < derivatives.size(); i++) {
+				compiledDerivatives[i] = CompiledExpression.compile(
+						derivatives.get(i), variables);
+			}
+		} catch (UnsupportedOperationException e) {
+			compiledFunction = null;
+			compiledDerivatives = null;
+		}
+
+		targetArray = new double[targetValues.size()];
+
+		for (int i = 0; i < targetValues.size(); i++) {
+			targetArray[i] = targetValues.get(i);
+		}
+
+		argumentRows = toRows(argumentValues, targetValues.size());
 	}
 
 	public void optimize(AtomicInteger progress, int nParameterSpace,
 			int nLevenberg, boolean stopWhenSuccessful) {
-		List<Double> paramMin = new ArrayList<>();
-		List<Integer> paramStepCount = new ArrayList<>();
-		List<Double> paramStepSize = new ArrayList<>();
+		optimize(progress, nParameterSpace, nLevenberg, stopWhenSuccessful,
+				new AtomicBoolean(false));
+	}
+
+	/**
+	 * Searches the parameter space for the best nLevenberg start values and
+	 * runs the Levenberg-Marquardt optimizer from each of them. If the formula
+	 * could be compiled, the grid search and the optimizer runs are split into
+	 * fork/join tasks, which run in the pool of the calling thread or in the
+	 * common pool.
+	 * 
+	 * @throws CancellationException
+	 *             if canceled is set during the optimization
+	 */
+	public void optimize(AtomicInteger progress, int nParameterSpace,
+			int nLevenberg, boolean stopWhenSuccessful, AtomicBoolean canceled) {
+		int n = parameters.size();
+		double[] paramMin = new double[n];
+		int[] paramStepCount = new int[n];
+		double[] paramStepSize = new double[n];
 		int maxCounter = 1;
 		int paramsWithRange = 0;
 		int maxStepCount = 10;
 
-		for (int i = 0; i < parameters.size(); i++) {
+		for (int i = 0; i < n; i++) {
 			Double min = minParameterValues.get(i);
 			Double max = maxParameterValues.get(i);
 
@@ -133,73 +196,137 @@ public class ParameterOptimizer {
 			maxStepCount = Math.min(maxStepCount, 10);
 		}
 
-		for (int i = 0; i < parameters.size(); i++) {
+		for (int i = 0; i < n; i++) {
 			Double min = minParameterValues.get(i);
 			Double max = maxParameterValues.get(i);
 
 			if (min != null && max != null) {
-				paramMin.add(min);
-				paramStepCount.add(maxStepCount);
+				paramMin[i] = min;
+				paramStepCount[i] = maxStepCount;
 				maxCounter *= maxStepCount;
 
 				if (max > min) {
-					paramStepSize.add((max - min) / (maxStepCount - 1));
+					paramStepSize[i] = (max - min) / (maxStepCount - 1);
 				} else {
-					paramStepSize.add(1.0);
+					paramStepSize[i] = 1.0;
 				}
 			} else if (min != null) {
 				if (min != 0.0) {
-					paramMin.add(min);
+					paramMin[i] = min;
 				} else {
-					paramMin.add(MathUtilities.EPSILON);
+					paramMin[i] = MathUtilities.EPSILON;
 				}
 
-				paramStepCount.add(1);
-				paramStepSize.add(1.0);
+				paramStepCount[i] = 1;
+				paramStepSize[i] = 1.0;
 			} else if (max != null) {
 				if (max != 0.0) {
-					paramMin.add(max);
+					paramMin[i] = max;
 				} else {
-					paramMin.add(-MathUtilities.EPSILON);
+					paramMin[i] = -MathUtilities.EPSILON;
 				}
 
-				paramStepCount.add(1);
-				paramStepSize.add(1.0);
+				paramStepCount[i] = 1;
+				paramStepSize[i] = 1.0;
 			} else {
-				paramMin.add(MathUtilities.EPSILON);
-				paramStepCount.add(1);
-				paramStepSize.add(1.0);
+				paramMin[i] = MathUtilities.EPSILON;
+				paramStepCount[i] = 1;
+				paramStepSize[i] = 1.0;
 			}
 		}
 
-		List<List<Double>> bestValues = new ArrayList<>();
-		List<Double> bestError = new ArrayList<>();
+		Grid grid = new Grid(paramMin, paramStepCount, paramStepSize,
+				maxCounter);
+		BestPoints best;
+
+		if (compiledFunction != null) {
+			best = invoke(new GridSearchTask(grid, 0, maxCounter, nLevenberg,
+					progress, new AtomicInteger(0), canceled));
+		} else {
+			best = searchGrid(grid, nLevenberg, progress, canceled);
+		}
+
+		double[][] startValues = new double[nLevenberg][];
 
 		for (int i = 0; i < nLevenberg; i++) {
-			bestValues.add(new ArrayList<>(Collections.nCopies(
-					parameters.size(), i + 1.0)));
-			bestError.add(Double.POSITIVE_INFINITY);
+			if (i < best.size) {
+				startValues[i] = grid.getValues(best.indices[i]);
+			} else {
+				startValues[i] = new double[n];
+				Arrays.fill(startValues[i], i - best.size + 1.0);
+			}
 		}
 
-		List<Integer> paramStepIndex = new ArrayList<>(Collections.nCopies(
-				parameters.size(), 0));
-		boolean done = false;
-		int counter = 0;
+		LevenbergTask[] tasks = null;
 
-		while (!done) {
+		if (compiledFunction != null && !stopWhenSuccessful) {
+			tasks = new LevenbergTask[nLevenberg];
+
+			for (int i = 0; i < nLevenberg; i++) {
+				tasks[i] = new LevenbergTask(startValues[i], canceled);
+			}
+
+			LevenbergTask[] allTasks = tasks;
+
+			invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(allTasks)));
+		}
+
+		successful = false;
+
+		for (int i = 0; i < nLevenberg; i++) {
+			LeastSquaresOptimizer.Optimum optimum;
+
+			try {
+				if (tasks != null) {
+					optimum = tasks[i].getResult();
+				} else {
+					optimum = optimize(startValues[i], canceled);
+				}
+			} catch (CancellationException e) {
+				throw e;
+			} catch (TooManyEvaluationsException e) {
+				break;
+			} catch (ConvergenceException e) {
+				continue;
+			} catch (Exception e) {
+				e.printStackTrace();
+				continue;
+			}
+
+			double cost = optimum.getCost();
+
+			if (!successful || cost * cost < sse) {
+				useCurrentResults(optimum);
+
+				if (rSquare != 0.0) {
+					successful = true;
+
+					if (stopWhenSuccessful) {
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sequential grid search with the parser, which cannot be shared between
+	 * threads.
+	 */
+	private BestPoints searchGrid(Grid grid, int nLevenberg,
+			AtomicInteger progress, AtomicBoolean canceled) {
+		BestPoints best = new BestPoints(nLevenberg);
+
+		for (int counter = 0; counter < grid.size; counter++) {
+			checkCanceled(canceled);
 			progress.set(Float.floatToIntBits((float) counter
-					/ (float) maxCounter));
-			counter++;
+					/ (float) grid.size));
 
-			List<Double> values = new ArrayList<>();
+			double[] values = grid.getValues(counter);
 			double error = 0.0;
 
 			for (int i = 0; i < parameters.size(); i++) {
-				double value = paramMin.get(i) + paramStepIndex.get(i)
-						* paramStepSize.get(i);
-
-				values.add(value);
-				parser.setVarValue(parameters.get(i), value);
+				parser.setVarValue(parameters.get(i), values[i]);
 			}
 
 			for (int i = 0; i < targetValues.size(); i++) {
@@ -221,61 +348,37 @@ public class ParameterOptimizer {
 				}
 			}
 
-			for (int i = nLevenberg; i >= 0; i--) {
-				if (i == 0 || !(error < bestError.get(i - 1))) {
-					if (i != nLevenberg) {
-						bestError.add(i, error);
-						bestValues.add(i, values);
-						bestError.remove(nLevenberg);
-						bestValues.remove(nLevenberg);
-					}
-
-					break;
-				}
-			}
-
-			for (int i = 0;; i++) {
-				if (i >= parameters.size()) {
-					done = true;
-					break;
-				}
-
-				paramStepIndex.set(i, paramStepIndex.get(i) + 1);
-
-				if (paramStepIndex.get(i) >= paramStepCount.get(i)) {
-					paramStepIndex.set(i, 0);
-				} else {
-					break;
-				}
-			}
+			best.add(error, counter);
 		}
 
-		successful = false;
-
-		for (List<Double> startValues : bestValues) {
-			try {
-				optimize(startValues);
+		return best;
+	}
 
-				double cost = optimizerValues.getCost();
+	/**
+	 * Sum of squared errors of the compiled function. The parameter values
+	 * have to be set in the first entries of variableValues already.
+	 */
+	private double getCompiledError(double[] variableValues, double[] stack) {
+		double error = 0.0;
+		int parameterCount = parameters.size();
 
-				if (!successful || cost * cost < sse) {
-					useCurrentResults(startValues);
+		for (int i = 0; i < targetArray.length; i++) {
+			System.arraycopy(argumentRows[i], 0, variableValues,
+					parameterCount, argumentRows[i].length);
 
-					if (rSquare != 0.0) {
-						successful = true;
+			double value = compiledFunction.evaluate(variableValues, stack);
 
-						if (stopWhenSuccessful) {
-							break;
-						}
-					}
-				}
-			} catch (TooManyEvaluationsException e) {
-				break;
-			} catch (ConvergenceException e) {
-			} catch (Exception e) {
-				e.printStackTrace();
+			// complex results of the parser are NaN here
+			if (Double.isNaN(value)) {
+				return Double.POSITIVE_INFINITY;
 			}
+
+			double diff = targetArray[i] - value;
+
+			error += diff * diff;
 		}
+
+		return error;
 	}
 
 	public boolean isSuccessful() {
@@ -318,34 +421,36 @@ public class ParameterOptimizer {
 		return covariances;
 	}
 
-	private void optimize(List<Double> startValues) throws Exception {
-		double[] targets = new double[targetValues.size()];
-		double[] startValueArray = new double[startValues.size()];
-
-		for (int i = 0; i < targetValues.size(); i++) {
-			targets[i] = targetValues.get(i);
-		}
-
-		for (int i = 0; i < startValues.size(); i++) {
-			startValueArray[i] = startValues.get(i);
+	private LeastSquaresOptimizer.Optimum optimize(double[] startValues,
+			AtomicBoolean canceled) {
+		MultivariateVectorFunction optimizerFunction;
+		MultivariateMatrixFunction optimizerFunctionJacobian;
+
+		if (compiledFunction != null) {
+			optimizerFunction = new CompiledOptimizerFunction(compiledFunction,
+					parameters.size(), arguments.size(), argumentRows, canceled);
+			optimizerFunctionJacobian = new CompiledOptimizerFunctionJacobian(
+					compiledFunction, compiledDerivatives, arguments.size(),
+					argumentRows, canceled);
+		} else {
+			optimizerFunction = new OptimizerFunction(parser, function,
+					parameters, arguments, argumentValues, targetValues,
+					canceled);
+			optimizerFunctionJacobian = new OptimizerFunctionJacobian(parser,
+					function, parameters, derivatives, arguments,
+					argumentValues, targetValues, canceled);
 		}
 
-		OptimizerFunction optimizerFunction = new OptimizerFunction(parser,
-				function, parameters, arguments, argumentValues, targetValues);
-		OptimizerFunctionJacobian optimizerFunctionJacobian = new OptimizerFunctionJacobian(
-				parser, function, parameters, derivatives, arguments,
-				argumentValues, targetValues);
-
 		LeastSquaresBuilder builder = new LeastSquaresBuilder()
 				.model(optimizerFunction, optimizerFunctionJacobian)
 				.maxEvaluations(MAX_EVAL).maxIterations(MAX_EVAL)
-				.target(targets).start(startValueArray);
+				.target(targetArray).start(startValues);
 
-		optimizerValues = new LevenbergMarquardtOptimizer().optimize(builder
-				.build());
+		return new LevenbergMarquardtOptimizer().optimize(builder.build());
 	}
 
-	private void useCurrentResults(List<Double> startValues) {
+	private void useCurrentResults(
+			LeastSquaresOptimizer.Optimum optimizerValues) {
 		double cost = optimizerValues.getCost();
 
 		parameterValues = new ArrayList<>(parameters.size());
@@ -525,11 +630,14 @@ public class ParameterOptimizer {
 		private String[] arguments;
 		private double[][] argumentValues;
 		private double[] targetValues;
+		private AtomicBoolean canceled;
 
 		public OptimizerFunction(DJep parser, Node function,
 				List<String> parameters, List<String> arguments,
-				List<List<Double>> argumentValues, List<Double> targetValues) {
+				List<List<Double>> argumentValues, List<Double> targetValues,
+				AtomicBoolean canceled) {
 			this.parser = parser;
+			this.canceled = canceled;
 			this.function = function;
 			this.parameters = parameters.toArray(new String[0]);
 			this.arguments = arguments.toArray(new String[0]);
@@ -550,6 +658,8 @@ public class ParameterOptimizer {
 		public double[] value(double[] point) throws IllegalArgumentException {
 			double[] retValue = new double[targetValues.length];
 
+			checkCanceled(canceled);
+
 			for (int i = 0; i < parameters.length; i++) {
 				parser.setVarValue(parameters[i], point[i]);
 			}
@@ -586,14 +696,16 @@ public class ParameterOptimizer {
 		private String[] arguments;
 		private double[][] argumentValues;
 		private double[] targetValues;
+		private AtomicBoolean canceled;
 
 		private List<List<Integer>> changeLists;
 
 		public OptimizerFunctionJacobian(DJep parser, Node function,
 				List<String> parameters, List<Node> derivatives,
 				List<String> arguments, List<List<Double>> argumentValues,
-				List<Double> targetValues) {
+				List<Double> targetValues, AtomicBoolean canceled) {
 			this.parser = parser;
+			this.canceled = canceled;
 			this.function = function;
 			this.parameters = parameters.toArray(new String[0]);
 			this.derivatives = derivatives.toArray(new Node[0]);
@@ -617,6 +729,8 @@ public class ParameterOptimizer {
 		public double[][] value(double[] point) throws IllegalArgumentException {
 			double[][] retValue = new double[targetValues.length][parameters.length];
 
+			checkCanceled(canceled);
+
 			try {
 				for (int i = 0; i < targetValues.length; i++) {
 					for (int j = 0; j < derivatives.length; j++) {
@@ -681,61 +795,433 @@ public class ParameterOptimizer {
 		}
 
 		private List<List<Integer>> createChangeLists() {
-			int n = arguments.length;
-			boolean done = false;
-			List<List<Integer>> changeLists = new ArrayList<>();
-			List<Integer> list = new ArrayList<>(Collections.nCopies(n, -1));
+			return ParameterOptimizer.createChangeLists(arguments.length);
+		}
+	}
+
+	/**
+	 * Same as {@link OptimizerFunction} but evaluates a
+	 * {@link CompiledExpression} instead of the parser.
+	 */
+	private static class CompiledOptimizerFunction implements
+			MultivariateVectorFunction {
 
-			while (!done) {
-				changeLists.add(new ArrayList<>(list));
+		private CompiledExpression function;
+		private int parameterCount;
+		private double[][] argumentValues;
+		private double[] values;
+		private double[] stack;
+		private AtomicBoolean canceled;
 
-				for (int i = 0;; i++) {
-					if (i >= n) {
-						done = true;
-						break;
-					}
+		public CompiledOptimizerFunction(CompiledExpression function,
+				int parameterCount, int argumentCount,
+				double[][] argumentValues, AtomicBoolean canceled) {
+			this.function = function;
+			this.parameterCount = parameterCount;
+			this.argumentValues = argumentValues;
+			this.values = new double[parameterCount + argumentCount];
+			this.stack = function.createStack();
+			this.canceled = canceled;
+		}
+
+		@Override
+		public double[] value(double[] point) throws IllegalArgumentException {
+			double[] retValue = new double[argumentValues.length];
 
-					list.set(i, list.get(i) + 1);
+			checkCanceled(canceled);
+			System.arraycopy(point, 0, values, 0, parameterCount);
 
-					if (list.get(i) > 1) {
-						list.set(i, -1);
-					} else {
-						break;
-					}
+			for (int i = 0; i < argumentValues.length; i++) {
+				System.arraycopy(argumentValues[i], 0, values, parameterCount,
+						argumentValues[i].length);
+				retValue[i] = function.evaluate(values, stack);
+			}
+
+			return retValue;
+		}
+	}
+
+	/**
+	 * Same as {@link OptimizerFunctionJacobian} but evaluates
+	 * {@link CompiledExpression}s instead of the parser.
+	 */
+	private static class CompiledOptimizerFunctionJacobian implements
+			MultivariateMatrixFunction {
+
+		private CompiledExpression function;
+		private CompiledExpression[] derivatives;
+		private int argumentCount;
+		private double[][] argumentValues;
+		private double[] values;
+		private double[] stack;
+		private AtomicBoolean canceled;
+
+		private int[][] changeLists;
+
+		public CompiledOptimizerFunctionJacobian(CompiledExpression function,
+				CompiledExpression[] derivatives, int argumentCount,
+				double[][] argumentValues, AtomicBoolean canceled) {
+			this.function = function;
+			this.derivatives = derivatives;
+			this.argumentCount = argumentCount;
+			this.argumentValues = argumentValues;
+			this.canceled = canceled;
+			this.values = new double[derivatives.length + argumentCount];
+
+			int stackSize = function.createStack().length;
+
+			for (CompiledExpression derivative : derivatives) {
+				stackSize = Math.max(stackSize,
+						derivative.createStack().length);
+			}
+
+			this.stack = new double[stackSize];
+
+			List<List<Integer>> lists = createChangeLists(argumentCount);
+
+			changeLists = new int[lists.size()][argumentCount];
+
+			for (int i = 0; i < lists.size(); i++) {
+				for (int j = 0; j < argumentCount; j++) {
+					changeLists[i][j] = lists.get(i).get(j);
+				}
+			}
+		}
+
+		@Override
+		public double[][] value(double[] point) throws IllegalArgumentException {
+			double[][] retValue = new double[argumentValues.length][derivatives.length];
+
+			checkCanceled(canceled);
+
+			for (int i = 0; i < argumentValues.length; i++) {
+				for (int j = 0; j < derivatives.length; j++) {
+					retValue[i][j] = evalWithSingularityCheck(j,
+							argumentValues[i], point);
 				}
 			}
 
-			Collections.sort(changeLists, new Comparator<List<Integer>>() {
+			return retValue;
+		}
 
-				@Override
-				public int compare(List<Integer> l1, List<Integer> l2) {
-					int n1 = 0;
-					int n2 = 0;
+		private double evalWithSingularityCheck(int index, double[] argValues,
+				double[] paramValues) {
+			int parameterCount = derivatives.length;
 
-					for (int i : l1) {
-						if (i == 0) {
-							n1++;
-						}
-					}
+			System.arraycopy(paramValues, 0, values, 0, parameterCount);
+
+			for (int[] list : changeLists) {
+				for (int i = 0; i < argumentCount; i++) {
+					values[parameterCount + i] = argValues[i] + list[i]
+							* MathUtilities.EPSILON;
+				}
+
+				double number = derivatives[index].evaluate(values, stack);
+
+				if (!Double.isNaN(number)) {
+					return number;
+				}
+			}
+
+			for (int[] list : changeLists) {
+				for (int i = 0; i < argumentCount; i++) {
+					values[parameterCount + i] = argValues[i] + list[i]
+							* MathUtilities.EPSILON;
+				}
+
+				values[index] = paramValues[index] - MathUtilities.EPSILON;
+
+				double number1 = function.evaluate(values, stack);
+
+				values[index] = paramValues[index] + MathUtilities.EPSILON;
+
+				double number2 = function.evaluate(values, stack);
+
+				values[index] = paramValues[index];
+
+				if (!Double.isNaN(number1) && !Double.isNaN(number2)) {
+					return (number2 - number1) / (2 * MathUtilities.EPSILON);
+				}
+			}
+
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Regular grid over the parameter space. The grid point with a given index
+	 * is found by counting up the step index of the first parameter first, as
+	 * in a mixed radix number.
+	 */
+	private static class Grid {
+
+		private double[] paramMin;
+		private int[] paramStepCount;
+		private double[] paramStepSize;
+		private int size;
+
+		public Grid(double[] paramMin, int[] paramStepCount,
+				double[] paramStepSize, int size) {
+			this.paramMin = paramMin;
+			this.paramStepCount = paramStepCount;
+			this.paramStepSize = paramStepSize;
+			this.size = size;
+		}
+
+		public double[] getValues(int index) {
+			double[] values = new double[paramMin.length];
+
+			getValues(index, values);
+
+			return values;
+		}
+
+		public void getValues(int index, double[] values) {
+			int rest = index;
+
+			for (int i = 0; i < paramMin.length; i++) {
+				values[i] = paramMin[i] + rest % paramStepCount[i]
+						* paramStepSize[i];
+				rest /= paramStepCount[i];
+			}
+		}
+	}
+
+	/**
+	 * Grid points with the smallest errors, sorted by error and then by index.
+	 * Since the order does not depend on the order in which points are added,
+	 * partial results of the parallel grid search can be merged in any order
+	 * and give the same start values as a sequential search. Points with an
+	 * infinite or undefined error are never kept.
+	 */
+	private static class BestPoints {
+
+		private double[] errors;
+		private int[] indices;
+		private int size;
+
+		public BestPoints(int capacity) {
+			errors = new double[capacity];
+			indices = new int[capacity];
+			size = 0;
+		}
+
+		public void add(double error, int index) {
+			if (!(error < Double.POSITIVE_INFINITY)) {
+				return;
+			}
+
+			int i = size;
+
+			while (i > 0 && (error < errors[i - 1] || error == errors[i - 1]
+					&& index < indices[i - 1])) {
+				i--;
+			}
+
+			if (i >= errors.length) {
+				return;
+			}
+
+			int moved = Math.min(size, errors.length - 1) - i;
+
+			System.arraycopy(errors, i, errors, i + 1, moved);
+			System.arraycopy(indices, i, indices, i + 1, moved);
+			errors[i] = error;
+			indices[i] = index;
+			size = Math.min(size + 1, errors.length);
+		}
+
+		public void addAll(BestPoints other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.errors[i], other.indices[i]);
+			}
+		}
+	}
+
+	private class GridSearchTask extends RecursiveTask<BestPoints> {
+
+		private static final long serialVersionUID = 1L;
+
+		private Grid grid;
+		private int from;
+		private int to;
+		private int nLevenberg;
+		private AtomicInteger progress;
+		private AtomicInteger finished;
+		private AtomicBoolean canceled;
+
+		public GridSearchTask(Grid grid, int from, int to, int nLevenberg,
+				AtomicInteger progress, AtomicInteger finished,
+				AtomicBoolean canceled) {
+			this.grid = grid;
+			this.from = from;
+			this.to = to;
+			this.nLevenberg = nLevenberg;
+			this.progress = progress;
+			this.finished = finished;
+			this.canceled = canceled;
+		}
+
+		@Override
+		protected BestPoints compute() {
+			if (to - from > GRID_CHUNK_SIZE) {
+				int middle = (from + to) >>> 1;
+				GridSearchTask left = new GridSearchTask(grid, from, middle,
+						nLevenberg, progress, finished, canceled);
+				GridSearchTask right = new GridSearchTask(grid, middle, to,
+						nLevenberg, progress, finished, canceled);
+
+				left.fork();
+
+				BestPoints best = right.compute();
+
+				best.addAll(left.join());
 
-					for (int i : l2) {
-						if (i == 0) {
-							n2++;
-						}
+				return best;
+			}
+
+			checkCanceled(canceled);
+
+			BestPoints best = new BestPoints(nLevenberg);
+			double[] variableValues = new double[parameters.size()
+					+ arguments.size()];
+			double[] stack = compiledFunction.createStack();
+
+			for (int counter = from; counter < to; counter++) {
+				grid.getValues(counter, variableValues);
+				best.add(getCompiledError(variableValues, stack), counter);
+			}
+
+			progress.set(Float.floatToIntBits((float) finished
+					.addAndGet(to - from) / (float) grid.size));
+
+			return best;
+		}
+	}
+
+	/**
+	 * One Levenberg-Marquardt run. Exceptions are kept and rethrown by
+	 * {@link #getResult()}, so that the caller can handle them in the order of
+	 * the start values.
+	 */
+	private class LevenbergTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private double[] startValues;
+		private AtomicBoolean canceled;
+
+		private LeastSquaresOptimizer.Optimum result;
+		private RuntimeException exception;
+
+		public LevenbergTask(double[] startValues, AtomicBoolean canceled) {
+			this.startValues = startValues;
+			this.canceled = canceled;
+		}
+
+		@Override
+		protected void compute() {
+			try {
+				result = optimize(startValues, canceled);
+			} catch (RuntimeException e) {
+				exception = e;
+			}
+		}
+
+		public LeastSquaresOptimizer.Optimum getResult() {
+			if (exception != null) {
+				throw exception;
+			}
+
+			return result;
+		}
+	}
+
+	/**
+	 * Runs the task in the pool of the current thread, so that nested tasks
+	 * share the workers of the caller, or in the common pool otherwise.
+	 */
+	private static <T> T invoke(ForkJoinTask<T> task) {
+		if (ForkJoinTask.inForkJoinPool()) {
+			return task.invoke();
+		}
+
+		return ForkJoinPool.commonPool().invoke(task);
+	}
+
+	private static void checkCanceled(AtomicBoolean canceled) {
+		if (canceled.get()) {
+			throw new CancellationException();
+		}
+	}
+
+	private static double[][] toRows(List<List<Double>> argumentValues,
+			int n) {
+		double[][] rows = new double[n][argumentValues.size()];
+
+		for (int i = 0; i < n; i++) {
+			for (int j = 0; j < argumentValues.size(); j++) {
+				rows[i][j] = argumentValues.get(j).get(i);
+			}
+		}
+
+		return rows;
+	}
+
+	private static List<List<Integer>> createChangeLists(int n) {
+		boolean done = false;
+		List<List<Integer>> changeLists = new ArrayList<>();
+		List<Integer> list = new ArrayList<>(Collections.nCopies(n, -1));
+
+		while (!done) {
+			changeLists.add(new ArrayList<>(list));
+
+			for (int i = 0;; i++) {
+				if (i >= n) {
+					done = true;
+					break;
+				}
+
+				list.set(i, list.get(i) + 1);
+
+				if (list.get(i) > 1) {
+					list.set(i, -1);
+				} else {
+					break;
+				}
+			}
+		}
+
+		Collections.sort(changeLists, new Comparator<List<Integer>>() {
+
+			@Override
+			public int compare(List<Integer> l1, List<Integer> l2) {
+				int n1 = 0;
+				int n2 = 0;
+
+				for (int i : l1) {
+					if (i == 0) {
+						n1++;
 					}
+				}
 
-					if (n1 < n2) {
-						return 1;
-					} else if (n1 > n2) {
-						return -1;
-					} else {
-						return 0;
+				for (int i : l2) {
+					if (i == 0) {
+						n2++;
 					}
 				}
-			});
 
-			return changeLists;
-		}
+				if (n1 < n2) {
+					return 1;
+				} else if (n1 > n2) {
+					return -1;
+				} else {
+					return 0;
+				}
+			}
+		});
+
+		return changeLists;
 	}
 
 }
@@ -32,6 +32,23 @@ public interface Category {
 	public Double convert(Double value, String fromUnit, String toUnit)
 			throws ConvertException;
 
+	/**
+	 * Converts all values from fromUnit to toUnit. Values that cannot be
+	 * converted are {@link Double#NaN} in the result.
+	 */
+	public default double[] convert(double[] values, String fromUnit,
+			String toUnit) throws ConvertException {
+		double[] converted = new double[values.length];
+
+		for (int i = 0; i < values.length; i++) {
+			Double value = convert(values[i], fromUnit, toUnit);
+
+			converted[i] = value != null ? value : Double.NaN;
+		}
+
+		return converted;
+	}
+
 	public String getConversionString(String var, String fromUnit, String toUnit)
 			throws ConvertException;
 	
@@ -23,6 +23,8 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleUnaryOperator;
 
 import org.lsmp.djep.djep.DJep;
 import org.nfunk.jep.Node;
@@ -109,32 +111,38 @@ public class CategoryReader {
 			}
 		}
 
-		return new DBCategory(categoryName, standardUnit, fromFormulas, toFormulas, fromFormulaStrings,
-				toFormulaStrings, sbmlStrings, parser);
+		Map<String, DoubleUnaryOperator> fromConversions = new LinkedHashMap<>();
+		Map<String, DoubleUnaryOperator> toConversions = new LinkedHashMap<>();
+
+		fromFormulas.forEach((unit, formula) -> fromConversions.put(unit, UnitConversion.compile(formula, parser)));
+		toFormulas.forEach((unit, formula) -> toConversions.put(unit, UnitConversion.compile(formula, parser)));
+
+		return new DBCategory(categoryName, standardUnit, fromConversions, toConversions, fromFormulaStrings,
+				toFormulaStrings, sbmlStrings);
 	}
 
 	private static class DBCategory implements Category {
 
 		private String name;
 		private String standardUnit;
-		private Map<String, Node> fromFormulas;
-		private Map<String, Node> toFormulas;
+		private Map<String, DoubleUnaryOperator> fromConversions;
+		private Map<String, DoubleUnaryOperator> toConversions;
 		private Map<String, String> fromFormulaStrings;
 		private Map<String, String> toFormulaStrings;
 		private Map<String, String> sbmlStrings;
-		private DJep parser;
+		private Map<String, Map<String, DoubleUnaryOperator>> conversions;
 
-		public DBCategory(String name, String standardUnit, Map<String, Node> fromFormulas,
-				Map<String, Node> toFormulas, Map<String, String> fromFormulaStrings,
-				Map<String, String> toFormulaStrings, Map<String, String> sbmlStrings, DJep parser) {
+		public DBCategory(String name, String standardUnit, Map<String, DoubleUnaryOperator> fromConversions,
+				Map<String, DoubleUnaryOperator> toConversions, Map<String, String> fromFormulaStrings,
+				Map<String, String> toFormulaStrings, Map<String, String> sbmlStrings) {
 			this.name = name;
 			this.standardUnit = standardUnit;
-			this.fromFormulas = fromFormulas;
-			this.toFormulas = toFormulas;
+			this.fromConversions = fromConversions;
+			this.toConversions = toConversions;
 			this.fromFormulaStrings = fromFormulaStrings;
 			this.toFormulaStrings = toFormulaStrings;
 			this.sbmlStrings = sbmlStrings;
-			this.parser = parser;
+			conversions = new ConcurrentHashMap<>();
 		}
 
 		@Override
@@ -149,11 +157,11 @@ public class CategoryReader {
 
 		@Override
 		public List<String> getAllUnits() {
-			return new ArrayList<>(fromFormulas.keySet());
+			return new ArrayList<>(fromConversions.keySet());
 		}
 
 		@Override
-		public synchronized Double convert(Double value, String fromUnit, String toUnit) throws ConvertException {
+		public Double convert(Double value, String fromUnit, String toUnit) throws ConvertException {
 			if (fromUnit != null && fromUnit.equals(toUnit)) {
 				return value;
 			}
@@ -162,12 +170,23 @@ public class CategoryReader {
 				return null;
 			}
 
-			if (fromUnit == null || toUnit == null || fromFormulas.get(fromUnit) == null
-					|| toFormulas.get(toUnit) == null) {
-				throw new ConvertException(fromUnit, toUnit);
+			return getConversion(fromUnit, toUnit).applyAsDouble(value);
+		}
+
+		@Override
+		public double[] convert(double[] values, String fromUnit, String toUnit) throws ConvertException {
+			if (fromUnit != null && fromUnit.equals(toUnit)) {
+				return values.clone();
 			}
 
-			return apply(apply(value, fromFormulas.get(fromUnit)), toFormulas.get(toUnit));
+			DoubleUnaryOperator conversion = getConversion(fromUnit, toUnit);
+			double[] converted = new double[values.length];
+
+			for (int i = 0; i < values.length; i++) {
+				converted[i] = conversion.applyAsDouble(values[i]);
+			}
+
+			return converted;
 		}
 
 		@Override
@@ -185,15 +204,14 @@ public class CategoryReader {
 			return to;
 		}
 
-		private Double apply(Double value, Node formula) {
-			parser.setVarValue("x", value);
-
-			try {
-				return (Double) parser.evaluate(formula);
-			} catch (ParseException e) {
-				e.printStackTrace();
-				return null;
+		private DoubleUnaryOperator getConversion(String fromUnit, String toUnit) throws ConvertException {
+			if (fromUnit == null || toUnit == null || fromConversions.get(fromUnit) == null
+					|| toConversions.get(toUnit) == null) {
+				throw new ConvertException(fromUnit, toUnit);
 			}
+
+			return conversions.computeIfAbsent(fromUnit, unit -> new ConcurrentHashMap<>()).computeIfAbsent(toUnit,
+					unit -> UnitConversion.compose(fromConversions.get(fromUnit), toConversions.get(toUnit)));
 		}
 
 		@Override
@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.common.units;
+
+import java.util.Collections;
+import java.util.function.DoubleUnaryOperator;
+
+import org.lsmp.djep.djep.DJep;
+import org.nfunk.jep.ASTConstant;
+import org.nfunk.jep.ASTFunNode;
+import org.nfunk.jep.ASTVarNode;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+import org.nfunk.jep.Variable;
+
+import de.bund.bfr.knime.pmm.common.math.CompiledExpression;
+
+/**
+ * Thread safe conversion function of a unit, compiled from a conversion formula
+ * in the variable x.
+ * <p>
+ * Formulas of the form a*f(b*x+c)+d, where f is the identity, ln, log10, exp or
+ * a power of a constant base, are evaluated in closed form. This covers the
+ * linear, affine and logarithmic conversions in the units table. Other formulas
+ * are evaluated with a {@link CompiledExpression}, or with the parser if they
+ * cannot be compiled.
+ */
+final class UnitConversion implements DoubleUnaryOperator {
+
+	private static final String VARIABLE = "x";
+
+	private static final int IDENTITY = 0;
+	private static final int LN = 1;
+	private static final int LOG10 = 2;
+	private static final int EXP = 3;
+	private static final int POW = 4;
+
+	private final double slope;
+	private final double intercept;
+	private final int function;
+	private final double base;
+	private final double innerSlope;
+	private final double innerIntercept;
+
+	private UnitConversion(double slope, double intercept) {
+		this(slope, intercept, IDENTITY, Double.NaN, 1.0, 0.0);
+	}
+
+	private UnitConversion(double slope, double intercept, int function,
+			double base, double innerSlope, double innerIntercept) {
+		this.slope = slope;
+		this.intercept = intercept;
+		this.function = function;
+		this.base = base;
+		this.innerSlope = innerSlope;
+		this.innerIntercept = innerIntercept;
+	}
+
+	/**
+	 * @param formula
+	 *            conversion formula in the variable x
+	 * @param parser
+	 *            parser that created the formula. It is only used if the
+	 *            formula can neither be evaluated in closed form nor be
+	 *            compiled.
+	 */
+	static DoubleUnaryOperator compile(Node formula, DJep parser) {
+		UnitConversion conversion = analyze(formula);
+
+		if (conversion != null) {
+			return conversion;
+		}
+
+		try {
+			CompiledExpression expression = CompiledExpression.compile(formula,
+					Collections.singletonList(VARIABLE));
+			ThreadLocal<double[]> stack = ThreadLocal
+					.withInitial(expression::createStack);
+
+			return x -> expression.evaluate(new double[] { x }, stack.get());
+		} catch (UnsupportedOperationException e) {
+			return x -> {
+				synchronized (parser) {
+					parser.setVarValue(VARIABLE, x);
+
+					try {
+						Object value = parser.evaluate(formula);
+
+						return value instanceof Double ? (Double) value
+								: Double.NaN;
+					} catch (ParseException ex) {
+						ex.printStackTrace();
+						return Double.NaN;
+					}
+				}
+			};
+		}
+	}
+
+	/**
+	 * @return conversion that applies first and then second. Two affine
+	 *         conversions are combined into one.
+	 */
+	static DoubleUnaryOperator compose(DoubleUnaryOperator first,
+			DoubleUnaryOperator second) {
+		if (first instanceof UnitConversion && second instanceof UnitConversion) {
+			UnitConversion f = (UnitConversion) first;
+			UnitConversion s = (UnitConversion) second;
+
+			if (f.function == IDENTITY && s.function == IDENTITY) {
+				return new UnitConversion(s.slope * f.slope, s.slope
+						* f.intercept + s.intercept);
+			}
+		}
+
+		return first.andThen(second);
+	}
+
+	@Override
+	public double applyAsDouble(double x) {
+		double y = innerSlope * x + innerIntercept;
+
+		switch (function) {
+		case LN:
+			y = Math.log(y);
+			break;
+		case LOG10:
+			y = Math.log10(y);
+			break;
+		case EXP:
+			y = Math.exp(y);
+			break;
+		case POW:
+			y = Math.pow(base, y);
+			break;
+		default:
+			break;
+		}
+
+		return slope * y + intercept;
+	}
+
+	private boolean isConstant() {
+		return slope == 0.0;
+	}
+
+	private boolean isAffine() {
+		return function == IDENTITY;
+	}
+
+	private UnitConversion scale(double factor) {
+		return new UnitConversion(slope * factor, intercept * factor, function,
+				base, innerSlope, innerIntercept);
+	}
+
+	private UnitConversion add(UnitConversion c) {
+		if (c.isConstant()) {
+			return new UnitConversion(slope, intercept + c.intercept, function,
+					base, innerSlope, innerIntercept);
+		} else if (isConstant()) {
+			return c.add(this);
+		} else if (isAffine() && c.isAffine()) {
+			return new UnitConversion(slope + c.slope, intercept + c.intercept);
+		}
+
+		return null;
+	}
+
+	private UnitConversion apply(int f, double b) {
+		if (!isAffine()) {
+			return null;
+		}
+
+		UnitConversion result = new UnitConversion(1.0, 0.0, f, b, slope,
+				intercept);
+
+		if (isConstant()) {
+			return new UnitConversion(0.0, result.applyAsDouble(0.0));
+		}
+
+		return result;
+	}
+
+	private static UnitConversion analyze(Node node) {
+		if (node instanceof ASTConstant) {
+			Object value = ((ASTConstant) node).getValue();
+
+			return value instanceof Double ? new UnitConversion(0.0,
+					(Double) value) : null;
+		} else if (node instanceof ASTVarNode) {
+			if (((ASTVarNode) node).getName().equals(VARIABLE)) {
+				return new UnitConversion(1.0, 0.0);
+			}
+
+			Variable var = ((ASTVarNode) node).getVar();
+
+			return var != null && var.isConstant()
+					&& var.getValue() instanceof Double ? new UnitConversion(
+					0.0, (Double) var.getValue()) : null;
+		} else if (!(node instanceof ASTFunNode)) {
+			return null;
+		}
+
+		String name = ((ASTFunNode) node).getName();
+		int n = node.jjtGetNumChildren();
+		UnitConversion[] args = new UnitConversion[n];
+
+		for (int i = 0; i < n; i++) {
+			args[i] = analyze(node.jjtGetChild(i));
+
+			if (args[i] == null) {
+				return null;
+			}
+		}
+
+		if (n == 1) {
+			switch (name) {
+			case "UMinus":
+				return args[0].scale(-1.0);
+			case "ln":
+				return args[0].apply(LN, Double.NaN);
+			case "log":
+			case "log10":
+				return args[0].apply(LOG10, Double.NaN);
+			case "exp":
+				return args[0].apply(EXP, Double.NaN);
+			default:
+				return null;
+			}
+		}
+
+		UnitConversion result = args[0];
+
+		for (int i = 1; i < n && result != null; i++) {
+			UnitConversion arg = args[i];
+
+			switch (name) {
+			case "+":
+				result = result.add(arg);
+				break;
+			case "-":
+				result = result.add(arg.scale(-1.0));
+				break;
+			case "*":
+				if (arg.isConstant()) {
+					result = result.scale(arg.intercept);
+				} else if (result.isConstant()) {
+					result = arg.scale(result.intercept);
+				} else {
+					result = null;
+				}
+				break;
+			case "/":
+				result = arg.isConstant() ? result.scale(1.0 / arg.intercept)
+						: null;
+				break;
+			case "^":
+				if (result.isConstant() && arg.isConstant()) {
+					result = new UnitConversion(0.0, Math.pow(result.intercept,
+							arg.intercept));
+				} else if (result.isConstant() && result.intercept > 0.0) {
+					result = arg.apply(POW, result.intercept);
+				} else {
+					result = null;
+				}
+				break;
+			default:
+				result = null;
+				break;
+			}
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,160 @@
+package de.bund.bfr.knime.pmm.predictorview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.bund.bfr.knime.pmm.common.CatalogModelXml;
+import de.bund.bfr.knime.pmm.common.DepXml;
+import de.bund.bfr.knime.pmm.common.EstModelXml;
+import de.bund.bfr.knime.pmm.common.IndepXml;
+import de.bund.bfr.knime.pmm.common.ParamXml;
+import de.bund.bfr.knime.pmm.common.PmmXmlDoc;
+import de.bund.bfr.knime.pmm.common.chart.ChartConstants;
+import de.bund.bfr.knime.pmm.common.chart.Plotable;
+import de.bund.bfr.knime.pmm.common.generictablemodel.KnimeTuple;
+import de.bund.bfr.knime.pmm.common.pmmtablemodel.AttributeUtilities;
+import de.bund.bfr.knime.pmm.common.pmmtablemodel.Model1Schema;
+import de.bund.bfr.knime.pmm.common.pmmtablemodel.SchemaFactory;
+import de.bund.bfr.knime.pmm.common.units.Categories;
+
+public class PredictionEngineTest {
+
+	private static final String TIME_CATEGORY = Categories.getTime();
+	private static final String TIME_UNIT = Categories.getTimeCategory().getStandardUnit();
+	private static final String CONCENTRATION_CATEGORY = "Number Content (count/mass)";
+	private static final String CONCENTRATION_UNIT = Categories.getCategory(CONCENTRATION_CATEGORY)
+			.getStandardUnit();
+
+	private static final double MIN_X = 0.0;
+	private static final double MAX_X = 48.0;
+
+	private static final String LINEAR = "Value=y0+mu*Time";
+	private static final String GOMPERTZ = "Value=y0+(ymax-y0)*exp(-exp(mu*exp(1)/(ymax-y0)*(lambda-Time)+1))";
+
+	@Test
+	public void testGetConcentrations_linear() throws Exception {
+		assertSameConcentrations(LINEAR, new ParamXml("y0", null, 2.0), new ParamXml("mu", null, 0.5));
+	}
+
+	@Test
+	public void testGetConcentrations_gompertz() throws Exception {
+		assertSameConcentrations(GOMPERTZ, new ParamXml("y0", null, 2.0), new ParamXml("ymax", null, 9.0),
+				new ParamXml("mu", null, 0.4), new ParamXml("lambda", null, 5.0));
+	}
+
+	@Test
+	public void testGetTimes_linear() throws Exception {
+		assertSameTimes(LINEAR, new double[] { 2.0, 5.5, 13.0, 26.0 }, new ParamXml("y0", null, 2.0),
+				new ParamXml("mu", null, 0.5));
+	}
+
+	@Test
+	public void testGetTimes_gompertz() throws Exception {
+		assertSameTimes(GOMPERTZ, new double[] { 2.5, 4.0, 6.0, 8.5 }, new ParamXml("y0", null, 2.0),
+				new ParamXml("ymax", null, 9.0), new ParamXml("mu", null, 0.4), new ParamXml("lambda", null, 5.0));
+	}
+
+	@Test
+	public void testGetConcentrations_outsideOfTimeRange() throws Exception {
+		PredictionEngine engine = createEngine(LINEAR, new ParamXml("y0", null, 2.0), new ParamXml("mu", null, 0.5));
+
+		// like the sample table of the dialog, times outside of minX and maxX are
+		// evaluated
+		assertArrayEquals(new double[] { 1.5, 52.0 }, engine.getConcentrations(new double[] { -1.0, 100.0 }), 1e-9);
+	}
+
+	@Test
+	public void testGetTimes_outsideOfTimeRange() throws Exception {
+		PredictionEngine engine = createEngine(LINEAR, new ParamXml("y0", null, 2.0), new ParamXml("mu", null, 0.5));
+
+		// the time range is extended in steps of 50 if the time is not found in
+		// minX to maxX
+		assertEquals(100.0, engine.getTimes(new double[] { 52.0 })[0], 1e-4);
+		assertTrue(Double.isNaN(engine.getTimes(new double[] { 1000.0 })[0]));
+		assertTrue(Double.isNaN(engine.getTimes(new double[] { Double.NaN })[0]));
+	}
+
+	private static void assertSameConcentrations(String formula, ParamXml... params) throws Exception {
+		PredictionEngine engine = createEngine(formula, params);
+		double[] times = { 0.0, 1.0, 2.5, 5.0, 10.0, 24.0, 48.0 };
+		Plotable plotable = getPlotable(engine);
+
+		plotable.setSamples(toList(times));
+
+		double[][] points = plotable.getFunctionSamplePoints(AttributeUtilities.TIME,
+				AttributeUtilities.CONCENTRATION, TIME_UNIT, CONCENTRATION_UNIT, ChartConstants.NO_TRANSFORM,
+				ChartConstants.NO_TRANSFORM, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, null);
+
+		assertArrayEquals(points[1], engine.getConcentrations(times), 1e-9);
+	}
+
+	private static void assertSameTimes(String formula, double[] concentrations, ParamXml... params)
+			throws Exception {
+		PredictionEngine engine = createEngine(formula, params);
+		Plotable plotable = getPlotable(engine);
+
+		plotable.setSamples(toList(concentrations));
+
+		double[][] points = plotable.getInverseFunctionSamplePoints(AttributeUtilities.TIME,
+				AttributeUtilities.CONCENTRATION, TIME_UNIT, CONCENTRATION_UNIT, ChartConstants.NO_TRANSFORM,
+				ChartConstants.NO_TRANSFORM, MIN_X, MAX_X, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+				null);
+
+		assertArrayEquals(points[0], engine.getTimes(concentrations), 1e-9);
+	}
+
+	private static PredictionEngine createEngine(String formula, ParamXml... params) throws Exception {
+		KnimeTuple tuple = new KnimeTuple(SchemaFactory.createM1Schema());
+		PmmXmlDoc paramXml = new PmmXmlDoc();
+
+		for (ParamXml param : params) {
+			paramXml.add(param);
+		}
+
+		tuple.setValue(Model1Schema.ATT_MODELCATALOG, new PmmXmlDoc(new CatalogModelXml(1, "model", formula, 1)));
+		tuple.setValue(Model1Schema.ATT_DEPENDENT, new PmmXmlDoc(
+				new DepXml(AttributeUtilities.CONCENTRATION, CONCENTRATION_CATEGORY, CONCENTRATION_UNIT)));
+		tuple.setValue(Model1Schema.ATT_INDEPENDENT, new PmmXmlDoc(
+				new IndepXml(AttributeUtilities.TIME, MIN_X, MAX_X, TIME_CATEGORY, TIME_UNIT)));
+		tuple.setValue(Model1Schema.ATT_PARAMETER, paramXml);
+		tuple.setValue(Model1Schema.ATT_ESTMODEL,
+				new PmmXmlDoc(new EstModelXml(2, "estimated model", null, null, null, null, null, null)));
+		tuple.setValue(Model1Schema.ATT_EMLIT, new PmmXmlDoc());
+
+		SettingsHelper set = new SettingsHelper();
+
+		set.setSelectedIDs(Arrays.asList("2"));
+		set.setUnitX(TIME_UNIT);
+		set.setUnitY(CONCENTRATION_UNIT);
+		set.setMinX(MIN_X);
+		set.setMaxX(MAX_X);
+
+		PredictionEngine engine = new PredictionEngine(Arrays.asList(tuple), set);
+
+		engine.setParamXValues(Collections.emptyMap());
+
+		return engine;
+	}
+
+	private static Plotable getPlotable(PredictionEngine engine) {
+		return engine.getReader().getPlotables().get("2");
+	}
+
+	private static List<Double> toList(double[] values) {
+		Double[] list = new Double[values.length];
+
+		for (int i = 0; i < values.length; i++) {
+			list[i] = values[i];
+		}
+
+		return Arrays.asList(list);
+	}
+}
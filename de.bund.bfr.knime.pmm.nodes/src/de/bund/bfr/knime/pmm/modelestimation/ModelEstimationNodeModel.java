@@ -26,6 +26,10 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.data.DataTableSpec;
@@ -60,7 +64,12 @@ public class ModelEstimationNodeModel extends NodeModel {
 	protected static final String PRIMARY = "Primary";
 	protected static final String SECONDARY = "Secondary";
 
-	private static final int MAX_THREADS = 8;
+	/**
+	 * Pool of the primary estimation, shared by all nodes, so that nodes
+	 * executed in parallel do not use more threads than there are cores.
+	 */
+	private static final ForkJoinPool ESTIMATION_POOL = new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors());
 
 	private KnimeSchema schema;
 	private KnimeSchema outSchema;
@@ -266,13 +275,13 @@ public class ModelEstimationNodeModel extends NodeModel {
 
 	private BufferedDataTable doPrimaryEstimation(BufferedDataTable table,
 			ExecutionContext exec) throws CanceledExecutionException,
-			InterruptedException {
+			InterruptedException, ExecutionException {
 		BufferedDataContainer container = exec.createDataContainer(outSchema
 				.createSpec());
 		KnimeRelationReader reader = new KnimeRelationReader(schema, table);
 		long n = table.size();
 		List<KnimeTuple> tuples = new ArrayList<>((int) n);
-		AtomicInteger runningThreads = new AtomicInteger(0);
+		AtomicBoolean canceled = new AtomicBoolean(false);
 		AtomicInteger finishedThreads = new AtomicInteger(0);
 		Map<String, Map<String, Point2D.Double>> parameterGuesses;
 		int nParameterSpace;
@@ -295,37 +304,48 @@ public class ModelEstimationNodeModel extends NodeModel {
 			tuples.add(reader.nextElement());
 		}
 
-		for (KnimeTuple tuple : tuples) {
+		// The grid search and the Levenberg-Marquardt runs of each tuple are
+		// forked into the same pool, so idle workers steal them when there are
+		// fewer tuples than cores.
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(tuples.size());
+
+		try {
+			for (KnimeTuple tuple : tuples) {
+				tasks.add(ESTIMATION_POOL.submit(new PrimaryEstimationThread(tuple,
+						parameterGuesses, set.isEnforceLimits(),
+						nParameterSpace, nLevenberg, stopWhenSuccessful,
+						canceled, finishedThreads)));
+			}
+
+			// poll for cancellation until all tasks are done or one failed
 			while (true) {
 				exec.checkCanceled();
 				exec.setProgress((double) finishedThreads.get() / (double) n,
 						"");
 
-				if (runningThreads.get() < MAX_THREADS) {
+				if (tasks.stream().allMatch(ForkJoinTask::isDone)
+						|| tasks.stream().anyMatch(
+								ForkJoinTask::isCompletedAbnormally)) {
 					break;
 				}
 
 				Thread.sleep(100);
 			}
 
-			Thread thread = new Thread(new PrimaryEstimationThread(tuple,
-					parameterGuesses, set.isEnforceLimits(), nParameterSpace,
-					nLevenberg, stopWhenSuccessful, runningThreads,
-					finishedThreads));
-
-			runningThreads.incrementAndGet();
-			thread.start();
-		}
-
-		while (true) {
-			exec.checkCanceled();
-			exec.setProgress((double) finishedThreads.get() / (double) n, "");
-
-			if (runningThreads.get() == 0) {
-				break;
+			// rethrows the exception of a failed task
+			for (ForkJoinTask<?> task : tasks) {
+				if (task.isCompletedAbnormally()) {
+					task.get();
+				}
 			}
+		} finally {
+			// stops tasks that are still running if the node was canceled or
+			// one of the tasks failed
+			canceled.set(true);
 
-			Thread.sleep(100);
+			for (ForkJoinTask<?> task : tasks) {
+				task.cancel(false);
+			}
 		}
 
 		for (KnimeTuple tuple : tuples) {
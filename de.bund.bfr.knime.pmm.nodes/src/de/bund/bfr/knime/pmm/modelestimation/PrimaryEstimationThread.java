@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.nfunk.jep.ParseException;
@@ -56,13 +57,13 @@ public class PrimaryEstimationThread implements Runnable {
 	private int nLevenberg;
 	private boolean stopWhenSuccessful;
 
-	private AtomicInteger runningThreads;
+	private AtomicBoolean canceled;
 	private AtomicInteger finishedThreads;
 
 	public PrimaryEstimationThread(KnimeTuple tuple,
 			Map<String, Map<String, Point2D.Double>> parameterGuesses,
 			boolean enforceLimits, int nParameterSpace, int nLevenberg,
-			boolean stopWhenSuccessful, AtomicInteger runningThreads,
+			boolean stopWhenSuccessful, AtomicBoolean canceled,
 			AtomicInteger finishedThreads) {
 		this.tuple = tuple;
 		this.parameterGuesses = parameterGuesses;
@@ -70,7 +71,7 @@ public class PrimaryEstimationThread implements Runnable {
 		this.nParameterSpace = nParameterSpace;
 		this.nLevenberg = nLevenberg;
 		this.stopWhenSuccessful = stopWhenSuccessful;
-		this.runningThreads = runningThreads;
+		this.canceled = canceled;
 		this.finishedThreads = finishedThreads;
 	}
 
@@ -169,7 +170,7 @@ public class PrimaryEstimationThread implements Runnable {
 						maxGuessValues, targetValues, arguments,
 						argumentValues, enforceLimits);
 				optimizer.optimize(new AtomicInteger(), nParameterSpace,
-						nLevenberg, stopWhenSuccessful);
+						nLevenberg, stopWhenSuccessful, canceled);
 				successful = optimizer.isSuccessful();
 			}
 
@@ -220,10 +221,10 @@ public class PrimaryEstimationThread implements Runnable {
 			tuple.setValue(Model1Schema.ATT_PARAMETER, paramXml);
 			tuple.setValue(Model1Schema.ATT_INDEPENDENT, indepXml);
 			tuple.setValue(Model1Schema.ATT_ESTMODEL, estModelXml);
-			runningThreads.decrementAndGet();
-			finishedThreads.incrementAndGet();
 		} catch (ParseException e) {
 			e.printStackTrace();
+		} finally {
+			finishedThreads.incrementAndGet();
 		}
 	}
 
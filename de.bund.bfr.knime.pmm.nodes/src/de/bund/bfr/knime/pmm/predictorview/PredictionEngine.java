@@ -0,0 +1,371 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package de.bund.bfr.knime.pmm.predictorview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.lsmp.djep.djep.DJep;
+import org.nfunk.jep.Node;
+import org.nfunk.jep.ParseException;
+
+import de.bund.bfr.knime.pmm.common.chart.Plotable;
+import de.bund.bfr.knime.pmm.common.generictablemodel.KnimeTuple;
+import de.bund.bfr.knime.pmm.common.math.CompiledExpression;
+import de.bund.bfr.knime.pmm.common.math.MathUtilities;
+import de.bund.bfr.knime.pmm.common.pmmtablemodel.AttributeUtilities;
+import de.bund.bfr.knime.pmm.common.units.ConvertException;
+
+/**
+ * Computes predictions for the models selected in a {@link SettingsHelper}
+ * without creating the components of the {@link PredictorViewNodeDialog}.
+ * <p>
+ * The results are the same as the ones shown in the sample table of the
+ * dialog: Concentrations are computed for the first selected model, times are
+ * computed with the same bisection as
+ * {@link Plotable#getInverseFunctionSamplePoints}. The model formula is parsed
+ * once and compiled to a {@link CompiledExpression} whenever possible.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class PredictionEngine {
+
+	private static final double EPSILON = 1e-5;
+	private static final int RANGE_EXTENSIONS = 10;
+	private static final double RANGE_EXTENSION = 50.0;
+
+	private SettingsHelper set;
+	private TableReader reader;
+	private List<String> selectedIds;
+	private Plotable plotable;
+	private String unitX;
+	private String unitY;
+	private String transformX;
+	private String transformY;
+	private double minX;
+	private double maxX;
+
+	private DJep parser;
+	private Node function;
+	private CompiledExpression expression;
+	private List<String> arguments;
+	private int timeIndex;
+	private double[] values;
+	private double[] stack;
+
+	private Set<String> warnings;
+
+	public PredictionEngine(List<KnimeTuple> tuples, SettingsHelper set)
+			throws ConvertException {
+		this.set = set;
+		reader = new TableReader(tuples, set.getNewConcentrationParameters(),
+				set.getNewLagParameters(), false);
+		selectedIds = new ArrayList<>();
+		warnings = new LinkedHashSet<>();
+
+		for (String id : reader.getIds()) {
+			if (set.getSelectedIDs().contains(id)
+					&& reader.getPlotables().get(id) != null) {
+				selectedIds.add(id);
+			}
+		}
+
+		unitX = set.getUnitX() != null ? set.getUnitX() : reader.getUnits()
+				.get(AttributeUtilities.TIME);
+		unitY = set.getUnitY() != null ? set.getUnitY() : reader.getUnits()
+				.get(AttributeUtilities.CONCENTRATION);
+		transformX = set.getTransformX();
+		transformY = set.getTransformY();
+		minX = set.getMinX();
+		maxX = set.getMaxX();
+
+		if (!selectedIds.isEmpty()) {
+			plotable = reader.getPlotables().get(selectedIds.get(0));
+			parseFunction();
+		}
+	}
+
+	public TableReader getReader() {
+		return reader;
+	}
+
+	public List<String> getWarnings() {
+		return new ArrayList<>(warnings);
+	}
+
+	/**
+	 * Sets the values of the model arguments other than time. Arguments that
+	 * are not contained in paramXValues are set to 0, like empty fields in the
+	 * dialog.
+	 * 
+	 * @param paramXValues
+	 *            argument values in the units of {@link #getReader()}
+	 */
+	public void setParamXValues(Map<String, Double> paramXValues)
+			throws ConvertException {
+		Set<String> nonVariables = new LinkedHashSet<>();
+
+		nonVariables.addAll(set.getConcentrationParameters().values());
+		nonVariables.addAll(set.getLagParameters().values());
+		nonVariables.add(AttributeUtilities.TIME);
+
+		for (String id : selectedIds) {
+			Plotable p = reader.getPlotables().get(id);
+			Map<String, List<Double>> paramsX = new LinkedHashMap<>();
+
+			for (String arg : p.getFunctionArguments().keySet()) {
+				Double value = paramXValues.get(arg);
+
+				if (arg.equals(AttributeUtilities.TIME) || value == null) {
+					value = 0.0;
+				}
+
+				paramsX.put(arg, Arrays.asList(value));
+			}
+
+			Map<String, List<Double>> converted = PredictorViewNodeModel
+					.convertToUnits(paramsX, reader.getUnits(), p.getUnits());
+
+			for (String param : converted.keySet()) {
+				if (!nonVariables.contains(param)) {
+					double value = converted.get(param).get(0);
+					Double min = p.getMinArguments().get(param);
+					Double max = p.getMaxArguments().get(param);
+					String unit = p.getUnits().get(param);
+
+					if ((min != null && value < min)
+							|| (max != null && value > max)) {
+						warnings.add(param + " of " + value + " " + unit
+								+ " is not in range of model " + min + " "
+								+ unit + " to " + max + " " + unit);
+					}
+				}
+			}
+
+			p.setFunctionArguments(converted);
+
+			if (p == plotable && function != null) {
+				for (int i = 0; i < arguments.size(); i++) {
+					values[i] = converted.get(arguments.get(i)).get(0);
+					parser.setVarValue(arguments.get(i), values[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes the concentrations at the given times. Unlike
+	 * {@link #getTimes(double[])}, the time range of the settings is not
+	 * applied: The sample table of the dialog also evaluates times outside of
+	 * the range, which only limits the search interval of the inverse.
+	 * 
+	 * @param times
+	 *            times in the x unit and transform of the settings
+	 * @return concentrations in the y unit and transform of the settings,
+	 *         {@link Double#NaN} where the model cannot be evaluated
+	 */
+	public double[] getConcentrations(double[] times) throws ConvertException {
+		double[] concentrations = new double[times.length];
+
+		for (int i = 0; i < times.length; i++) {
+			double value = evaluate(times[i]);
+
+			if (!isInRange(value)) {
+				concentrations[i] = Double.NaN;
+				continue;
+			}
+
+			Double y = Plotable.transform(plotable.convertToUnit(
+					AttributeUtilities.CONCENTRATION, value, unitY),
+					transformY);
+
+			concentrations[i] = y != null && !y.isInfinite() ? y : Double.NaN;
+		}
+
+		return concentrations;
+	}
+
+	/**
+	 * Computes the times at which the model reaches the given concentrations.
+	 * The time range of the settings is searched first. If no time is found,
+	 * the range is extended in steps of 50 on both sides.
+	 * 
+	 * @param concentrations
+	 *            concentrations in the y unit and transform of the settings
+	 * @return times in the x unit and transform of the settings,
+	 *         {@link Double#NaN} where no time could be found
+	 */
+	public double[] getTimes(double[] concentrations) throws ConvertException {
+		double[] times = new double[concentrations.length];
+
+		for (int i = 0; i < concentrations.length; i++) {
+			times[i] = Double.NaN;
+
+			if (!MathUtilities.isValid(concentrations[i])) {
+				continue;
+			}
+
+			for (int j = 0; j < RANGE_EXTENSIONS; j++) {
+				times[i] = getTime(concentrations[i], minX - j
+						* RANGE_EXTENSION, maxX + j * RANGE_EXTENSION);
+
+				if (!Double.isNaN(times[i])) {
+					break;
+				}
+			}
+		}
+
+		return times;
+	}
+
+	private void parseFunction() {
+		String paramY = AttributeUtilities.CONCENTRATION;
+
+		if (plotable.getFunction() == null
+				|| !plotable.getFunction().startsWith(paramY + "=")
+				|| !plotable.getFunctionArguments().containsKey(
+						AttributeUtilities.TIME)) {
+			return;
+		}
+
+		parser = MathUtilities.createParser();
+
+		for (Map.Entry<String, Double> param : plotable
+				.getFunctionParameters().entrySet()) {
+			if (param.getValue() == null) {
+				return;
+			}
+
+			parser.addConstant(param.getKey(), param.getValue());
+		}
+
+		arguments = new ArrayList<>(plotable.getFunctionArguments().keySet());
+		timeIndex = arguments.indexOf(AttributeUtilities.TIME);
+		values = new double[arguments.size()];
+
+		for (String arg : arguments) {
+			parser.addVariable(arg, 0.0);
+		}
+
+		try {
+			function = parser.parse(plotable.getFunction().replace(
+					paramY + "=", ""));
+		} catch (ParseException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		try {
+			expression = CompiledExpression.compile(function, arguments);
+			stack = expression.createStack();
+		} catch (UnsupportedOperationException e) {
+			expression = null;
+		}
+	}
+
+	private double evaluate(double x) throws ConvertException {
+		if (function == null || Double.isNaN(x)) {
+			return Double.NaN;
+		}
+
+		Double time = Plotable.inverseTransform(x, transformX);
+
+		if (time == null) {
+			return Double.NaN;
+		}
+
+		time = plotable.convertFromUnit(AttributeUtilities.TIME, time, unitX);
+		values[timeIndex] = time;
+
+		if (expression != null) {
+			return expression.evaluate(values, stack);
+		}
+
+		parser.setVarValue(AttributeUtilities.TIME, time);
+
+		try {
+			Object value = parser.evaluate(function);
+
+			return value instanceof Double ? (Double) value : Double.NaN;
+		} catch (ParseException e) {
+			return Double.NaN;
+		}
+	}
+
+	private double getValueY(double x) throws ConvertException {
+		Double y = Plotable.transform(plotable.convertToUnit(
+				AttributeUtilities.CONCENTRATION, evaluate(x), unitY),
+				transformY);
+
+		return y != null ? y : Double.NaN;
+	}
+
+	private double getTime(double y, double min, double max)
+			throws ConvertException {
+		if (function == null) {
+			return Double.NaN;
+		}
+
+		double minY = getValueY(min);
+		double maxY = getValueY(max);
+
+		while (MathUtilities.isValid(minY) && MathUtilities.isValid(maxY)) {
+			if (Math.abs(min - max) < EPSILON) {
+				return min;
+			}
+
+			double mid = (min + max) / 2;
+			double midY = getValueY(mid);
+
+			if ((minY <= y && midY >= y) || (minY >= y && midY <= y)) {
+				max = mid;
+				maxY = midY;
+			} else if ((midY <= y && maxY >= y) || (midY >= y && maxY <= y)) {
+				min = mid;
+				minY = midY;
+			} else {
+				return Double.NaN;
+			}
+		}
+
+		return Double.NaN;
+	}
+
+	private boolean isInRange(double value) {
+		if (!MathUtilities.isValid(value)) {
+			return false;
+		}
+
+		if (plotable.getMinValue() != null && value < plotable.getMinValue()) {
+			return false;
+		}
+
+		if (plotable.getMaxValue() != null && value > plotable.getMaxValue()) {
+			return false;
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package org.hsh.bfr.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes the ChangeLog entries of {@link MyTrigger} in the background. The entries are added to a bounded queue, and a daemon
+ * thread inserts them in batches through a connection of its own, at the latest after FLUSH_INTERVAL. The writer connection
+ * commits every batch by itself, so the entries are independent of the transactions of the other connections: only entries of
+ * committed changes may be added. The queue is also written at commits, before the ChangeLog is read and before the connections
+ * are closed, see {@link MyTrigger#flushChangeLog()}.
+ * <p>
+ * An entry is an array of the timestamp, the username (null for the user of the writing connection), the table, the ID in
+ * the table and the old row.
+ */
+class ChangeLogWriter {
+
+	private static final int CAPACITY = 10000;
+	private static final int BATCH_SIZE = 500;
+	private static final long FLUSH_INTERVAL = 1000; // ms
+
+	private static final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+	// Not the class lock: a trigger that adds an entry must never wait for a running flush, which may wait for the trigger's session
+	private static final Object flushLock = new Object();
+	private static volatile Thread flusher = null;
+	// guarded by flushLock
+	private static Connection writerConn = null;
+
+	private ChangeLogWriter() {
+	}
+
+	/**
+	 * Adds an entry to the queue.
+	 * @return false if the queue is full. The entry has to be written by the caller then.
+	 */
+	static boolean add(final Object[] entry) {
+		if (!queue.offer(entry)) {
+			return false;
+		}
+		Thread thread = flusher;
+		if (thread == null) {
+			thread = startFlusher();
+		}
+		if (queue.size() >= BATCH_SIZE) {
+			LockSupport.unpark(thread);
+		}
+		return true;
+	}
+
+	/**
+	 * Writes all queued entries. Returns when the entries the flusher is writing at the moment are written, too.
+	 */
+	static void flush() {
+		flush(Collections.<Object[]> emptyList());
+	}
+
+	/**
+	 * Writes all queued entries followed by the given entries, e.g. the entries of a transaction that has just been committed.
+	 */
+	static void flush(final List<Object[]> committedEntries) {
+		synchronized (flushLock) {
+			List<Object[]> entries = new ArrayList<>();
+			queue.drainTo(entries);
+			entries.addAll(committedEntries);
+			if (entries.isEmpty()) {
+				return;
+			}
+			try {
+				if (writerConn == null || writerConn.isClosed()) {
+					writerConn = DBKernel.openChangeLogConnection();
+				}
+				write(writerConn, entries);
+			}
+			catch (Exception e) {
+				MyLogger.handleMessage("ChangeLog: " + entries.size() + " entries could not be written");
+				MyLogger.handleException(e);
+				closeWriterConn();
+			}
+		}
+	}
+
+	/**
+	 * Writes all queued entries and closes the writer connection. Call this before the database connections are closed.
+	 */
+	static void close() {
+		synchronized (flushLock) {
+			flush();
+			closeWriterConn();
+		}
+	}
+
+	private static void closeWriterConn() {
+		if (writerConn != null) {
+			try {
+				writerConn.close();
+			}
+			catch (SQLException e) {
+				// the connection is discarded anyway
+			}
+			writerConn = null;
+		}
+	}
+
+	/**
+	 * Inserts the given entries in batches of BATCH_SIZE.
+	 */
+	static void write(final Connection conn, final List<Object[]> entries) throws SQLException {
+		PreparedStatement ps = conn.prepareStatement("INSERT INTO " + MainKernel.delimitL("ChangeLog") + " (" + MainKernel.delimitL("ID") + ", "
+				+ MainKernel.delimitL("Zeitstempel") + ", " + MainKernel.delimitL("Username") + ", " + MainKernel.delimitL("Tabelle") + ", "
+				+ MainKernel.delimitL("TabellenID") + ", " + MainKernel.delimitL("Alteintrag") + ") VALUES (NEXT VALUE FOR "
+				+ MainKernel.delimitL("ChangeLogSEQ") + ", ?, ?, ?, ?, ?)");
+		try {
+			String connUsername = null;
+			int batchSize = 0;
+			for (Object[] entry : entries) {
+				String username = (String) entry[1];
+				if (username == null) {
+					if (connUsername == null) connUsername = conn.getMetaData().getUserName();
+					username = connUsername;
+				}
+				ps.setTimestamp(1, (Timestamp) entry[0]);
+				ps.setString(2, username);
+				ps.setString(3, (String) entry[2]);
+				ps.setInt(4, (Integer) entry[3]);
+				ps.setObject(5, entry[4]);
+				ps.addBatch();
+				if (++batchSize == BATCH_SIZE) {
+					ps.executeBatch();
+					batchSize = 0;
+				}
+			}
+			if (batchSize > 0) {
+				ps.executeBatch();
+			}
+		}
+		finally {
+			ps.close();
+		}
+	}
+
+	private static synchronized Thread startFlusher() {
+		if (flusher == null) {
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					while (true) {
+						LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL));
+						flush();
+					}
+				}
+			}, "ChangeLogWriter");
+			thread.setDaemon(true);
+			thread.start();
+			flusher = thread;
+		}
+		return flusher;
+	}
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package org.hsh.bfr.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pool of read-only connections used by the lookup methods of {@link DBKernel} (getID, getValue, getMaxID, ...). Every pooled connection keeps
+ * its prepared statements by SQL text, so that a repeated lookup only binds new parameters instead of parsing and planning the query again. The
+ * execution time of every lookup is recorded per SQL text and can be queried with {@link DBKernel#getQueryStatistics()}.
+ */
+class DBConnectionPool {
+
+	interface ResultHandler<T> {
+		T handle(ResultSet rs) throws SQLException;
+	}
+
+	private static final int MAX_IDLE_CONNECTIONS = 4;
+	private static final int MAX_CACHED_STATEMENTS = 64;
+	private static final int MAX_STATISTICS = 1000;
+
+	private static final Map<String, LongSummaryStatistics> statistics = new ConcurrentHashMap<>();
+
+	private final String url;
+	private final String username;
+	private final String password;
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+	private boolean closed = false;
+
+	private DBConnectionPool(final String url, final String username, final String password) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+	}
+
+	/**
+	 * Creates a pool whose connections go to the same database as {@code conn}, or returns null if {@code conn} could not be opened.
+	 */
+	static DBConnectionPool create(final Connection conn, final String username, final String password) {
+		if (conn == null || username == null || password == null) return null;
+		try {
+			return new DBConnectionPool(conn.getMetaData().getURL(), username, password);
+		} catch (SQLException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Executes the query on a pooled connection. If that fails, e.g. because the database has been shut down in the meantime, the pooled
+	 * connection is discarded and the query is repeated once on {@code fallback}.
+	 */
+	<T> T query(final Connection fallback, final String sql, final Object[] params, final ResultHandler<T> handler) throws SQLException {
+		PooledConnection pooled = null;
+		try {
+			pooled = borrow();
+			T result = execute(pooled.prepare(sql), sql, params, handler);
+			release(pooled);
+			return result;
+		} catch (SQLException e) {
+			if (pooled != null) pooled.close();
+			return queryUnpooled(fallback, sql, params, handler);
+		}
+	}
+
+	static <T> T queryUnpooled(final Connection conn, final String sql, final Object[] params, final ResultHandler<T> handler) throws SQLException {
+		try (PreparedStatement ps = conn.prepareStatement(sql)) {
+			return execute(ps, sql, params, handler);
+		}
+	}
+
+	/**
+	 * Opens a writable connection to the database of the pool. It is not pooled and has to be closed by the caller.
+	 */
+	Connection openConnection() throws SQLException {
+		return DriverManager.getConnection(url, username, password);
+	}
+
+	void close() {
+		synchronized (idle) {
+			closed = true;
+			for (PooledConnection pooled : idle) {
+				pooled.close();
+			}
+			idle.clear();
+		}
+	}
+
+	static Map<String, LongSummaryStatistics> getStatistics() {
+		Map<String, LongSummaryStatistics> result = new LinkedHashMap<>();
+		for (Map.Entry<String, LongSummaryStatistics> entry : statistics.entrySet()) {
+			LongSummaryStatistics copy = new LongSummaryStatistics();
+			synchronized (entry.getValue()) {
+				copy.combine(entry.getValue());
+			}
+			result.put(entry.getKey(), copy);
+		}
+		return result;
+	}
+
+	static void resetStatistics() {
+		statistics.clear();
+	}
+
+	private static <T> T execute(final PreparedStatement ps, final String sql, final Object[] params, final ResultHandler<T> handler) throws SQLException {
+		long start = System.nanoTime();
+		try {
+			for (int i = 0; i < params.length; i++) {
+				ps.setObject(i + 1, params[i]);
+			}
+			try (ResultSet rs = ps.executeQuery()) {
+				return handler.handle(rs);
+			}
+		} finally {
+			record(sql, System.nanoTime() - start);
+		}
+	}
+
+	private static void record(final String sql, final long nanos) {
+		LongSummaryStatistics stats = statistics.get(sql);
+		if (stats == null) {
+			// where clauses with literals could otherwise fill the map without bounds
+			if (statistics.size() >= MAX_STATISTICS) return;
+			stats = statistics.computeIfAbsent(sql, k -> new LongSummaryStatistics());
+		}
+		synchronized (stats) {
+			stats.accept(nanos);
+		}
+	}
+
+	private PooledConnection borrow() throws SQLException {
+		synchronized (idle) {
+			if (closed) throw new SQLException("Connection pool has been closed");
+			while (!idle.isEmpty()) {
+				PooledConnection pooled = idle.pop();
+				if (pooled.isOpen()) return pooled;
+			}
+		}
+		Connection conn = DriverManager.getConnection(url, username, password);
+		conn.setReadOnly(true);
+		return new PooledConnection(conn);
+	}
+
+	private void release(final PooledConnection pooled) {
+		synchronized (idle) {
+			if (!closed && idle.size() < MAX_IDLE_CONNECTIONS) {
+				idle.push(pooled);
+				return;
+			}
+		}
+		pooled.close();
+	}
+
+	private static final class PooledConnection {
+
+		private final Connection conn;
+		private final Map<String, PreparedStatement> statements;
+
+		PooledConnection(final Connection conn) {
+			this.conn = conn;
+			this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+					if (size() <= MAX_CACHED_STATEMENTS) return false;
+					try {
+						eldest.getValue().close();
+					} catch (SQLException e) {
+						// the statement is discarded anyway
+					}
+					return true;
+				}
+			};
+		}
+
+		PreparedStatement prepare(final String sql) throws SQLException {
+			PreparedStatement ps = statements.get(sql);
+			if (ps == null) {
+				ps = conn.prepareStatement(sql);
+				statements.put(sql, ps);
+			}
+			return ps;
+		}
+
+		boolean isOpen() {
+			try {
+				return !conn.isClosed();
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		void close() {
+			try {
+				conn.close();
+			} catch (SQLException e) {
+				// nothing left to release
+			}
+		}
+	}
+}
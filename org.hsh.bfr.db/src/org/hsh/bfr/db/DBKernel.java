@@ -47,12 +47,15 @@ import java.sql.Timestamp;
 import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
 import java.util.UUID;
 import java.util.Vector;
 import java.util.concurrent.Callable;
@@ -84,6 +87,7 @@ public class DBKernel {
 	private static LinkedHashMap<Object, LinkedHashMap<Object, String>> filledHashtables = new LinkedHashMap<>();
 
 	private static Connection localConn = null;
+	private static DBConnectionPool lookupPool = null;
 	private static String m_Username = "";
 	private static String m_Password = "";
 
@@ -353,6 +357,7 @@ public class DBKernel {
 
 	public static List<Integer> getLastChangeLogEntries(final String tablename, int fromID) {
 		List<Integer> result = new ArrayList<>();
+		MyTrigger.flushChangeLog();
 		String sql = "SELECT " + delimitL("TabellenID") + " FROM " + delimitL("ChangeLog") + " WHERE " + delimitL("Tabelle") + " = '" + tablename + "' AND " + delimitL("ID")
 				+ " >= " + fromID;
 		ResultSet rs = getResultSet(sql, false);
@@ -370,6 +375,7 @@ public class DBKernel {
 
 	public static LinkedHashMap<String, Timestamp> getFirstUserFromChangeLog(final String tablename, final Integer tableID) {
 		LinkedHashMap<String, Timestamp> result = new LinkedHashMap<>();
+		MyTrigger.flushChangeLog();
 		String sql = "SELECT " + delimitL("Username") + "," + delimitL("Zeitstempel") + " FROM " + delimitL("ChangeLog") + " WHERE " + delimitL("Tabelle") + " = '" + tablename
 				+ "' AND " + delimitL("TabellenID") + " = " + tableID + " ORDER BY " + delimitL("Zeitstempel") + " ASC";
 		ResultSet rs = getResultSet(sql, false);
@@ -399,6 +405,7 @@ public class DBKernel {
 			final boolean showDeletedAsWell) {
 		LinkedHashMap<Integer, Vector<String>> result = new LinkedHashMap<>();
 		Vector<String> entries = new Vector<>();
+		MyTrigger.flushChangeLog();
 		String sql = "SELECT " + delimitL("TabellenID") + "," + delimitL("Username") + "," + delimitL("Zeitstempel") + "," + delimitL(tablename) + "." + delimitL("ID") + " AS "
 				+ delimitL("ID") + "," + delimitL("ChangeLog") + "." + delimitL("ID") + "," + delimitL("Alteintrag") + "," + delimitL(tablename) + ".*" + " FROM "
 				+ delimitL("ChangeLog") + " LEFT JOIN " + delimitL(tablename) + " ON " + delimitL("ChangeLog") + "." + delimitL("TabellenID") + "=" + delimitL(tablename) + "."
@@ -467,8 +474,14 @@ public class DBKernel {
 	}
 
 	public static boolean closeDBConnections(final boolean kompakt) {
+		MyTrigger.flushChangeLog();
 		if (DBKernel.myDBi != null && DBKernel.myDBi.getConn() != null) return DBKernel.myDBi.closeDBConnections(kompakt);
 		boolean result = true;
+		ChangeLogWriter.close();
+		if (lookupPool != null) {
+			lookupPool.close();
+			lookupPool = null;
+		}
 		try {
 			if (localConn != null && !localConn.isClosed()) {
 				if (!DBKernel.isServerConnection) {
@@ -665,6 +678,8 @@ public class DBKernel {
 			return getNewConnection(theUsername, thePassword, dbPath, suppressWarnings);
 		} else if (localConn == null || localConn.isClosed()) {
 			localConn = getNewConnection(theUsername, thePassword, dbPath, suppressWarnings);
+			if (lookupPool != null) lookupPool.close();
+			lookupPool = DBConnectionPool.create(localConn, theUsername, thePassword);
 		}
 		return localConn;
 	}
@@ -761,23 +776,60 @@ public class DBKernel {
 		return result;
 	}
 
-	public static Integer getMaxID(final String tablename) {
-		Integer result = null;
-		String sql = "SELECT TOP 1 " + delimitL("ID") + " FROM " + delimitL(tablename) + " ORDER BY " + delimitL("ID") + " DESC";
-		ResultSet rs = getResultSet(sql, false);
-		try {
-			if (rs != null && rs.first()) {
-				result = rs.getInt(1);
-			}
-		} catch (Exception e) {
-			MyLogger.handleException(e);
+	/**
+	 * Opens a connection of its own for the ChangeLog writer, to the same database and as the same user as the current connection.
+	 */
+	static Connection openChangeLogConnection() throws SQLException {
+		DBConnectionPool pool = DBKernel.myDBi != null && DBKernel.myDBi.getConn() != null ? DBKernel.myDBi.getLookupPool() : lookupPool;
+		if (pool == null) throw new SQLException("No database connection");
+		return pool.openConnection();
+	}
+
+	/**
+	 * Commits the transaction of the connection and writes its ChangeLog entries. Use this instead of {@link Connection#commit()}
+	 * while auto-commit is off, otherwise the entries are not written.
+	 */
+	public static void commit(final Connection conn) throws SQLException {
+		conn.commit();
+		MyTrigger.commitChangeLog();
+	}
+
+	/**
+	 * Rolls back the transaction of the connection and discards its ChangeLog entries.
+	 */
+	public static void rollback(final Connection conn) throws SQLException {
+		conn.rollback();
+		MyTrigger.rollbackChangeLog();
+	}
+
+	/**
+	 * Sets the auto-commit mode of the connection. Switching it on commits the open transaction, so its ChangeLog entries are written.
+	 */
+	public static void setAutoCommit(final Connection conn, final boolean autoCommit) throws SQLException {
+		boolean commit = autoCommit && !conn.getAutoCommit();
+		conn.setAutoCommit(autoCommit);
+		if (commit) MyTrigger.commitChangeLog();
+	}
+
+	/**
+	 * Runs a parameterized lookup query. Lookups on the current database connection go through the connection pool and its prepared statement
+	 * cache, lookups on any other connection are prepared directly on that connection.
+	 */
+	private static <T> T lookup(Connection conn, final String sql, final Object[] params, final DBConnectionPool.ResultHandler<T> handler) throws Exception {
+		DBConnectionPool pool;
+		if (DBKernel.myDBi != null && DBKernel.myDBi.getConn() != null) {
+			Connection dbiConn = DBKernel.myDBi.getConn();
+			if (conn == null) conn = dbiConn;
+			pool = conn == dbiConn ? DBKernel.myDBi.getLookupPool() : null;
+		} else {
+			if (conn == null) conn = getDBConnection();
+			pool = conn == localConn ? lookupPool : null;
 		}
-		return result;
+		if (pool != null) return pool.query(conn, sql, params, handler);
+		return DBConnectionPool.queryUnpooled(conn, sql, params, handler);
 	}
 
-	public static Integer getID(final String tablename, final String[] feldname, final String[] feldVal) {
-		Integer result = null;
-		String sql = "SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE ";
+	private static String getWhere(final String[] feldname, final String[] feldVal, final List<Object> params) {
 		String where = " ";
 		for (int i = 0; i < feldname.length; i++) {
 			if (i < feldVal.length) {
@@ -786,39 +838,85 @@ public class DBKernel {
 				if (feldVal[i] == null) {
 					where += " IS NULL";
 				} else {
-					where += " = '" + feldVal[i].replace("'", "''") + "'";
+					where += " = ?";
+					params.add(feldVal[i]);
 				}
 			}
 		}
-		ResultSet rs = getResultSet(sql + where, true);
+		return where;
+	}
+
+	// returns the value of the last row and the number of rows, the lookups used to scroll to the last row for that
+	private static Object[] getLastValue(Connection conn, final String sql, final List<Object> params) throws Exception {
+		return lookup(conn, sql, params.toArray(), rs -> {
+			Object value = null;
+			int rows = 0;
+			while (rs.next()) {
+				value = rs.getObject(1);
+				rows++;
+			}
+			return new Object[] { value, rows };
+		});
+	}
+
+	/**
+	 * Returns the number of executions and the execution times in nanoseconds of the lookup queries (getID, getValue, getMaxID, ...) by SQL
+	 * text.
+	 */
+	public static Map<String, LongSummaryStatistics> getQueryStatistics() {
+		return DBConnectionPool.getStatistics();
+	}
+
+	public static void resetQueryStatistics() {
+		DBConnectionPool.resetStatistics();
+	}
+
+	public static Integer getMaxID(final String tablename) {
+		Integer result = null;
+		String sql = "SELECT TOP 1 " + delimitL("ID") + " FROM " + delimitL(tablename) + " ORDER BY " + delimitL("ID") + " DESC";
 		try {
-			if (rs != null && rs.last()) {
-				result = rs.getInt(1);
-				if (rs.getRow() > 1) {
-					System.err.println("Attention! Entry occurs " + rs.getRow() + "x in table " + tablename + ", please check: '" + where + "'!!!");
+			result = lookup(null, sql, new Object[0], rs -> rs.next() ? rs.getInt(1) : null);
+		} catch (Exception e) {
+			MyLogger.handleMessage(sql);
+			MyLogger.handleException(e);
+		}
+		return result;
+	}
+
+	public static Integer getID(final String tablename, final String[] feldname, final String[] feldVal) {
+		Integer result = null;
+		List<Object> params = new ArrayList<>();
+		String where = getWhere(feldname, feldVal, params);
+		try {
+			Object[] lastValue = getLastValue(null, "SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE " + where, params);
+			int rows = (Integer) lastValue[1];
+			if (rows > 0) {
+				result = lastValue[0] instanceof Number ? ((Number) lastValue[0]).intValue() : 0;
+				if (rows > 1) {
+					System.err.println("Attention! Entry occurs " + rows + "x in table " + tablename + ", please check: '" + where + "' " + params + "!!!");
 				}
 			}
 		} catch (Exception e) {
-			MyLogger.handleException(e);
+			// same as a failing query before: no ID
 		}
 		return result;
 	}
 
 	public static Integer getID(final String tablename, final String feldname, final String feldVal) {
 		Integer result = null;
-		String sql = "SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE " + delimitL(feldname);
-		if (feldVal == null) sql += " IS NULL";
-		else sql += " = '" + feldVal.replace("'", "''") + "'";
-		ResultSet rs = getResultSet(sql, true);
+		List<Object> params = new ArrayList<>();
+		String where = getWhere(new String[] { feldname }, new String[] { feldVal }, params);
 		try {
-			if (rs != null && rs.last()) {
-				result = rs.getInt(1);
-				if (rs.getRow() > 1) {
-					System.err.println("Attention! Entry " + feldVal + " occurs " + rs.getRow() + "x in column " + feldname + " of table " + tablename + ", please check!!!");
+			Object[] lastValue = getLastValue(null, "SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE " + where, params);
+			int rows = (Integer) lastValue[1];
+			if (rows > 0) {
+				result = lastValue[0] instanceof Number ? ((Number) lastValue[0]).intValue() : 0;
+				if (rows > 1) {
+					System.err.println("Attention! Entry " + feldVal + " occurs " + rows + "x in column " + feldname + " of table " + tablename + ", please check!!!");
 				}
 			}
 		} catch (Exception e) {
-			MyLogger.handleException(e);
+			// same as a failing query before: no ID
 		}
 		return result;
 	}
@@ -826,13 +924,10 @@ public class DBKernel {
 	public static Integer getLastID(final String tablename) {
 		Integer result = null;
 		String sql = "SELECT MAX(" + delimitL("ID") + ") FROM " + delimitL(tablename);
-		ResultSet rs = getResultSet(sql, true);
 		try {
-			if (rs != null && rs.last()) {
-				result = rs.getInt(1);
-			}
+			result = lookup(null, sql, new Object[0], rs -> rs.next() ? rs.getInt(1) : null);
 		} catch (Exception e) {
-			MyLogger.handleException(e);
+			// same as a failing query before: no ID
 		}
 		return result;
 	}
@@ -851,26 +946,17 @@ public class DBKernel {
 
 	private static Object getValue(Connection conn, final String tablename, final String[] feldname, final String[] feldVal, final String desiredColumn, boolean suppressWarnings) {
 		Object result = null;
-		String sql = "SELECT " + delimitL(desiredColumn) + " FROM " + delimitL(tablename) + " WHERE ";
-		String where = " ";
-		for (int i = 0; i < feldname.length; i++) {
-			if (i < feldVal.length) {
-				if (!where.trim().isEmpty()) where += " AND ";
-				where += delimitL(feldname[i]);
-				if (feldVal[i] == null) where += " IS NULL";
-				else where += " = '" + feldVal[i].replace("'", "''") + "'";
-			}
-		}
-		ResultSet rs = getResultSet(conn, sql + where, true);
+		List<Object> params = new ArrayList<>();
+		String where = getWhere(feldname, feldVal, params);
 		try {
-			if (rs != null && rs.last()) { // && rs.getRow() == 1
-				result = rs.getObject(1);
-				if (!suppressWarnings && rs.getRow() > 1) {
-					System.err.println("Attention! '" + where + "' results in " + rs.getRow() + " entries in table " + tablename + ", please check (getValue)!!!");
-				}
+			Object[] lastValue = getLastValue(conn, "SELECT " + delimitL(desiredColumn) + " FROM " + delimitL(tablename) + " WHERE " + where, params);
+			int rows = (Integer) lastValue[1];
+			result = lastValue[0];
+			if (!suppressWarnings && rows > 1) {
+				System.err.println("Attention! '" + where + "' " + params + " results in " + rows + " entries in table " + tablename + ", please check (getValue)!!!");
 			}
 		} catch (Exception e) {
-			MyLogger.handleException(e);
+			// same as a failing query before: no value
 		}
 		return result;
 	}
@@ -891,13 +977,12 @@ public class DBKernel {
 
 	public static boolean hasID(final String tablename, final int id) {
 		boolean result = false;
-		ResultSet rs = getResultSet("SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE " + delimitL("ID") + "=" + id, true);
 		try {
-			if (rs != null && rs.last() && rs.getRow() == 1) {
-				result = true;
-			}
+			Object[] lastValue = getLastValue(null, "SELECT " + delimitL("ID") + " FROM " + delimitL(tablename) + " WHERE " + delimitL("ID") + " = ?",
+					Arrays.<Object> asList(id));
+			result = (Integer) lastValue[1] == 1;
 		} catch (Exception e) {
-			MyLogger.handleException(e);
+			// same as a failing query before: no ID
 		}
 		return result;
 	}
@@ -1291,13 +1376,10 @@ public class DBKernel {
 	public static int getRowCount(Connection conn, final String tableName, final String where) {
 		int result = 0;
 		String sql = "SELECT COUNT(*) FROM " + DBKernel.delimitL(tableName) + (where != null && where.trim().length() > 0 ? " " + where : "");
-		ResultSet rs = DBKernel.getResultSet(conn, sql, true);
 		try {
-			if (rs != null && rs.first()) {
-				result = rs.getInt(1);
-			}
-		} catch (SQLException e) {
-			e.printStackTrace();
+			result = lookup(conn, sql, new Object[0], rs -> rs.next() ? rs.getInt(1) : 0);
+		} catch (Exception e) {
+			// e.g. the table does not exist (yet)
 		}
 		return result;
 	}
@@ -1349,13 +1431,15 @@ public class DBKernel {
 
 	public static long getLastCache(Connection conn, String tablename) {
 		long result = 0;
-		ResultSet rs = getResultSet(conn, "SELECT " + delimitL("Wert") + " FROM " + delimitL("Infotabelle") + " WHERE " + delimitL("Parameter") + " = 'lastCache_" + tablename
-				+ "'", true);
+		String strVal = null;
 		try {
-			if (rs != null && rs.first()) {
-				String strVal = rs.getString(1);
-				result = Long.parseLong(strVal);
-			}
+			strVal = lookup(conn, "SELECT " + delimitL("Wert") + " FROM " + delimitL("Infotabelle") + " WHERE " + delimitL("Parameter") + " = ?",
+					new Object[] { "lastCache_" + tablename }, rs -> rs.next() ? rs.getString(1) : null);
+		} catch (Exception e) {
+			// no cache yet
+		}
+		try {
+			if (strVal != null) result = Long.parseLong(strVal);
 		} catch (Exception e) {
 			MyLogger.handleException(e);
 		}
@@ -1365,23 +1449,58 @@ public class DBKernel {
 	public static long getLastRelevantChange(Connection conn, String[] relevantTables) {
 		long result = 0;
 		if (relevantTables.length > 0) {
-			String where = delimitL("Tabelle") + " = '" + relevantTables[0] + "'";
+			MyTrigger.flushChangeLog();
+			String where = delimitL("Tabelle") + " IN (?";
 			for (int i = 1; i < relevantTables.length; i++) {
-				where += " OR " + delimitL("Tabelle") + " = '" + relevantTables[i] + "'";
+				where += ", ?";
 			}
+			where += ")";
 			String sql = "SELECT TOP 1 " + delimitL("Zeitstempel") + " FROM " + delimitL("ChangeLog") + " WHERE " + where + " ORDER BY " + delimitL("Zeitstempel") + " DESC";
-			ResultSet rs = getResultSet(conn, sql, true);
+			Timestamp lastChange = null;
 			try {
-				if (rs != null && rs.first()) {
-					result = rs.getTimestamp(1).getTime();
-				}
+				lastChange = lookup(conn, sql, relevantTables, rs -> rs.next() ? rs.getTimestamp(1) : null);
 			} catch (Exception e) {
-				MyLogger.handleException(e);
+				// no changes logged yet
 			}
+			if (lastChange != null) result = lastChange.getTime();
 		}
 		return result;
 	}
 
+	/**
+	 * Returns the ChangeLog entries of the given tables that were logged at or after the given time, oldest first. Each entry
+	 * is the table name, the ID of the changed row and the row before the change, which is null for inserted rows.
+	 * @return the entries, or null if there are more than maxEntries entries or they could not be read
+	 */
+	public static List<Object[]> getChangeLogEntriesSince(Connection conn, String[] tables, long since, int maxEntries) {
+		if (tables.length == 0) return new ArrayList<>();
+		MyTrigger.flushChangeLog();
+		Object[] params = new Object[tables.length + 1];
+		String where = delimitL("Tabelle") + " IN (?";
+		params[0] = tables[0];
+		for (int i = 1; i < tables.length; i++) {
+			where += ", ?";
+			params[i] = tables[i];
+		}
+		where += ") AND " + delimitL("Zeitstempel") + " >= ?";
+		params[tables.length] = new Timestamp(since);
+		String sql = "SELECT " + delimitL("Tabelle") + "," + delimitL("TabellenID") + "," + delimitL("Alteintrag") + " FROM " + delimitL("ChangeLog") + " WHERE " + where
+				+ " ORDER BY " + delimitL("ID") + " LIMIT " + (maxEntries + 1);
+		try {
+			List<Object[]> result = lookup(conn, sql, params, rs -> {
+				List<Object[]> entries = new ArrayList<>();
+				while (rs.next()) {
+					entries.add(new Object[] { rs.getString(1), rs.getInt(2), rs.getObject(3) });
+				}
+				return entries;
+			});
+			return result.size() > maxEntries ? null : result;
+		} catch (Exception e) {
+			MyLogger.handleException(e);
+			return null;
+		}
+	}
+
 	public static void setLastCache(Connection conn, String tablename, long newCacheTime) {
 		try {
 			boolean ro = conn.isReadOnly();
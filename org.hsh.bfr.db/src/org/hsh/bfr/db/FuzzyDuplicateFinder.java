@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2015 Federal Institute for Risk Assessment (BfR), Germany
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Contributors:
+ *     Department Biological Safety - BfR
+ *******************************************************************************/
+package org.hsh.bfr.db;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Finds rows of a table that are fuzzy duplicates of each other. A row is a
+ * duplicate of a row with a lower ID if the Levenshtein distance of every
+ * field, compared case-insensitively, is at most the maximum score of that
+ * field. Like {@link Levenshtein#LD(String, String)}, a null value has a
+ * distance of 0 to null and of 100000 to any other value. In gentle mode,
+ * fields that are null in the row with the lower ID are not compared.
+ * <p>
+ * Instead of comparing every pair of rows, the candidates of a row are taken
+ * from an index of its most selective field: a hash index for fields that must
+ * be equal and a BK-tree for the others. Only the candidates are compared, with
+ * a bounded distance that stops as soon as the maximum score is exceeded.
+ */
+public class FuzzyDuplicateFinder {
+	private static final int NULL_DISTANCE = 100000;
+	private static final int MAX_LENGTH = 255;
+
+	private final int[] maxScores;
+	private final boolean gentle;
+
+	private final List<Integer> ids = new ArrayList<>();
+	private final List<String[]> values = new ArrayList<>();
+
+	private List<Map<String, List<Integer>>> exactIndices;
+	private List<BKTree> fuzzyIndices;
+	private List<List<Integer>> nullRows;
+
+	/**
+	 * @param maxScores the maximum distance of each field
+	 * @param gentle whether null values of the row with the lower ID match any value
+	 */
+	public FuzzyDuplicateFinder(final int[] maxScores, final boolean gentle) {
+		this.maxScores = maxScores.clone();
+		this.gentle = gentle;
+	}
+
+	/**
+	 * Adds a row.
+	 * @param id the ID of the row
+	 * @param fieldValues the values of the fields, compared by their string representation
+	 */
+	public void add(final int id, final Object[] fieldValues) {
+		if (fieldValues.length != maxScores.length) {
+			throw new IllegalArgumentException("Expected " + maxScores.length + " values, got " + fieldValues.length);
+		}
+		String[] normalized = new String[fieldValues.length];
+		for (int i = 0; i < fieldValues.length; i++) {
+			if (fieldValues[i] != null) {
+				// the values used to be compared as VARCHAR(255)
+				String value = fieldValues[i].toString();
+				if (value.length() > MAX_LENGTH) value = value.substring(0, MAX_LENGTH);
+				normalized[i] = value.toUpperCase();
+			}
+		}
+		ids.add(id);
+		values.add(normalized);
+	}
+
+	/**
+	 * Finds the duplicates of all added rows. The candidates are scored in
+	 * parallel.
+	 * @return the IDs of the duplicates with a higher ID of every row that has
+	 * duplicates. Rows and duplicates are in the order they were added.
+	 */
+	public LinkedHashMap<Integer, List<Integer>> find() {
+		buildIndices();
+
+		List<List<Integer>> duplicates = IntStream.range(0, ids.size()).parallel()
+				.mapToObj(this::findDuplicates).collect(Collectors.toList());
+
+		LinkedHashMap<Integer, List<Integer>> result = new LinkedHashMap<>();
+		for (int row = 0; row < ids.size(); row++) {
+			if (!duplicates.get(row).isEmpty()) {
+				List<Integer> duplicateIds = new ArrayList<>();
+				for (int other : duplicates.get(row)) {
+					duplicateIds.add(ids.get(other));
+				}
+				result.put(ids.get(row), duplicateIds);
+			}
+		}
+		return result;
+	}
+
+	private void buildIndices() {
+		exactIndices = new ArrayList<>();
+		fuzzyIndices = new ArrayList<>();
+		nullRows = new ArrayList<>();
+		for (int field = 0; field < maxScores.length; field++) {
+			Map<String, List<Integer>> exactIndex = maxScores[field] == 0 ? new HashMap<>() : null;
+			BKTree fuzzyIndex = maxScores[field] > 0 && maxScores[field] < NULL_DISTANCE ? new BKTree() : null;
+			List<Integer> nulls = new ArrayList<>();
+			for (int row = 0; row < values.size(); row++) {
+				String value = values.get(row)[field];
+				if (value == null) nulls.add(row);
+				else if (exactIndex != null) exactIndex.computeIfAbsent(value, v -> new ArrayList<>()).add(row);
+				else if (fuzzyIndex != null) fuzzyIndex.add(value, row);
+			}
+			exactIndices.add(exactIndex);
+			fuzzyIndices.add(fuzzyIndex);
+			nullRows.add(nulls);
+		}
+	}
+
+	private List<Integer> findDuplicates(final int row) {
+		String[] rowValues = values.get(row);
+		List<Integer> duplicates = new ArrayList<>();
+		for (int candidate : getCandidates(row)) {
+			if (ids.get(candidate) > ids.get(row) && isDuplicate(rowValues, values.get(candidate))) {
+				duplicates.add(candidate);
+			}
+		}
+		return duplicates;
+	}
+
+	/** Returns the candidates of the most selective field, in the order of adding. */
+	private List<Integer> getCandidates(final int row) {
+		String[] rowValues = values.get(row);
+
+		List<Integer> exactCandidates = null;
+		int fuzzyField = -1;
+		for (int field = 0; field < maxScores.length; field++) {
+			String value = rowValues[field];
+			if ((gentle && value == null) || maxScores[field] >= NULL_DISTANCE) {
+				continue; // the field does not restrict the duplicates
+			}
+			if (value == null || maxScores[field] == 0) {
+				List<Integer> candidates = value == null ? nullRows.get(field) : exactIndices.get(field).get(value);
+				if (exactCandidates == null || candidates.size() < exactCandidates.size()) {
+					exactCandidates = candidates;
+				}
+			} else if (fuzzyField < 0 || maxScores[field] < maxScores[fuzzyField]
+					|| (maxScores[field] == maxScores[fuzzyField] && value.length() > rowValues[fuzzyField].length())) {
+				fuzzyField = field;
+			}
+		}
+
+		if (exactCandidates != null) {
+			return exactCandidates;
+		}
+		if (fuzzyField >= 0) {
+			List<Integer> candidates = new ArrayList<>();
+			fuzzyIndices.get(fuzzyField).query(rowValues[fuzzyField], maxScores[fuzzyField], candidates);
+			Collections.sort(candidates);
+			return candidates;
+		}
+		// nothing to narrow the search down
+		List<Integer> all = new ArrayList<>(values.size());
+		for (int i = 0; i < values.size(); i++) all.add(i);
+		return all;
+	}
+
+	private boolean isDuplicate(final String[] rowValues, final String[] otherValues) {
+		for (int field = 0; field < maxScores.length; field++) {
+			String value = rowValues[field];
+			String other = otherValues[field];
+			if (gentle && value == null) continue;
+
+			int distance;
+			if (value == null || other == null) {
+				distance = value == other ? 0 : NULL_DISTANCE;
+			} else {
+				distance = Levenshtein.distance(value, other, maxScores[field]);
+			}
+			if (distance > maxScores[field]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * BK-tree of the values of a field. Children are keyed by their distance to
+	 * the parent, so a query only has to descend into children whose distance
+	 * differs from the distance of the parent by at most the query radius.
+	 */
+	private static class BKTree {
+		private Node root;
+
+		void add(final String value, final int row) {
+			if (root == null) {
+				root = new Node(value);
+				root.rows.add(row);
+				return;
+			}
+			Node node = root;
+			while (true) {
+				int distance = Levenshtein.distance(value, node.value, Integer.MAX_VALUE);
+				if (distance == 0) {
+					node.rows.add(row);
+					return;
+				}
+				Node child = node.children.get(distance);
+				if (child == null) {
+					child = new Node(value);
+					child.rows.add(row);
+					node.children.put(distance, child);
+					return;
+				}
+				node = child;
+			}
+		}
+
+		void query(final String value, final int maxDistance, final List<Integer> result) {
+			if (root == null) return;
+			Deque<Node> stack = new ArrayDeque<>();
+			stack.push(root);
+			while (!stack.isEmpty()) {
+				Node node = stack.pop();
+				int distance = Levenshtein.distance(value, node.value, Integer.MAX_VALUE);
+				if (distance <= maxDistance) {
+					result.addAll(node.rows);
+				}
+				for (Map.Entry<Integer, Node> child : node.children.entrySet()) {
+					if (Math.abs(child.getKey() - distance) <= maxDistance) {
+						stack.push(child.getValue());
+					}
+				}
+			}
+		}
+	}
+
+	private static class Node {
+		final String value;
+		final List<Integer> rows = new ArrayList<>();
+		final Map<Integer, Node> children = new HashMap<>();
+
+		Node(final String value) {
+			this.value = value;
+		}
+	}
+}
@@ -48,73 +48,58 @@ public class Levenshtein {
     //*****************************
 
     public static int LD (String s, String t) {
-    int d[][]; // matrix
-    int n; // length of s
-    int m; // length of t
-    int i; // iterates through s
-    int j; // iterates through t
-    char s_i; // ith character of s
-    char t_j; // jth character of t
-    int cost; // cost
-
     if (s == null && t == null) return 0;
     else if (s == null || t == null) return 100000;
-    
-      // Step 1
+    return distance(s, t, Integer.MAX_VALUE);
+    }
 
-      n = s.length ();
-      m = t.length ();
+    //*********************************************************
+    // Compute Levenshtein distance up to a maximum. Only two rows
+    // of the matrix are kept and the computation stops as soon as
+    // the distance is known to exceed max, in which case max + 1
+    // is returned.
+    //*********************************************************
+
+    public static int distance (String s, String t, int max) {
+      int n = s.length ();
+      int m = t.length ();
+      if (Math.abs(n - m) > max) {
+        return max + 1;
+      }
       if (n == 0) {
         return m;
       }
       if (m == 0) {
         return n;
       }
-      d = new int[n+1][m+1];
-
-      // Step 2
-
-      for (i = 0; i <= n; i++) {
-        d[i][0] = i;
-      }
 
-      for (j = 0; j <= m; j++) {
-        d[0][j] = j;
+      int[] previous = new int[m+1];
+      int[] current = new int[m+1];
+      for (int j = 0; j <= m; j++) {
+        previous[j] = j;
       }
 
-      // Step 3
-
-      for (i = 1; i <= n; i++) {
-
-        s_i = s.charAt (i - 1);
-
-        // Step 4
-
-        for (j = 1; j <= m; j++) {
-
-          t_j = t.charAt (j - 1);
-
-          // Step 5
-
-          if (s_i == t_j) {
-            cost = 0;
-          }
-          else {
-            cost = 1;
+      for (int i = 1; i <= n; i++) {
+        char s_i = s.charAt (i - 1);
+        current[0] = i;
+        int rowMinimum = i;
+        for (int j = 1; j <= m; j++) {
+          int cost = s_i == t.charAt (j - 1) ? 0 : 1;
+          current[j] = Minimum (previous[j]+1, current[j-1]+1, previous[j-1] + cost);
+          if (current[j] < rowMinimum) {
+            rowMinimum = current[j];
           }
-
-          // Step 6
-
-          d[i][j] = Minimum (d[i-1][j]+1, d[i][j-1]+1, d[i-1][j-1] + cost);
-
         }
-
+        // the distance is at least the minimum of every row
+        if (rowMinimum > max) {
+          return max + 1;
+        }
+        int[] swap = previous;
+        previous = current;
+        current = swap;
       }
 
-      // Step 7
-
-      return d[n][m];
-
+      return previous[m] > max ? max + 1 : previous[m];
     }
 
 }
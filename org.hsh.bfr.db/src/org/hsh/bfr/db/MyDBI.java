@@ -120,6 +120,7 @@ public abstract class MyDBI {
 	 */
 
 	private Connection conn = null;
+	private DBConnectionPool lookupPool = null;
 
 	private String dbUsername, dbPassword, dbPath, path2XmlFile;
 
@@ -156,6 +157,10 @@ public abstract class MyDBI {
 		return conn;
 	}
 
+	DBConnectionPool getLookupPool() {
+		return lookupPool;
+	}
+
 	public boolean isServerConnection() {
 		return isServerConnection;
 	}
@@ -191,6 +196,11 @@ public abstract class MyDBI {
 
 	public boolean closeDBConnections(final boolean kompakt) {
 		boolean result = true;
+		ChangeLogWriter.close();
+		if (lookupPool != null) {
+			lookupPool.close();
+			lookupPool = null;
+		}
 		try {
 			if (conn != null && !conn.isClosed()) {
 				if (!isServerConnection) {
@@ -285,6 +295,7 @@ public abstract class MyDBI {
 			String connStr = isServerConnection ? "jdbc:hsqldb:hsql://" + dbPath : "jdbc:hsqldb:file:" + dbPath + DBKernel.dbKennung;
 			conn = DriverManager.getConnection(connStr, dbUsername, dbPassword);
 			conn.setReadOnly(DBKernel.isReadOnly());
+			lookupPool = DBConnectionPool.create(conn, dbUsername, dbPassword);
 		} catch (Exception e) {
 			passFalse = e.getMessage().startsWith("invalid authorization specification");
 			if (e.getMessage().startsWith("Database lock acquisition failure:")) {
@@ -21,10 +21,20 @@ package org.hsh.bfr.db;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.hsqldb.Trigger;
 
@@ -37,6 +47,95 @@ public class MyTrigger implements Trigger {
 		
 	public static long triggerFired = System.currentTimeMillis();
 
+	// ChangeLog entries of bulk imports, see deferChangeLog()
+	private static final ThreadLocal<List<Object[]>> deferredChangeLog = new ThreadLocal<>();
+	// held while deferred entries are committed, see commitDeferredChangeLog()
+	private static final Object deferredCommitLock = new Object();
+	// ChangeLog entries of the open transaction of the current thread, see commitChangeLog()
+	private static final ThreadLocal<List<Object[]>> transactionChangeLog = new ThreadLocal<>();
+
+	// the callers of a table are called at most once per CALLER_INTERVAL, changes in between are coalesced into one more call
+	private static final long CALLER_INTERVAL = 500; // ms
+	private static final Map<String, Long> lastCalls = new HashMap<>();
+	private static final Set<String> scheduledCalls = new HashSet<>();
+	private static ScheduledExecutorService callerExecutor = null;
+
+	/**
+	 * Writes the ChangeLog entries that are still queued. Call this before reading the ChangeLog. Waits for a running
+	 * {@link #commitDeferredChangeLog(Connection)}, so that its entries are either visible or newer than the time of the call.
+	 */
+	public static void flushChangeLog() {
+		synchronized (deferredCommitLock) {
+			ChangeLogWriter.flush();
+		}
+	}
+
+	/**
+	 * Writes the ChangeLog entries of the transaction of the current thread, which has just been committed, together with the queued
+	 * entries. Entries of changes made while auto-commit is off are only written then, see {@link DBKernel#commit(Connection)}.
+	 */
+	public static void commitChangeLog() {
+		List<Object[]> entries = transactionChangeLog.get();
+		transactionChangeLog.remove();
+		synchronized (deferredCommitLock) {
+			ChangeLogWriter.flush(entries == null ? Collections.<Object[]> emptyList() : entries);
+		}
+	}
+
+	/**
+	 * Discards the ChangeLog entries of the transaction of the current thread, which has just been rolled back.
+	 */
+	public static void rollbackChangeLog() {
+		transactionChangeLog.remove();
+	}
+
+	/**
+	 * Collects the ChangeLog entries of the current thread instead of inserting them row by row, until
+	 * {@link #stopDeferringChangeLog()} is called. The collected entries are inserted by {@link #writeDeferredChangeLog(Connection)}.
+	 * This only has an effect if the database runs embedded, i.e. the triggers fire in the thread that changes the rows.
+	 */
+	public static void deferChangeLog() {
+		deferredChangeLog.set(new ArrayList<Object[]>());
+	}
+
+	/**
+	 * Inserts the collected ChangeLog entries of the current thread as one batch. The entries are stamped with the current time
+	 * instead of the time of the change: the changes only become visible with the following commit, and a cache that was built in
+	 * the meantime has to see them as newer.
+	 * @return the number of inserted entries
+	 */
+	public static int writeDeferredChangeLog(final Connection conn) throws SQLException {
+		List<Object[]> entries = deferredChangeLog.get();
+		if (entries == null || entries.isEmpty()) return 0;
+		Timestamp timestamp = new Timestamp(new Date().getTime());
+		for (Object[] entry : entries) {
+			entry[0] = timestamp;
+		}
+		ChangeLogWriter.write(conn, entries);
+		int result = entries.size();
+		entries.clear();
+		triggerFired = System.currentTimeMillis();
+		return result;
+	}
+
+	/**
+	 * Inserts the collected ChangeLog entries of the current thread and commits them together with the changes they log.
+	 * {@link #flushChangeLog()} waits for this, so whoever reads the ChangeLog in the meantime does not miss the entries.
+	 */
+	public static void commitDeferredChangeLog(final Connection conn) throws SQLException {
+		synchronized (deferredCommitLock) {
+			writeDeferredChangeLog(conn);
+			conn.commit();
+		}
+	}
+
+	/**
+	 * Stops collecting ChangeLog entries in the current thread. Entries that were not written are discarded, e.g. after a rollback.
+	 */
+	public static void stopDeferringChangeLog() {
+		deferredChangeLog.remove();
+	}
+
 	@Override
 	public void fire(final int triggerType, final String triggerName, final String tableName, final Object rowBefore[], final Object rowAfter[]) {
         try {
@@ -122,8 +221,7 @@ public class MyTrigger implements Trigger {
         	if (DBKernel.myDBi != null) {
         		MyTable myT = DBKernel.myDBi.getTable(tableName);
             	if (myT != null && myT.getCaller4Trigger() != null) {
-        			  try {myT.getCaller4Trigger().call();}
-        			  catch (Exception e) {e.printStackTrace();}
+        			  call4Trigger(myT);
             	}
         	}
         	
@@ -133,6 +231,54 @@ public class MyTrigger implements Trigger {
         }
   }
 
+	/**
+	 * Calls the caller of the table right away, unless it was called less than CALLER_INTERVAL ago. Then one call is scheduled
+	 * for the end of the interval, so bulk changes call it only a few times and the last change is always followed by a call.
+	 */
+	private static void call4Trigger(final MyTable myT) {
+		final String tableName = myT.getTablename();
+		synchronized (lastCalls) {
+			if (scheduledCalls.contains(tableName)) return;
+			long now = System.currentTimeMillis();
+			Long lastCall = lastCalls.get(tableName);
+			if (lastCall != null && now - lastCall < CALLER_INTERVAL) {
+				scheduledCalls.add(tableName);
+				getCallerExecutor().schedule(new Runnable() {
+					@Override
+					public void run() {
+						synchronized (lastCalls) {
+							scheduledCalls.remove(tableName);
+							lastCalls.put(tableName, System.currentTimeMillis());
+						}
+						call(myT);
+					}
+				}, lastCall + CALLER_INTERVAL - now, TimeUnit.MILLISECONDS);
+				return;
+			}
+			lastCalls.put(tableName, now);
+		}
+		call(myT);
+	}
+
+	private static void call(final MyTable myT) {
+		try {myT.getCaller4Trigger().call();}
+		catch (Exception e) {e.printStackTrace();}
+	}
+
+	private static synchronized ScheduledExecutorService getCallerExecutor() {
+		if (callerExecutor == null) {
+			callerExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "MyTrigger callers");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return callerExecutor;
+	}
+
   private void changeUser(final Object oldUser[], final Object newUser[]) {
 		if (newUser != null && newUser[1] != null && newUser[1].toString().length() > 0) {
 			String newUsername = newUser[1].toString();
@@ -211,16 +357,6 @@ public class MyTrigger implements Trigger {
 			if (!diff) return true;
 			boolean result = false;
 			try {
-		    	Connection conn = getDefaultConnection();
-		    	String username = getUsername(conn);
-				PreparedStatement ps = conn.prepareStatement("INSERT INTO " + MainKernel.delimitL("ChangeLog") + " (" + MainKernel.delimitL("ID") + ", "
-						+ MainKernel.delimitL("Zeitstempel") + ", " + MainKernel.delimitL("Username") + ", " + MainKernel.delimitL("Tabelle") + ", "
-						+ MainKernel.delimitL("TabellenID") + ", " + MainKernel.delimitL("Alteintrag") + ") VALUES (NEXT VALUE FOR "
-						+ MainKernel.delimitL("ChangeLogSEQ") + ", ?, ?, ?, ?, ?)");
-
-				ps.setTimestamp(1, new Timestamp(new Date().getTime()));
-				ps.setString(2, username);
-				ps.setString(3, tablename);
 				int tableID;
 				if (rowBefore != null && rowBefore.length > 0 && rowBefore[0] != null && rowBefore[0] instanceof Integer) {
 					tableID = (Integer) rowBefore[0];
@@ -231,11 +367,35 @@ public class MyTrigger implements Trigger {
 				else {
 					tableID = -1;
 				}
-				ps.setInt(4, tableID);
 				check4SerializationProblems(rowBefore);
-				ps.setObject(5, rowBefore);
+				Timestamp timestamp = new Timestamp(new Date().getTime());
+				Object[] oldRow = rowBefore == null ? null : rowBefore.clone();
+
+				List<Object[]> deferred = deferredChangeLog.get();
+				if (deferred != null) {
+					deferred.add(new Object[] {timestamp, null, tablename, tableID, oldRow});
+					return true;
+				}
+
+		    	Connection conn = getDefaultConnection();
+				Object[] entry = new Object[] {timestamp, getUsername(conn), tablename, tableID, oldRow};
 				triggerFired = System.currentTimeMillis();
-				ps.execute();
+				// The server has no connection of its own, so the entry is written right here, as when the queue is full
+				if (MainKernel.isServer()) {
+					ChangeLogWriter.write(conn, Collections.singletonList(entry));
+				}
+				else if (conn != null && !conn.getAutoCommit()) {
+					// the transaction may still be rolled back, the entry is written at the commit
+					List<Object[]> transaction = transactionChangeLog.get();
+					if (transaction == null) {
+						transaction = new ArrayList<Object[]>();
+						transactionChangeLog.set(transaction);
+					}
+					transaction.add(entry);
+				}
+				else if (!ChangeLogWriter.add(entry)) {
+					ChangeLogWriter.write(conn, Collections.singletonList(entry));
+				}
 				result = true;
 			}
 			catch (Exception e) {
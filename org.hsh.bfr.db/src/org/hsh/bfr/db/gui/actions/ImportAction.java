@@ -65,7 +65,7 @@ public class ImportAction extends AbstractAction {
 	  fc.addChoosableFileFilter(new MyProzessXMLImporter());
 	  MyRisImporter myRis = new MyRisImporter();
 	  fc.addChoosableFileFilter(myRis);
-	  if (DBKernel.isAdmin()) fc.addChoosableFileFilter(new GeneralXLSImporter()); //  && !DBKernel.isKNIME
+	  if (DBKernel.isAdmin()) fc.addChoosableFileFilter(new GeneralXLSImporter(false, true)); //  && !DBKernel.isKNIME
 	  fc.setFileFilter(myRis);
 	  if (DBKernel.isKrise) {LieferkettenImporterEFSA efsa = new LieferkettenImporterEFSA(); fc.addChoosableFileFilter(efsa); fc.setFileFilter(efsa);}
 	  
@@ -24,9 +24,12 @@ import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
 
@@ -36,6 +39,7 @@ import javax.swing.Icon;
 import javax.swing.JProgressBar;
 
 import org.hsh.bfr.db.DBKernel;
+import org.hsh.bfr.db.FuzzyDuplicateFinder;
 import org.hsh.bfr.db.MyLogger;
 import org.hsh.bfr.db.MyTable;
 import org.hsh.bfr.db.PlausibilityChecker;
@@ -152,75 +156,60 @@ public class PlausibleAction extends AbstractAction {
 	  	}
 	}
 	private void go4ISM(PlausibleDialog4Krise pd4) throws SQLException {
-		DBKernel.sendRequest("DROP FUNCTION IF EXISTS LD", false, true);
-		if (DBKernel.sendRequest(
-	    		"CREATE FUNCTION LD(x VARCHAR(255), y VARCHAR(255))\n" +
-	    		"RETURNS INT\n" + 
-	    		"NO SQL\n" +
-	    		"LANGUAGE JAVA\n" +
-	    		"PARAMETER STYLE JAVA\n" +
-	    		"EXTERNAL NAME 'CLASSPATH:org.hsh.bfr.db.Levenshtein.LD'"
-	    		, false, true) &&
-	    		DBKernel.sendRequest(
-	    				"GRANT EXECUTE ON FUNCTION LD TO " +
-	    		DBKernel.delimitL("WRITE_ACCESS") + "," + DBKernel.delimitL("SUPER_WRITE_ACCESS"),
-	    		false, true)) {
-			DBKernel.mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-			myDB.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-			myDB.getMyDBPanel().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-			
-			LinkedHashMap<String[], LinkedHashSet<String[]>> vals1 =
-					pd4.cs.isSelected() ?
-							checkTable4ISM("Station", new String[]{"Name","PLZ","Strasse","Hausnummer","Ort","VATnumber"},
-								new int[]{(Integer)pd4.sn.getValue(),(Integer)pd4.sz.getValue(),(Integer)pd4.ss.getValue(),(Integer)pd4.snum.getValue(),(Integer)pd4.sc.getValue(),(Integer)pd4.sv.getValue()}, null, null, null, pd4.gentle.isSelected()) 		//"Station", "Kontaktadresse", new String[]{"FallErfuellt","AnzahlFaelle"});
-							:
-							null;
+		DBKernel.mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		myDB.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		myDB.getMyDBPanel().setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		
+		LinkedHashMap<String[], LinkedHashSet<String[]>> vals1 =
+				pd4.cs.isSelected() ?
+						checkTable4ISM("Station", new String[]{"Name","PLZ","Strasse","Hausnummer","Ort","VATnumber"},
+							new int[]{(Integer)pd4.sn.getValue(),(Integer)pd4.sz.getValue(),(Integer)pd4.ss.getValue(),(Integer)pd4.snum.getValue(),(Integer)pd4.sc.getValue(),(Integer)pd4.sv.getValue()}, null, null, null, pd4.gentle.isSelected()) 		//"Station", "Kontaktadresse", new String[]{"FallErfuellt","AnzahlFaelle"});
+						:
+						null;
 
-			LinkedHashMap<String[], LinkedHashSet<String[]>> vals2 =
-					pd4.cp.isSelected() ?
-							checkTable4ISM("Produktkatalog", new String[]{"Station","Bezeichnung","Artikelnummer"},
-								new int[]{(Integer)pd4.ps.getValue(),(Integer)pd4.pd.getValue(),(Integer)pd4.pi.getValue()}, "Chargen", "Artikel", new String[]{"pd_day","pd_month","pd_year"}, pd4.gentle.isSelected())
-							:
-							null;
+		LinkedHashMap<String[], LinkedHashSet<String[]>> vals2 =
+				pd4.cp.isSelected() ?
+						checkTable4ISM("Produktkatalog", new String[]{"Station","Bezeichnung","Artikelnummer"},
+							new int[]{(Integer)pd4.ps.getValue(),(Integer)pd4.pd.getValue(),(Integer)pd4.pi.getValue()}, "Chargen", "Artikel", new String[]{"pd_day","pd_month","pd_year"}, pd4.gentle.isSelected())
+						:
+						null;
 
-			LinkedHashMap<String[], LinkedHashSet<String[]>> vals3 =
-					pd4.cl.isSelected() ?
-							checkTable4ISM("Chargen", new String[]{"Artikel","ChargenNr","MHD_day","MHD_month","MHD_year","pd_day","pd_month","pd_year"},
-								new int[]{(Integer)pd4.la.getValue(),(Integer)pd4.ll.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.ld.getValue(),(Integer)pd4.ld.getValue(),(Integer)pd4.ld.getValue()}, null, null, null, pd4.gentle.isSelected())
-							:
-							null;
+		LinkedHashMap<String[], LinkedHashSet<String[]>> vals3 =
+				pd4.cl.isSelected() ?
+						checkTable4ISM("Chargen", new String[]{"Artikel","ChargenNr","MHD_day","MHD_month","MHD_year","pd_day","pd_month","pd_year"},
+							new int[]{(Integer)pd4.la.getValue(),(Integer)pd4.ll.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.lb.getValue(),(Integer)pd4.ld.getValue(),(Integer)pd4.ld.getValue(),(Integer)pd4.ld.getValue()}, null, null, null, pd4.gentle.isSelected())
+						:
+						null;
 
-			LinkedHashMap<String[], LinkedHashSet<String[]>> vals4 =
-					pd4.cd.isSelected() ?
-							checkTable4ISM("Lieferungen", new String[]{"Charge","dd_day","dd_month","dd_year","Empfänger"},
-								new int[]{(Integer)pd4.dl.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dr.getValue()}, null, null, null, pd4.gentle.isSelected())
-							:
-							null;
-							
-							if (pd4.selS.isSelected() && DBKernel.mainFrame.getTopTable().getActualTable().getTablename().equals("Station")) {
-								Integer stationId = DBKernel.mainFrame.getTopTable().getSelectedID();
-								System.err.println(stationId);
-								checkTables4Id(stationId);
-							}
+		LinkedHashMap<String[], LinkedHashSet<String[]>> vals4 =
+				pd4.cd.isSelected() ?
+						checkTable4ISM("Lieferungen", new String[]{"Charge","dd_day","dd_month","dd_year","Empfänger"},
+							new int[]{(Integer)pd4.dl.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dd.getValue(),(Integer)pd4.dr.getValue()}, null, null, null, pd4.gentle.isSelected())
+						:
+						null;
+						
+						if (pd4.selS.isSelected() && DBKernel.mainFrame.getTopTable().getActualTable().getTablename().equals("Station")) {
+							Integer stationId = DBKernel.mainFrame.getTopTable().getSelectedID();
+							System.err.println(stationId);
+							checkTables4Id(stationId);
+						}
 
-			DBKernel.mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-			myDB.getMyDBPanel().setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-			myDB.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
-			
-			int v1 = vals1 == null ? 0 : vals1.size();
-			int v2 = vals2 == null ? 0 : vals2.size();
-			int v3 = vals3 == null ? 0 : vals3.size();
-			int v4 = vals4 == null ? 0 : vals4.size();
-			int total = v1 + v2 + v3 + v4;
-			if (vals1 == null || showAndFilterVals("Station", vals1, 0, 0, total)) {
-				if (vals2 == null || showAndFilterVals("Produktkatalog", vals2, 0, v1, total)) {
-					if (vals3 == null || showAndFilterVals("Chargen", vals3, 0, v1 + v2, total)) {
-						if (vals4 != null) showAndFilterVals("Lieferungen", vals4, 0, v1 + v2 + v3, total);
-					}
+		DBKernel.mainFrame.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+		myDB.getMyDBPanel().setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+		myDB.setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+		
+		int v1 = vals1 == null ? 0 : vals1.size();
+		int v2 = vals2 == null ? 0 : vals2.size();
+		int v3 = vals3 == null ? 0 : vals3.size();
+		int v4 = vals4 == null ? 0 : vals4.size();
+		int total = v1 + v2 + v3 + v4;
+		if (vals1 == null || showAndFilterVals("Station", vals1, 0, 0, total)) {
+			if (vals2 == null || showAndFilterVals("Produktkatalog", vals2, 0, v1, total)) {
+				if (vals3 == null || showAndFilterVals("Chargen", vals3, 0, v1 + v2, total)) {
+					if (vals4 != null) showAndFilterVals("Lieferungen", vals4, 0, v1 + v2 + v3, total);
 				}
-			}			
-		}
-		DBKernel.sendRequest("DROP FUNCTION IF EXISTS LD", false, true);
+			}
+		}			
 	}
 	private boolean checkTables4Id(Integer stationId)  {
 		String sql = "SELECT " + DBKernel.delimitL("Artikelnummer") + "," + DBKernel.delimitL("Bezeichnung") + "," + DBKernel.delimitL("ChargenNr") + "," +
@@ -356,113 +345,71 @@ public class PlausibleAction extends AbstractAction {
 			System.err.println("fieldnames and simScores with different size...");
 			return null;
 		}
-		/*
-		System.err.print(tablename);
-		for (int i=0;i<fieldnames.length;i++) System.err.print("\t" + fieldnames[i]);
-		for (int i=0;i<maxScores.length;i++) System.err.print("\t" + maxScores[i]);
-		System.err.println();
-		*/
+		// the rows are compared in memory, see FuzzyDuplicateFinder, instead of one LD query per row
+		FuzzyDuplicateFinder finder = new FuzzyDuplicateFinder(maxScores, gentle);
+		Map<Integer, Object[]> rows = new HashMap<>();
 		String sql = "SELECT " + DBKernel.delimitL("ID");
 		for (int i=0;i<fieldnames.length;i++) sql += "," + DBKernel.delimitL(fieldnames[i]);
 		sql += " FROM " + DBKernel.delimitL(tablename);
-        ResultSet rs = DBKernel.getResultSet(sql, false);
-        if (rs != null && rs.first()) {
-        	do {
-        		
-        		String[] resRowFirst = new String[fieldnames.length + 1 + (otherTableDesires == null ? 0 : otherTableDesires.length + 1)];
+		ResultSet rs = DBKernel.getResultSet(sql, false);
+		if (rs != null && rs.first()) {
+			do {
+				int id = rs.getInt("ID");
+				Object[] fieldVals = new Object[fieldnames.length];
+				for (int i=0;i<fieldnames.length;i++) fieldVals[i] = rs.getObject(fieldnames[i]);
+				finder.add(id, fieldVals);
+				rows.put(id, fieldVals);
+			} while(rs.next());
+		}
 
-        		// Firstly - fieldnames
-        		int id = rs.getInt("ID");
-        		resRowFirst[0] = id+"";
-        		String result = ""+id;
-        		Object[] fieldVals = new Object[fieldnames.length];
-        		for (int i=0;i<fieldnames.length;i++) {
-        			fieldVals[i] = rs.getObject(fieldnames[i]);
-        			if (fieldVals[i] != null) fieldVals[i] = fieldVals[i].toString().replace("'", "''");
-        			result += "\t" + fieldVals[i];
-        			resRowFirst[i+1] = fieldVals[i]+"";
-        		}
-        		
-        		// Firstly - otherTableDesires
-        		if (otherTable != null) {
-        			result += " (" + otherTable + ": ";
-        			sql = "SELECT " + DBKernel.delimitL("ID");
-            		for (int i=0;i<otherTableDesires.length;i++) sql += "," + DBKernel.delimitL(otherTableDesires[i]);
-            		sql += " FROM " + DBKernel.delimitL(otherTable) + " WHERE " + DBKernel.delimitL(otherTableField) + "=" + id;
-        			ResultSet rs3 = DBKernel.getResultSet(sql, false);
-        			if (rs3 != null && rs3.first()) {
-                    	do {
-                    		result += rs3.getInt("ID");
-                    		if (resRowFirst[fieldnames.length+1] == null || resRowFirst[fieldnames.length+1].isEmpty()) resRowFirst[fieldnames.length+1] = rs3.getInt("ID")+"";
-                    		else resRowFirst[fieldnames.length+1] += "," + rs3.getInt("ID")+"";
-                    		for (int i=0;i<otherTableDesires.length;i++) {
-                    			result += "\t" + rs3.getString(otherTableDesires[i]);
-                    			if (resRowFirst[fieldnames.length+2+i] == null || resRowFirst[fieldnames.length+2+i].isEmpty()) resRowFirst[fieldnames.length+2+i] = rs3.getString(otherTableDesires[i]);
-                    			else resRowFirst[fieldnames.length+2+i] += "," + rs3.getString(otherTableDesires[i]);
-                    		}
-                    	} while(rs3.next());
-        			}
-        			result += ")";
-        		}
-    			
-        		result += "\n";
-        		
-                sql = "SELECT " + DBKernel.delimitL("ID");
-        		for (int i=0;i<fieldnames.length;i++) sql += "," + DBKernel.delimitL(fieldnames[i]);
-        		for (int i=0;i<fieldnames.length;i++) sql += (gentle && fieldVals[i] == null) ? ",0 AS SCORE" + i : "," + DBKernel.delimitL("LD") + "(" + (fieldVals[i] == null ? "NULL" : "'" + fieldVals[i].toString().toUpperCase() + "'") + ",UCASE(CAST(" + DBKernel.delimitL(fieldnames[i]) + " AS VARCHAR(255))))" + " AS SCORE" + i;
-                sql += " FROM " + DBKernel.delimitL(tablename) + " WHERE " + DBKernel.delimitL("ID") + ">" + id;
-        		for (int i=0;i<fieldnames.length;i++) sql += (gentle && fieldVals[i] == null) ? " AND TRUE" : " AND " + DBKernel.delimitL("LD") + "(" + (fieldVals[i] == null ? "NULL" : "'" + fieldVals[i].toString().toUpperCase() + "'") + ",UCASE(CAST(" + DBKernel.delimitL(fieldnames[i]) + " AS VARCHAR(255)))) <= " + maxScores[i];
-                //sql += " ORDER BY SCORE ASC";
-                ResultSet rs2 = DBKernel.getResultSet(sql, false);
-                if (rs2 != null && rs2.first()) {
-                	LinkedHashSet<String[]> resSetOther = new LinkedHashSet<>(); 
-                	do {
-                		
-                		String[] resRowOther = new String[fieldnames.length + 1 + (otherTableDesires == null ? 0 : otherTableDesires.length + 1)];
+		// the desires of the other table are read at once, grouped by the ID they refer to
+		Map<Integer, List<String[]>> others = new HashMap<>();
+		if (otherTable != null) {
+			sql = "SELECT " + DBKernel.delimitL("ID") + "," + DBKernel.delimitL(otherTableField);
+			for (int i=0;i<otherTableDesires.length;i++) sql += "," + DBKernel.delimitL(otherTableDesires[i]);
+			sql += " FROM " + DBKernel.delimitL(otherTable);
+			ResultSet rs3 = DBKernel.getResultSet(sql, false);
+			if (rs3 != null && rs3.first()) {
+				do {
+					int ref = rs3.getInt(otherTableField);
+					if (rs3.wasNull()) continue;
+					String[] other = new String[otherTableDesires.length + 1];
+					other[0] = rs3.getInt("ID")+"";
+					for (int i=0;i<otherTableDesires.length;i++) other[i+1] = rs3.getString(otherTableDesires[i]);
+					List<String[]> list = others.get(ref);
+					if (list == null) {
+						list = new ArrayList<>();
+						others.put(ref, list);
+					}
+					list.add(other);
+				} while(rs3.next());
+			}
+		}
 
-                		// Match - fieldnames
-                		result += rs2.getInt("ID");
-                		resRowOther[0] = rs2.getInt("ID")+"";
-                		for (int i=0;i<fieldnames.length;i++) {
-                			result += "\t" + rs2.getString(fieldnames[i]);
-                			resRowOther[i+1] = rs2.getString(fieldnames[i]);
-                		}
-                		for (int i=0;i<fieldnames.length;i++) result += "\t" + rs2.getDouble("SCORE" + i);
-                		
-                		// Match - otherTableDesires
-                		if (otherTable != null) {
-                			result += " (" + otherTable + ": ";
-                			sql = "SELECT " + DBKernel.delimitL("ID");
-                    		for (int i=0;i<otherTableDesires.length;i++) sql += "," + DBKernel.delimitL(otherTableDesires[i]);
-                    		sql += " FROM " + DBKernel.delimitL(otherTable) + " WHERE " + DBKernel.delimitL(otherTableField) + "=" + rs2.getInt("ID");
-                    		ResultSet rs3 = DBKernel.getResultSet(sql, false);
-                			if (rs3 != null && rs3.first()) {
-                            	do {
-                            		result += rs3.getInt("ID");
-                            		if (resRowOther[fieldnames.length+1] == null || resRowOther[fieldnames.length+1].isEmpty()) resRowOther[fieldnames.length+1] = rs3.getInt("ID")+"";
-                            		else resRowOther[fieldnames.length+1] += "," + rs3.getInt("ID")+"";
-                            		for (int i=0;i<otherTableDesires.length;i++) {
-                            			result += "\t" + rs3.getString(otherTableDesires[i]);
-                            			if (resRowOther[fieldnames.length+2+i] == null || resRowOther[fieldnames.length+2+i].isEmpty()) resRowOther[fieldnames.length+2+i] = rs3.getString(otherTableDesires[i]);
-                            			else resRowOther[fieldnames.length+2+i] += "," + rs3.getString(otherTableDesires[i]);
-                            		}
-                            	} while(rs3.next());
-                			}
-                			result += ")";
-                		}
-                		
-                		resSetOther.add(resRowOther);
-                		
-                		result += "\n";
-                		
-                	} while(rs2.next());
-                    ldResult.put(resRowFirst, resSetOther);
-                    if (ldResult.size() == 0) System.err.println(result);
-                }
-        	} while(rs.next());
-        }		
+		for (Map.Entry<Integer, List<Integer>> duplicates : finder.find().entrySet()) {
+			LinkedHashSet<String[]> resSetOther = new LinkedHashSet<>();
+			for (Integer otherId : duplicates.getValue()) {
+				resSetOther.add(getResRow4ISM(otherId, rows.get(otherId), others.get(otherId), otherTableDesires, false));
+			}
+			Integer id = duplicates.getKey();
+			ldResult.put(getResRow4ISM(id, rows.get(id), others.get(id), otherTableDesires, true), resSetOther);
+		}
 		return ldResult;
 	}
+	private String[] getResRow4ISM(int id, Object[] fieldVals, List<String[]> others, String[] otherTableDesires, boolean nullAsString) {
+		String[] resRow = new String[fieldVals.length + 1 + (otherTableDesires == null ? 0 : otherTableDesires.length + 1)];
+		resRow[0] = id+"";
+		for (int i=0;i<fieldVals.length;i++) resRow[i+1] = fieldVals[i] == null && !nullAsString ? null : fieldVals[i]+""; // the checked row has always shown "null"
+		if (others != null) {
+			for (String[] other : others) {
+				for (int i=0;i<other.length;i++) {
+					if (resRow[fieldVals.length+1+i] == null || resRow[fieldVals.length+1+i].isEmpty()) resRow[fieldVals.length+1+i] = other[i];
+					else resRow[fieldVals.length+1+i] += "," + other[i];
+				}
+			}
+		}
+		return resRow;
+	}
 	private void go4Table(final String tn, final Vector<String> result, final int id1, final int id2, final MyTable myT, final boolean showOnlyDataFromCurrentUser) {
 		if (!tn.equals("Users")) {
 			if (id1 < 0 && id2 < 0 &&
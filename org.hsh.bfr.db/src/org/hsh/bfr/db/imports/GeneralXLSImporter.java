@@ -29,15 +29,19 @@ import java.io.FileInputStream;
 import java.io.InputStream;
 import java.net.URL;
 import java.net.URLConnection;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Hashtable;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Vector;
@@ -50,11 +54,11 @@ import org.apache.poi.hssf.usermodel.HSSFRow;
 import org.apache.poi.hssf.usermodel.HSSFSheet;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.poifs.filesystem.POIFSFileSystem;
-import org.apache.poi.ss.usermodel.Row;
 import org.hsh.bfr.db.DBKernel;
 import org.hsh.bfr.db.Levenshtein;
 import org.hsh.bfr.db.MyLogger;
 import org.hsh.bfr.db.MyTable;
+import org.hsh.bfr.db.MyTrigger;
 import org.hsh.bfr.db.gui.InfoBox;
 import org.hsh.bfr.db.gui.dbtable.MyDBTable;
 import org.hsh.bfr.db.gui.dbtree.MyDBTree;
@@ -65,7 +69,10 @@ import org.hsh.bfr.db.gui.dbtree.MyDBTree;
  */
 public class GeneralXLSImporter extends FileFilter implements MyImporter {
 
+	private static final int CHUNK_SIZE = 1000; // rows per transaction in bulk imports
+
 	private boolean takecareofID = false; // in case of INSERTs!!!
+	private boolean bulkImport = false;
 
 	public GeneralXLSImporter() {
 	}
@@ -74,6 +81,17 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 		this.takecareofID = takecareofID;
 	}
 
+	/**
+	 * @param bulkImport imports CHUNK_SIZE rows per transaction and writes the ChangeLog once per chunk. Rows that need no generated ID
+	 * afterwards, i.e. of sheets without foreign table, code or Kennzahl columns, are executed as JDBC batches. Sheets with such columns,
+	 * e.g. Lieferungen or Station, are still imported row by row: every row inserts new rows into its foreign tables and links them with
+	 * the generated ID of the row, so the foreign keys cannot be resolved through lookup maps of existing rows.
+	 */
+	public GeneralXLSImporter(boolean takecareofID, boolean bulkImport) {
+		this.takecareofID = takecareofID;
+		this.bulkImport = bulkImport;
+	}
+
 	/**
 	 * This is the one of the methods that is declared in the abstract class
 	 */
@@ -98,7 +116,15 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 
 	public String doImport(final String filename, final JProgressBar progress, final boolean showResults) {
 		Runnable runnable = new Runnable() {
+			private int numSuccess = 0;
+			private int numFailed = 0;
+			// bulk import: the batched statement and the sheet rows of its batch
+			private PreparedStatement batch = null;
+			private Vector<Integer> batchRows = new Vector<>();
+
 			public void run() {
+				Connection conn = null;
+				boolean autoCommit = true;
 				try {
 					if (progress != null) {
 						progress.setVisible(true);
@@ -124,8 +150,13 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 					HSSFSheet sheet;
 					HSSFRow row;
 
-					int numSuccess = 0;
-					int numFailed = 0;
+					if (bulkImport) {
+						conn = DBKernel.getDBConnection();
+						autoCommit = conn.getAutoCommit();
+						conn.setAutoCommit(false);
+						MyTrigger.deferChangeLog();
+					}
+
 					String unusedFields = "";
 					for (int i = 0; i < wb.getNumberOfSheets(); i++) {
 						sheet = wb.getSheetAt(i);
@@ -201,6 +232,7 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 								}
 								LinkedHashMap<MyTable, PreparedStatement> psForeign = new LinkedHashMap<>();
 								LinkedHashMap<MyTable, PreparedStatement> psForeignUpdate = new LinkedHashMap<>();
+								LinkedHashMap<MyTable, PreparedStatement> psForeignLink = new LinkedHashMap<>();
 								for (Map.Entry<MyTable, Vector<Integer>> entry : foreignTables.entrySet()) {
 									Vector<Integer> vs = entry.getValue();
 									String ssql1 = "", ssql2 = "", ssql3 = "";
@@ -216,14 +248,43 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 										sql = "UPDATE " + DBKernel.delimitL(entry.getKey().getTablename()) + " SET " + ssql3.substring(1) + " WHERE " + DBKernel.delimitL("ID")
 												+ "=?";
 										psForeignUpdate.put(entry.getKey(), DBKernel.getDBConnection().prepareStatement(sql));
+										// Das erstbeste Feld, das auf den Fremdtable verweist, wird mit dem Neueintrag verlinkt
+										MyTable[] foreignTs = myT.getForeignFields();
+										for (int ii = 0; ii < foreignTs.length; ii++) {
+											if (foreignTs[ii] != null && foreignTs[ii].equals(entry.getKey())) {
+												sql = "UPDATE " + DBKernel.delimitL(tableName) + " SET " + DBKernel.delimitL(myT.getFieldNames()[ii]) + "=? WHERE "
+														+ DBKernel.delimitL("ID") + "=?";
+												psForeignLink.put(entry.getKey(), DBKernel.getDBConnection().prepareStatement(sql));
+												break;
+											}
+										}
 									}
 								}
 
 								LinkedHashMap<Object, String> hashBL = null;
-								Iterator<Row> rows = sheet.rowIterator();
-								int lfd = 0;
-								while (rows.hasNext()) {
-									row = (HSSFRow) rows.next();
+								boolean doBatch = bulkImport && psForeign.isEmpty() && codeSql1.isEmpty() && !hasKZ(kzS);
+								HashSet<Integer> existingIDs = bulkImport ? getIDs(tableName) : null;
+								// on the import connection, which sees the rows of the open chunk
+								PreparedStatement psHasID = bulkImport ? conn.prepareStatement("SELECT " + DBKernel.delimitL("ID") + " FROM " + DBKernel.delimitL(tableName)
+										+ " WHERE " + DBKernel.delimitL("ID") + "=?") : null;
+								int maxExistingID = existingIDs == null || existingIDs.isEmpty() ? 0 : Collections.max(existingIDs);
+								int idColumn = getIDColumn(fieldNames, fieldTypes, myForeignTables, ffieldTypes);
+								int chunkRows = 0;
+								int rowNum = 0;
+								while (rowNum <= numRows) {
+									row = sheet.getRow(rowNum);
+									if (row == null) {
+										rowNum++;
+										continue;
+									}
+									if (batch == ps && rowNum > 0 && isNewID(row, idColumn, maxExistingID)) {
+										// the ID might have been generated for one of the batched rows
+										int failedRow = executeBatch();
+										if (failedRow >= 0) {
+											rowNum = failedRow + 1;
+											continue;
+										}
+									}
 									boolean setID = false;
 									Integer lastID = null;
 									ps.clearParameters();
@@ -291,7 +352,11 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 											} else if (fieldNames[j].equals("ID")) {
 												lastID = manageInteger(null, null, 0, row.getCell(j));
 												if (lastID != null) {
-													if (DBKernel.hasID(tableName, lastID.intValue())) {
+													boolean exists;
+													if (existingIDs == null) exists = DBKernel.hasID(tableName, lastID.intValue());
+													else if (lastID <= maxExistingID) exists = existingIDs.contains(lastID);
+													else exists = hasID(psHasID, lastID);
+													if (exists) {
 														psUpdate.setInt(idCol, lastID.intValue());
 														setID = true;
 													}
@@ -305,7 +370,19 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 											}
 										}
 										try {
-											if (setID) {
+											if (doBatch) {
+												PreparedStatement stmt = setID ? psUpdate : ps;
+												if (batch != null && batch != stmt) {
+													int failedRow = executeBatch();
+													if (failedRow >= 0) {
+														rowNum = failedRow + 1;
+														continue;
+													}
+												}
+												stmt.addBatch();
+												batch = stmt;
+												batchRows.add(rowNum);
+											} else if (setID) {
 												psUpdate.execute();
 											} else {
 												if (ps.executeUpdate() > 0) {// execute()
@@ -314,7 +391,7 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 													System.err.println("W");
 												}
 											}
-											numSuccess++;
+											if (!doBatch) numSuccess++; // batched rows are counted when the batch is executed
 											if (lastID != null) {
 												for (int j = 0; j < numCols; j++) {
 													if (dbFieldnames[j] != null && kzVal[j] != null) {
@@ -334,19 +411,17 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 													}
 												}
 
-												for (Map.Entry<MyTable, PreparedStatement> entry : psForeign.entrySet()) {
+												for (Map.Entry<MyTable, PreparedStatement> entry : psForeignLink.entrySet()) {
 													MyTable myT1 = entry.getKey();
-													MyTable[] foreignTs = myT.getForeignFields();
-													for (int ii = 0; ii < foreignTs.length; ii++) {
-														if (foreignTs[ii] != null && foreignTs[ii].equals(myT1)) {
-															if (psForeign.get(myT1).executeUpdate() > 0) { // INSERT
-																int lID = DBKernel.getLastInsertedID(psForeign.get(myT1));
-																// Das erstbeste Feld, das auf den Fremdtable verweist, wird mit dem Neueintrag verlinkt
-																DBKernel.sendRequest(
-																		"UPDATE " + DBKernel.delimitL(tableName) + " SET " + DBKernel.delimitL(myT.getFieldNames()[ii]) + "=" + lID
-																				+ " WHERE " + DBKernel.delimitL("ID") + "=" + lastID, false);
-															}
-															break;
+													if (psForeign.get(myT1).executeUpdate() > 0) { // INSERT
+														PreparedStatement psLink = entry.getValue();
+														psLink.setInt(1, DBKernel.getLastInsertedID(psForeign.get(myT1)));
+														psLink.setInt(2, lastID);
+														try {
+															psLink.execute();
+														} catch (SQLException e1) {
+															MyLogger.handleMessage(psLink.toString());
+															MyLogger.handleException(e1);
 														}
 													}
 												}
@@ -386,9 +461,15 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 											MyLogger.handleException(e1);
 										}
 									}
+									rowNum++;
 									if (progress != null) {
-										lfd++;
-										progress.setValue(lfd);
+										progress.setValue(rowNum);
+									}
+									if (bulkImport && (++chunkRows >= CHUNK_SIZE || rowNum > numRows)) {
+										int failedRow = executeBatch();
+										if (failedRow >= 0) rowNum = failedRow + 1;
+										MyTrigger.commitDeferredChangeLog(conn);
+										chunkRows = 0;
 									}
 								}
 							}
@@ -429,7 +510,39 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 					}
 				} catch (Exception e) {
 					MyLogger.handleException(e);
+				} finally {
+					if (conn != null) finishBulkImport(conn, autoCommit);
+					MyTrigger.flushChangeLog();
+				}
+			}
+
+			/**
+			 * Executes the batch of the bulk import.
+			 * @return the sheet row that failed or -1. The driver stops at a failing statement, so the rows after it have to be imported again.
+			 */
+			private int executeBatch() throws SQLException {
+				if (batch == null) return -1;
+				int[] counts;
+				try {
+					counts = batch.executeBatch();
+				} catch (BatchUpdateException e) {
+					MyLogger.handleException(e);
+					counts = e.getUpdateCounts() == null ? new int[0] : e.getUpdateCounts();
+				}
+				int executed = Math.min(counts.length, batchRows.size());
+				for (int i = 0; i < executed; i++) {
+					if (counts[i] == Statement.EXECUTE_FAILED) numFailed++;
+					else numSuccess++;
 				}
+				int failedRow = -1;
+				if (executed < batchRows.size()) {
+					numFailed++;
+					failedRow = batchRows.get(executed);
+				}
+				batch.clearBatch();
+				batch = null;
+				batchRows.clear();
+				return failedRow;
 			}
 		};
 
@@ -454,6 +567,69 @@ public class GeneralXLSImporter extends FileFilter implements MyImporter {
 	 * i=0;i<fieldNames.length;i++) { result[i] = getType(fieldNames[i], myT); }
 	 * return result; }
 	 */
+	/**
+	 * Keeps the rows that were executed before an error, as without a bulk import.
+	 */
+	private void finishBulkImport(Connection conn, boolean autoCommit) {
+		try {
+			MyTrigger.commitDeferredChangeLog(conn);
+		} catch (SQLException e) {
+			MyLogger.handleException(e);
+		} finally {
+			MyTrigger.stopDeferringChangeLog();
+			try {
+				DBKernel.setAutoCommit(conn, autoCommit);
+			} catch (SQLException e) {
+				MyLogger.handleException(e);
+			}
+		}
+	}
+
+	private HashSet<Integer> getIDs(String tableName) throws SQLException {
+		HashSet<Integer> result = new HashSet<>();
+		ResultSet rs = DBKernel.getResultSet("SELECT " + DBKernel.delimitL("ID") + " FROM " + DBKernel.delimitL(tableName), false);
+		if (rs != null && rs.first()) {
+			do {
+				result.add(rs.getInt(1));
+			} while (rs.next());
+		}
+		return result;
+	}
+
+	private boolean hasID(PreparedStatement psHasID, int id) throws SQLException {
+		psHasID.setInt(1, id);
+		ResultSet rs = psHasID.executeQuery();
+		try {
+			return rs.next();
+		} finally {
+			rs.close();
+		}
+	}
+
+	private boolean hasKZ(String[] kzS) {
+		for (String kz : kzS) {
+			if (kz != null) return true;
+		}
+		return false;
+	}
+
+	private int getIDColumn(String[] fieldNames, String[] fieldTypes, MyTable[] myForeignTables, String[] ffieldTypes) {
+		for (int j = 0; j < fieldNames.length; j++) {
+			if (fieldTypes[j] == null && (myForeignTables[j] == null || ffieldTypes[j] == null) && fieldNames[j].equals("ID")) return j;
+		}
+		return -1;
+	}
+
+	private boolean isNewID(HSSFRow row, int idColumn, int maxExistingID) {
+		if (idColumn < 0) return false;
+		try {
+			Integer id = manageInteger(null, null, 0, row.getCell(idColumn));
+			return id != null && id > maxExistingID;
+		} catch (Exception e) {
+			return false;
+		}
+	}
+
 	private String getType(String fieldName, MyTable myT, boolean takecareofID) {
 		if (takecareofID && fieldName.equalsIgnoreCase("id")) return "INTEGER";
 		String result = null;